@@ -0,0 +1,93 @@
+package es.prueba.jorge.commons;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import es.prueba.jorge.model.DatosCRUD;
+import es.prueba.jorge.model.Email;
+import es.prueba.jorge.model.Perfil;
+import es.prueba.jorge.model.Persona;
+import es.prueba.jorge.model.Telefono;
+import es.prueba.jorge.model.Usuario;
+import es.prueba.jorge.model.UsuarioId;
+
+/**
+ * Compara las búsquedas aleatorias por identidad en un {@link IntEntityMap} frente a un
+ * {@code HashMap<UsuarioId, Usuario>}.
+ *
+ * @author Jorge García Villanueva &lt;Jorgegv95@gmail.com&gt;
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(value = 1, jvmArgsAppend = {"-Xms12g", "-Xmx12g"})
+@SuppressWarnings({"javadoc", "nls"})
+public class IntEntityMapBenchmark {
+  /** Número de búsquedas precalculadas, potencia de 2. */
+  private static final int LOOKUPS = 1 << 20;
+
+  @Param({"10000000"})
+  public int size;
+
+  private IntEntityMap<Usuario, UsuarioId> intMap;
+  private Map<UsuarioId, Usuario> hashMap;
+  private int[] ids;
+  private UsuarioId[] identities;
+  private int next;
+
+  @Setup
+  public void setup() {
+    final Persona persona = Persona.builder().withNombre("Nombre").withApellido1("Apellido").build();
+    final Email email = Email.of("buzon@empresa.es");
+    final Telefono telefono = Telefono.of("912345678");
+    final Instant now = Instant.now();
+
+    intMap = new IntEntityMap<>(size);
+    hashMap = new HashMap<>((int) (size / 0.75f) + 1);
+    for (int i = 0; i < size; i++) {
+      final UsuarioId id = new UsuarioId(i);
+      final Usuario usuario = Usuario.builder(id).withPersona(persona).withPerfil(Perfil.CLIENTE)
+          .withEmail(email).withTelefono(telefono).withUltimaVisita(now)
+          .withDatosAlta(new DatosCRUD(id, now)).build();
+      intMap.put(usuario);
+      hashMap.put(id, usuario);
+    }
+
+    final Random random = new Random(42);
+    ids = new int[LOOKUPS];
+    identities = new UsuarioId[LOOKUPS];
+    for (int i = 0; i < LOOKUPS; i++) {
+      ids[i] = random.nextInt(size);
+      identities[i] = new UsuarioId(ids[i]);
+    }
+  }
+
+  @Benchmark
+  public Usuario intEntityMapGet() {
+    return intMap.get(ids[next++ & (LOOKUPS - 1)]);
+  }
+
+  @Benchmark
+  public Usuario hashMapGet() {
+    return hashMap.get(identities[next++ & (LOOKUPS - 1)]);
+  }
+
+  @Benchmark
+  public Usuario hashMapGetNewKey() {
+    // Caso habitual: la identidad se construye a partir del id recibido
+    return hashMap.get(new UsuarioId(ids[next++ & (LOOKUPS - 1)]));
+  }
+}
@@ -0,0 +1,86 @@
+package es.prueba.jorge.commons;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Mide el coste por evento de las métricas de {@link MetricRegistry}: incrementar un
+ * {@link Counter}, registrar una duración ya medida en un {@link Histogram} y medir y registrar
+ * una duración con {@link Histogram#recordSince(long)}, que es lo que añade cada método
+ * instrumentado, leyendo el reloj al empezar y al terminar o sólo al terminar si se encadena con
+ * el final de la anterior. El objetivo es menos de 50 ns por evento; con {@code -t} se mide con
+ * varios hilos registrando a la vez en las mismas métricas.
+ *
+ * @author Jorge García Villanueva &lt;Jorgegv95@gmail.com&gt;
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@SuppressWarnings({"javadoc", "nls"})
+public class MetricsBenchmark {
+  /** Número de duraciones precalculadas, potencia de 2. */
+  private static final int DURATIONS = 1 << 12;
+
+  private Counter counter;
+  private Histogram histogram;
+  private long[] durations;
+
+  /** Posición en {@link #durations} de cada hilo */
+  @State(Scope.Thread)
+  public static class Cursor {
+    int next;
+    /** Final de la última duración encadenada */
+    long end = System.nanoTime();
+  }
+
+  @Setup
+  public void setup() {
+    final MetricRegistry registry = new MetricRegistry();
+    counter = registry.counter("benchmark_total", "Eventos");
+    histogram = registry.histogram("benchmark_seconds", "Duraciones", "tipo", "benchmark");
+    // Duraciones de 100 ns a 1 s repartidas por todos los intervalos
+    final Random random = new Random(42);
+    durations = new long[DURATIONS];
+    for (int i = 0; i < DURATIONS; i++) {
+      durations[i] = (long) Math.pow(10, 2 + (random.nextDouble() * 7));
+    }
+  }
+
+  @Benchmark
+  public long baseline(final Cursor cursor) {
+    return durations[cursor.next++ & (DURATIONS - 1)];
+  }
+
+  @Benchmark
+  public void counterIncrement() {
+    counter.increment();
+  }
+
+  @Benchmark
+  public void histogramRecord(final Cursor cursor) {
+    histogram.record(durations[cursor.next++ & (DURATIONS - 1)]);
+  }
+
+  @Benchmark
+  public void histogramRecordSince() {
+    histogram.recordSince(System.nanoTime());
+  }
+
+  @Benchmark
+  public void histogramRecordChained(final Cursor cursor) {
+    cursor.end = histogram.recordSince(cursor.end);
+  }
+
+  @Benchmark
+  public long nanoTime() {
+    return System.nanoTime();
+  }
+}
@@ -0,0 +1,63 @@
+package es.prueba.jorge.model;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks de los {@code compareTo} basados en {@code ComparisonChain} de {@link Persona},
+ * {@link Direccion} y {@link DatosCRUD}.
+ * <p>
+ * Los pares a comparar difieren en el último atributo para recorrer la cadena completa.
+ *
+ * @author Jorge García Villanueva &lt;Jorgegv95@gmail.com&gt;
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@SuppressWarnings({"javadoc", "nls"})
+public class ComparisonBenchmark {
+  private Persona persona1;
+  private Persona persona2;
+  private Direccion direccion1;
+  private Direccion direccion2;
+  private DatosCRUD datos1;
+  private DatosCRUD datos2;
+
+  @Setup
+  public void setup() {
+    persona1 = Persona.builder().withNombre("Jorge").withApellido1("García")
+        .withApellido2("Villanueva").build();
+    persona2 = Persona.builder().withNombre("Jorge").withApellido1("García")
+        .withApellido2("Villanuev").build();
+    direccion1 = Direccion.builder().withDireccion("Calle Mayor 1").withCodigoPostal(28013)
+        .withPoblacion("Madrid").withProvincia("Madrid").build();
+    direccion2 = Direccion.builder().withDireccion("Calle Mayor 1").withCodigoPostal(28013)
+        .withPoblacion("Madrid").withProvincia("Madrid ").build();
+    final Instant now = Instant.now();
+    datos1 = new DatosCRUD(new UsuarioId(1), now);
+    datos2 = new DatosCRUD(new UsuarioId(2), now);
+  }
+
+  @Benchmark
+  public int personaCompareTo() {
+    return persona1.compareTo(persona2);
+  }
+
+  @Benchmark
+  public int direccionCompareTo() {
+    return direccion1.compareTo(direccion2);
+  }
+
+  @Benchmark
+  public int datosCRUDCompareTo() {
+    return datos1.compareTo(datos2);
+  }
+}
@@ -0,0 +1,83 @@
+package es.prueba.jorge.model;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks de {@link Usuario}: construcción mediante {@link Usuario.Builder} y las operaciones
+ * de {@link es.prueba.jorge.commons.Entity Entity} ({@code hashCode}, {@code equals} y
+ * {@code compareTo}).
+ *
+ * @author Jorge García Villanueva &lt;Jorgegv95@gmail.com&gt;
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@SuppressWarnings({"javadoc", "nls"})
+public class UsuarioBenchmark {
+  private UsuarioId usuarioId;
+  private Persona persona;
+  private Telefono telefono;
+  private Email email;
+  private DatosCRUD alta;
+  private Instant ultimaVisita;
+
+  private Usuario usuario1;
+  private Usuario usuario1Copia;
+  private Usuario usuario2;
+
+  @Setup
+  public void setup() {
+    usuarioId = new UsuarioId(1);
+    persona = Persona.builder().withNombre("Jorge").withApellido1("García")
+        .withApellido2("Villanueva").build();
+    telefono = new Telefono("912345678");
+    email = new Email("jorge@prueba.es");
+    ultimaVisita = Instant.now();
+    alta = new DatosCRUD(usuarioId, ultimaVisita);
+
+    usuario1 = build(usuarioId);
+    usuario1Copia = build(new UsuarioId(1));
+    usuario2 = build(new UsuarioId(2));
+  }
+
+  @Benchmark
+  public Usuario builder() {
+    return build(usuarioId);
+  }
+
+  @Benchmark
+  public int entityHashCode() {
+    // Usuario nuevo en cada llamada para no medir únicamente el valor cacheado
+    return build(usuarioId).hashCode();
+  }
+
+  @Benchmark
+  public int entityHashCodeCached() {
+    return usuario1.hashCode();
+  }
+
+  @Benchmark
+  public boolean entityEquals() {
+    return usuario1.equals(usuario1Copia);
+  }
+
+  @Benchmark
+  public int entityCompareTo() {
+    return usuario1.compareTo(usuario2);
+  }
+
+  private Usuario build(final UsuarioId id) {
+    return Usuario.builder(id).withPersona(persona).withPerfil(Perfil.CLIENTE)
+        .withTelefono(telefono).withEmail(email).withUltimaVisita(ultimaVisita)
+        .withDatosAlta(alta).build();
+  }
+}
@@ -0,0 +1,63 @@
+package es.prueba.jorge.model;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import org.openjdk.jol.info.GraphLayout;
+
+/**
+ * Mide la memoria retenida por una población sintética de {@link Usuario}s.
+ * <p>
+ * Compara la construcción de {@link Email} y {@link Telefono} mediante constructor frente a las
+ * factorías canónicas {@link Email#of(String)} y {@link Telefono#of(String)}. Las cadenas se
+ * crean nuevas para cada usuario, como ocurre al leerlas de una importación.
+ * <p>
+ * Uso: {@code ./gradlew footprint [-Pusuarios=1000000]}
+ *
+ * @author Jorge García Villanueva &lt;Jorgegv95@gmail.com&gt;
+ */
+@SuppressWarnings({"javadoc", "nls"})
+public final class UsuarioFootprint {
+  /** Un email distinto por cada {@value} usuarios (buzones genéricos). */
+  private static final int USUARIOS_POR_EMAIL = 10;
+  /** Un teléfono distinto por cada {@value} usuarios (centralitas corporativas). */
+  private static final int USUARIOS_POR_TELEFONO = 50;
+
+  public static void main(final String[] args) {
+    final int usuarios = (args.length > 0) ? Integer.parseInt(args[0]) : 1_000_000;
+
+    final long ctor = measure(usuarios, Email::new, Telefono::new);
+    final long flyweight = measure(usuarios, Email::of, Telefono::of);
+
+    System.out.printf("usuarios=%d%n", usuarios);
+    System.out.printf("constructor: %,d bytes (%d bytes/usuario)%n", ctor, ctor / usuarios);
+    System.out.printf("of():        %,d bytes (%d bytes/usuario)%n", flyweight,
+        flyweight / usuarios);
+    System.out.printf("ahorro:      %,d bytes (%.1f%%)%n", ctor - flyweight,
+        (100.0 * (ctor - flyweight)) / ctor);
+    System.out.printf("Email.of %s%nTelefono.of %s%n", Email.cacheStats(), Telefono.cacheStats());
+  }
+
+  private static long measure(final int usuarios, final Function<String, Email> emails,
+      final Function<String, Telefono> telefonos) {
+    final Persona persona =
+        Persona.builder().withNombre("Nombre").withApellido1("Apellido").build();
+    final Instant now = Instant.now();
+    final List<Usuario> poblacion = new ArrayList<>(usuarios);
+    for (int i = 0; i < usuarios; i++) {
+      final UsuarioId id = new UsuarioId(i);
+      poblacion.add(Usuario.builder(id).withPersona(persona).withPerfil(Perfil.CLIENTE)
+          .withEmail(emails.apply("buzon" + (i / USUARIOS_POR_EMAIL) + "@empresa.es"))
+          .withTelefono(
+              telefonos.apply(Integer.toString(600_000_000 + (i / USUARIOS_POR_TELEFONO))))
+          .withUltimaVisita(now).withDatosAlta(new DatosCRUD(id, now)).build());
+    }
+    return GraphLayout.parseInstance(poblacion).totalSize();
+  }
+
+  private UsuarioFootprint() {
+    // Nothing to do
+  }
+}
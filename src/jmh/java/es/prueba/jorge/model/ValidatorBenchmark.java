@@ -0,0 +1,78 @@
+package es.prueba.jorge.model;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Compara {@link EmailValidator} y {@link TelefonoValidator} con las expresiones regulares
+ * equivalentes ya compiladas, tanto en llamadas individuales como en bloque.
+ *
+ * @author Jorge García Villanueva &lt;Jorgegv95@gmail.com&gt;
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@SuppressWarnings({"javadoc", "nls"})
+public class ValidatorBenchmark {
+  private static final int BATCH = 1024;
+
+  private static final Pattern EMAIL = Pattern.compile("^[_A-Za-z0-9-\\+]+(\\.[_A-Za-z0-9-]+)*@"
+      + "[A-Za-z0-9-]+(\\.[A-Za-z0-9]+)*(\\.[A-Za-z]{2,})$");
+
+  private static final Pattern TELEFONO = Pattern.compile("[1-9][0-9]{8}");
+
+  @Param({"usuario.nombre+tag@correo.dominio.es"})
+  public String email;
+
+  @Param({"912345678"})
+  public String telefono;
+
+  private List<String> emails;
+
+  @Setup
+  public void setup() {
+    emails = new ArrayList<>(BATCH);
+    for (int i = 0; i < BATCH; i++) {
+      emails.add(((i % 10) == 0) ? ("invalido" + i + "@") : ("usuario" + i + "@dominio.es"));
+    }
+  }
+
+  @Benchmark
+  public boolean emailRegex() {
+    return EMAIL.matcher(email).matches();
+  }
+
+  @Benchmark
+  public boolean emailValidator() {
+    return EmailValidator.INSTANCE.matches(email);
+  }
+
+  @Benchmark
+  public boolean telefonoRegex() {
+    return TELEFONO.matcher(telefono).matches();
+  }
+
+  @Benchmark
+  public boolean telefonoValidator() {
+    return TelefonoValidator.INSTANCE.matches(telefono);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(BATCH)
+  public BitSet emailValidateAll() {
+    return EmailValidator.INSTANCE.validateAll(emails);
+  }
+}
@@ -0,0 +1,54 @@
+package es.prueba.jorge.model;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks de las validaciones y factorías de los <i>ValueObjects</i> de
+ * {@code es.prueba.jorge.model}.
+ *
+ * @author Jorge García Villanueva &lt;Jorgegv95@gmail.com&gt;
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@SuppressWarnings({"javadoc", "nls"})
+public class ValueObjectBenchmark {
+  @State(Scope.Benchmark)
+  public static class EmailState {
+    @Param({"usuario.nombre@dominio.es", "no-es-un-email@"})
+    public String value;
+  }
+
+  @State(Scope.Benchmark)
+  public static class TelefonoState {
+    @Param({"912345678", "012345678"})
+    public String value;
+  }
+
+  @Benchmark
+  public boolean emailIsValid(final EmailState state) {
+    return Email.isValid(state.value);
+  }
+
+  @Benchmark
+  public boolean telefonoIsValid(final TelefonoState state) {
+    return Telefono.isValid(state.value);
+  }
+
+  @Benchmark
+  public Perfil perfilValueOf() {
+    return Perfil.valueOf("CLIENTE");
+  }
+
+  @Benchmark
+  public TipoCRUD tipoCRUDValueOf() {
+    return TipoCRUD.valueOf("MOD");
+  }
+}
@@ -0,0 +1,119 @@
+package es.prueba.jorge.model.reparto;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import es.prueba.jorge.model.DatosCRUD;
+import es.prueba.jorge.model.Email;
+import es.prueba.jorge.model.Perfil;
+import es.prueba.jorge.model.Persona;
+import es.prueba.jorge.model.Solicitud;
+import es.prueba.jorge.model.SolicitudId;
+import es.prueba.jorge.model.Telefono;
+import es.prueba.jorge.model.Usuario;
+import es.prueba.jorge.model.UsuarioId;
+
+/**
+ * Reparto de 1M de {@link Solicitud}es entre 1k {@link Usuario}s con cada
+ * {@link EstrategiaReparto}. Tras cada iteración se imprimen las medidas de equidad del
+ * {@link ResultadoReparto}.
+ *
+ * @author Jorge García Villanueva &lt;Jorgegv95@gmail.com&gt;
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@SuppressWarnings({"javadoc", "nls"})
+public class RepartoBenchmark {
+  @Param({"roundRobin", "menosCargado", "porSolicitante"})
+  public String estrategia;
+
+  @Param({"1000000"})
+  public int solicitudes;
+
+  @Param({"1000"})
+  public int usuarios;
+
+  /** Número de solicitantes distintos. */
+  @Param({"50000"})
+  public int solicitantes;
+
+  private ExecutorService executor;
+  private RepartoSolicitudes reparto;
+  private List<Solicitud> pendientes;
+  private List<Usuario> candidatos;
+  private ResultadoReparto ultimo;
+
+  @Setup
+  public void setup() {
+    final int procesadores = Runtime.getRuntime().availableProcessors();
+    executor = Executors.newScheduledThreadPool(procesadores);
+    reparto = new RepartoSolicitudes(executor, procesadores);
+
+    final Persona persona =
+        Persona.builder().withNombre("Nombre").withApellido1("Apellido").build();
+    final Instant now = Instant.now();
+    candidatos = new ArrayList<>(usuarios);
+    for (int i = 0; i < usuarios; i++) {
+      final UsuarioId id = new UsuarioId(i);
+      candidatos.add(Usuario.builder(id).withPersona(persona).withPerfil(Perfil.EXTERNO)
+          .withEmail(Email.of("buzon@empresa.es")).withTelefono(Telefono.of("912345678"))
+          .withUltimaVisita(now).withDatosAlta(new DatosCRUD(id, now)).build());
+    }
+    pendientes = new ArrayList<>(solicitudes);
+    for (int i = 0; i < solicitudes; i++) {
+      pendientes.add(Solicitud.builder(new SolicitudId(i))
+          .withSolicitante("solicitante" + (i % solicitantes)).withRepartir(true).build());
+    }
+  }
+
+  @Benchmark
+  public ResultadoReparto repartir() {
+    ultimo = reparto.repartir(pendientes, candidatos, RepartoSolicitudes.conPerfil(Perfil.EXTERNO),
+        estrategia()).join();
+    return ultimo;
+  }
+
+  @TearDown(Level.Iteration)
+  public void equidad() {
+    System.out.printf("%n%s: %.0f solicitudes/s %s%n", estrategia,
+        ultimo.solicitudesPorSegundo(), ultimo);
+  }
+
+  @TearDown
+  public void tearDown() {
+    executor.shutdown();
+  }
+
+  private EstrategiaReparto estrategia() {
+    switch (estrategia) {
+      case "roundRobin":
+        return EstrategiaReparto.roundRobin();
+      case "menosCargado":
+        return EstrategiaReparto.menosCargado();
+      case "porSolicitante":
+        return EstrategiaReparto.porSolicitante();
+      default:
+        throw new IllegalArgumentException(estrategia);
+    }
+  }
+}
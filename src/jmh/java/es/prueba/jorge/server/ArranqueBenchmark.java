@@ -0,0 +1,275 @@
+package es.prueba.jorge.server;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.net.HttpURLConnection;
+import java.net.ServerSocket;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import es.prueba.jorge.server.config.ArranqueRapido;
+
+/**
+ * Arranque en frío de {@link PruebaApplication} en cada modo: tiempo desde que se lanza la JVM
+ * hasta que responde a la primera petición y memoria residente (RSS) en ese momento.
+ * <ul>
+ * <li>{@code normal}: sin perfil de arranque y sin el índice de componentes
+ * ({@code -Dspring.index.ignore=true}), como antes de introducirlos.
+ * <li>{@code arranque-rapido}: con el perfil {@link ArranqueRapido} y el índice.
+ * <li>{@code arranque-rapido+cds}: además, con el archivo AppCDS de {@code entrenar}, si existe.
+ * </ul>
+ * La primera petición es un {@code POST /auth/token} con credenciales inexistentes, que pasa por
+ * la seguridad y la base de datos (perfil {@code h2}) y se responde con un {@code 401}. Cada
+ * modo se arranca {@code rondas} veces en procesos nuevos y se muestra la mediana; el resultado se
+ * guarda en JSON para compararlo entre versiones. La RSS se lee de {@code /proc}, sólo en Linux.
+ * <p>
+ * {@code entrenar} hace un arranque de entrenamiento en modo {@code arranque-rapido} que vuelca
+ * las clases cargadas hasta la primera petición y genera con ellas el archivo AppCDS
+ * ({@code -Xshare:dump}, JDK 11+). AppCDS sólo archiva clases de JAR, por lo que el classpath ha de
+ * ser de JAR y el mismo al entrenar y al usar el archivo.
+ * <p>
+ * Uso: {@code ./gradlew arranqueCds arranqueBenchmark [-Prondas=5]}
+ *
+ * @author Jorge García Villanueva &lt;Jorgegv95@gmail.com&gt;
+ */
+@SuppressWarnings({"javadoc", "nls"})
+public final class ArranqueBenchmark {
+  /** Clases cargadas en el arranque de entrenamiento */
+  private static final String CLASES = "clases.lst";
+  /** Archivo AppCDS */
+  private static final String ARCHIVO = "app.jsa";
+  private static final long ESPERA_MAXIMA_NANOS = TimeUnit.MINUTES.toNanos(3);
+  /** Credenciales inexistentes de la primera petición, en el cuerpo como exige la aplicación */
+  private static final byte[] CREDENCIALES =
+      "{\"usuario\":\"0\",\"clave\":\"arranque\"}".getBytes(StandardCharsets.UTF_8);
+
+  /**
+   * @param args {@code entrenar <classpath> <directorio>} o
+   *        {@code medir <classpath> <directorio> <rondas> <resultado.json>}.
+   */
+  public static void main(final String[] args) throws Exception {
+    final String classpath = args[1];
+    final Path directorio = Files.createDirectories(Paths.get(args[2]));
+    if ("entrenar".equals(args[0])) {
+      entrenar(classpath, directorio);
+      return;
+    }
+    final int rondas = Integer.parseInt(args[3]);
+    final Path archivo = directorio.resolve(ARCHIVO);
+
+    final Map<String, List<String>> modos = new LinkedHashMap<>();
+    modos.put("normal", Arrays.asList("-Dspring.index.ignore=true"));
+    modos.put(ArranqueRapido.PERFIL, new ArrayList<>());
+    if (Files.exists(archivo)) {
+      modos.put(ArranqueRapido.PERFIL + "+cds",
+          Arrays.asList("-XX:SharedArchiveFile=" + archivo, "-Xshare:auto"));
+    } else {
+      System.out.printf("Sin %s: ejecutar antes ./gradlew arranqueCds%n", archivo);
+    }
+
+    final Map<String, Object> resultados = new LinkedHashMap<>();
+    System.out.printf("%-22s %14s %10s%n", "modo", "primera (ms)", "RSS (MB)");
+    for (final Map.Entry<String, List<String>> modo : modos.entrySet()) {
+      final boolean rapido = !"normal".equals(modo.getKey());
+      final long[] milis = new long[rondas];
+      final long[] rssKB = new long[rondas];
+      for (int i = 0; i < rondas; i++) {
+        final Arranque arranque =
+            arrancar(classpath, modo.getValue(), rapido, directorio.resolve("trabajo"));
+        try {
+          arranque.esperarPrimeraPeticion();
+          milis[i] = TimeUnit.NANOSECONDS.toMillis(arranque.primeraNanos);
+          rssKB[i] = arranque.rssKB();
+        } finally {
+          arranque.parar();
+        }
+      }
+      final long medianaMilis = mediana(milis);
+      final long medianaRssKB = mediana(rssKB);
+      System.out.printf("%-22s %14d %10.1f%n", modo.getKey(), medianaMilis,
+          medianaRssKB / 1024.0);
+      final Map<String, Object> resultado = new LinkedHashMap<>();
+      resultado.put("primeraPeticionMs", medianaMilis);
+      resultado.put("rssKB", medianaRssKB);
+      resultado.put("rondasMs", milis);
+      resultado.put("rondasRssKB", rssKB);
+      resultados.put(modo.getKey(), resultado);
+    }
+
+    final Path salida = Paths.get(args[4]);
+    Files.createDirectories(salida.toAbsolutePath().getParent());
+    new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(salida.toFile(),
+        resultados);
+    System.out.printf("Resultado en %s%n", salida);
+  }
+
+  /** Arranque de entrenamiento y generación del archivo AppCDS */
+  private static void entrenar(final String classpath, final Path directorio) throws Exception {
+    final Path clases = directorio.resolve(CLASES);
+    final Path archivo = directorio.resolve(ARCHIVO);
+    Files.deleteIfExists(archivo);
+    if (version() < 11) {
+      System.out.printf("AppCDS de la aplicación requiere JDK 11+, sin %s%n", archivo);
+      return;
+    }
+    final Arranque arranque = arrancar(classpath,
+        Arrays.asList("-XX:DumpLoadedClassList=" + clases), true, directorio.resolve("trabajo"));
+    try {
+      arranque.esperarPrimeraPeticion();
+      System.out.printf("Entrenamiento: primera petición a los %d ms%n",
+          TimeUnit.NANOSECONDS.toMillis(arranque.primeraNanos));
+    } finally {
+      // Al terminar de forma ordenada la JVM cierra la lista de clases
+      arranque.parar();
+    }
+
+    final Process volcado = new ProcessBuilder(java(), "-Xshare:dump",
+        "-XX:SharedClassListFile=" + clases, "-XX:SharedArchiveFile=" + archivo, "-cp",
+        classpath).redirectErrorStream(true)
+            .redirectOutput(directorio.resolve("volcado.log").toFile()).start();
+    if ((volcado.waitFor() != 0) || !Files.exists(archivo)) {
+      throw new IllegalStateException("No se ha generado " + archivo + ", ver "
+          + directorio.resolve("volcado.log"));
+    }
+    System.out.printf("Archivo AppCDS %s: %d clases, %.1f MB%n", archivo,
+        Files.readAllLines(clases).size(), Files.size(archivo) / (1024.0 * 1024.0));
+  }
+
+  private static Arranque arrancar(final String classpath, final List<String> opciones,
+      final boolean rapido, final Path trabajo) throws IOException {
+    final int puerto;
+    try (ServerSocket libre = new ServerSocket(0)) {
+      puerto = libre.getLocalPort();
+    }
+    Files.createDirectories(trabajo);
+    final List<String> comando = new ArrayList<>();
+    comando.add(java());
+    if (version() >= 9) {
+      // cglib define las clases de las configuraciones por reflexión
+      comando.add("--add-opens=java.base/java.lang=ALL-UNNAMED");
+    }
+    comando.addAll(opciones);
+    comando.addAll(Arrays.asList("-cp", classpath, PruebaApplication.class.getName(),
+        "--spring.profiles.active=h2" + (rapido ? ("," + ArranqueRapido.PERFIL) : ""),
+        "--server.port=" + puerto,
+        "--audit-journal.directory=" + trabajo.resolve("diario"),
+        "--audit-journal.snapshot-directory=" + trabajo.resolve("instantaneas"),
+        "--logging.level.root=WARN"));
+    final long inicio = System.nanoTime();
+    final Process proceso = new ProcessBuilder(comando).redirectErrorStream(true)
+        .redirectOutput(trabajo.resolve("arranque.log").toFile()).start();
+    return new Arranque(proceso, inicio,
+        new URL("http://localhost:" + puerto + "/auth/token"));
+  }
+
+  private static final class Arranque {
+    Arranque(final Process proceso, final long inicioNanos, final URL url) {
+      _proceso = proceso;
+      _inicioNanos = inicioNanos;
+      _url = url;
+    }
+
+    /** Reintenta la primera petición hasta que el servidor responde */
+    void esperarPrimeraPeticion() throws IOException, InterruptedException {
+      while ((System.nanoTime() - _inicioNanos) < ESPERA_MAXIMA_NANOS) {
+        if (!_proceso.isAlive()) {
+          throw new IllegalStateException("La aplicación ha terminado al arrancar");
+        }
+        try {
+          final HttpURLConnection conexion = (HttpURLConnection) _url.openConnection();
+          conexion.setRequestMethod("POST");
+          conexion.setDoOutput(true);
+          conexion.setRequestProperty("Content-Type", "application/json");
+          try (OutputStream out = conexion.getOutputStream()) {
+            out.write(CREDENCIALES);
+          }
+          final int estado = conexion.getResponseCode();
+          primeraNanos = System.nanoTime() - _inicioNanos;
+          try (InputStream in = (estado >= 400) ? conexion.getErrorStream()
+              : conexion.getInputStream()) {
+            while ((in != null) && (in.read() >= 0)) {
+              // Se consume la respuesta
+            }
+          }
+          return;
+        } catch (final IOException e) {
+          // Todavía no escucha
+          Thread.sleep(10);
+        }
+      }
+      throw new IllegalStateException("La aplicación no ha respondido a tiempo");
+    }
+
+    /** RSS del proceso en KB, o -1 si no se puede leer */
+    long rssKB() throws IOException {
+      final long pid = pid(_proceso);
+      final Path estado = Paths.get("/proc", Long.toString(pid), "status");
+      if ((pid < 0) || !Files.exists(estado)) {
+        return -1;
+      }
+      for (final String linea : Files.readAllLines(estado, StandardCharsets.UTF_8)) {
+        if (linea.startsWith("VmRSS:")) {
+          return Long.parseLong(linea.replaceAll("[^0-9]", ""));
+        }
+      }
+      return -1;
+    }
+
+    void parar() throws InterruptedException {
+      _proceso.destroy();
+      if (!_proceso.waitFor(30, TimeUnit.SECONDS)) {
+        _proceso.destroyForcibly().waitFor();
+      }
+    }
+
+    private final Process _proceso;
+    private final long _inicioNanos;
+    private final URL _url;
+    long primeraNanos;
+  }
+
+  /** {@code Process.pid()} de Java 9+, o -1 en Java 8 */
+  private static long pid(final Process proceso) {
+    try {
+      final Method pid = Process.class.getMethod("pid");
+      return ((Long) pid.invoke(proceso)).longValue();
+    } catch (final ReflectiveOperationException e) {
+      return -1;
+    }
+  }
+
+  /** Versión de Java: 8, 9, 10, 11... */
+  private static int version() {
+    final String version = System.getProperty("java.specification.version");
+    return version.startsWith("1.") ? Integer.parseInt(version.substring(2))
+        : Integer.parseInt(version);
+  }
+
+  private static String java() {
+    return Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+  }
+
+  private static long mediana(final long[] valores) {
+    final long[] ordenados = valores.clone();
+    Arrays.sort(ordenados);
+    return ordenados[ordenados.length / 2];
+  }
+
+  private ArranqueBenchmark() {
+    // Nothing to do
+  }
+}
@@ -0,0 +1,229 @@
+package es.prueba.jorge.server;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.ServerSocket;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import es.prueba.jorge.server.scheduling.VirtualThreads;
+
+/**
+ * Comparación de carga entre el modo de hilos de plataforma y el de hilos virtuales
+ * ({@code virtual-threads=true}) de {@link PruebaApplication} contra la base de datos embebida
+ * (perfil {@code h2}).
+ * <p>
+ * Cada modo se arranca en un proceso nuevo con un administrador inicial, se dan de alta
+ * {@value #USUARIOS} {@code Usuario}s con {@code POST /usuarios/lote} y, tras un calentamiento
+ * de {@value #CALENTAMIENTO} segundos, se mide con {@link LoadTest} {@code GET /usuarios}, que
+ * lee de la base de datos las versiones y los {@code Usuario}s de la página en cada petición. Se
+ * muestran las peticiones por segundo y las latencias p50/p99 de cada modo, y el resultado se
+ * guarda en JSON para compararlo entre versiones.
+ * <p>
+ * Los hilos virtuales requieren Java 21+: en JVM anteriores los dos modos usan hilos de
+ * plataforma y la comparación sólo mide el ruido entre arranques.
+ * <p>
+ * Uso: {@code ./gradlew cargaEmbebida [-Pconcurrencia=200] [-Psegundos=30]}
+ *
+ * @author Jorge García Villanueva &lt;Jorgegv95@gmail.com&gt;
+ */
+@SuppressWarnings({"javadoc", "nls"})
+public final class CargaEmbebida {
+  static final int USUARIOS = 10_000;
+  static final int POR_LOTE = 1_000;
+  static final int CALENTAMIENTO = 10;
+  static final String RUTA = "/usuarios?limite=20";
+  private static final String CLAVE = "carga-embebida";
+  private static final long ESPERA_MAXIMA_NANOS = TimeUnit.MINUTES.toNanos(3);
+
+  /**
+   * @param args {@code <classpath> <directorio> <concurrencia> <segundos> <resultado.json>}.
+   */
+  public static void main(final String[] args) throws Exception {
+    final String classpath = args[0];
+    final Path directorio = Files.createDirectories(Paths.get(args[1]));
+    final int concurrencia = Integer.parseInt(args[2]);
+    final long segundos = Long.parseLong(args[3]);
+    final String hilos = VirtualThreads.isSupported() ? "virtuales" : "plataforma";
+
+    final Map<String, Object> resultados = new LinkedHashMap<>();
+    System.out.printf("%-22s %-11s %12s %10s %10s %8s%n", "modo", "hilos", "peticiones/s",
+        "p50 (ms)", "p99 (ms)", "errores");
+    for (final boolean virtuales : new boolean[] {false, true}) {
+      final String modo = "virtual-threads=" + virtuales;
+      final Path trabajo = directorio.resolve(modo);
+      final Aplicacion aplicacion = arrancar(classpath, virtuales, trabajo);
+      final LoadTest.Medida medida;
+      try {
+        final String autorizacion = "Bearer " + aplicacion.token();
+        aplicacion.alta(autorizacion);
+        final URL url = aplicacion.url(RUTA);
+        LoadTest.medir(url, autorizacion, concurrencia, CALENTAMIENTO);
+        medida = LoadTest.medir(url, autorizacion, concurrencia, segundos);
+      } finally {
+        aplicacion.parar();
+      }
+      System.out.printf("%-22s %-11s %12.1f %10.2f %10.2f %8d%n", modo,
+          virtuales ? hilos : "plataforma", medida.peticionesPorSegundo(), medida.percentil(0.50),
+          medida.percentil(0.99), medida.errores);
+      final Map<String, Object> resultado = new LinkedHashMap<>();
+      resultado.put("hilos", virtuales ? hilos : "plataforma");
+      resultado.put("peticiones", medida.peticiones());
+      resultado.put("errores", medida.errores);
+      resultado.put("peticionesPorSegundo", medida.peticionesPorSegundo());
+      resultado.put("p50Ms", medida.percentil(0.50));
+      resultado.put("p99Ms", medida.percentil(0.99));
+      resultados.put(modo, resultado);
+    }
+    if (!VirtualThreads.isSupported()) {
+      System.out.printf("Java %s sin hilos virtuales: los dos modos usan hilos de plataforma%n",
+          System.getProperty("java.specification.version"));
+    }
+
+    final Map<String, Object> informe = new LinkedHashMap<>();
+    informe.put("java", System.getProperty("java.version"));
+    informe.put("procesadores", Runtime.getRuntime().availableProcessors());
+    informe.put("ruta", RUTA);
+    informe.put("concurrencia", concurrencia);
+    informe.put("segundos", segundos);
+    informe.put("modos", resultados);
+    final Path salida = Paths.get(args[4]);
+    Files.createDirectories(salida.toAbsolutePath().getParent());
+    new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(salida.toFile(),
+        informe);
+    System.out.printf("Resultado en %s%n", salida);
+  }
+
+  private static Aplicacion arrancar(final String classpath, final boolean virtuales,
+      final Path trabajo) throws IOException {
+    final int puerto;
+    try (ServerSocket libre = new ServerSocket(0)) {
+      puerto = libre.getLocalPort();
+    }
+    Files.createDirectories(trabajo);
+    final List<String> comando = new ArrayList<>();
+    comando.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+    if (!System.getProperty("java.specification.version").startsWith("1.")) {
+      // cglib define las clases de las configuraciones por reflexión
+      comando.add("--add-opens=java.base/java.lang=ALL-UNNAMED");
+    }
+    comando.add("-cp");
+    comando.add(classpath);
+    comando.add(PruebaApplication.class.getName());
+    comando.add("--spring.profiles.active=h2");
+    comando.add("--server.port=" + puerto);
+    comando.add("--virtual-threads=" + virtuales);
+    comando.add("--auth-admin.password={noop}" + CLAVE);
+    comando.add("--auth-admin.email=carga@empresa.es");
+    comando.add("--auth-admin.telephone=912345678");
+    comando.add("--audit-journal.directory=" + trabajo.resolve("diario"));
+    comando.add("--audit-journal.snapshot-directory=" + trabajo.resolve("instantaneas"));
+    comando.add("--logging.level.root=WARN");
+    final Process proceso = new ProcessBuilder(comando).redirectErrorStream(true)
+        .redirectOutput(trabajo.resolve("aplicacion.log").toFile()).start();
+    return new Aplicacion(proceso, "http://localhost:" + puerto);
+  }
+
+  private static final class Aplicacion {
+    Aplicacion(final Process proceso, final String base) {
+      _proceso = proceso;
+      _base = base;
+    }
+
+    URL url(final String ruta) throws IOException {
+      return new URL(_base + ruta);
+    }
+
+    /** Espera a que arranque y obtiene un token del administrador inicial */
+    String token() throws IOException, InterruptedException {
+      final long inicio = System.nanoTime();
+      final URL url = url("/auth/token");
+      final byte[] credenciales = ("{\"usuario\":\"0\",\"clave\":\"" + CLAVE + "\"}")
+          .getBytes(StandardCharsets.UTF_8);
+      while ((System.nanoTime() - inicio) < ESPERA_MAXIMA_NANOS) {
+        if (!_proceso.isAlive()) {
+          throw new IllegalStateException("La aplicación ha terminado al arrancar");
+        }
+        try {
+          final HttpURLConnection conexion = (HttpURLConnection) url.openConnection();
+          conexion.setRequestMethod("POST");
+          conexion.setDoOutput(true);
+          conexion.setRequestProperty("Content-Type", "application/json");
+          try (OutputStream out = conexion.getOutputStream()) {
+            out.write(credenciales);
+          }
+          try (InputStream in = conexion.getInputStream()) {
+            return new ObjectMapper().readTree(in).get("access_token").asText();
+          }
+        } catch (final IOException e) {
+          // Todavía no escucha
+          Thread.sleep(100);
+        }
+      }
+      throw new IllegalStateException("La aplicación no ha respondido a tiempo");
+    }
+
+    /** Da de alta {@value #USUARIOS} {@code Usuario}s en lotes de {@value #POR_LOTE} */
+    void alta(final String autorizacion) throws IOException {
+      final ObjectMapper mapper = new ObjectMapper();
+      final URL url = url("/usuarios/lote");
+      for (int desde = 0; desde < USUARIOS; desde += POR_LOTE) {
+        final List<Map<String, String>> lote = new ArrayList<>(POR_LOTE);
+        for (int i = desde; i < (desde + POR_LOTE); i++) {
+          final Map<String, String> usuario = new LinkedHashMap<>();
+          usuario.put("nombre", "Nombre" + i);
+          usuario.put("apellido1", "Apellido");
+          usuario.put("perfil", "CLIENTE");
+          usuario.put("telefono", Integer.toString(600_000_000 + i));
+          usuario.put("email", "buzon" + i + "@empresa.es");
+          lote.add(usuario);
+        }
+        final HttpURLConnection conexion = (HttpURLConnection) url.openConnection();
+        conexion.setRequestMethod("POST");
+        conexion.setDoOutput(true);
+        conexion.setRequestProperty("Authorization", autorizacion);
+        conexion.setRequestProperty("Content-Type", "application/json");
+        try (OutputStream out = conexion.getOutputStream()) {
+          out.write(mapper.writeValueAsString(lote).getBytes(StandardCharsets.UTF_8));
+        }
+        if (conexion.getResponseCode() != 200) {
+          throw new IllegalStateException("Alta de Usuarios: " + conexion.getResponseCode());
+        }
+        try (InputStream in = conexion.getInputStream()) {
+          for (final Object resultado : mapper.readValue(in, List.class)) {
+            if (((Map<?, ?>) resultado).containsKey("error")) {
+              throw new IllegalStateException("Alta de Usuarios: " + resultado);
+            }
+          }
+        }
+      }
+    }
+
+    void parar() throws InterruptedException {
+      _proceso.destroy();
+      if (!_proceso.waitFor(30, TimeUnit.SECONDS)) {
+        _proceso.destroyForcibly().waitFor();
+      }
+    }
+
+    private final Process _proceso;
+    private final String _base;
+  }
+
+  private CargaEmbebida() {
+    // Nothing to do
+  }
+}
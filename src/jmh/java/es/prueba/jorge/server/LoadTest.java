@@ -0,0 +1,169 @@
+package es.prueba.jorge.server;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generador de carga HTTP para comparar el modo de hilos de plataforma con el de hilos virtuales
+ * ({@code virtual-threads=true}).
+ * <p>
+ * Lanza {@code concurrencia} clientes que repiten peticiones {@code GET} a la URL indicada durante
+ * el tiempo indicado y muestra peticiones por segundo y latencias p50/p99/p999.
+ * <p>
+ * Uso: {@code ./gradlew loadTest -Purl=http://localhost:8080/... -Pconcurrencia=200
+ * -Psegundos=30 [-Pcredenciales=usuario:clave | "-Pcredenciales=Bearer <token>"]}
+ *
+ * @author Jorge García Villanueva &lt;Jorgegv95@gmail.com&gt;
+ */
+@SuppressWarnings({"javadoc", "nls"})
+public final class LoadTest {
+  public static void main(final String[] args) throws Exception {
+    final URL url = new URL(args[0]);
+    final int concurrencia = Integer.parseInt(args[1]);
+    final long segundos = Long.parseLong(args[2]);
+    final String autorizacion = (args.length > 3) && !args[3].isEmpty()
+        ? autorizacion(args[3])
+        : null;
+
+    final Medida medida = medir(url, autorizacion, concurrencia, segundos);
+    System.out.printf("url=%s concurrencia=%d segundos=%d%n", url, concurrencia, segundos);
+    System.out.printf("peticiones=%d errores=%d peticiones/s=%.1f%n", medida.peticiones(),
+        medida.errores, medida.peticionesPorSegundo());
+    System.out.printf("p50=%.2fms p99=%.2fms p999=%.2fms max=%.2fms%n", medida.percentil(0.50),
+        medida.percentil(0.99), medida.percentil(0.999), medida.percentil(1.0));
+  }
+
+  /**
+   * Repite peticiones {@code GET} a {@code url} con {@code concurrencia} clientes durante
+   * {@code segundos}.
+   *
+   * @param autorizacion cabecera {@code Authorization} de las peticiones, o {@code null}.
+   */
+  static Medida medir(final URL url, final String autorizacion, final int concurrencia,
+      final long segundos) throws Exception {
+    final ExecutorService clientes = Executors.newFixedThreadPool(concurrencia);
+    final long fin = System.nanoTime() + TimeUnit.SECONDS.toNanos(segundos);
+    final List<Future<Resultado>> futuros = new ArrayList<>(concurrencia);
+    for (int i = 0; i < concurrencia; i++) {
+      futuros.add(clientes.submit(() -> cliente(url, autorizacion, fin)));
+    }
+
+    long errores = 0;
+    final List<long[]> latencias = new ArrayList<>(concurrencia);
+    int total = 0;
+    try {
+      for (final Future<Resultado> futuro : futuros) {
+        final Resultado resultado = futuro.get();
+        errores += resultado.errores;
+        latencias.add(resultado.latencias);
+        total += resultado.latencias.length;
+      }
+    } finally {
+      clientes.shutdown();
+    }
+
+    final long[] todas = new long[total];
+    int pos = 0;
+    for (final long[] parcial : latencias) {
+      System.arraycopy(parcial, 0, todas, pos, parcial.length);
+      pos += parcial.length;
+    }
+    Arrays.sort(todas);
+    return new Medida(todas, errores, segundos);
+  }
+
+  /** {@code usuario:clave} para autenticación básica, o {@code Bearer <token>} */
+  static String autorizacion(final String credenciales) {
+    return credenciales.startsWith("Bearer ") ? credenciales
+        : ("Basic " + Base64.getEncoder()
+            .encodeToString(credenciales.getBytes(StandardCharsets.UTF_8)));
+  }
+
+  private static Resultado cliente(final URL url, final String autorizacion, final long fin) {
+    long[] latencias = new long[1024];
+    int n = 0;
+    long errores = 0;
+    final byte[] buffer = new byte[8192];
+    while (System.nanoTime() < fin) {
+      final long inicio = System.nanoTime();
+      try {
+        final HttpURLConnection conexion = (HttpURLConnection) url.openConnection();
+        if (autorizacion != null) {
+          conexion.setRequestProperty("Authorization", autorizacion);
+        }
+        if (conexion.getResponseCode() >= 400) {
+          errores++;
+        }
+        try (InputStream in = (conexion.getResponseCode() >= 400) ? conexion.getErrorStream()
+            : conexion.getInputStream()) {
+          while ((in != null) && (in.read(buffer) >= 0)) {
+            // Se consume la respuesta para reutilizar la conexión
+          }
+        }
+      } catch (final IOException e) {
+        errores++;
+      }
+      if (n == latencias.length) {
+        latencias = Arrays.copyOf(latencias, n * 2);
+      }
+      latencias[n++] = System.nanoTime() - inicio;
+    }
+    return new Resultado(Arrays.copyOf(latencias, n), errores);
+  }
+
+  /** Peticiones y latencias de una medida, de menor a mayor */
+  static final class Medida {
+    Medida(final long[] latencias, final long errores, final long segundos) {
+      _latencias = latencias;
+      this.errores = errores;
+      _segundos = segundos;
+    }
+
+    int peticiones() {
+      return _latencias.length;
+    }
+
+    double peticionesPorSegundo() {
+      return (double) _latencias.length / _segundos;
+    }
+
+    /** Percentil de la latencia en milisegundos */
+    double percentil(final double percentil) {
+      if (_latencias.length == 0) {
+        return 0;
+      }
+      final int indice = (int) Math.min(_latencias.length - 1,
+          Math.max(0, Math.ceil(percentil * _latencias.length) - 1));
+      return _latencias[indice] / 1e6;
+    }
+
+    private final long[] _latencias;
+    private final long _segundos;
+    final long errores;
+  }
+
+  private static final class Resultado {
+    Resultado(final long[] latencias, final long errores) {
+      this.latencias = latencias;
+      this.errores = errores;
+    }
+
+    final long[] latencias;
+    final long errores;
+  }
+
+  private LoadTest() {
+    // Nothing to do
+  }
+}
@@ -0,0 +1,152 @@
+package es.prueba.jorge.server;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpSession;
+
+/**
+ * Peticiones, respuestas y sesiones HTTP mínimas para llamar a filtros y controladores sin
+ * servidor. Son {@link Proxy}s con los atributos y cabeceras en mapas; el resto de métodos
+ * retornan {@code null}, {@code false} o {@code 0}.
+ *
+ * @author Jorge García Villanueva &lt;Jorgegv95@gmail.com&gt;
+ */
+@SuppressWarnings({"javadoc", "nls"})
+public final class Servlets {
+  /**
+   * @param metodo HTTP de la petición.
+   * @param cabeceras de la petición, con un valor cada una.
+   * @param sesion de la petición, o {@code null} si no tiene.
+   */
+  public static HttpServletRequest peticion(final String metodo,
+      final Map<String, String> cabeceras, final HttpSession sesion) {
+    final Map<String, Object> atributos = new HashMap<>();
+    return proxy(HttpServletRequest.class, (metodoJava, args) -> {
+      switch (metodoJava.getName()) {
+        case "getMethod":
+          return metodo;
+        case "getHeader":
+          return cabeceras.get(args[0]);
+        case "getHeaders":
+          return Collections.enumeration(cabeceras.containsKey(args[0])
+              ? Collections.singletonList(cabeceras.get(args[0])) : Collections.emptyList());
+        case "getDateHeader":
+          return Long.valueOf(cabeceras.containsKey(args[0])
+              ? ZonedDateTime.parse(cabeceras.get(args[0]), DateTimeFormatter.RFC_1123_DATE_TIME)
+                  .toInstant().toEpochMilli()
+              : -1L);
+        case "getAttribute":
+          return atributos.get(args[0]);
+        case "setAttribute":
+          return atributos.put((String) args[0], args[1]);
+        case "removeAttribute":
+          return atributos.remove(args[0]);
+        case "getSession":
+          return sesion;
+        case "getRemoteAddr":
+          return "127.0.0.1";
+        default:
+          return NO_IMPLEMENTADO;
+      }
+    });
+  }
+
+  /**
+   * @return una respuesta con estado {@code 200} que guarda su estado y cabeceras.
+   */
+  public static HttpServletResponse respuesta() {
+    final int[] estado = {HttpServletResponse.SC_OK};
+    final Map<String, String> cabeceras = new HashMap<>();
+    return proxy(HttpServletResponse.class, (metodo, args) -> {
+      switch (metodo.getName()) {
+        case "getStatus":
+          return Integer.valueOf(estado[0]);
+        case "setStatus":
+        case "sendError":
+          estado[0] = ((Integer) args[0]).intValue();
+          return null;
+        case "setHeader":
+        case "addHeader":
+          return cabeceras.put((String) args[0], (String) args[1]);
+        case "setDateHeader":
+        case "addDateHeader":
+          return cabeceras.put((String) args[0], DateTimeFormatter.RFC_1123_DATE_TIME
+              .format(Instant.ofEpochMilli((Long) args[1]).atZone(ZoneOffset.UTC)));
+        case "getHeader":
+          return cabeceras.get(args[0]);
+        case "containsHeader":
+          return Boolean.valueOf(cabeceras.containsKey(args[0]));
+        default:
+          return NO_IMPLEMENTADO;
+      }
+    });
+  }
+
+  /**
+   * @param atributos de la sesión.
+   */
+  public static HttpSession sesion(final Map<String, Object> atributos) {
+    return proxy(HttpSession.class, (metodo, args) -> {
+      switch (metodo.getName()) {
+        case "getAttribute":
+          return atributos.get(args[0]);
+        case "setAttribute":
+          return atributos.put((String) args[0], args[1]);
+        case "removeAttribute":
+          return atributos.remove(args[0]);
+        case "getId":
+          return "sesion";
+        default:
+          return NO_IMPLEMENTADO;
+      }
+    });
+  }
+
+  private interface Metodos {
+    Object invocar(Method metodo, Object[] args) throws Exception;
+  }
+
+  private static <T> T proxy(final Class<T> tipo, final Metodos metodos) {
+    return tipo.cast(Proxy.newProxyInstance(tipo.getClassLoader(), new Class<?>[] {tipo},
+        (proxy, metodo, args) -> {
+          switch (metodo.getName()) {
+            case "hashCode":
+              return Integer.valueOf(System.identityHashCode(proxy));
+            case "equals":
+              return Boolean.valueOf(proxy == args[0]);
+            case "toString":
+              return tipo.getSimpleName();
+            default:
+              final Object resultado = metodos.invocar(metodo, args);
+              return (resultado != NO_IMPLEMENTADO) ? resultado : porDefecto(metodo);
+          }
+        }));
+  }
+
+  private static Object porDefecto(final Method metodo) {
+    final Class<?> tipo = metodo.getReturnType();
+    if (tipo == boolean.class) {
+      return Boolean.FALSE;
+    }
+    if (tipo == int.class) {
+      return Integer.valueOf(0);
+    }
+    return (tipo == long.class) ? Long.valueOf(0L) : null;
+  }
+
+  private static final Object NO_IMPLEMENTADO = new Object();
+
+  private Servlets() {
+    // Clase de utilidades
+  }
+}
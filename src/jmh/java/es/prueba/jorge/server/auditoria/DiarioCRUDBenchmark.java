@@ -0,0 +1,90 @@
+package es.prueba.jorge.server.auditoria;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.FileSystemUtils;
+
+import es.prueba.jorge.model.DatosCRUD;
+import es.prueba.jorge.model.TipoCRUD;
+import es.prueba.jorge.model.UsuarioId;
+
+/**
+ * Registros de auditoría por segundo con {@link DiarioCRUD} frente a inserciones JDBC de una fila
+ * por registro en H2 en disco, ambos en un directorio temporal nuevo en cada iteración.
+ * <p>
+ * Con {@code -prof gc} se comprueba además que {@code diario} no crea objetos
+ * ({@code gc.alloc.rate.norm} ≈ 0).
+ *
+ * @author Jorge García Villanueva &lt;Jorgegv95@gmail.com&gt;
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@SuppressWarnings({"javadoc", "nls"})
+public class DiarioCRUDBenchmark {
+  private Path directorio;
+  private DiarioCRUD diario;
+  private Connection connection;
+  private PreparedStatement insert;
+  private final UsuarioId usuario = new UsuarioId(42);
+  private final DatosCRUD datos = new DatosCRUD(new UsuarioId(7), Instant.now());
+
+  @Setup(Level.Iteration)
+  public void setup() throws IOException, SQLException {
+    directorio = Files.createTempDirectory("diario");
+    diario = new DiarioCRUD(directorio.resolve("diario"), 64 << 20);
+    final JdbcDataSource h2 = new JdbcDataSource();
+    h2.setURL("jdbc:h2:file:" + directorio.resolve("h2") + ";MODE=Oracle");
+    connection = h2.getConnection();
+    try (Statement statement = connection.createStatement()) {
+      statement.execute("CREATE TABLE AUDITORIA (USUARIO INTEGER NOT NULL, "
+          + "AUTOR INTEGER NOT NULL, INSTANTE TIMESTAMP(9) NOT NULL, TIPO NUMBER(1) NOT NULL)");
+    }
+    insert = connection.prepareStatement("INSERT INTO AUDITORIA VALUES (?, ?, ?, ?)");
+  }
+
+  @TearDown(Level.Iteration)
+  public void tearDown() throws IOException, SQLException {
+    diario.close();
+    insert.close();
+    connection.close();
+    FileSystemUtils.deleteRecursively(directorio);
+  }
+
+  @Benchmark
+  public long diario() throws IOException {
+    return diario.append(usuario, TipoCRUD.MOD, datos);
+  }
+
+  @Benchmark
+  public int jdbc() throws SQLException {
+    insert.setInt(1, usuario.id());
+    insert.setInt(2, datos.usuarioId().id());
+    insert.setTimestamp(3, Timestamp.from(datos.instant()));
+    insert.setInt(4, 2);
+    return insert.executeUpdate();
+  }
+}
@@ -0,0 +1,117 @@
+package es.prueba.jorge.server.auditoria;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.springframework.util.FileSystemUtils;
+
+import es.prueba.jorge.model.DatosCRUD;
+import es.prueba.jorge.model.TipoCRUD;
+import es.prueba.jorge.model.UsuarioId;
+
+/**
+ * Mide el tiempo de reconstruir la {@link ProyeccionCRUD} de un {@link DiarioCRUD} con y sin
+ * {@link InstantaneasCRUD instantánea}.
+ * <p>
+ * Genera un diario con el número de eventos indicado sobre un conjunto de {@code Usuario}s (un alta
+ * por {@code Usuario} y después modificaciones, bajas y nuevas altas al azar), guarda una
+ * instantánea tras el porcentaje de eventos indicado y reconstruye la proyección reproduciendo
+ * todo el diario y partiendo de la instantánea. Termina con error si las dos proyecciones no
+ * coinciden.
+ * <p>
+ * Uso: {@code ./gradlew reproduccionCRUDTiempo [-Peventos=100000000] [-Pusuarios=1000000]
+ * [-PporcentajeInstantanea=90] [-Pparticiones=<núcleos>]}
+ *
+ * @author Jorge García Villanueva &lt;Jorgegv95@gmail.com&gt;
+ */
+@SuppressWarnings({"javadoc", "nls"})
+public final class ReproduccionCRUDTiempo {
+  public static void main(final String[] args) throws Exception {
+    final long eventos = (args.length > 0) ? Long.parseLong(args[0]) : 100_000_000L;
+    final int usuarios = (args.length > 1) ? Integer.parseInt(args[1]) : 1_000_000;
+    final int porcentaje = (args.length > 2) ? Integer.parseInt(args[2]) : 90;
+    final int particiones = (args.length > 3) ? Integer.parseInt(args[3])
+        : Runtime.getRuntime().availableProcessors();
+
+    final Path directorio = Files.createTempDirectory("reproduccion");
+    final ExecutorService executor = Executors.newFixedThreadPool(particiones);
+    try (DiarioCRUD diario = new DiarioCRUD(directorio.resolve("diario"), 64 << 20)) {
+      final InstantaneasCRUD instantaneas = new InstantaneasCRUD(diario,
+          directorio.resolve("instantaneas"), executor, particiones, 1);
+      final long enInstantanea = (eventos * porcentaje) / 100;
+      final SplittableRandom random = new SplittableRandom(42);
+      final long inicio = System.nanoTime();
+      generar(diario, random, 0, enInstantanea, usuarios);
+      System.out.printf("%d eventos generados en %d ms%n", enInstantanea, ms(inicio));
+      final long inicioInstantanea = System.nanoTime();
+      instantaneas.instantanea();
+      System.out.printf("instantánea en %d ms%n", ms(inicioInstantanea));
+      generar(diario, random, enInstantanea, eventos, usuarios);
+      diario.flush();
+
+      // Una primera pasada para que las dos medidas partan de la caché de disco
+      new ProyeccionCRUD(particiones).reproducir(diario, Long.MAX_VALUE, executor);
+
+      final long inicioCompleta = System.nanoTime();
+      final ProyeccionCRUD completa = new ProyeccionCRUD(particiones);
+      completa.reproducir(diario, Long.MAX_VALUE, executor);
+      final long msCompleta = ms(inicioCompleta);
+
+      final long inicioParcial = System.nanoTime();
+      final ProyeccionCRUD parcial = instantaneas.reconstruir();
+      final long msParcial = ms(inicioParcial);
+
+      System.out.printf("eventos=%d usuarios=%d particiones=%d%n", eventos, completa.size(),
+          particiones);
+      System.out.printf("sin instantánea: %d ms (%.1f M eventos/s)%n", msCompleta,
+          eventos / (Math.max(1, msCompleta) * 1_000.0));
+      System.out.printf("con instantánea al %d%%: %d ms%n", porcentaje, msParcial);
+
+      final long[] distintos = {0};
+      completa.forEach(estado -> {
+        if (!parcial.estado(estado.usuarioId()).equals(Optional.of(estado))) {
+          distintos[0]++;
+        }
+      });
+      if ((distintos[0] > 0) || (completa.size() != parcial.size())
+          || (completa.secuencia() != eventos) || (parcial.secuencia() != eventos)) {
+        System.err.printf("Las proyecciones no coinciden: %d usuarios distintos, %s y %s%n",
+            distintos[0], completa, parcial);
+        System.exit(1);
+      }
+    } finally {
+      executor.shutdown();
+      FileSystemUtils.deleteRecursively(directorio);
+    }
+  }
+
+  /**
+   * Añade los eventos {@code desde}-{@code hasta}: primero el alta de cada {@code Usuario} y después
+   * un 80% de modificaciones, un 10% de bajas y un 10% de altas de {@code Usuario}s al azar.
+   */
+  private static void generar(final DiarioCRUD diario, final SplittableRandom random,
+      final long desde, final long hasta, final int usuarios) throws Exception {
+    final long base = Instant.parse("2020-01-01T00:00:00Z").toEpochMilli();
+    for (long i = desde; i < hasta; i++) {
+      final int usuario = (i < usuarios) ? (int) i : random.nextInt(usuarios);
+      final int suerte = random.nextInt(10);
+      final TipoCRUD tipo = ((i < usuarios) || (suerte == 0)) ? TipoCRUD.ALTA
+          : (suerte == 1) ? TipoCRUD.BAJA : TipoCRUD.MOD;
+      diario.append(new UsuarioId(usuario), tipo,
+          new DatosCRUD(new UsuarioId(random.nextInt(usuarios)), Instant.ofEpochMilli(base + i)));
+    }
+  }
+
+  private static long ms(final long inicio) {
+    return (System.nanoTime() - inicio) / 1_000_000;
+  }
+
+  private ReproduccionCRUDTiempo() {
+    // Nothing to do
+  }
+}
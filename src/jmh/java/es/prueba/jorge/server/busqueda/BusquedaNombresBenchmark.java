@@ -0,0 +1,159 @@
+package es.prueba.jorge.server.busqueda;
+
+import java.time.Instant;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import es.prueba.jorge.model.DatosCRUD;
+import es.prueba.jorge.model.Email;
+import es.prueba.jorge.model.Perfil;
+import es.prueba.jorge.model.Persona;
+import es.prueba.jorge.model.Telefono;
+import es.prueba.jorge.model.Usuario;
+import es.prueba.jorge.model.UsuarioId;
+
+/**
+ * Latencia de {@link IndiceNombres#buscar(String, int)} con {@code usuarios} indexados, cuyos
+ * nombres y apellidos siguen una distribución de Zipf: unos pocos muy frecuentes ({@code García},
+ * {@code María}...) y una cola larga de apellidos poco comunes.
+ * <p>
+ * Cada búsqueda es el prefijo de 2 a 6 letras de una o dos palabras de un {@code Usuario} al azar,
+ * sin tildes y con mayúsculas aleatorias, o un fragmento interior de 3 a 5 letras. El percentil 99
+ * ({@code p0.99} en los resultados) ha de quedar por debajo de 1 ms.
+ *
+ * @author Jorge García Villanueva &lt;Jorgegv95@gmail.com&gt;
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms3g", "-Xmx3g"})
+@SuppressWarnings({"javadoc", "nls"})
+public class BusquedaNombresBenchmark {
+  @Param("5000000")
+  public int usuarios;
+
+  private IndiceNombres indice;
+  private String[] consultas;
+  private int siguiente;
+
+  @Setup
+  public void setup() {
+    final SplittableRandom random = new SplittableRandom(42);
+    final String[] apellidos = apellidos(random);
+    indice = new IndiceNombres();
+    final Instant alta = Instant.now();
+    final String[][] personas = new String[4096][];
+    for (int id = 1; id <= usuarios; id++) {
+      final String nombre = zipf(NOMBRES, random);
+      final String apellido1 = zipf(apellidos, random);
+      final String apellido2 = zipf(apellidos, random);
+      indice.indexar(Usuario.builder(new UsuarioId(id))
+          .withPersona(Persona.builder().withNombre(nombre).withApellido1(apellido1)
+              .withApellido2(apellido2).build())
+          .withPerfil(Perfil.CLIENTE).withEmail(Email.of("buzon" + id + "@empresa.es"))
+          .withTelefono(Telefono.of("600000000"))
+          .withDatosAlta(new DatosCRUD(new UsuarioId(id), alta)).build());
+      personas[id % personas.length] = new String[] {nombre, apellido1, apellido2};
+    }
+    consultas = new String[8192];
+    for (int i = 0; i < consultas.length; i++) {
+      consultas[i] = consulta(personas[random.nextInt(personas.length)], random);
+    }
+  }
+
+  @Benchmark
+  public ResultadosBusqueda buscar() {
+    return indice.buscar(consultas[siguiente++ & (consultas.length - 1)], 10);
+  }
+
+  private static String consulta(final String[] persona, final SplittableRandom random) {
+    final String primera = Plegado.palabras(persona[random.nextInt(persona.length)]).get(0);
+    if ((random.nextInt(5) == 0) && (primera.length() > 4)) {
+      // Fragmento interior
+      final int longitud = Math.min(3 + random.nextInt(3), primera.length() - 1);
+      final int desde = 1 + random.nextInt(primera.length() - longitud);
+      return primera.substring(desde, desde + longitud);
+    }
+    String consulta = mayusculas(prefijo(primera, random), random);
+    if (random.nextBoolean()) {
+      consulta += " " + mayusculas(prefijo(persona[2], random), random);
+    }
+    return consulta;
+  }
+
+  private static String prefijo(final String palabra, final SplittableRandom random) {
+    return palabra.substring(0, Math.min(palabra.length(), 2 + random.nextInt(5)));
+  }
+
+  private static String mayusculas(final String palabra, final SplittableRandom random) {
+    return random.nextBoolean() ? palabra.toUpperCase() : palabra;
+  }
+
+  /** Elemento al azar con probabilidad inversamente proporcional a su posición */
+  private static String zipf(final String[] valores, final SplittableRandom random) {
+    // La inversa de la distribución acumulada de 1/x entre 1 y n + 1 es (n + 1)^u
+    final double u = random.nextDouble();
+    final int i = (int) Math.pow(valores.length + 1, u) - 1;
+    return valores[Math.min(i, valores.length - 1)];
+  }
+
+  /** Los apellidos más comunes seguidos de una cola larga de apellidos inventados */
+  private static String[] apellidos(final SplittableRandom random) {
+    final String[] apellidos = new String[50_000];
+    System.arraycopy(APELLIDOS, 0, apellidos, 0, APELLIDOS.length);
+    for (int i = APELLIDOS.length; i < apellidos.length; i++) {
+      final StringBuilder apellido = new StringBuilder();
+      final int silabas = 2 + random.nextInt(3);
+      for (int j = 0; j < silabas; j++) {
+        apellido.append(SILABAS[random.nextInt(SILABAS.length)]);
+      }
+      apellido.setCharAt(0, Character.toUpperCase(apellido.charAt(0)));
+      apellidos[i] = apellido.toString();
+    }
+    return apellidos;
+  }
+
+  private static final String[] NOMBRES = {"María", "José", "Antonio", "Carmen", "Manuel",
+      "Francisco", "Ana", "David", "Juan", "Laura", "Javier", "Isabel", "Daniel", "Lucía",
+      "Carlos", "Cristina", "Jesús", "Marta", "Alejandro", "Dolores", "Miguel", "Sara", "Rafael",
+      "Paula", "Pablo", "Elena", "Ángel", "Raquel", "Sergio", "Pilar", "Fernando", "Concepción",
+      "Jorge", "Manuela", "Luis", "Mercedes", "Alberto", "Beatriz", "Álvaro", "Nuria", "Adrián",
+      "Silvia", "Diego", "Julia", "Raúl", "Irene", "Iván", "Patricia", "Rubén", "Rosario",
+      "Óscar", "Teresa", "Andrés", "Andrea", "Ramón", "Encarnación", "Enrique", "Mónica",
+      "Joaquín", "Sofía", "Vicente", "Inés", "Íñigo", "Begoña", "Nicolás", "Ainhoa", "Agustín",
+      "Noelia", "Emilio", "Verónica", "Víctor", "Montserrat", "Gonzalo", "Susana", "Ignacio",
+      "Yolanda", "Hugo", "Lorena", "Mario", "Eva", "Jaime", "Ángela", "Marcos", "Míriam", "Tomás",
+      "Rocío", "Salvador", "Esther", "Guillermo", "Alicia", "Eduardo", "Natalia", "Santiago",
+      "Claudia", "Germán", "Inmaculada", "Martín", "Sonia", "Gabriel", "Ángeles", "Héctor"};
+  private static final String[] APELLIDOS = {"García", "Rodríguez", "González", "Fernández",
+      "López", "Martínez", "Sánchez", "Pérez", "Gómez", "Martín", "Jiménez", "Ruiz", "Hernández",
+      "Díaz", "Moreno", "Muñoz", "Álvarez", "Romero", "Alonso", "Gutiérrez", "Navarro", "Torres",
+      "Domínguez", "Vázquez", "Ramos", "Gil", "Ramírez", "Serrano", "Blanco", "Molina", "Morales",
+      "Suárez", "Ortega", "Delgado", "Castro", "Ortiz", "Rubio", "Marín", "Sanz", "Núñez",
+      "Iglesias", "Medina", "Garrido", "Cortés", "Castillo", "Santos", "Lozano", "Guerrero",
+      "Cano", "Prieto", "Méndez", "Cruz", "Calvo", "Gallego", "Vidal", "León", "Márquez",
+      "Herrera", "Peña", "Flores", "Cabrera", "Campos", "Vega", "Fuentes", "Carrasco", "Díez",
+      "Caballero", "Reyes", "Nieto", "Aguilar", "Pascual", "Santana", "Herrero", "Lorenzo",
+      "Montero", "Hidalgo", "Giménez", "Ibáñez", "Ferrer", "Durán", "Santiago", "Benítez",
+      "Mora", "Vicente", "Vargas", "Arias", "Carmona", "Crespo", "Román", "Pastor", "Soto",
+      "Sáez", "Velasco", "Moya", "Soler", "Parra", "Esteban", "Bravo", "Gallardo", "Rojas",
+      "de la Fuente", "del Río", "Peñalver", "Echevarría", "Goñi", "Azcárate", "Urquiza"};
+  private static final String[] SILABAS = {"ba", "be", "bi", "ca", "co", "cu", "da", "de", "do",
+      "fa", "fe", "ga", "go", "gue", "la", "le", "li", "lo", "ma", "me", "mi", "mo", "na", "ne",
+      "ni", "ño", "pa", "pe", "ra", "re", "ri", "ro", "rru", "sa", "se", "so", "ta", "te", "to",
+      "va", "ve", "za", "zo", "ar", "el", "in", "or", "ur", "ez", "és", "án", "ón", "ía", "íz"};
+}
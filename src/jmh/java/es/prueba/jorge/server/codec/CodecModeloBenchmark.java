@@ -0,0 +1,90 @@
+package es.prueba.jorge.server.codec;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import es.prueba.jorge.model.Usuario;
+import es.prueba.jorge.server.json.ModuloModelo;
+
+/**
+ * Compara la codificación de un {@link Usuario} con {@link CodecsModelo#USUARIO}, la serialización
+ * de Java y JSON con {@link ModuloModelo}. Los tamaños de cada formato los muestra
+ * {@link CodecModeloTest}.
+ * <p>
+ * Uso: {@code ./gradlew jmh -PjmhInclude=CodecModeloBenchmark}
+ *
+ * @author Jorge García Villanueva &lt;Jorgegv95@gmail.com&gt;
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@SuppressWarnings({"javadoc", "nls"})
+public class CodecModeloBenchmark {
+  private final Salida salida = new Salida();
+  private ObjectMapper json;
+  private Usuario usuario;
+  private byte[] binario;
+  private byte[] java;
+  private byte[] jsonBytes;
+
+  @Setup
+  public void setup() throws IOException {
+    json = new Jackson2ObjectMapperBuilder().modulesToInstall(new ModuloModelo()).build();
+    usuario = CodecModeloTest.referencia();
+    binario = CodecsModelo.USUARIO.codificar(usuario);
+    java = CodecModeloTest.serializar(usuario);
+    jsonBytes = json.writeValueAsBytes(usuario);
+  }
+
+  @Benchmark
+  public byte[] codificarBinario() {
+    return CodecsModelo.USUARIO.codificar(usuario);
+  }
+
+  /** Con una {@link Salida} reutilizada, sin copiar el resultado */
+  @Benchmark
+  public int codificarBinarioSalida() {
+    CodecsModelo.USUARIO.escribir(salida.reset(), usuario);
+    return salida.size();
+  }
+
+  @Benchmark
+  public byte[] codificarJava() throws IOException {
+    return CodecModeloTest.serializar(usuario);
+  }
+
+  @Benchmark
+  public byte[] codificarJson() throws IOException {
+    return json.writeValueAsBytes(usuario);
+  }
+
+  @Benchmark
+  public Usuario decodificarBinario() {
+    return CodecsModelo.USUARIO.decodificar(binario);
+  }
+
+  @Benchmark
+  public Object decodificarJava() throws IOException, ClassNotFoundException {
+    try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(java))) {
+      return in.readObject();
+    }
+  }
+
+  @Benchmark
+  public Usuario decodificarJson() throws IOException {
+    return json.readValue(jsonBytes, Usuario.class);
+  }
+}
@@ -0,0 +1,189 @@
+package es.prueba.jorge.server.direcciones;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jol.info.GraphLayout;
+import org.springframework.util.FileSystemUtils;
+
+import es.prueba.jorge.model.Direccion;
+import es.prueba.jorge.server.direcciones.DireccionNormalizada.Estado;
+
+/**
+ * Mide la memoria ahorrada y el rendimiento de normalizar {@link Direccion}es con
+ * {@link CodigosPostales}.
+ * <p>
+ * Genera un fichero de referencia sintético con las 52 provincias y unos 11.000 códigos postales,
+ * y {@code direcciones} cuyas cadenas se crean nuevas para cada una, como al leerlas de una
+ * importación: la mayoría con la población escrita como en la referencia, en mayúsculas o sin
+ * tildes, y unas pocas con la provincia o la población equivocadas o un código postal inexistente.
+ * Comprueba que cada una recibe el {@link Estado} esperado y mide la memoria retenida por las
+ * direcciones antes y después de normalizarlas.
+ * <p>
+ * Uso: {@code ./gradlew normalizacionDirecciones [-Pdirecciones=1000000]}
+ *
+ * @author Jorge García Villanueva &lt;Jorgegv95@gmail.com&gt;
+ */
+@SuppressWarnings({"javadoc", "nls"})
+public final class NormalizacionDirecciones {
+  private static final int RONDAS = 5;
+
+  public static void main(final String[] args) throws IOException {
+    final int total = (args.length > 0) ? Integer.parseInt(args[0]) : 1_000_000;
+    final SplittableRandom random = new SplittableRandom(42);
+    final Path directorio = Files.createTempDirectory("codigos-postales");
+    try {
+      final List<String[]> referencia = referencia(random);
+      final Path origen = directorio.resolve("codigos-postales.csv");
+      try (BufferedWriter out = Files.newBufferedWriter(origen, StandardCharsets.UTF_8)) {
+        out.write("codigo_postal;poblacion;provincia\n");
+        for (final String[] linea : referencia) {
+          out.write(String.join(";", linea));
+          out.write('\n');
+        }
+      }
+      final Path fichero = directorio.resolve("codigos-postales.idx");
+      long inicio = System.nanoTime();
+      final CodigosPostales indice = CodigosPostales.abrir(origen, fichero);
+      System.out.printf("índice: %s, compilado y abierto en %d ms, %,d bytes en heap%n", indice,
+          TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio),
+          GraphLayout.parseInstance(indice).totalSize());
+
+      final List<Direccion> direcciones = new ArrayList<>(total);
+      final Estado[] esperados = new Estado[total];
+      for (int i = 0; i < total; i++) {
+        esperados[i] = direccion(referencia, random, direcciones);
+      }
+
+      List<DireccionNormalizada> normalizadas = null;
+      double mejor = 0;
+      for (int ronda = 0; ronda < RONDAS; ronda++) {
+        inicio = System.nanoTime();
+        normalizadas = indice.normalizar(direcciones);
+        final double porSegundo = total / ((System.nanoTime() - inicio) / 1e9);
+        mejor = Math.max(mejor, porSegundo);
+        System.out.printf("ronda %d: %,.0f direcciones/s%n", ronda, porSegundo);
+      }
+
+      final Map<Estado, Integer> estados = new EnumMap<>(Estado.class);
+      final List<Direccion> resultado = new ArrayList<>(total);
+      for (int i = 0; i < total; i++) {
+        final DireccionNormalizada normalizada = normalizadas.get(i);
+        if (normalizada.estado() != esperados[i]) {
+          throw new IllegalStateException(direcciones.get(i) + ": se esperaba " + esperados[i]
+              + " y se ha obtenido " + normalizada);
+        }
+        estados.merge(normalizada.estado(), 1, Integer::sum);
+        resultado.add(normalizada.direccion());
+      }
+
+      final long antes = GraphLayout.parseInstance(direcciones).totalSize();
+      final long despues = GraphLayout.parseInstance(resultado).totalSize();
+      System.out.printf("direcciones=%d %s%n", total, estados);
+      System.out.printf("rendimiento: %,.0f direcciones/s%n", mejor);
+      System.out.printf("antes:   %,d bytes (%d bytes/dirección)%n", antes, antes / total);
+      System.out.printf("después: %,d bytes (%d bytes/dirección)%n", despues, despues / total);
+      System.out.printf("ahorro:  %,d bytes (%.1f%%)%n", antes - despues,
+          (100.0 * (antes - despues)) / antes);
+    } finally {
+      FileSystemUtils.deleteRecursively(directorio);
+    }
+  }
+
+  /** Crea una dirección al azar y retorna el estado que ha de tener al normalizarla */
+  private static Estado direccion(final List<String[]> referencia, final SplittableRandom random,
+      final List<Direccion> direcciones) {
+    final String[] lugar = referencia.get(random.nextInt(referencia.size()));
+    int codigoPostal = Integer.parseInt(lugar[0]);
+    String poblacion = lugar[1];
+    String provincia = lugar[2];
+    Estado estado = Estado.VALIDA;
+    final int caso = random.nextInt(100);
+    if (caso < 2) {
+      provincia = PROVINCIAS[(provincia(codigoPostal) + 1) % PROVINCIAS.length];
+      estado = Estado.PROVINCIA_INCORRECTA;
+    } else if (caso < 3) {
+      poblacion = poblacion + " de Arriba";
+      estado = Estado.POBLACION_INCORRECTA;
+    } else if (caso < 4) {
+      codigoPostal = 99_000 + random.nextInt(1000);
+      estado = Estado.CODIGO_POSTAL_DESCONOCIDO;
+    } else if (caso < 24) {
+      poblacion = poblacion.toUpperCase(Locale.ROOT);
+      provincia = provincia.toUpperCase(Locale.ROOT);
+    } else if (caso < 39) {
+      poblacion = sinTildes(poblacion);
+    }
+    direcciones.add(Direccion.builder()
+        .withDireccion(new String("Calle Mayor, " + random.nextInt(1, 200)))
+        .withCodigoPostal(codigoPostal).withPoblacion(new String(poblacion))
+        .withProvincia(new String(provincia)).build());
+    return estado;
+  }
+
+  /** Entre 1 y 3 poblaciones por código postal, unos 210 códigos postales por provincia */
+  private static List<String[]> referencia(final SplittableRandom random) {
+    final List<String[]> referencia = new ArrayList<>();
+    for (int provincia = 0; provincia < PROVINCIAS.length; provincia++) {
+      for (int i = 0; i < 210; i++) {
+        final String codigo = String.format("%02d%03d", provincia + 1, i * 4);
+        final int poblaciones = 1 + random.nextInt(3);
+        for (int j = 0; j < poblaciones; j++) {
+          referencia.add(new String[] {codigo, poblacion(random), PROVINCIAS[provincia]});
+        }
+      }
+    }
+    return referencia;
+  }
+
+  private static String poblacion(final SplittableRandom random) {
+    final StringBuilder poblacion = new StringBuilder();
+    final int silabas = 2 + random.nextInt(3);
+    for (int i = 0; i < silabas; i++) {
+      poblacion.append(SILABAS[random.nextInt(SILABAS.length)]);
+    }
+    poblacion.setCharAt(0, Character.toUpperCase(poblacion.charAt(0)));
+    if (random.nextInt(4) == 0) {
+      poblacion.append(" de ").append(SUFIJOS[random.nextInt(SUFIJOS.length)]);
+    }
+    return poblacion.toString();
+  }
+
+  private static int provincia(final int codigoPostal) {
+    return (codigoPostal / 1000) - 1;
+  }
+
+  private static String sinTildes(final String texto) {
+    return Normalizer.normalize(texto, Normalizer.Form.NFD).replaceAll("\\p{M}", "");
+  }
+
+  /** Por el orden de los dos primeros dígitos de sus códigos postales */
+  private static final String[] PROVINCIAS = {"Álava", "Albacete", "Alicante", "Almería",
+      "Ávila", "Badajoz", "Illes Balears", "Barcelona", "Burgos", "Cáceres", "Cádiz",
+      "Castellón", "Ciudad Real", "Córdoba", "A Coruña", "Cuenca", "Girona", "Granada",
+      "Guadalajara", "Gipuzkoa", "Huelva", "Huesca", "Jaén", "León", "Lleida", "La Rioja", "Lugo",
+      "Madrid", "Málaga", "Murcia", "Navarra", "Ourense", "Asturias", "Palencia", "Las Palmas",
+      "Pontevedra", "Salamanca", "Santa Cruz de Tenerife", "Cantabria", "Segovia", "Sevilla",
+      "Soria", "Tarragona", "Teruel", "Toledo", "Valencia", "Valladolid", "Bizkaia", "Zamora",
+      "Zaragoza", "Ceuta", "Melilla"};
+  private static final String[] SILABAS = {"al", "ba", "be", "ca", "có", "da", "fe", "ga", "gue",
+      "ja", "la", "le", "lló", "ma", "mé", "na", "ño", "pa", "que", "ra", "rí", "sa", "se", "ta",
+      "to", "va", "vi", "za", "ár", "ín"};
+  private static final String[] SUFIJOS = {"la Sierra", "Abajo", "Henares", "los Caballeros",
+      "la Frontera", "Campos", "Duero", "la Vega"};
+
+  private NormalizacionDirecciones() {
+    // Nothing to do
+  }
+}
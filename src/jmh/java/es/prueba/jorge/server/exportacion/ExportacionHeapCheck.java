@@ -0,0 +1,156 @@
+package es.prueba.jorge.server.exportacion;
+
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.util.FileSystemUtils;
+
+import es.prueba.jorge.server.persistence.H2Oracle;
+import es.prueba.jorge.server.persistence.UsuarioRepository;
+
+/**
+ * Comprueba que {@link ExportacionUsuarios} exporta en memoria constante.
+ * <p>
+ * Da de alta el número de {@code Usuario}s indicado en un H2 en disco (para que la tabla no ocupe
+ * el <i>heap</i>), los exporta a una salida que descarta los bytes y mide el <i>heap</i> ocupado
+ * tras un GC cada {@value #MUESTRAS}-ava parte de la exportación. Termina con error si no se
+ * exportan todos o si el <i>heap</i> crece más de los MB indicados entre la primera y la última
+ * muestra.
+ * <p>
+ * Uso: {@code ./gradlew exportacionHeapCheck [-Pusuarios=10000000] [-PmaxCrecimientoMB=16]}
+ *
+ * @author Jorge García Villanueva &lt;Jorgegv95@gmail.com&gt;
+ */
+@SuppressWarnings({"javadoc", "nls"})
+public final class ExportacionHeapCheck {
+  static final int MUESTRAS = 10;
+
+  public static void main(final String[] args) throws Exception {
+    final int usuarios = (args.length > 0) ? Integer.parseInt(args[0]) : 1_000_000;
+    final long maxCrecimiento = ((args.length > 1) ? Long.parseLong(args[1]) : 16) << 20;
+
+    final Path directorio = Files.createTempDirectory("exportacion");
+    System.setProperty(H2EnDisco.DIRECTORIO, directorio.toString());
+    try (AnnotationConfigApplicationContext context =
+        new AnnotationConfigApplicationContext(H2EnDisco.class)) {
+      final long inicioAlta = System.nanoTime();
+      alta(new JdbcTemplate(context.getBean(DataSource.class)), usuarios);
+      System.out.printf("alta de %d usuarios en %d ms%n", usuarios,
+          (System.nanoTime() - inicioAlta) / 1_000_000);
+
+      final ExportacionUsuarios exportacion =
+          new ExportacionUsuarios(context.getBean(UsuarioRepository.class));
+      final Muestreo salida = new Muestreo(Math.max(1, usuarios / MUESTRAS));
+      final long inicio = System.nanoTime();
+      final long exportados = exportacion.exportar(salida, null);
+      final long ms = Math.max(1, (System.nanoTime() - inicio) / 1_000_000);
+      System.out.printf("exportados=%d bytes=%d en %d ms (%d usuarios/s)%n", exportados,
+          salida._bytes, ms, (exportados * 1000) / ms);
+      System.out.println("heap usado (MB) = " + salida.muestrasMB());
+
+      if ((exportados != usuarios) || (salida._lineas != usuarios)) {
+        System.err.println("No se han exportado todos los usuarios");
+        System.exit(1);
+      }
+      final long crecimiento = salida.crecimiento();
+      if (crecimiento > maxCrecimiento) {
+        System.err.printf("El heap ha crecido %d MB durante la exportación (máximo %d MB)%n",
+            crecimiento >> 20, maxCrecimiento >> 20);
+        System.exit(1);
+      }
+    } finally {
+      FileSystemUtils.deleteRecursively(directorio);
+    }
+  }
+
+  /**
+   * Da de alta los usuarios desde SQL, por tramos, para no medir aquí el alta de
+   * {@code UsuarioRepository}.
+   */
+  private static void alta(final JdbcTemplate jdbc, final int usuarios) {
+    final int tramo = 100_000;
+    for (int desde = 1; desde <= usuarios; desde += tramo) {
+      jdbc.update("INSERT INTO USUARIO (ID, NOMBRE, APELLIDO1, APELLIDO2, PERFIL, TELEFONO, EMAIL, "
+          + "ALTA_USUARIO, ALTA_INSTANTE) SELECT X, 'Nombre' || MOD(X, 5000), 'Apellido', "
+          + "'De la Fuente', CASEWHEN(MOD(X, 2) = 0, 'CLIENTE', 'EXTERNO'), "
+          + "CAST(600000000 + MOD(X, 1000) AS VARCHAR), 'buzon' || X || '@empresa.es', 0, "
+          + "CURRENT_TIMESTAMP() FROM SYSTEM_RANGE(?, ?)", desde,
+          Math.min(usuarios, (desde + tramo) - 1));
+    }
+  }
+
+  /**
+   * {@link H2Oracle} en un fichero del directorio de la propiedad {@value #DIRECTORIO}.
+   */
+  @Configuration
+  public static class H2EnDisco extends H2Oracle {
+    static final String DIRECTORIO = "exportacion.directorio";
+
+    @Override
+    protected String url() {
+      return "jdbc:h2:file:" + System.getProperty(DIRECTORIO)
+          + "/usuarios;MODE=Oracle;CACHE_SIZE=16384";
+    }
+  }
+
+  /**
+   * Salida que descarta lo escrito y mide el heap usado tras cada {@code intervalo} líneas.
+   */
+  private static final class Muestreo extends OutputStream {
+    Muestreo(final int intervalo) {
+      _intervalo = intervalo;
+    }
+
+    @Override
+    public void write(final int b) {
+      contar(b);
+    }
+
+    @Override
+    public void write(final byte[] b, final int off, final int len) {
+      for (int i = off; i < (off + len); i++) {
+        contar(b[i]);
+      }
+    }
+
+    private void contar(final int b) {
+      _bytes++;
+      if ((b == '\n') && ((++_lineas % _intervalo) == 0)) {
+        System.gc();
+        _muestras.add(Long.valueOf(MEMORIA.getHeapMemoryUsage().getUsed()));
+      }
+    }
+
+    long crecimiento() {
+      return _muestras.isEmpty() ? 0
+          : (_muestras.get(_muestras.size() - 1).longValue() - _muestras.get(0).longValue());
+    }
+
+    List<Long> muestrasMB() {
+      final List<Long> mb = new ArrayList<>(_muestras.size());
+      _muestras.forEach(muestra -> mb.add(Long.valueOf(muestra.longValue() >> 20)));
+      return mb;
+    }
+
+    private static final MemoryMXBean MEMORIA = ManagementFactory.getMemoryMXBean();
+
+    private final int _intervalo;
+    private final List<Long> _muestras = new ArrayList<>();
+    long _bytes;
+    long _lineas;
+  }
+
+  private ExportacionHeapCheck() {
+    // Nothing to do
+  }
+}
@@ -0,0 +1,131 @@
+package es.prueba.jorge.server.importacion;
+
+import com.google.common.base.Strings;
+
+import java.io.BufferedWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.sql.DataSource;
+
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import es.prueba.jorge.model.DatosCRUD;
+import es.prueba.jorge.model.UsuarioId;
+import es.prueba.jorge.server.persistence.CheckpointRepository;
+import es.prueba.jorge.server.persistence.H2Oracle;
+import es.prueba.jorge.server.persistence.UsuarioRepository;
+
+/**
+ * Mide el rendimiento de {@link ImportacionUsuarios} contra {@link H2Oracle}.
+ * <p>
+ * Genera un fichero CSV o NDJSON con el número de filas indicado, una de cada
+ * {@value #FILAS_POR_ERROR} no válida (alternativamente por el email y por un nombre que cabe en
+ * caracteres pero no en bytes), lo importa, y comprueba que se han dado de alta todas las filas
+ * válidas, que las no válidas están en el fichero de errores y que repetir la importación no da de
+ * alta nada gracias al punto de control. Termina con error si no alcanza el mínimo de filas
+ * por segundo indicado.
+ * <p>
+ * Uso: {@code ./gradlew importacionThroughput [-Pfilas=1000000] [-Pformato=CSV]
+ * [-PminFilasPorSegundo=50000]}
+ *
+ * @author Jorge García Villanueva &lt;Jorgegv95@gmail.com&gt;
+ */
+@SuppressWarnings({"javadoc", "nls"})
+public final class ImportacionThroughput {
+  static final int FILAS_POR_ERROR = 100;
+  /** Cabe en los 100 caracteres de {@code NOMBRE}, pero no en sus 100 bytes */
+  static final String NOMBRE_LARGO = Strings.repeat("Ñ", 60);
+
+  public static void main(final String[] args) throws Exception {
+    final int filas = (args.length > 0) ? Integer.parseInt(args[0]) : 1_000_000;
+    final FormatoImportacion formato =
+        (args.length > 1) ? FormatoImportacion.valueOf(args[1]) : FormatoImportacion.CSV;
+    final double minimo = (args.length > 2) ? Double.parseDouble(args[2]) : 0;
+
+    final Path fichero = Files.createTempFile("usuarios", "." + formato.name().toLowerCase());
+    final Path errores = Files.createTempFile("usuarios", ".errores");
+    generar(fichero, formato, filas);
+
+    final ExecutorService lectura = Executors.newSingleThreadExecutor();
+    final ExecutorService validacion =
+        Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+    try (AnnotationConfigApplicationContext context =
+        new AnnotationConfigApplicationContext(H2Oracle.class)) {
+      final ImportacionUsuarios importacion =
+          new ImportacionUsuarios(context.getBean(UsuarioRepository.class),
+              context.getBean(CheckpointRepository.class),
+              context.getBean(PlatformTransactionManager.class), lectura, validacion,
+              2 * Runtime.getRuntime().availableProcessors());
+      final DatosCRUD alta = new DatosCRUD(new UsuarioId(0), Instant.now());
+
+      final ProgresoImportacion progreso = importacion.importar(fichero, formato, errores, alta);
+      System.out.println(progreso);
+
+      final long esperadasRechazadas = filas / FILAS_POR_ERROR;
+      final long enBaseDeDatos = new JdbcTemplate(context.getBean(DataSource.class))
+          .queryForObject("SELECT COUNT(*) FROM USUARIO", Long.class).longValue();
+      final long lineasError = Files.lines(errores).count();
+      final ProgresoImportacion repetida = importacion.importar(fichero, formato, errores, alta);
+      System.out.printf("enBaseDeDatos=%d lineasError=%d repetida=%s%n", enBaseDeDatos,
+          lineasError, repetida);
+      if ((progreso.rechazadas() != esperadasRechazadas)
+          || (enBaseDeDatos != (filas - esperadasRechazadas))
+          || (lineasError != esperadasRechazadas) || (repetida.leidas() != 0)) {
+        System.err.println("Resultado de la importación incorrecto");
+        System.exit(1);
+      }
+      if (progreso.filasPorSegundo() < minimo) {
+        System.err.printf("%.0f filas/s no alcanza el mínimo de %.0f%n",
+            progreso.filasPorSegundo(), minimo);
+        System.exit(1);
+      }
+    } finally {
+      lectura.shutdown();
+      validacion.shutdown();
+      Files.deleteIfExists(fichero);
+      Files.deleteIfExists(errores);
+    }
+  }
+
+  /**
+   * Escribe {@code filas} usuarios en {@code fichero}. Una de cada {@value #FILAS_POR_ERROR} tiene
+   * un email no válido o un nombre de 60 caracteres y 120 bytes.
+   */
+  private static void generar(final Path fichero, final FormatoImportacion formato,
+      final int filas) throws Exception {
+    try (BufferedWriter out = Files.newBufferedWriter(fichero, StandardCharsets.UTF_8)) {
+      if (formato == FormatoImportacion.CSV) {
+        out.write(String.join(",", FormatoImportacion.CAMPOS));
+        out.newLine();
+      }
+      for (int i = 0; i < filas; i++) {
+        final boolean error = (i % FILAS_POR_ERROR) == 0;
+        final boolean largo = error && (((i / FILAS_POR_ERROR) & 1) == 1);
+        final String email = (error && !largo) ? ("no-valido" + i) : ("buzon" + i + "@empresa.es");
+        final String nombre = largo ? NOMBRE_LARGO : ("Nombre" + (i % 5_000));
+        final String telefono = Integer.toString(600_000_000 + (i % 1_000));
+        final String perfil = ((i & 1) == 0) ? "CLIENTE" : "EXTERNO";
+        if (formato == FormatoImportacion.CSV) {
+          out.write(nombre + ",Apellido,\"De la Fuente\"," + perfil + "," + telefono + ","
+              + email);
+        } else {
+          out.write("{\"nombre\":\"" + nombre
+              + "\",\"apellido1\":\"Apellido\",\"apellido2\":\"De la Fuente\",\"perfil\":\""
+              + perfil + "\",\"telefono\":" + telefono + ",\"email\":\"" + email + "\"}");
+        }
+        out.newLine();
+      }
+    }
+  }
+
+  private ImportacionThroughput() {
+    // Nothing to do
+  }
+}
@@ -0,0 +1,294 @@
+package es.prueba.jorge.server.importacion;
+
+import com.google.common.collect.ImmutableMap;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import es.prueba.jorge.model.DatosCRUD;
+import es.prueba.jorge.model.TipoCRUD;
+import es.prueba.jorge.model.Usuario;
+import es.prueba.jorge.model.UsuarioId;
+import es.prueba.jorge.server.auditoria.DiarioCRUD;
+import es.prueba.jorge.server.persistence.H2Oracle;
+import es.prueba.jorge.server.persistence.UsuarioRepository;
+
+/**
+ * Mide el rendimiento de {@link LoteUsuarios} contra {@link H2Oracle} con lotes de 1, 10, 100 y
+ * 1.000 elementos, frente a escribir cada {@code Usuario} por separado con
+ * {@link UsuarioRepository#save(Usuario)} en su propia transacción, como una petición por
+ * {@code Usuario}.
+ * <p>
+ * La mitad de los elementos son altas y la otra mitad modificaciones de {@code Usuario}s
+ * existentes, y uno de cada {@value #ELEMENTOS_POR_ERROR} tiene un email no válido. Al terminar
+ * comprueba el resultado de cada elemento, el estado de los {@code Usuario}s modificados en la
+ * base de datos y que el {@link DiarioCRUD} tiene un {@code ALTA} o un {@code MOD} por cada
+ * elemento escrito; termina con error si algo no coincide.
+ * <p>
+ * Uso: {@code ./gradlew loteThroughput [-Pelementos=20000]}
+ *
+ * @author Jorge García Villanueva &lt;Jorgegv95@gmail.com&gt;
+ */
+@SuppressWarnings({"javadoc", "nls"})
+public final class LoteThroughput {
+  static final int ELEMENTOS_POR_ERROR = 100;
+  static final int[] TAMANOS = {1, 10, 100, 1000};
+
+  public static void main(final String[] args) throws Exception {
+    final int elementos = (args.length > 0) ? Integer.parseInt(args[0]) : 20_000;
+    final ExecutorService validacion =
+        Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+    try (AnnotationConfigApplicationContext context =
+        new AnnotationConfigApplicationContext(H2OracleConDiario.class)) {
+      final UsuarioRepository repository = context.getBean(UsuarioRepository.class);
+      final PlatformTransactionManager transactionManager =
+          context.getBean(PlatformTransactionManager.class);
+      final DiarioCRUD diario = context.getBean(DiarioCRUD.class);
+      final LoteUsuarios lotes = new LoteUsuarios(repository, transactionManager, validacion,
+          Runtime.getRuntime().availableProcessors(), 0, 1000);
+      final LoteThroughput prueba =
+          new LoteThroughput(repository, new TransactionTemplate(transactionManager), lotes);
+
+      // Población que modificar, y una ronda de calentamiento de cada forma de escribir
+      final List<Usuario> existentes = new ArrayList<>(elementos);
+      final DatosCRUD alta = new DatosCRUD(new UsuarioId(0), Instant.now());
+      for (int i = 0; i < elementos; i++) {
+        existentes.add(DatosUsuario.of(campos(i, true)).builder(repository.nextId())
+            .withDatosAlta(alta).build());
+      }
+      repository.insertAll(existentes);
+      prueba.reiniciar(alta);
+      final Random random = new Random(42);
+      prueba.individual(prueba.elementos(existentes, 1_000, random));
+      for (final int tamano : TAMANOS) {
+        prueba.lotes(prueba.elementos(existentes, 1_000, random), tamano);
+      }
+      final long inicioDiario = diario.siguiente();
+      prueba.reiniciar(alta);
+
+      System.out.printf("%-12s %10s %12s%n", "modo", "elementos/s", "aceleración");
+      final double base = prueba.individual(prueba.elementos(existentes, elementos, random));
+      System.out.printf("%-12s %10.0f %11.1fx%n", "individual", base, 1.0);
+      for (final int tamano : TAMANOS) {
+        final double porSegundo =
+            prueba.lotes(prueba.elementos(existentes, elementos, random), tamano);
+        System.out.printf("%-12s %10.0f %11.1fx%n", "lote " + tamano, porSegundo,
+            porSegundo / base);
+      }
+
+      final long[] registros = new long[3];
+      diario.leer(inicioDiario, (secuencia, usuario, tipo, autor, nanos) -> {
+        registros[TipoCRUD.ALTA.equals(tipo) ? 0 : (TipoCRUD.MOD.equals(tipo) ? 1 : 2)]++;
+      });
+      int distintos = 0;
+      for (final Map.Entry<UsuarioId, Usuario> esperado : prueba._esperados.entrySet()) {
+        final Optional<Usuario> leido = repository.findById(esperado.getKey());
+        if (!leido.isPresent() || !leido.get().sameValueAs(esperado.getValue())) {
+          distintos++;
+          System.err.printf("%s: esperado %s y leído %s%n", esperado.getKey(),
+              esperado.getValue(), leido);
+        }
+      }
+      System.out.printf("altas=%d modificaciones=%d rechazos=%d diario ALTA=%d MOD=%d "
+          + "distintos=%d errores=%d%n", prueba._altas, prueba._modificaciones, prueba._rechazos,
+          registros[0], registros[1], distintos, prueba._errores);
+      if ((prueba._errores > 0) || (distintos > 0) || (registros[0] != prueba._altas)
+          || (registros[1] != prueba._modificaciones) || (registros[2] != 0)) {
+        System.err.println("Resultado de los lotes incorrecto");
+        System.exit(1);
+      }
+    } finally {
+      validacion.shutdown();
+    }
+  }
+
+  private LoteThroughput(final UsuarioRepository repository,
+      final TransactionTemplate transactionTemplate, final LoteUsuarios lotes) {
+    _repository = repository;
+    _transactionTemplate = transactionTemplate;
+    _lotes = lotes;
+  }
+
+  /**
+   * @return {@code n} elementos alternando altas y modificaciones de {@code existentes}
+   *         distintos, uno de cada {@value #ELEMENTOS_POR_ERROR} no válido.
+   */
+  private List<Map<String, String>> elementos(final List<Usuario> existentes, final int n,
+      final Random random) {
+    final List<Usuario> modificados = new ArrayList<>(existentes);
+    Collections.shuffle(modificados, random);
+    final List<Map<String, String>> elementos = new ArrayList<>(n);
+    for (int i = 0; i < n; i++) {
+      final boolean valido = (i % ELEMENTOS_POR_ERROR) != (ELEMENTOS_POR_ERROR - 1);
+      final String[] campos = campos(random.nextInt(1_000_000), valido);
+      final Map<String, String> elemento = new HashMap<>();
+      for (int campo = 0; campo < campos.length; campo++) {
+        elemento.put(FormatoImportacion.CAMPOS.get(campo), campos[campo]);
+      }
+      if ((i & 1) == 1) {
+        elemento.put(LoteUsuarios.ID, Integer.toString(modificados.get(i).identity().id()));
+      }
+      elementos.add(ImmutableMap.copyOf(elemento));
+    }
+    return elementos;
+  }
+
+  /** @return elementos por segundo escribiendo cada uno en su propia transacción */
+  private double individual(final List<Map<String, String>> elementos) {
+    final long inicio = System.nanoTime();
+    for (final Map<String, String> elemento : elementos) {
+      final String[] campos = new String[FormatoImportacion.CAMPOS.size()];
+      for (int campo = 0; campo < campos.length; campo++) {
+        campos[campo] = elemento.get(FormatoImportacion.CAMPOS.get(campo));
+      }
+      final DatosCRUD datos = new DatosCRUD(new UsuarioId(0), Instant.now());
+      final String id = elemento.get(LoteUsuarios.ID);
+      final DatosUsuario usuario;
+      try {
+        usuario = DatosUsuario.of(campos);
+      } catch (final IllegalArgumentException e) {
+        _rechazos++;
+        continue;
+      }
+      _transactionTemplate.execute(status -> {
+        if (id == null) {
+          guardar(usuario.builder(_repository.nextId()).withDatosAlta(datos).build(),
+              TipoCRUD.ALTA);
+        } else {
+          final Usuario existente =
+              _repository.findById(new UsuarioId(Integer.parseInt(id))).get();
+          final Usuario.Builder builder = usuario.builder(existente.identity())
+              .withDatosAlta(existente.alta()).withDatosUltimaModificacion(datos);
+          existente.ultimaVisita().ifPresent(builder::withUltimaVisita);
+          guardar(builder.build(), TipoCRUD.MOD);
+        }
+        return null;
+      });
+    }
+    return porSegundo(elementos.size(), inicio);
+  }
+
+  private void guardar(final Usuario usuario, final TipoCRUD tipo) {
+    _repository.save(usuario);
+    _esperados.put(usuario.identity(), usuario);
+    if (TipoCRUD.ALTA.equals(tipo)) {
+      _altas++;
+    } else {
+      _modificaciones++;
+    }
+  }
+
+  /** @return elementos por segundo escribiéndolos con {@link LoteUsuarios} en lotes */
+  private double lotes(final List<Map<String, String>> elementos, final int tamano) {
+    final long inicio = System.nanoTime();
+    for (int desde = 0; desde < elementos.size(); desde += tamano) {
+      final List<Map<String, String>> lote =
+          elementos.subList(desde, Math.min(elementos.size(), desde + tamano));
+      final DatosCRUD datos = new DatosCRUD(new UsuarioId(0), Instant.now());
+      final List<ResultadoLote> resultados = _lotes.escribir(lote, datos);
+      for (final ResultadoLote resultado : resultados) {
+        comprobar(lote.get(resultado.indice()), resultado, datos);
+      }
+    }
+    return porSegundo(elementos.size(), inicio);
+  }
+
+  private void comprobar(final Map<String, String> elemento, final ResultadoLote resultado,
+      final DatosCRUD datos) {
+    final boolean valido = !elemento.get("email").startsWith("no-valido");
+    final boolean alta = !elemento.containsKey(LoteUsuarios.ID);
+    if (!valido) {
+      _rechazos++;
+      if (resultado.correcto()) {
+        _errores++;
+        System.err.printf("%s: aceptado un elemento no válido%n", resultado);
+      }
+      return;
+    }
+    final TipoCRUD tipo = alta ? TipoCRUD.ALTA : TipoCRUD.MOD;
+    if (!resultado.tipo().equals(Optional.of(tipo))) {
+      _errores++;
+      System.err.printf("%s: se esperaba %s%n", resultado, tipo);
+      return;
+    }
+    final UsuarioId id = resultado.usuarioId().get();
+    final String[] campos = new String[FormatoImportacion.CAMPOS.size()];
+    for (int campo = 0; campo < campos.length; campo++) {
+      campos[campo] = elemento.get(FormatoImportacion.CAMPOS.get(campo));
+    }
+    final Usuario.Builder builder = DatosUsuario.of(campos).builder(id);
+    if (alta) {
+      _altas++;
+      _esperados.put(id, builder.withDatosAlta(datos).build());
+    } else {
+      _modificaciones++;
+      final Usuario anterior = _esperados.get(id);
+      final DatosCRUD datosAlta = (anterior != null) ? anterior.alta() : _altaExistentes;
+      _esperados.put(id,
+          builder.withDatosAlta(datosAlta).withDatosUltimaModificacion(datos).build());
+    }
+  }
+
+  private static double porSegundo(final int elementos, final long inicio) {
+    return (elementos * 1e9) / (System.nanoTime() - inicio);
+  }
+
+  /**
+   * @return los campos de un {@code Usuario} sintético, con un email no válido si no es
+   *         {@code valido}.
+   */
+  private static String[] campos(final int n, final boolean valido) {
+    return new String[] {"Nombre" + (n % 5_000), "Apellido", "De la Fuente",
+        ((n & 1) == 0) ? "CLIENTE" : "EXTERNO", Integer.toString(600_000_000 + (n % 1_000)),
+        valido ? ("buzon" + n + "@empresa.es") : ("no-valido" + n)};
+  }
+
+  /** Descarta lo escrito al calentar */
+  private void reiniciar(final DatosCRUD altaExistentes) {
+    _altaExistentes = altaExistentes;
+    _esperados.clear();
+    _altas = 0;
+    _modificaciones = 0;
+    _rechazos = 0;
+  }
+
+  private final UsuarioRepository _repository;
+  private final TransactionTemplate _transactionTemplate;
+  private final LoteUsuarios _lotes;
+  /** Estado esperado de cada {@code Usuario} escrito mientras se mide */
+  private final Map<UsuarioId, Usuario> _esperados = new HashMap<>();
+  /** Datos del alta de los {@code Usuario}s que existían antes de medir */
+  private DatosCRUD _altaExistentes;
+  private long _altas;
+  private long _modificaciones;
+  private long _rechazos;
+  private long _errores;
+
+  /**
+   * {@link H2Oracle} con un {@link DiarioCRUD} en un directorio temporal, que registra las altas y
+   * modificaciones de {@link UsuarioRepository}.
+   */
+  @Configuration
+  public static class H2OracleConDiario extends H2Oracle {
+    @Bean(destroyMethod = "close")
+    public DiarioCRUD diarioCRUD() throws IOException {
+      return new DiarioCRUD(Files.createTempDirectory("diario"), 16 << 20);
+    }
+  }
+}
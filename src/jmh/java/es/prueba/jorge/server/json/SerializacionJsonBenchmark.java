@@ -0,0 +1,142 @@
+package es.prueba.jorge.server.json;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect.Visibility;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.google.common.collect.ImmutableMap;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import es.prueba.jorge.model.DatosCRUD;
+import es.prueba.jorge.model.Email;
+import es.prueba.jorge.model.Perfil;
+import es.prueba.jorge.model.Persona;
+import es.prueba.jorge.model.Telefono;
+import es.prueba.jorge.model.Usuario;
+import es.prueba.jorge.model.UsuarioId;
+
+/**
+ * Compara la serialización JSON de un {@link Usuario} con {@link ModuloModelo} y por reflexión.
+ * <p>
+ * Como el modelo no tiene <i>getters</i>, la referencia por reflexión es la que Jackson puede
+ * hacer de los campos, con {@link SerializationFeature#ORDER_MAP_ENTRIES_BY_KEYS} como tenía
+ * configurado la aplicación. No hay deserialización por reflexión con la que comparar, porque el
+ * modelo no tiene constructor por defecto. La respuesta de búsqueda (10 {@code Usuario}s en
+ * mapas) mide además el coste de ordenar las claves de los mapas.
+ * <p>
+ * Cada serialización se escribe en un generador y una salida reutilizados, de modo que los bytes
+ * reservados de {@code gc.alloc.rate.norm} (<i>profiler</i> {@code gc}) son los de serializar, sin
+ * los <i>buffers</i> del resultado.
+ * <p>
+ * Uso: {@code ./gradlew jmh -PjmhInclude=SerializacionJsonBenchmark}
+ *
+ * @author Jorge García Villanueva &lt;Jorgegv95@gmail.com&gt;
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@SuppressWarnings({"javadoc", "nls"})
+public class SerializacionJsonBenchmark {
+  private ObjectMapper modulo;
+  private ObjectMapper moduloOrdenado;
+  private ObjectMapper reflexion;
+
+  private final ByteArrayOutputStream salida = new ByteArrayOutputStream(64 * 1024);
+  private JsonGenerator generadorModulo;
+  private JsonGenerator generadorModuloOrdenado;
+  private JsonGenerator generadorReflexion;
+
+  private Usuario usuario;
+  private byte[] json;
+  private List<Map<String, Object>> busqueda;
+
+  @Setup
+  public void setup() throws IOException {
+    modulo = new Jackson2ObjectMapperBuilder().modulesToInstall(new ModuloModelo()).build();
+    moduloOrdenado = new Jackson2ObjectMapperBuilder().modulesToInstall(new ModuloModelo())
+        .featuresToEnable(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS).build();
+    reflexion = new Jackson2ObjectMapperBuilder()
+        .featuresToEnable(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS).build()
+        .setVisibility(PropertyAccessor.ALL, Visibility.NONE)
+        .setVisibility(PropertyAccessor.FIELD, Visibility.ANY);
+
+    busqueda = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      busqueda.add(ImmutableMap.of("puntuacion", 10 - i, "usuario", usuario(i + 1)));
+    }
+    usuario = usuario(1);
+    json = modulo.writeValueAsBytes(usuario);
+    generadorModulo = modulo.getFactory().createGenerator(salida);
+    generadorModuloOrdenado = moduloOrdenado.getFactory().createGenerator(salida);
+    generadorReflexion = reflexion.getFactory().createGenerator(salida);
+  }
+
+  @Benchmark
+  public int serializarModulo() throws IOException {
+    return escribir(modulo, generadorModulo, usuario);
+  }
+
+  @Benchmark
+  public int serializarReflexion() throws IOException {
+    return escribir(reflexion, generadorReflexion, usuario);
+  }
+
+  @Benchmark
+  public Usuario deserializarModulo() throws IOException {
+    return modulo.readValue(json, Usuario.class);
+  }
+
+  @Benchmark
+  public int busquedaModulo() throws IOException {
+    return escribir(modulo, generadorModulo, busqueda);
+  }
+
+  @Benchmark
+  public int busquedaModuloOrdenada() throws IOException {
+    return escribir(moduloOrdenado, generadorModuloOrdenado, busqueda);
+  }
+
+  @Benchmark
+  public int busquedaReflexion() throws IOException {
+    return escribir(reflexion, generadorReflexion, busqueda);
+  }
+
+  private int escribir(final ObjectMapper mapper, final JsonGenerator generador,
+      final Object valor) throws IOException {
+    salida.reset();
+    mapper.writeValue(generador, valor);
+    generador.flush();
+    return salida.size();
+  }
+
+  private static Usuario usuario(final int id) {
+    final UsuarioId usuarioId = new UsuarioId(id);
+    final Instant alta = Instant.parse("2018-04-01T10:15:30.123Z");
+    return Usuario.builder(usuarioId)
+        .withPersona(Persona.builder().withNombre("Jorge").withApellido1("García")
+            .withApellido2("Villanueva").build())
+        .withPerfil(Perfil.CLIENTE).withTelefono(Telefono.of("912345678"))
+        .withEmail(Email.of("jorge" + id + "@prueba.es"))
+        .withUltimaVisita(alta.plusSeconds(3600L * id))
+        .withDatosAlta(new DatosCRUD(usuarioId, alta))
+        .withDatosUltimaModificacion(new DatosCRUD(new UsuarioId(0), alta.plusSeconds(60)))
+        .build();
+  }
+}
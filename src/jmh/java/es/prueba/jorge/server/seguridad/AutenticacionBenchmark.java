@@ -0,0 +1,172 @@
+package es.prueba.jorge.server.seguridad;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.Filter;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.ProviderManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.context.SecurityContextImpl;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.factory.PasswordEncoderFactories;
+import org.springframework.security.provisioning.InMemoryUserDetailsManager;
+import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
+import org.springframework.security.web.context.HttpSessionSecurityContextRepository;
+import org.springframework.security.web.context.SecurityContextPersistenceFilter;
+
+import es.prueba.jorge.model.DatosCRUD;
+import es.prueba.jorge.model.Email;
+import es.prueba.jorge.model.Perfil;
+import es.prueba.jorge.model.Persona;
+import es.prueba.jorge.model.Telefono;
+import es.prueba.jorge.model.Usuario;
+import es.prueba.jorge.model.UsuarioId;
+import es.prueba.jorge.server.Servlets;
+
+/**
+ * Coste por petición de autenticar con {@link FiltroTokens} frente a la configuración por
+ * defecto de Spring Boot, con autenticación básica y sesión HTTP:
+ * <ul>
+ * <li>{@code token}: verifica la firma del <i>token</i> y la lista de revocación, con 1.000 bajas.
+ * <li>{@code basicNoop}: autenticación básica contra el usuario que genera Spring Boot, con la
+ * clave sin codificar ({@code {noop}}); sólo cuesta buscarlo en el almacén de usuarios, aquí en
+ * memoria y en la aplicación una consulta a base de datos.
+ * <li>{@code basicBcrypt}: autenticación básica con la clave codificada con BCrypt, como se
+ * guardan en {@code CREDENCIAL}; es el coste de cada petición sin sesión.
+ * <li>{@code sesion}: el {@code SecurityContext} guardado en la sesión HTTP por una autenticación
+ * anterior, sin contar la búsqueda de la sesión por su <i>cookie</i> ni la memoria que ocupa.
+ * </ul>
+ * Las peticiones y respuestas son las de {@link Servlets}, con el mismo coste en todos los casos.
+ * <p>
+ * Uso: {@code ./gradlew jmh -PjmhInclude=AutenticacionBenchmark}
+ *
+ * @author Jorge García Villanueva &lt;Jorgegv95@gmail.com&gt;
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@SuppressWarnings({"javadoc", "nls"})
+public class AutenticacionBenchmark {
+  private final HttpServletResponse response = Servlets.respuesta();
+
+  private FiltroTokens filtroTokens;
+  private BasicAuthenticationFilter filtroBasic;
+  private SecurityContextPersistenceFilter filtroSesion;
+
+  private HttpServletRequest peticionToken;
+  private HttpServletRequest peticionNoop;
+  private HttpServletRequest peticionBcrypt;
+  private HttpServletRequest peticionSesion;
+
+  @Setup
+  public void setup() throws Exception {
+    final Clock reloj = Clock.systemUTC();
+    final TokensAcceso tokens = new TokensAcceso(new byte[32], Duration.ofMinutes(15), reloj);
+    final RevocacionTokens revocacion = new RevocacionTokens(Duration.ofMinutes(15), reloj);
+    for (int i = 1000; i < 2000; i++) {
+      revocacion.revocar(new UsuarioId(i), new DatosCRUD(new UsuarioId(0), Instant.now()));
+    }
+    filtroTokens = new FiltroTokens(tokens, revocacion);
+    peticionToken = Servlets.peticion("GET", ImmutableMap.of(HttpHeaders.AUTHORIZATION,
+        FiltroTokens.BEARER + tokens.emitir(usuario())), null);
+
+    final InMemoryUserDetailsManager usuarios = new InMemoryUserDetailsManager();
+    usuarios.createUser(User.withUsername("1").password("{noop}clave").roles("CLIENTE").build());
+    usuarios.createUser(User.withUsername("2")
+        .password("{bcrypt}" + new BCryptPasswordEncoder().encode("clave")).roles("CLIENTE")
+        .build());
+    final DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
+    provider.setUserDetailsService(usuarios);
+    provider.setPasswordEncoder(PasswordEncoderFactories.createDelegatingPasswordEncoder());
+    provider.afterPropertiesSet();
+    final AuthenticationManager manager = new ProviderManager(ImmutableList.of(provider));
+    filtroBasic = new BasicAuthenticationFilter(manager);
+    peticionNoop = Servlets.peticion("GET",
+        ImmutableMap.of(HttpHeaders.AUTHORIZATION, basic("1:clave")), null);
+    peticionBcrypt = Servlets.peticion("GET",
+        ImmutableMap.of(HttpHeaders.AUTHORIZATION, basic("2:clave")), null);
+
+    filtroSesion = new SecurityContextPersistenceFilter(new HttpSessionSecurityContextRepository());
+    final SecurityContext contexto = new SecurityContextImpl(
+        manager.authenticate(new UsernamePasswordAuthenticationToken("1", "clave")));
+    final Map<String, Object> sesion = new HashMap<>();
+    sesion.put(HttpSessionSecurityContextRepository.SPRING_SECURITY_CONTEXT_KEY, contexto);
+    peticionSesion = Servlets.peticion("GET", ImmutableMap.of(), Servlets.sesion(sesion));
+  }
+
+  @Benchmark
+  public Object token() throws IOException, ServletException {
+    return filtrar(filtroTokens, peticionToken);
+  }
+
+  @Benchmark
+  public Object basicNoop() throws IOException, ServletException {
+    return filtrar(filtroBasic, peticionNoop);
+  }
+
+  @Benchmark
+  public Object basicBcrypt() throws IOException, ServletException {
+    return filtrar(filtroBasic, peticionBcrypt);
+  }
+
+  @Benchmark
+  public Object sesion() throws IOException, ServletException {
+    return filtrar(filtroSesion, peticionSesion);
+  }
+
+  /** @return la autenticación de la petición, que se descarta como al terminar cada petición */
+  private Object filtrar(final Filter filtro, final HttpServletRequest peticion)
+      throws IOException, ServletException {
+    final Object[] autenticacion = new Object[1];
+    // La cadena sólo recoge la autenticación, sin aplicación detrás del filtro
+    filtro.doFilter(peticion, response, (request, respuesta) -> {
+      autenticacion[0] = SecurityContextHolder.getContext().getAuthentication();
+    });
+    SecurityContextHolder.clearContext();
+    if (autenticacion[0] == null) {
+      throw new IllegalStateException("Petición sin autenticar");
+    }
+    return autenticacion[0];
+  }
+
+  private static Usuario usuario() {
+    final UsuarioId id = new UsuarioId(1);
+    return Usuario.builder(id)
+        .withPersona(Persona.builder().withNombre("Jorge").withApellido1("García").build())
+        .withPerfil(Perfil.CLIENTE).withTelefono(Telefono.of("912345678"))
+        .withEmail(Email.of("jorge@prueba.es")).withDatosAlta(new DatosCRUD(id, Instant.now()))
+        .build();
+  }
+
+  private static String basic(final String credenciales) {
+    return "Basic "
+        + Base64.getEncoder().encodeToString(credenciales.getBytes(StandardCharsets.UTF_8));
+  }
+}
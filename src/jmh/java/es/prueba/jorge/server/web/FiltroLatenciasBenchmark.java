@@ -0,0 +1,81 @@
+package es.prueba.jorge.server.web;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import es.prueba.jorge.server.Servlets;
+
+/**
+ * Coste por petición de {@link FiltroLatencias} frente a un {@link OncePerRequestFilter} que sólo
+ * lee los mismos datos de la petición, con un <i>endpoint</i> ya creado y sin peticiones lentas.
+ * La diferencia de {@code gc.alloc.rate.norm} entre ambos es la memoria que reserva el filtro por
+ * petición: la entrada del atributo con los {@link es.prueba.jorge.commons.RequestTimings} en los
+ * atributos de la petición y el nodo del <i>pool</i> al devolverlos, la misma con hilos de
+ * plataforma que con uno virtual por petición. Las peticiones de {@link Servlets} reservan la suya
+ * en los dos, y además un {@code Object[]} por cada llamada a su {@link java.lang.reflect.Proxy}.
+ * <p>
+ * Uso: {@code ./gradlew jmh -PjmhInclude=FiltroLatenciasBenchmark}
+ *
+ * @author Jorge García Villanueva &lt;Jorgegv95@gmail.com&gt;
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@SuppressWarnings({"javadoc", "nls"})
+public class FiltroLatenciasBenchmark {
+  private final HttpServletResponse response = Servlets.respuesta();
+  private final FilterChain chain = (request, response) -> {
+    // Petición atendida sin coste
+  };
+
+  private HttpServletRequest request;
+  private FiltroLatencias latencias;
+  private OncePerRequestFilter vacio;
+
+  @Setup
+  public void setup() throws IOException, ServletException {
+    request = Servlets.peticion("GET", Collections.emptyMap(), null);
+    request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/usuarios/{id}");
+    latencias = new FiltroLatencias(Duration.ofMinutes(1));
+    vacio = new OncePerRequestFilter() {
+      @Override
+      protected void doFilterInternal(final HttpServletRequest peticion,
+          final HttpServletResponse respuesta, final FilterChain cadena)
+          throws ServletException, IOException {
+        cadena.doFilter(peticion, respuesta);
+        if ((peticion.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE) == null)
+            || (peticion.getMethod() == null)) {
+          throw new IllegalStateException();
+        }
+      }
+    };
+    latencias.doFilter(request, response, chain);
+  }
+
+  @Benchmark
+  public void baseline() throws IOException, ServletException {
+    vacio.doFilter(request, response, chain);
+  }
+
+  @Benchmark
+  public void latencias() throws IOException, ServletException {
+    latencias.doFilter(request, response, chain);
+  }
+}
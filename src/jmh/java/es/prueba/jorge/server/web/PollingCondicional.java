@@ -0,0 +1,239 @@
+package es.prueba.jorge.server.web;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableMap;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import es.prueba.jorge.model.DatosCRUD;
+import es.prueba.jorge.model.Email;
+import es.prueba.jorge.model.Perfil;
+import es.prueba.jorge.model.Persona;
+import es.prueba.jorge.model.Telefono;
+import es.prueba.jorge.model.Usuario;
+import es.prueba.jorge.model.UsuarioId;
+import es.prueba.jorge.server.Servlets;
+import es.prueba.jorge.server.json.ModuloModelo;
+import es.prueba.jorge.server.persistence.H2Oracle;
+import es.prueba.jorge.server.persistence.UsuarioCache;
+import es.prueba.jorge.server.persistence.UsuarioRepository;
+
+/**
+ * Reproduce una carga de sondeo sobre {@link UsuarioController} contra {@link H2Oracle} y mide
+ * los bytes y el tiempo de CPU que se ahorran con las peticiones condicionales.
+ * <p>
+ * En cada ronda se modifica un porcentaje de los {@code Usuario}s y después los clientes piden
+ * {@code Usuario}s sueltos y páginas de {@value #PAGINA} al azar (con semilla fija). Cada petición
+ * se atiende dos veces, intercaladas para que ambas vean el mismo estado:
+ * <ul>
+ * <li>sin condición, como antes de los {@code ETag}: de la {@link UsuarioCache} o con
+ * {@link UsuarioRepository#findPage(UsuarioId, int)}, y siempre serializada;
+ * <li>con {@code If-None-Match}, con el último {@code ETag} que ha recibido el cliente de ese
+ * recurso: un {@code 304} no carga ni serializa nada.
+ * </ul>
+ * Cuenta como bytes los cuerpos y las cabeceras {@code ETag} e {@code If-None-Match}, y como CPU
+ * la del hilo que atiende la petición. Termina con error si una respuesta condicional completa no
+ * es idéntica a la respuesta sin condición o si un {@code 304} corresponde a un recurso que ha
+ * cambiado desde la última respuesta que recibió el cliente.
+ * <p>
+ * Uso: {@code ./gradlew pollingCondicional [-Pusuarios=10000] [-Prondas=50]
+ * [-PporcentajeCambios=5]}
+ *
+ * @author Jorge García Villanueva &lt;Jorgegv95@gmail.com&gt;
+ */
+@SuppressWarnings({"javadoc", "nls"})
+public final class PollingCondicional {
+  static final int PAGINA = 100;
+  /** Peticiones de {@code Usuario}s sueltos por ronda */
+  static final int PETICIONES_USUARIO = 2_000;
+  /** Peticiones de páginas por ronda */
+  static final int PETICIONES_PAGINA = 50;
+
+  public static void main(final String[] args) throws Exception {
+    final int usuarios = (args.length > 0) ? Integer.parseInt(args[0]) : 10_000;
+    final int rondas = (args.length > 1) ? Integer.parseInt(args[1]) : 50;
+    final int porcentajeCambios = (args.length > 2) ? Integer.parseInt(args[2]) : 5;
+    try (AnnotationConfigApplicationContext context =
+        new AnnotationConfigApplicationContext(H2Oracle.class)) {
+      final UsuarioRepository repository = context.getBean(UsuarioRepository.class);
+      final List<Usuario> poblacion = new ArrayList<>(usuarios);
+      for (int i = 0; i < usuarios; i++) {
+        poblacion.add(usuario(repository.nextId(), 0, null));
+      }
+      repository.insertAll(poblacion);
+      final UsuarioCache cache = new UsuarioCache(repository, usuarios, Duration.ofMinutes(10));
+      final UsuarioController controller = new UsuarioController(cache, repository);
+      final ObjectMapper mapper =
+          new Jackson2ObjectMapperBuilder().modulesToInstall(new ModuloModelo()).build();
+
+      final PollingCondicional polling =
+          new PollingCondicional(repository, cache, controller, mapper);
+      final Random random = new Random(42);
+      final int[] versiones = new int[usuarios];
+      final int paginas = (usuarios + PAGINA - 1) / PAGINA;
+      for (int ronda = 0; ronda < rondas; ronda++) {
+        for (int c = 0; c < (usuarios * porcentajeCambios) / 100; c++) {
+          final int i = random.nextInt(usuarios);
+          final UsuarioId id = poblacion.get(i).identity();
+          repository.save(usuario(id, ++versiones[i], Instant.now()));
+          cache.invalidate(id);
+        }
+        for (int p = 0; p < PETICIONES_USUARIO; p++) {
+          polling.usuario(poblacion.get(random.nextInt(usuarios)).identity());
+        }
+        for (int p = 0; p < PETICIONES_PAGINA; p++) {
+          final int pagina = random.nextInt(paginas);
+          polling.pagina((pagina == 0) ? null : poblacion.get((pagina * PAGINA) - 1).identity());
+        }
+        if (ronda == 0) {
+          // La primera ronda calienta el JIT y llena la caché y los ETag de los clientes
+          polling.reiniciar();
+        }
+      }
+
+      System.out.printf("usuarios=%d rondas=%d porcentajeCambios=%d peticiones=%d 304=%.1f%%%n",
+          usuarios, rondas, porcentajeCambios, polling._peticiones,
+          (100.0 * polling._noModificadas) / polling._peticiones);
+      System.out.printf("sin condición: %,d bytes, %,d ms de CPU%n", polling._bytes[0],
+          polling._cpu[0] / 1_000_000);
+      System.out.printf("condicional:   %,d bytes, %,d ms de CPU%n", polling._bytes[1],
+          polling._cpu[1] / 1_000_000);
+      System.out.printf("ahorro: %.1f%% de bytes, %.1f%% de CPU%n",
+          100.0 - ((100.0 * polling._bytes[1]) / polling._bytes[0]),
+          100.0 - ((100.0 * polling._cpu[1]) / polling._cpu[0]));
+      if (polling._errores > 0) {
+        System.err.printf("%d respuestas condicionales incorrectas%n", polling._errores);
+        System.exit(1);
+      }
+    }
+  }
+
+  private PollingCondicional(final UsuarioRepository repository, final UsuarioCache cache,
+      final UsuarioController controller, final ObjectMapper mapper) {
+    _repository = repository;
+    _cache = cache;
+    _controller = controller;
+    _mapper = mapper;
+  }
+
+  private void usuario(final UsuarioId id) throws Exception {
+    long inicio = CPU.getCurrentThreadCpuTime();
+    final byte[] completa = _mapper.writeValueAsBytes(_cache.get(id).get());
+    anotar(0, inicio, completa.length);
+
+    final String clave = "/usuarios/" + id.id();
+    final ServletWebRequest request = peticion(clave);
+    inicio = CPU.getCurrentThreadCpuTime();
+    final ResponseEntity<Usuario> respuesta = _controller.usuario(id.id(), request);
+    final byte[] cuerpo =
+        (respuesta == null) ? null : _mapper.writeValueAsBytes(respuesta.getBody());
+    responder(clave, request, inicio, cuerpo, completa);
+  }
+
+  private void pagina(final UsuarioId despuesDe) throws Exception {
+    long inicio = CPU.getCurrentThreadCpuTime();
+    final byte[] completa = _mapper.writeValueAsBytes(_repository.findPage(despuesDe, PAGINA));
+    anotar(0, inicio, completa.length);
+
+    final String clave = "/usuarios?despuesDe=" + despuesDe;
+    final ServletWebRequest request = peticion(clave);
+    inicio = CPU.getCurrentThreadCpuTime();
+    final ResponseEntity<List<Usuario>> respuesta = _controller.usuarios(
+        (despuesDe == null) ? null : Integer.valueOf(despuesDe.id()), PAGINA, request);
+    final byte[] cuerpo =
+        (respuesta == null) ? null : _mapper.writeValueAsBytes(respuesta.getBody());
+    responder(clave, request, inicio, cuerpo, completa);
+  }
+
+  /** @return la petición del cliente, con el último {@code ETag} que recibió de {@code clave} */
+  private ServletWebRequest peticion(final String clave) {
+    final String etag = _etags.get(clave);
+    return new ServletWebRequest(Servlets.peticion("GET",
+        (etag == null) ? ImmutableMap.of() : ImmutableMap.of(HttpHeaders.IF_NONE_MATCH, etag),
+        null), Servlets.respuesta());
+  }
+
+  private void responder(final String clave, final ServletWebRequest request, final long inicio,
+      final byte[] cuerpo, final byte[] completa) {
+    final HttpServletResponse response = request.getResponse();
+    final String enviado = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+    final String etag = response.getHeader(HttpHeaders.ETAG);
+    anotar(1, inicio, ((cuerpo == null) ? 0 : cuerpo.length)
+        + ((enviado == null) ? 0 : enviado.length()) + etag.length());
+    _peticiones++;
+    if (cuerpo == null) {
+      _noModificadas++;
+      // El cliente reutiliza la última respuesta completa que recibió
+      if ((response.getStatus() != HttpServletResponse.SC_NOT_MODIFIED)
+          || !Arrays.equals(_cuerpos.get(clave), completa)) {
+        _errores++;
+        System.err.printf("%s: 304 con un recurso modificado%n", clave);
+      }
+      return;
+    }
+    if (!Arrays.equals(cuerpo, completa)) {
+      _errores++;
+      System.err.printf("%s: respuesta distinta de la completa%n", clave);
+    }
+    _etags.put(clave, etag);
+    _cuerpos.put(clave, cuerpo);
+  }
+
+  private void anotar(final int modo, final long inicio, final long bytes) {
+    _cpu[modo] += CPU.getCurrentThreadCpuTime() - inicio;
+    _bytes[modo] += bytes;
+  }
+
+  /** Descarta las mediciones, pero no los {@code ETag} ni los cuerpos de los clientes */
+  private void reiniciar() {
+    Arrays.fill(_cpu, 0);
+    Arrays.fill(_bytes, 0);
+    _peticiones = 0;
+    _noModificadas = 0;
+  }
+
+  private static Usuario usuario(final UsuarioId id, final int version,
+      final Instant modificacion) {
+    final Usuario.Builder builder = Usuario.builder(id)
+        .withPersona(Persona.builder().withNombre("Nombre").withApellido1("Apellido").build())
+        .withPerfil(Perfil.CLIENTE).withEmail(Email.of("buzon" + id.id() + "@empresa.es"))
+        .withTelefono(Telefono.of(Integer.toString(600_000_000 + version)))
+        .withDatosAlta(new DatosCRUD(id, ALTA));
+    return ((modificacion == null) ? builder
+        : builder.withDatosUltimaModificacion(new DatosCRUD(id, modificacion))).build();
+  }
+
+  private static final Instant ALTA = Instant.now();
+  private static final ThreadMXBean CPU = ManagementFactory.getThreadMXBean();
+
+  private final UsuarioRepository _repository;
+  private final UsuarioCache _cache;
+  private final UsuarioController _controller;
+  private final ObjectMapper _mapper;
+  /** Último {@code ETag} y cuerpo que ha recibido el cliente de cada recurso */
+  private final Map<String, String> _etags = new HashMap<>();
+  private final Map<String, byte[]> _cuerpos = new HashMap<>();
+  /** Por modo: 0 sin condición y 1 condicional */
+  private final long[] _cpu = new long[2];
+  private final long[] _bytes = new long[2];
+  private long _peticiones;
+  private long _noModificadas;
+  private long _errores;
+}
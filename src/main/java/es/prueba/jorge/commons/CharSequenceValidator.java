@@ -0,0 +1,62 @@
+package es.prueba.jorge.commons;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static java.util.Objects.isNull;
+
+import java.util.BitSet;
+import java.util.List;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Validador de un lenguaje sobre {@link CharSequence}.
+ * <p>
+ * Las implementaciones han de recorrer la secuencia una única vez y no crear objetos, de modo que
+ * puedan utilizarse sobre {@code String}, {@code StringBuilder} o {@code CharBuffer} sin copias.
+ *
+ * @author Jorge García Villanueva &lt;Jorgegv95@gmail.com&gt;
+ */
+public interface CharSequenceValidator {
+  /**
+   * Comprueba si el rango {@code [start, end)} de {@code value} pertenece al lenguaje.
+   *
+   * @param value secuencia a validar.
+   * @param start índice inicial (inclusive).
+   * @param end índice final (exclusive).
+   * @return {@code true} si el rango completo pertenece al lenguaje, {@code false} en caso
+   *         contrario.
+   * @throws IndexOutOfBoundsException si el rango no es válido para {@code value}.
+   */
+  boolean matches(@Nonnull CharSequence value, int start, int end);
+
+  /**
+   * Comprueba si {@code value} completo pertenece al lenguaje.
+   *
+   * @param value secuencia a validar.
+   * @return {@code true} si {@code value} pertenece al lenguaje, {@code false} si no pertenece o
+   *         es {@code null}.
+   */
+  default boolean matches(@Nullable final CharSequence value) {
+    return !isNull(value) && matches(value, 0, value.length());
+  }
+
+  /**
+   * Valida en bloque todos los elementos de {@code values}.
+   *
+   * @param values secuencias a validar. Los elementos {@code null} se consideran no válidos.
+   * @return un {@link BitSet} con el bit {@code i} activo si y sólo si el elemento {@code i} de
+   *         {@code values} pertenece al lenguaje.
+   */
+  default BitSet validateAll(@Nonnull final List<? extends CharSequence> values) {
+    final BitSet result = new BitSet(checkNotNull(values).size());
+    int i = 0;
+    for (final CharSequence value : values) {
+      if (matches(value)) {
+        result.set(i);
+      }
+      i++;
+    }
+    return result;
+  }
+}
@@ -0,0 +1,68 @@
+package es.prueba.jorge.commons;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkPositionIndexes;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Utilidades sobre {@link CharSequence} que no crean objetos intermedios.
+ * <p>
+ * Los límites de los métodos de recorte siguen el mismo criterio que {@link String#trim()}: se
+ * consideran blancos todos los caracteres con código menor o igual a {@code ' '}.
+ *
+ * @author Jorge García Villanueva &lt;Jorgegv95@gmail.com&gt;
+ */
+public final class CharSequences {
+  /**
+   * @param value secuencia a recorrer.
+   * @return el índice del primer carácter no blanco de {@code value}, o su longitud si está
+   *         compuesta únicamente de blancos.
+   */
+  public static int trimStart(@Nonnull final CharSequence value) {
+    final int length = checkNotNull(value).length();
+    int start = 0;
+    while ((start < length) && (value.charAt(start) <= ' ')) {
+      start++;
+    }
+    return start;
+  }
+
+  /**
+   * @param value secuencia a recorrer.
+   * @param start índice a partir del cual buscar, normalmente el retornado por
+   *        {@link #trimStart(CharSequence)}.
+   * @return el índice siguiente al último carácter no blanco de {@code value}, nunca menor que
+   *         {@code start}.
+   */
+  public static int trimEnd(@Nonnull final CharSequence value, final int start) {
+    int end = checkNotNull(value).length();
+    while ((end > start) && (value.charAt(end - 1) <= ' ')) {
+      end--;
+    }
+    return end;
+  }
+
+  /**
+   * @param value secuencia en la que buscar.
+   * @param c carácter a buscar.
+   * @param start índice inicial (inclusive).
+   * @param end índice final (exclusive).
+   * @return el índice de la primera aparición de {@code c} en el rango, o {@code -1} si no aparece.
+   * @throws IndexOutOfBoundsException si el rango no es válido para {@code value}.
+   */
+  public static int indexOf(@Nonnull final CharSequence value, final char c, final int start,
+      final int end) {
+    checkPositionIndexes(start, end, checkNotNull(value).length());
+    for (int i = start; i < end; i++) {
+      if (value.charAt(i) == c) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private CharSequences() {
+    // Clase de utilidades
+  }
+}
@@ -0,0 +1,42 @@
+package es.prueba.jorge.commons;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Contador monótono de un {@link MetricRegistry}.
+ * <p>
+ * Se apoya en un {@link LongAdder}, que reparte los incrementos concurrentes entre varias celdas
+ * en lugar de competir por una sola, de modo que incrementarlo cuesta unos pocos nanosegundos
+ * aunque lo hagan muchos hilos a la vez. La lectura suma las celdas y es aproximada mientras haya
+ * incrementos en curso.
+ *
+ * @author Jorge García Villanueva &lt;Jorgegv95@gmail.com&gt;
+ */
+public final class Counter {
+  /**
+   * Incrementa el contador en uno.
+   */
+  public void increment() {
+    _count.increment();
+  }
+
+  /**
+   * @param delta cantidad a sumar, no negativa.
+   */
+  public void add(final long delta) {
+    _count.add(delta);
+  }
+
+  /**
+   * @return el valor acumulado.
+   */
+  public long sum() {
+    return _count.sum();
+  }
+
+  Counter() {
+    // Se obtienen de MetricRegistry
+  }
+
+  private final LongAdder _count = new LongAdder();
+}
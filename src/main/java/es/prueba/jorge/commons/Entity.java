@@ -5,8 +5,6 @@ package es.prueba.jorge.commons;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
-import com.google.common.collect.ComparisonChain;
-
 import java.io.Serializable;
 import java.util.Objects;
 
@@ -72,7 +70,7 @@ public abstract class Entity<T extends Entity<T, I>, I extends Identity<I>>
 
   @Override
   public int compareTo(@Nonnull final T that) {
-    return ComparisonChain.start().compare(identity(), that.identity()).result();
+    return identity().compareTo(checkNotNull(that).identity());
   }
 
   @SuppressWarnings("unchecked")
@@ -90,7 +88,7 @@ public abstract class Entity<T extends Entity<T, I>, I extends Identity<I>>
   @Override
   public int hashCode() {
     if (_hashCode == 0) {
-      _hashCode = Objects.hash(identity());
+      _hashCode = identity().hashCode();
     }
     return _hashCode;
   }
@@ -0,0 +1,111 @@
+package es.prueba.jorge.commons;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histograma de duraciones de un {@link MetricRegistry}, en nanosegundos.
+ * <p>
+ * Los intervalos son potencias de dos, de {@value #MIN_BOUND_NANOS} ns a 2<sup>
+ * {@value #MAX_SHIFT}</sup> ns (unos 34 s), más uno para las duraciones mayores: el intervalo de
+ * una duración se calcula con un {@link Long#numberOfLeadingZeros(long)}, sin búsquedas ni
+ * comparaciones, y el error relativo de los percentiles que se estimen a partir de ellos está
+ * acotado por el factor 2. Cada intervalo y la suma total son {@link LongAdder}s, de modo que
+ * registrar una duración son dos incrementos sin bloqueos ni reintentos, aunque lo hagan muchos
+ * hilos a la vez. Las lecturas son aproximadas mientras haya registros en curso.
+ *
+ * @author Jorge García Villanueva &lt;Jorgegv95@gmail.com&gt;
+ */
+public final class Histogram {
+  /** Límite superior del primer intervalo, en nanosegundos */
+  public static final long MIN_BOUND_NANOS = 1L << 7;
+  /** Exponente del límite superior del último intervalo finito */
+  public static final int MAX_SHIFT = 35;
+
+  /**
+   * @param nanos duración a registrar.
+   */
+  public void record(final long nanos) {
+    _buckets[bucket(nanos)].increment();
+    _sumNanos.add(nanos);
+  }
+
+  /**
+   * Registra el tiempo transcurrido desde {@code startNanos}.
+   *
+   * @param startNanos valor de {@link System#nanoTime()} al empezar.
+   * @return valor de {@link System#nanoTime()} al terminar, para usarlo como comienzo de una
+   *         operación que empiece a continuación sin volver a leer el reloj.
+   */
+  public long recordSince(final long startNanos) {
+    final long endNanos = System.nanoTime();
+    record(endNanos - startNanos);
+    return endNanos;
+  }
+
+  /**
+   * @return el número de duraciones registradas.
+   */
+  public long count() {
+    long count = 0;
+    for (final LongAdder bucket : _buckets) {
+      count += bucket.sum();
+    }
+    return count;
+  }
+
+  /**
+   * @return la suma de las duraciones registradas, en nanosegundos.
+   */
+  public long sumNanos() {
+    return _sumNanos.sum();
+  }
+
+  /**
+   * @param bucket índice del intervalo, de 0 a {@link #buckets()} - 1.
+   * @return el límite superior del intervalo, en nanosegundos, o {@link Long#MAX_VALUE} para el
+   *         último.
+   */
+  public static long upperBoundNanos(final int bucket) {
+    return (bucket < (BUCKETS - 1)) ? (MIN_BOUND_NANOS << bucket) : Long.MAX_VALUE;
+  }
+
+  /**
+   * @return el número de intervalos, incluido el de las duraciones mayores que el último límite.
+   */
+  public static int buckets() {
+    return BUCKETS;
+  }
+
+  /**
+   * @return el número de duraciones registradas en cada intervalo (no acumulado).
+   */
+  long[] bucketCounts() {
+    final long[] counts = new long[BUCKETS];
+    for (int i = 0; i < BUCKETS; i++) {
+      counts[i] = _buckets[i].sum();
+    }
+    return counts;
+  }
+
+  Histogram() {
+    for (int i = 0; i < BUCKETS; i++) {
+      _buckets[i] = new LongAdder();
+    }
+  }
+
+  /** Índice del primer intervalo cuyo límite superior es mayor o igual que {@code nanos} */
+  static int bucket(final long nanos) {
+    if (nanos <= MIN_BOUND_NANOS) {
+      return 0;
+    }
+    // Techo del logaritmo en base 2, desplazado al exponente del primer intervalo
+    return Math.min((Long.SIZE - Long.numberOfLeadingZeros(nanos - 1)) - MIN_SHIFT, BUCKETS - 1);
+  }
+
+  private static final int MIN_SHIFT = Long.numberOfTrailingZeros(MIN_BOUND_NANOS);
+  /** Intervalos finitos más el de las duraciones mayores */
+  private static final int BUCKETS = (MAX_SHIFT - MIN_SHIFT) + 2;
+
+  private final LongAdder[] _buckets = new LongAdder[BUCKETS];
+  private final LongAdder _sumNanos = new LongAdder();
+}
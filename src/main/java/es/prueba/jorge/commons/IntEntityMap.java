@@ -0,0 +1,233 @@
+package es.prueba.jorge.commons;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Mapa de {@link Entity} indexadas por el valor primitivo de su {@link IntIdentity}.
+ * <p>
+ * Utiliza direccionamiento abierto con sondeo lineal sobre un {@code int[]} de claves y un array
+ * paralelo de entidades, por lo que ni las inserciones sobre capacidad ya reservada ni las
+ * búsquedas crean objetos. Los borrados desplazan hacia atrás las entradas del mismo grupo en lugar
+ * de dejar marcas de borrado, de forma que las búsquedas no se degradan con el uso.
+ * <p>
+ * No es seguro para su uso concurrente sin sincronización externa.
+ *
+ * @author Jorge García Villanueva &lt;Jorgegv95@gmail.com&gt;
+ * @param <E> tipo de la {@code Entity}.
+ * @param <I> tipo de la {@code IntIdentity} de la {@code Entity}.
+ */
+public final class IntEntityMap<E extends Entity<E, I>, I extends IntIdentity<I>> {
+  /**
+   * Crea un mapa vacío con capacidad para {@code expectedSize} entidades sin redimensionarse.
+   *
+   * @param expectedSize número de entidades previsto.
+   * @throws IllegalArgumentException si {@code expectedSize} es negativo o excesivo.
+   */
+  public IntEntityMap(final int expectedSize) {
+    checkArgument((expectedSize >= 0) && (expectedSize <= MAX_EXPECTED_SIZE));
+    allocate(capacityFor(expectedSize));
+  }
+
+  /**
+   * Crea un mapa vacío con la capacidad por defecto.
+   */
+  public IntEntityMap() {
+    this(DEFAULT_EXPECTED_SIZE);
+  }
+
+  /**
+   * Añade o sustituye la {@code entity} bajo su identidad.
+   *
+   * @param entity a añadir.
+   * @return la {@code Entity} que había previamente con la misma identidad, o {@code null}.
+   */
+  @Nullable
+  public E put(@Nonnull final E entity) {
+    final int key = checkNotNull(entity).identity().id();
+    int slot = slot(key);
+    while (_values[slot] != null) {
+      if (_keys[slot] == key) {
+        final E previous = entityAt(slot);
+        _values[slot] = entity;
+        return previous;
+      }
+      slot = (slot + 1) & _mask;
+    }
+    _keys[slot] = key;
+    _values[slot] = entity;
+    if (++_size > _resizeThreshold) {
+      rehash(_keys.length << 1);
+    }
+    return null;
+  }
+
+  /**
+   * @param id valor primitivo de la identidad.
+   * @return la {@code Entity} con esa identidad, o {@code null} si no existe.
+   */
+  @Nullable
+  public E get(final int id) {
+    int slot = slot(id);
+    while (_values[slot] != null) {
+      if (_keys[slot] == id) {
+        return entityAt(slot);
+      }
+      slot = (slot + 1) & _mask;
+    }
+    return null;
+  }
+
+  /**
+   * @param identity de la {@code Entity} a obtener.
+   * @return la {@code Entity} con esa identidad, o {@code null} si no existe.
+   */
+  @Nullable
+  public E get(@Nonnull final I identity) {
+    return get(checkNotNull(identity).id());
+  }
+
+  /**
+   * @param id valor primitivo de la identidad.
+   * @return {@code true} si existe una {@code Entity} con esa identidad.
+   */
+  public boolean containsKey(final int id) {
+    return get(id) != null;
+  }
+
+  /**
+   * Elimina la {@code Entity} con la identidad {@code id}.
+   *
+   * @param id valor primitivo de la identidad.
+   * @return la {@code Entity} eliminada, o {@code null} si no existía.
+   */
+  @Nullable
+  public E remove(final int id) {
+    int slot = slot(id);
+    while (_values[slot] != null) {
+      if (_keys[slot] == id) {
+        final E removed = entityAt(slot);
+        shiftBack(slot);
+        _size--;
+        return removed;
+      }
+      slot = (slot + 1) & _mask;
+    }
+    return null;
+  }
+
+  /**
+   * @return número de entidades del mapa.
+   */
+  public int size() {
+    return _size;
+  }
+
+  /**
+   * @return {@code true} si el mapa no contiene ninguna entidad.
+   */
+  public boolean isEmpty() {
+    return _size == 0;
+  }
+
+  /**
+   * Elimina todas las entidades manteniendo la capacidad reservada.
+   */
+  public void clear() {
+    Arrays.fill(_values, null);
+    _size = 0;
+  }
+
+  /**
+   * Recorre todas las entidades del mapa, sin un orden determinado.
+   *
+   * @param action a ejecutar con cada {@code Entity}.
+   */
+  public void forEach(@Nonnull final Consumer<? super E> action) {
+    checkNotNull(action);
+    for (int slot = 0; slot < _values.length; slot++) {
+      if (_values[slot] != null) {
+        action.accept(entityAt(slot));
+      }
+    }
+  }
+
+  /**
+   * Rellena el hueco dejado en {@code slot} desplazando hacia atrás las entradas posteriores del
+   * mismo grupo cuya posición ideal no quede por detrás del hueco.
+   */
+  private void shiftBack(final int slot) {
+    int gap = slot;
+    int next = (gap + 1) & _mask;
+    while (_values[next] != null) {
+      final int ideal = slot(_keys[next]);
+      // Distancia circular desde la posición ideal hasta la actual y hasta el hueco
+      if (((next - ideal) & _mask) >= ((next - gap) & _mask)) {
+        _keys[gap] = _keys[next];
+        _values[gap] = _values[next];
+        gap = next;
+      }
+      next = (next + 1) & _mask;
+    }
+    _values[gap] = null;
+  }
+
+  private void rehash(final int capacity) {
+    final int[] keys = _keys;
+    final Object[] values = _values;
+    allocate(capacity);
+    for (int i = 0; i < values.length; i++) {
+      if (values[i] != null) {
+        int slot = slot(keys[i]);
+        while (_values[slot] != null) {
+          slot = (slot + 1) & _mask;
+        }
+        _keys[slot] = keys[i];
+        _values[slot] = values[i];
+      }
+    }
+  }
+
+  private void allocate(final int capacity) {
+    _keys = new int[capacity];
+    _values = new Object[capacity];
+    _mask = capacity - 1;
+    _shift = Integer.numberOfLeadingZeros(_mask);
+    _resizeThreshold = (int) (capacity * LOAD_FACTOR);
+  }
+
+  /** Dispersión multiplicativa (Fibonacci) para repartir identidades consecutivas. */
+  private int slot(final int key) {
+    return (key * GOLDEN_RATIO) >>> _shift;
+  }
+
+  @SuppressWarnings("unchecked")
+  private E entityAt(final int slot) {
+    return (E) _values[slot];
+  }
+
+  private static int capacityFor(final int expectedSize) {
+    final int minimum = (int) Math.ceil(Math.max(expectedSize, 1) / LOAD_FACTOR);
+    return Math.max(MIN_CAPACITY, Integer.highestOneBit(minimum - 1) << 1);
+  }
+
+  private static final int GOLDEN_RATIO = 0x9E3779B9;
+  private static final float LOAD_FACTOR = 0.6f;
+  private static final int MIN_CAPACITY = 4;
+  private static final int DEFAULT_EXPECTED_SIZE = 16;
+  private static final int MAX_EXPECTED_SIZE = (int) ((1 << 30) * LOAD_FACTOR);
+
+  private int[] _keys;
+  /** Entidades; {@code null} indica una posición libre. */
+  private Object[] _values;
+  private int _mask;
+  private int _shift;
+  private int _resizeThreshold;
+  private int _size;
+}
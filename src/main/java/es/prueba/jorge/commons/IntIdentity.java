@@ -0,0 +1,15 @@
+package es.prueba.jorge.commons;
+
+/**
+ * {@link Identity} representada por un único {@code int}. Permite indexar las {@link Entity} sin
+ * crear objetos, por ejemplo en un {@link IntEntityMap}.
+ *
+ * @author Jorge García Villanueva &lt;Jorgegv95@gmail.com&gt;
+ * @param <T> el tipo (clase) de la identidad.
+ */
+public interface IntIdentity<T> extends Identity<T> {
+  /**
+   * @return el valor primitivo de la identidad.
+   */
+  int id();
+}
@@ -0,0 +1,227 @@
+package es.prueba.jorge.commons;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.regex.Pattern;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Registro de las métricas de la aplicación: {@link Counter}s, {@link Histogram}s y medidores
+ * ({@code gauge}s) que se leen al consultarlos.
+ * <p>
+ * Cada métrica tiene un nombre, una descripción y, opcionalmente, etiquetas que distinguen sus
+ * series ({@code tipo="email"}...). Las métricas se obtienen una vez, normalmente en una constante,
+ * y después se actualizan sin pasar por el registro, por lo que el coste de cada evento es sólo el
+ * de la propia métrica. {@link #write(Appendable)} las vuelca en el formato de texto de
+ * Prometheus, con las duraciones en segundos.
+ * <p>
+ * Las clases del modelo no reciben dependencias, así que sus métricas se registran en el registro
+ * {@link #global()}.
+ *
+ * @author Jorge García Villanueva &lt;Jorgegv95@gmail.com&gt;
+ */
+public final class MetricRegistry {
+  /** Tipo de contenido de {@link #write(Appendable)} */
+  public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8"; //$NON-NLS-1$
+
+  /**
+   * @return el registro compartido por toda la aplicación.
+   */
+  public static MetricRegistry global() {
+    return GLOBAL;
+  }
+
+  /**
+   * Obtiene un {@link Counter}, creándolo si no existe.
+   *
+   * @param name de la métrica.
+   * @param help descripción de la métrica.
+   * @param labels pares de nombre y valor de las etiquetas de la serie.
+   * @return el {@code Counter} de la serie indicada.
+   * @throws IllegalArgumentException si algún nombre no es válido, las etiquetas no van por pares o
+   *         ya existe una métrica de otro tipo con el mismo nombre.
+   */
+  public Counter counter(@Nonnull final String name, @Nonnull final String help,
+      @Nonnull final String... labels) {
+    return (Counter) family(name, help, COUNTER).series
+        .computeIfAbsent(labels(labels), key -> new Counter());
+  }
+
+  /**
+   * Obtiene un {@link Histogram} de duraciones, creándolo si no existe.
+   *
+   * @param name de la métrica, terminado en {@code _seconds} por convención.
+   * @param help descripción de la métrica.
+   * @param labels pares de nombre y valor de las etiquetas de la serie.
+   * @return el {@code Histogram} de la serie indicada.
+   * @throws IllegalArgumentException si algún nombre no es válido, las etiquetas no van por pares o
+   *         ya existe una métrica de otro tipo con el mismo nombre.
+   */
+  public Histogram histogram(@Nonnull final String name, @Nonnull final String help,
+      @Nonnull final String... labels) {
+    return (Histogram) family(name, help, HISTOGRAM).series
+        .computeIfAbsent(labels(labels), key -> new Histogram());
+  }
+
+  /**
+   * Registra un medidor cuyo valor se lee de {@code value} al consultarlo, sustituyendo al de la
+   * misma serie si ya existía.
+   *
+   * @param name de la métrica.
+   * @param help descripción de la métrica.
+   * @param value función que obtiene el valor actual. Se invoca desde el hilo que consulta las
+   *        métricas, por lo que debe ser barata y segura entre hilos.
+   * @param labels pares de nombre y valor de las etiquetas de la serie.
+   * @throws IllegalArgumentException si algún nombre no es válido, las etiquetas no van por pares o
+   *         ya existe una métrica de otro tipo con el mismo nombre.
+   */
+  public void gauge(@Nonnull final String name, @Nonnull final String help,
+      @Nonnull final LongSupplier value, @Nonnull final String... labels) {
+    family(name, help, GAUGE).series.put(labels(labels), checkNotNull(value));
+  }
+
+  /**
+   * Vuelca todas las métricas en el formato de texto de Prometheus ({@value #CONTENT_TYPE}),
+   * ordenadas por nombre y etiquetas.
+   *
+   * @param out destino del volcado.
+   * @throws IOException si falla la escritura en {@code out}.
+   */
+  @SuppressWarnings("nls")
+  public void write(@Nonnull final Appendable out) throws IOException {
+    for (final Family family : new TreeMap<>(_families).values()) {
+      out.append("# HELP ").append(family.name).append(' ').append(escapeHelp(family.help))
+          .append('\n');
+      out.append("# TYPE ").append(family.name).append(' ').append(family.type).append('\n');
+      for (final Map.Entry<String, Object> series : new TreeMap<>(family.series).entrySet()) {
+        final String labels = series.getKey();
+        final Object metric = series.getValue();
+        if (metric instanceof Counter) {
+          sample(out, family.name, labels, Long.toString(((Counter) metric).sum()));
+        } else if (metric instanceof Histogram) {
+          write(out, family.name, labels, (Histogram) metric);
+        } else {
+          sample(out, family.name, labels,
+              Long.toString(((LongSupplier) metric).getAsLong()));
+        }
+      }
+    }
+  }
+
+  /**
+   * Crea un registro vacío, independiente del {@link #global()}.
+   */
+  public MetricRegistry() {
+    // Nothing to do
+  }
+
+  /** Métricas con el mismo nombre, por sus etiquetas */
+  private static final class Family {
+    Family(final String name, final String help, final String type) {
+      this.name = name;
+      this.help = help;
+      this.type = type;
+    }
+
+    final String name;
+    final String help;
+    final String type;
+    /** {@link Counter}, {@link Histogram} o {@link LongSupplier} de cada serie */
+    final ConcurrentMap<String, Object> series = new ConcurrentHashMap<>();
+  }
+
+  private Family family(final String name, final String help, final String type) {
+    checkArgument(NAME.matcher(checkNotNull(name)).matches(), "Nombre no válido: %s", //$NON-NLS-1$
+        name);
+    checkNotNull(help);
+    final Family family = _families.computeIfAbsent(name, key -> new Family(key, help, type));
+    checkArgument(family.type.equals(type), "%s ya es de tipo %s", name, //$NON-NLS-1$
+        family.type);
+    return family;
+  }
+
+  /** Etiquetas en el formato de exposición, sin las llaves */
+  private static String labels(final String... labels) {
+    checkArgument((labels.length % 2) == 0, "Etiquetas sin valor"); //$NON-NLS-1$
+    final StringBuilder text = new StringBuilder();
+    for (int i = 0; i < labels.length; i += 2) {
+      checkArgument(LABEL.matcher(checkNotNull(labels[i])).matches(),
+          "Etiqueta no válida: %s", labels[i]); //$NON-NLS-1$
+      if (i > 0) {
+        text.append(',');
+      }
+      text.append(labels[i]).append("=\""); //$NON-NLS-1$
+      escapeLabel(text, checkNotNull(labels[i + 1]));
+      text.append('"');
+    }
+    return text.toString();
+  }
+
+  @SuppressWarnings("nls")
+  private static void write(final Appendable out, final String name, final String labels,
+      final Histogram histogram) throws IOException {
+    final String prefix = labels.isEmpty() ? "" : (labels + ',');
+    final long[] counts = histogram.bucketCounts();
+    long cumulative = 0;
+    for (int i = 0; i < counts.length; i++) {
+      cumulative += counts[i];
+      final String le = (i < (counts.length - 1))
+          ? Double.toString(seconds(Histogram.upperBoundNanos(i))) : "+Inf";
+      sample(out, name + "_bucket", prefix + "le=\"" + le + '"', Long.toString(cumulative));
+    }
+    // La suma se lee después de los intervalos, así que puede incluir algún registro más
+    sample(out, name + "_sum", labels, Double.toString(seconds(histogram.sumNanos())));
+    sample(out, name + "_count", labels, Long.toString(cumulative));
+  }
+
+  private static void sample(final Appendable out, final String name, final String labels,
+      final String value) throws IOException {
+    out.append(name);
+    if (!labels.isEmpty()) {
+      out.append('{').append(labels).append('}');
+    }
+    out.append(' ').append(value).append('\n');
+  }
+
+  private static double seconds(final long nanos) {
+    return (double) nanos / TimeUnit.SECONDS.toNanos(1);
+  }
+
+  @SuppressWarnings("nls")
+  private static String escapeHelp(final String help) {
+    return help.replace("\\", "\\\\").replace("\n", "\\n");
+  }
+
+  private static void escapeLabel(final StringBuilder text, final String value) {
+    for (int i = 0; i < value.length(); i++) {
+      final char c = value.charAt(i);
+      if (c == '\n') {
+        text.append("\\n"); //$NON-NLS-1$
+      } else {
+        if ((c == '\\') || (c == '"')) {
+          text.append('\\');
+        }
+        text.append(c);
+      }
+    }
+  }
+
+  private static final Pattern NAME = Pattern.compile("[a-zA-Z_:][a-zA-Z0-9_:]*"); //$NON-NLS-1$
+  private static final Pattern LABEL = Pattern.compile("[a-zA-Z_][a-zA-Z0-9_]*"); //$NON-NLS-1$
+  private static final String COUNTER = "counter"; //$NON-NLS-1$
+  private static final String HISTOGRAM = "histogram"; //$NON-NLS-1$
+  private static final String GAUGE = "gauge"; //$NON-NLS-1$
+
+  private static final MetricRegistry GLOBAL = new MetricRegistry();
+
+  private final ConcurrentMap<String, Family> _families = new ConcurrentHashMap<>();
+}
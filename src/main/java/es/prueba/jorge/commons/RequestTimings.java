@@ -0,0 +1,107 @@
+package es.prueba.jorge.commons;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.base.MoreObjects;
+
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Tiempo acumulado en cada {@link Phase fase} de una petición.
+ * <p>
+ * Quien mide la petición obtiene una instancia con {@link #start()}, la deja en el atributo
+ * {@value #ATTRIBUTE} de la petición para que cada fase sume su tiempo con
+ * {@link #add(Phase, long)}, y la devuelve con {@link #release()} al terminar. Las instancias se
+ * reutilizan desde un <i>pool</i>, de modo que medir una petición sólo crea el nodo de la cola al
+ * devolverla: un {@code ThreadLocal} no serviría con hilos virtuales, que son uno por petición.
+ * Sumar no necesita sincronización, ya que sólo lo hace el hilo que atiende la petición. El trabajo
+ * que la petición delega en otros hilos no se contabiliza.
+ *
+ * @author Jorge García Villanueva &lt;Jorgegv95@gmail.com&gt;
+ */
+public final class RequestTimings {
+  /** Fases de una petición cuyo tiempo se mide */
+  public enum Phase {
+    /** Consultas y escrituras en la base de datos */
+    DATABASE,
+    /** Serialización de la respuesta */
+    SERIALIZATION,
+    /** Autenticación */
+    SECURITY
+  }
+
+  /** Atributo de la petición con sus {@code RequestTimings} */
+  public static final String ATTRIBUTE = "es.prueba.jorge.commons.RequestTimings"; //$NON-NLS-1$
+
+  /**
+   * Empieza una petición, con todas las fases a cero.
+   *
+   * @return los tiempos de la petición, a devolver con {@link #release()}.
+   */
+  public static RequestTimings start() {
+    final RequestTimings timings = POOL.poll();
+    if (timings == null) {
+      return new RequestTimings();
+    }
+    Arrays.fill(timings._nanos, 0);
+    return timings;
+  }
+
+  /**
+   * Suma {@code nanos} a la fase {@code phase} de la petición.
+   *
+   * @param phase fase en la que se ha empleado el tiempo.
+   * @param nanos tiempo empleado, en nanosegundos.
+   */
+  public void add(@Nonnull final Phase phase, final long nanos) {
+    _nanos[phase.ordinal()] += nanos;
+  }
+
+  /**
+   * Termina la petición y devuelve la instancia al <i>pool</i>. No se puede usar después, por lo
+   * que antes hay que quitarla del atributo {@value #ATTRIBUTE} de la petición.
+   */
+  public void release() {
+    POOL.offer(this);
+  }
+
+  /**
+   * @param phase fase de la petición.
+   * @return el tiempo acumulado en {@code phase}, en nanosegundos.
+   */
+  public long nanos(@Nonnull final Phase phase) {
+    return _nanos[checkNotNull(phase).ordinal()];
+  }
+
+  /**
+   * @param phase fase de la petición.
+   * @return el tiempo acumulado en {@code phase}, en milisegundos.
+   */
+  public double millis(@Nonnull final Phase phase) {
+    return (double) nanos(phase) / TimeUnit.MILLISECONDS.toNanos(1);
+  }
+
+  @Override
+  public String toString() {
+    final MoreObjects.ToStringHelper helper = MoreObjects.toStringHelper(this);
+    for (final Phase phase : PHASES) {
+      helper.add(phase.name(), _nanos[phase.ordinal()]);
+    }
+    return helper.toString();
+  }
+
+  private RequestTimings() {
+    // Desde start()
+  }
+
+  private static final Phase[] PHASES = Phase.values();
+  /** Instancias libres, tantas como peticiones simultáneas ha habido */
+  private static final Queue<RequestTimings> POOL = new ConcurrentLinkedQueue<>();
+
+  private final long[] _nanos = new long[PHASES.length];
+}
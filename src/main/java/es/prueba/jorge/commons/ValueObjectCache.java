@@ -0,0 +1,87 @@
+package es.prueba.jorge.commons;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.base.Throwables;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.LoadingCache;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+import java.util.function.Function;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Factoría canónica (<i>flyweight</i>) de {@link ValueObject}s construidos a partir de una clave.
+ * <p>
+ * Para claves iguales retorna siempre la misma instancia mientras alguien la siga referenciando,
+ * de modo que los {@code equals} se resuelven por identidad y los valores repetidos no ocupan
+ * memoria por duplicado. Las instancias se guardan con referencias débiles (no impiden su
+ * recolección), el número de entradas está acotado y el acceso es concurrente.
+ *
+ * @author Jorge García Villanueva &lt;Jorgegv95@gmail.com&gt;
+ * @param <K> tipo de la clave a partir de la que se construye el {@code ValueObject}.
+ * @param <T> tipo del {@code ValueObject}.
+ */
+public final class ValueObjectCache<K, T extends ValueObject<T>> {
+  /**
+   * Crea una nueva factoría canónica.
+   *
+   * @param maximumSize número máximo de instancias retenidas.
+   * @param factory función que construye el {@code ValueObject} a partir de su clave. Puede
+   *        lanzar {@link RuntimeException} si la clave no es válida.
+   * @return una nueva {@link ValueObjectCache}.
+   * @throws IllegalArgumentException si {@code maximumSize} es negativo.
+   */
+  public static <K, T extends ValueObject<T>> ValueObjectCache<K, T> create(final long maximumSize,
+      @Nonnull final Function<? super K, ? extends T> factory) {
+    checkArgument(maximumSize >= 0);
+    return new ValueObjectCache<>(maximumSize, checkNotNull(factory));
+  }
+
+  /**
+   * Obtiene la instancia canónica para {@code key}, construyéndola si no existe.
+   *
+   * @param key clave ya normalizada del {@code ValueObject}.
+   * @return la instancia canónica correspondiente a {@code key}.
+   * @throws RuntimeException la misma excepción que lance la factoría si {@code key} no es válida.
+   */
+  public T get(@Nonnull final K key) {
+    try {
+      return _cache.getUnchecked(checkNotNull(key));
+    } catch (final UncheckedExecutionException e) {
+      // Se propaga la excepción original de la factoría (IllegalArgumentException...)
+      Throwables.throwIfUnchecked(e.getCause());
+      throw e;
+    }
+  }
+
+  /**
+   * @return las estadísticas de aciertos, fallos y expulsiones acumuladas.
+   */
+  public CacheStats stats() {
+    return _cache.stats();
+  }
+
+  /**
+   * @return número aproximado de instancias retenidas.
+   */
+  public long size() {
+    return _cache.size();
+  }
+
+  private ValueObjectCache(final long maximumSize, final Function<? super K, ? extends T> factory) {
+    _cache = CacheBuilder.newBuilder().maximumSize(maximumSize).weakValues().recordStats()
+        .build(new CacheLoader<K, T>() {
+          @Override
+          public T load(final K key) {
+            return factory.apply(key);
+          }
+        });
+  }
+
+  private final LoadingCache<K, T> _cache;
+}
@@ -1,10 +1,12 @@
 package es.prueba.jorge.model;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 import com.google.common.base.MoreObjects;
 import com.google.common.collect.ComparisonChain;
 
+import java.io.Serializable;
 import java.util.Objects;
 
 import javax.annotation.Nonnull;
@@ -35,7 +37,7 @@ public class Direccion implements ValueObject<Direccion> {
   /**
    * @return the codigoPostal.
    */
-  public Integer codigoPostal() {
+  public int codigoPostal() {
     return _datos.codigoPostal;
   }
 
@@ -63,7 +65,7 @@ public class Direccion implements ValueObject<Direccion> {
   @Override
   public boolean sameValueAs(final Direccion other) {
     return Objects.equals(direccion(), other.direccion())
-        && Objects.equals(codigoPostal(), other.codigoPostal())
+        && (codigoPostal() == other.codigoPostal())
         && Objects.equals(poblacion(), other.poblacion())
         && Objects.equals(provincia(), other.provincia());
   }
@@ -102,28 +104,33 @@ public class Direccion implements ValueObject<Direccion> {
    * Ctor por defecto
    *
    * @param direccion existente
-   * @param codPostal de la {@link Direccion}.
+   * @param codPostal de la {@link Direccion}, entre 1 y {@value #MAX_CODIGO_POSTAL}.
    * @param poblacion de la {@code Direccion}.
    * @param provincia de la {@code Direccion}.
+   * @throws IllegalArgumentException si {@code codPostal} no es válido.
    */
-  Direccion(@Nonnull final String direccion, @Nonnull final Integer codPostal,
+  Direccion(@Nonnull final String direccion, final int codPostal,
       @Nonnull final String poblacion, @Nonnull final String provincia) {
+    checkArgument((codPostal > 0) && (codPostal <= MAX_CODIGO_POSTAL),
+        "codigoPostal fuera de rango: %s", codPostal); //$NON-NLS-1$
     _datos.direccion = checkNotNull(direccion);
-    _datos.codigoPostal = checkNotNull(codPostal);
+    _datos.codigoPostal = codPostal;
     _datos.poblacion = checkNotNull(poblacion);
     _datos.provincia = checkNotNull(provincia);
   }
 
+  /** Mayor código postal de cinco cifras */
+  private static final int MAX_CODIGO_POSTAL = 99_999;
   private static final long serialVersionUID = 7307651629496247970L;
   private final Data _datos = new Data();
   private transient int _hashCode;
   private transient String _toString;
 
-  private static final class Data {
+  private static final class Data implements Serializable {
     /** Representa una dirección existente */
     String direccion;
     /** Código postal de la dirección */
-    Integer codigoPostal;
+    int codigoPostal;
     /** Población de la dirección */
     String poblacion;
     /** Provincia de la dirección */
@@ -133,6 +140,8 @@ public class Direccion implements ValueObject<Direccion> {
     Data() {
       // Nothing to do
     }
+
+    private static final long serialVersionUID = -1851320484945718394L;
   }
 
   /**
@@ -165,8 +174,8 @@ public class Direccion implements ValueObject<Direccion> {
      * @return una referencia a este mismo <i>builder</i> para poder seguir encadenando las
      *         llamadas.
      */
-    public Builder withCodigoPostal(@Nonnull final Integer codigoPostal) {
-      _item.codigoPostal = checkNotNull(codigoPostal);
+    public Builder withCodigoPostal(final int codigoPostal) {
+      _item.codigoPostal = codigoPostal;
       return this;
     }
 
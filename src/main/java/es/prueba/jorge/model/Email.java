@@ -7,27 +7,34 @@ import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Strings.emptyToNull;
 import static com.google.common.base.Strings.nullToEmpty;
+import static es.prueba.jorge.commons.CharSequences.indexOf;
+import static es.prueba.jorge.commons.CharSequences.trimEnd;
+import static es.prueba.jorge.commons.CharSequences.trimStart;
 import static java.util.Objects.isNull;
 
 import com.google.common.annotations.Beta;
 import com.google.common.base.MoreObjects;
+import com.google.common.cache.CacheStats;
 import com.google.common.collect.ComparisonChain;
 import com.google.errorprone.annotations.Immutable;
 
 import java.util.Objects;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
+import es.prueba.jorge.commons.Counter;
+import es.prueba.jorge.commons.MetricRegistry;
 import es.prueba.jorge.commons.ValueObject;
+import es.prueba.jorge.commons.ValueObjectCache;
 
 /**
  * Representa una direccion de correo electrónico válida. una dirección de correo electrónico válida
  * es una dirección compuesta por dos partes, un nombre de usuario y un nombre de dominio separados
  * por @ sin espacios, y con una longitud no superior a {@value #MAX_EMAIL_LENGTH}. Se presenta así:
  * nombredeusuario@nombrededominio.extensióndominio
+ * <p>
+ * El formato se comprueba con {@link EmailValidator}.
  *
  * @author Jorge García Villanueva &lt;Jorgegv95@gmail.com&gt;
  */
@@ -40,20 +47,50 @@ public final class Email implements ValueObject<Email> {
   /**
    * Comprueba si la cadena de {@link Email} pasada cumple con las caracteristicas necesarias para
    * ser válida. Si se cumple devolvera {@code true}, y si no {@code false}.
+   * <p>
+   * Cada validación, y cada rechazo, se cuenta en {@link MetricRegistry#global()}.
    *
    * @param value cadena de un email a validar
    * @return {@code true} si el email pasado es correcto, o {@code false} si no lo es.
    * @throws IllegalArgumentException si {@code value} tiene una longitud mayor de la permitida
    */
   public static boolean isValid(@Nullable final String value) {
-    final String noSpaces = emptyToNull(nullToEmpty(value).trim());
-    checkArgument(!isNull(noSpaces) && (noSpaces.length() < MAX_EMAIL_LENGTH)
-        && (noSpaces.indexOf(' ') == -1));
+    // Se trabaja sobre los límites recortados para no crear cadenas intermedias
+    final String noNull = nullToEmpty(value);
+    final int start = trimStart(noNull);
+    final int end = trimEnd(noNull, start);
+    final boolean acotado = (end > start) && ((end - start) < MAX_EMAIL_LENGTH)
+        && (indexOf(noNull, ' ', start, end) == -1);
+
+    VALIDACIONES.increment();
+    if (!acotado || !EmailValidator.INSTANCE.matches(noNull, start, end)) {
+      RECHAZOS.increment();
+      checkArgument(acotado);
+      return false;
+    }
+    return true;
+  }
 
-    final Pattern pattern = Pattern.compile(PATTERN_EMAIL);
+  /**
+   * Obtiene la instancia canónica de {@link Email} para {@code value}.
+   * <p>
+   * Para valores iguales se retorna la misma instancia mientras siga referenciada, por lo que se
+   * recomienda frente al constructor cuando se manejan muchos {@code Email} repetidos.
+   *
+   * @param value del {@code Email} a obtener.
+   * @return el {@code Email} canónico correspondiente a {@code value}.
+   * @throws NullPointerException si {@code value} es nulo, vacío o compuesto de espacios en blanco.
+   * @throws IllegalArgumentException si {@code value} no es válido.
+   */
+  public static Email of(@Nonnull final String value) {
+    return CACHE.get(checkNotNull(emptyToNull(nullToEmpty(value).trim())));
+  }
 
-    final Matcher matcher = pattern.matcher(noSpaces);
-    return matcher.matches();
+  /**
+   * @return las estadísticas de aciertos y fallos de {@link #of(String)}.
+   */
+  public static CacheStats cacheStats() {
+    return CACHE.stats();
   }
 
   /**
@@ -115,12 +152,26 @@ public final class Email implements ValueObject<Email> {
   }
 
   /**
-   * Patrón para validar si el formato de la cadena de email pasada al constructor cumple con las
-   * características para ser una dirección de correo válida.
+   * Las instancias deserializadas se sustituyen por la canónica.
+   *
+   * @return la instancia canónica equivalente a esta.
    */
+  private Object readResolve() {
+    return of(_value);
+  }
+
+  /** Número máximo de instancias canónicas retenidas por {@link #of(String)}. */
+  private static final long CACHE_MAXIMUM_SIZE = 1_000_000L;
+
+  private static final ValueObjectCache<String, Email> CACHE =
+      ValueObjectCache.create(CACHE_MAXIMUM_SIZE, Email::new);
+
+  @SuppressWarnings("nls")
+  private static final Counter VALIDACIONES = MetricRegistry.global()
+      .counter("modelo_validaciones_total", "Validaciones de valores del modelo", "tipo", "email");
   @SuppressWarnings("nls")
-  private static final String PATTERN_EMAIL = "^[_A-Za-z0-9-\\+]+(\\.[_A-Za-z0-9-]+)*@"
-      + "[A-Za-z0-9-]+(\\.[A-Za-z0-9]+)*(\\.[A-Za-z]{2,})$";
+  private static final Counter RECHAZOS = MetricRegistry.global().counter(
+      "modelo_validaciones_rechazadas_total", "Valores del modelo no válidos", "tipo", "email");
 
   private static final long serialVersionUID = -2942809812240299434L;
 
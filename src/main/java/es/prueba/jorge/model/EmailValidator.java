@@ -0,0 +1,124 @@
+package es.prueba.jorge.model;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkPositionIndexes;
+
+import com.google.common.annotations.Beta;
+import com.google.errorprone.annotations.Immutable;
+
+import javax.annotation.Nonnull;
+
+import es.prueba.jorge.commons.CharSequenceValidator;
+
+/**
+ * Autómata que reconoce el mismo lenguaje que la expresión regular
+ * {@code ^[_A-Za-z0-9-\+]+(\.[_A-Za-z0-9-]+)*@[A-Za-z0-9-]+(\.[A-Za-z0-9]+)*(\.[A-Za-z]{2,})$}
+ * utilizada históricamente por {@link Email}.
+ * <p>
+ * La parte local son segmentos separados por {@code '.'}; sólo el primero admite {@code '+'}. El
+ * dominio tiene al menos dos etiquetas: la primera admite {@code '-'}, las intermedias son
+ * alfanuméricas y la última tiene al menos dos letras.
+ *
+ * @author Jorge García Villanueva &lt;Jorgegv95@gmail.com&gt;
+ */
+@Beta
+@Immutable
+public final class EmailValidator implements CharSequenceValidator {
+  /** Instancia compartida, el validador no tiene estado. */
+  public static final EmailValidator INSTANCE = new EmailValidator();
+
+  @Override
+  public boolean matches(@Nonnull final CharSequence value, final int start, final int end) {
+    checkPositionIndexes(start, end, checkNotNull(value).length());
+    int state = LOCAL_FIRST_START;
+    // Longitud de la etiqueta de dominio actual y si está formada únicamente por letras
+    int labelLength = 0;
+    boolean labelAlpha = true;
+
+    for (int i = start; i < end; i++) {
+      final char c = value.charAt(i);
+      switch (state) {
+        case LOCAL_FIRST_START:
+        case LOCAL_FIRST:
+          if (isLocalChar(c) || (c == '+')) {
+            state = LOCAL_FIRST;
+          } else if ((state == LOCAL_FIRST) && (c == '.')) {
+            state = LOCAL_NEXT_START;
+          } else if ((state == LOCAL_FIRST) && (c == '@')) {
+            state = DOMAIN_FIRST_START;
+          } else {
+            return false;
+          }
+          break;
+        case LOCAL_NEXT_START:
+        case LOCAL_NEXT:
+          if (isLocalChar(c)) {
+            state = LOCAL_NEXT;
+          } else if ((state == LOCAL_NEXT) && (c == '.')) {
+            state = LOCAL_NEXT_START;
+          } else if ((state == LOCAL_NEXT) && (c == '@')) {
+            state = DOMAIN_FIRST_START;
+          } else {
+            return false;
+          }
+          break;
+        case DOMAIN_FIRST_START:
+        case DOMAIN_FIRST:
+          if (isAlphanumeric(c) || (c == '-')) {
+            state = DOMAIN_FIRST;
+          } else if ((state == DOMAIN_FIRST) && (c == '.')) {
+            state = DOMAIN_NEXT_START;
+          } else {
+            return false;
+          }
+          break;
+        case DOMAIN_NEXT_START:
+        case DOMAIN_NEXT:
+          if (isAlphanumeric(c)) {
+            labelLength = (state == DOMAIN_NEXT_START) ? 1 : (labelLength + 1);
+            labelAlpha = ((state == DOMAIN_NEXT_START) || labelAlpha) && isAlpha(c);
+            state = DOMAIN_NEXT;
+          } else if ((state == DOMAIN_NEXT) && (c == '.')) {
+            state = DOMAIN_NEXT_START;
+          } else {
+            return false;
+          }
+          break;
+        default:
+          throw new IllegalStateException();
+      }
+    }
+    // La última etiqueta es el (\.[A-Za-z]{2,}) final, las anteriores encajan en (\.[A-Za-z0-9]+)*
+    return (state == DOMAIN_NEXT) && labelAlpha && (labelLength >= MIN_TLD_LENGTH);
+  }
+
+  private static boolean isAlpha(final char c) {
+    return ((c >= 'a') && (c <= 'z')) || ((c >= 'A') && (c <= 'Z'));
+  }
+
+  private static boolean isAlphanumeric(final char c) {
+    return isAlpha(c) || ((c >= '0') && (c <= '9'));
+  }
+
+  /** {@code [_A-Za-z0-9-]} */
+  private static boolean isLocalChar(final char c) {
+    return isAlphanumeric(c) || (c == '_') || (c == '-');
+  }
+
+  private EmailValidator() {
+    // Singleton
+  }
+
+  /** Longitud mínima de la última etiqueta del dominio. */
+  private static final int MIN_TLD_LENGTH = 2;
+
+  // Estados del autómata. *_START indica que aún no se ha leído ningún carácter del segmento.
+  private static final int LOCAL_FIRST_START = 0;
+  private static final int LOCAL_FIRST = 1;
+  private static final int LOCAL_NEXT_START = 2;
+  private static final int LOCAL_NEXT = 3;
+  private static final int DOMAIN_FIRST_START = 4;
+  private static final int DOMAIN_FIRST = 5;
+  private static final int DOMAIN_NEXT_START = 6;
+  private static final int DOMAIN_NEXT = 7;
+}
@@ -46,6 +46,8 @@ public final class Perfil implements ValueObject<Perfil> {
   public static final Perfil CLIENTE = PERFIL.get(PerfilValues.CLIENTE.name());
   /** Utilizado para indicar un <i>perfil</i> EXTERNO */
   public static final Perfil EXTERNO = PERFIL.get(PerfilValues.EXTERNO.name());
+  /** Utilizado para indicar un <i>perfil</i> ADMINISTRADOR */
+  public static final Perfil ADMINISTRADOR = PERFIL.get(PerfilValues.ADMINISTRADOR.name());
 
   /**
    * @return Una lista inmutable y ordenada de todos los valores de {@link Perfil} existentes.
@@ -145,7 +147,9 @@ public final class Perfil implements ValueObject<Perfil> {
     /** Operador */
     CLIENTE,
     /** Responsable Departamento */
-    EXTERNO;
+    EXTERNO,
+    /** Administrador de la aplicación */
+    ADMINISTRADOR;
   }
 
   private final PerfilValues _perfil;
@@ -2,6 +2,10 @@ package es.prueba.jorge.model;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
+import com.google.common.base.MoreObjects;
+
+import java.util.Objects;
+
 import javax.annotation.Nonnull;
 
 import es.prueba.jorge.commons.Entity;
@@ -12,34 +16,108 @@ import es.prueba.jorge.commons.Entity;
  * @author Jorge García Villanueva &lt;Jorgegv95@gmail.com&gt;
  */
 public class Solicitud extends Entity<Solicitud, SolicitudId> {
-
-
   /**
-   * @param identity de la solicitud
+   * Crea y retorna un {@link Builder} para construir una {@link Solicitud}.
+   *
+   * @param solicitudId identity de la {@code Solicitud} a construir.
+   * @return un {@code Builder} para la {@code Solicitud}.
    */
-  private Solicitud(@Nonnull final SolicitudId identity, @Nonnull final String solicitante,
-      @Nonnull final Boolean repartir) {
-    super(identity);
-    _datos.solicitante = checkNotNull(solicitante);
-    _datos.repartir = repartir;
+  public static Builder builder(@Nonnull final SolicitudId solicitudId) {
+    return new Solicitud.Builder(checkNotNull(solicitudId));
+  }
 
+  /**
+   * @return quién ha realizado la solicitud.
+   */
+  public String solicitante() {
+    return _solicitante;
+  }
 
-    // TODO Auto-generated constructor stub
+  /**
+   * @return {@code true} si la solicitud ha de repartirse entre los {@link Usuario}s.
+   */
+  public boolean repartir() {
+    return _repartir;
   }
 
   @Override
   public boolean sameValueAs(final Solicitud other) {
-    // TODO Auto-generated method stub
-    return false;
+    return Objects.equals(identity(), other.identity())
+        && Objects.equals(solicitante(), other.solicitante()) && (repartir() == other.repartir());
+  }
+
+  @SuppressWarnings("nls")
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this).add("identity", identity())
+        .add("solicitante", solicitante()).add("repartir", repartir()).toString();
+  }
+
+  /**
+   * @param identity de la solicitud
+   * @param solicitante de la solicitud
+   * @param repartir si la solicitud ha de repartirse
+   */
+  Solicitud(@Nonnull final SolicitudId identity, @Nonnull final String solicitante,
+      final boolean repartir) {
+    super(identity);
+    _solicitante = checkNotNull(solicitante);
+    _repartir = repartir;
   }
 
-  private Data _datos;
   private static final long serialVersionUID = 813220847548412111L;
 
-  private final class Data {
-    Boolean repartir;
-    String solicitante;
+  /** Quién ha realizado la solicitud */
+  private final String _solicitante;
+  /** Si la solicitud ha de repartirse */
+  private final boolean _repartir;
 
-  }
+  /**
+   * Clase para facilitar la construcción de una {@link Solicitud}
+   */
+  public static final class Builder {
+    /**
+     * @return una {@link Solicitud} con los datos inicializados en este <i>Builder</i>
+     */
+    public Solicitud build() {
+      return new Solicitud(sid, solicitante, repartir);
+    }
+
+    /**
+     * Establece el solicitante de la {@link Solicitud} que se está construyendo.
+     *
+     * @param value a establecer.
+     * @return una referencia a este mismo <i>builder</i> para poder seguir encadenando las
+     *         llamadas.
+     */
+    public Builder withSolicitante(@Nonnull final String value) {
+      solicitante = checkNotNull(value);
+      return this;
+    }
 
+    /**
+     * Establece si la {@link Solicitud} que se está construyendo ha de repartirse.
+     *
+     * @param value a establecer.
+     * @return una referencia a este mismo <i>builder</i> para poder seguir encadenando las
+     *         llamadas.
+     */
+    public Builder withRepartir(final boolean value) {
+      repartir = value;
+      return this;
+    }
+
+    /**
+     * Ctor del <i>Builder</i>.
+     *
+     * @param solicitudId Identity de la {@link Solicitud} que se está construyendo
+     */
+    Builder(@Nonnull final SolicitudId solicitudId) {
+      sid = checkNotNull(solicitudId);
+    }
+
+    private final SolicitudId sid;
+    private String solicitante;
+    private boolean repartir;
+  }
 }
@@ -3,18 +3,22 @@ package es.prueba.jorge.model;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 import com.google.common.base.MoreObjects;
-import com.google.common.collect.ComparisonChain;
 
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.util.Objects;
 
 import javax.annotation.Nonnull;
 
-import es.prueba.jorge.commons.Identity;
+import es.prueba.jorge.commons.IntIdentity;
 
 /**
  * @author Jorge García Villanueva &lt;Jorgegv95@gmail.com&gt;
  */
-public class SolicitudId implements Identity<SolicitudId> {
+public class SolicitudId implements IntIdentity<SolicitudId> {
   /** Representa el valor mínimo que puede tener la identidad de una {@link Solicitud} */
   public static final int MIN_NUM = 0;
 
@@ -23,15 +27,13 @@ public class SolicitudId implements Identity<SolicitudId> {
    *
    * @param solicitudId número único que identifica una única {@link Solicitud}
    */
-  public SolicitudId(@Nonnull final Integer solicitudId) {
+  public SolicitudId(final int solicitudId) {
     id = solicitudId;
   }
 
 
-  /**
-   * @return the id
-   */
-  public Integer id() {
+  @Override
+  public int id() {
     return id;
   }
 
@@ -49,33 +51,50 @@ public class SolicitudId implements Identity<SolicitudId> {
 
   @Override
   public boolean sameValueAs(final SolicitudId other) {
-    return Objects.equals(id(), checkNotNull(other).id());
+    return id() == checkNotNull(other).id();
   }
 
   @Override
   public int compareTo(final SolicitudId that) {
-    return ComparisonChain.start().compare(id(), checkNotNull(that).id()).result();
+    return Integer.compare(id(), checkNotNull(that).id());
   }
 
   @Override
   public String toString() {
     if (Objects.isNull(_toString)) {
-      return MoreObjects.toStringHelper(this).add("id", id()).toString(); //$NON-NLS-1$
+      _toString = MoreObjects.toStringHelper(this).add("id", id()).toString(); //$NON-NLS-1$
     }
     return _toString;
   }
 
   @Override
   public int hashCode() {
-    if (_hashCode == 0) {
-      return Objects.hash(id());
+    return Integer.hashCode(id());
+  }
+
+  /**
+   * Se serializa como antes de ser {@code int}, con el {@code id} como {@code Integer}, para leer
+   * y escribir la misma forma que las versiones anteriores.
+   */
+  private void writeObject(final ObjectOutputStream out) throws IOException {
+    out.putFields().put(ID, Integer.valueOf(id));
+    out.writeFields();
+  }
+
+  private void readObject(final ObjectInputStream in) throws IOException, ClassNotFoundException {
+    final Integer leido = (Integer) in.readFields().get(ID, null);
+    if (leido == null) {
+      throw new InvalidObjectException("id nulo"); //$NON-NLS-1$
     }
-    return _hashCode;
+    id = leido.intValue();
   }
 
   private static final long serialVersionUID = -3855615029485728532L;
-  private final Integer id;
+  private static final String ID = "id"; //$NON-NLS-1$
+  private static final ObjectStreamField[] serialPersistentFields =
+      {new ObjectStreamField(ID, Integer.class)};
+  /** No es {@code final} sólo para poder asignarlo en {@link #readObject(ObjectInputStream)} */
+  private int id;
 
-  private transient int _hashCode;
   private transient String _toString;
 }
@@ -4,21 +4,25 @@ import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Strings.emptyToNull;
 import static com.google.common.base.Strings.nullToEmpty;
+import static es.prueba.jorge.commons.CharSequences.trimEnd;
+import static es.prueba.jorge.commons.CharSequences.trimStart;
 import static java.util.Objects.isNull;
 
 import com.google.common.annotations.Beta;
 import com.google.common.base.MoreObjects;
+import com.google.common.cache.CacheStats;
 import com.google.common.collect.ComparisonChain;
 import com.google.errorprone.annotations.Immutable;
 
 import java.util.Objects;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
+import es.prueba.jorge.commons.Counter;
+import es.prueba.jorge.commons.MetricRegistry;
 import es.prueba.jorge.commons.ValueObject;
+import es.prueba.jorge.commons.ValueObjectCache;
 
 /**
  * Representa únicamente un número teléfono.
@@ -35,23 +39,50 @@ public final class Telefono implements ValueObject<Telefono> {
    * Comprueba si la cadena {@code value} pasada cumple con las características necesarias para ser
    * válido. Un teléfono será válido cuando tenga como longitud {@value #TELEFONO_LENGTH}, no
    * contenga espacios, y no sea nulo. Si se cumple devolverá {@code true}, y si no {@code false}.
+   * <p>
+   * Cada validación, y cada rechazo, se cuenta en {@link MetricRegistry#global()}.
    *
    * @param value pasado como argumento.
    * @return {@code true} cuando {@code value} cumple con el formato correcto o {@code false} cuando
    *         no lo cumple.
+   * @throws NullPointerException si {@code value} es nulo, vacío o compuesto de espacios en blanco.
    */
   public static boolean isValid(@Nullable final String value) {
-    final String noSpaces = emptyToNull(nullToEmpty(value).trim());
-    /*
-     * Creamos el pattern para comprobar si el {@code telefono} pasado es válido "[1-9][0-9]{n}".
-     * Donde n es el numero de longitud del teléfono -1, ya que el teléfono no puede empezar por 0 y
-     * por eso se repite tantas veces como la longitud -1.
-     */
-    final Pattern pattern = Pattern.compile(
-        new StringBuilder("[1-9][0-9]{").append(TELEFONO_LENGTH - 1).append("}").toString()); //$NON-NLS-1$//$NON-NLS-2$
-
-    final Matcher matcher = pattern.matcher(noSpaces);
-    return matcher.matches();
+    // Se trabaja sobre los límites recortados para no crear cadenas intermedias
+    final String noNull = nullToEmpty(value);
+    final int start = trimStart(noNull);
+    final int end = trimEnd(noNull, start);
+    final boolean presente = end > start;
+
+    VALIDACIONES.increment();
+    if (!presente || !TelefonoValidator.INSTANCE.matches(noNull, start, end)) {
+      RECHAZOS.increment();
+      checkNotNull(presente ? noNull : null);
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   * Obtiene la instancia canónica de {@link Telefono} para {@code value}.
+   * <p>
+   * Para valores iguales se retorna la misma instancia mientras siga referenciada, por lo que se
+   * recomienda frente al constructor cuando se manejan muchos {@code Telefono} repetidos.
+   *
+   * @param value del {@code Telefono} a obtener.
+   * @return el {@code Telefono} canónico correspondiente a {@code value}.
+   * @throws NullPointerException si {@code value} es nulo, vacío o compuesto de espacios en blanco.
+   * @throws IllegalArgumentException si {@code value} no es válido.
+   */
+  public static Telefono of(@Nonnull final String value) {
+    return CACHE.get(checkNotNull(emptyToNull(nullToEmpty(value).trim())));
+  }
+
+  /**
+   * @return las estadísticas de aciertos y fallos de {@link #of(String)}.
+   */
+  public static CacheStats cacheStats() {
+    return CACHE.stats();
   }
 
   /**
@@ -113,6 +144,28 @@ public final class Telefono implements ValueObject<Telefono> {
     _value = noNull;
   }
 
+  /**
+   * Las instancias deserializadas se sustituyen por la canónica.
+   *
+   * @return la instancia canónica equivalente a esta.
+   */
+  private Object readResolve() {
+    return of(_value);
+  }
+
+  /** Número máximo de instancias canónicas retenidas por {@link #of(String)}. */
+  private static final long CACHE_MAXIMUM_SIZE = 1_000_000L;
+
+  private static final ValueObjectCache<String, Telefono> CACHE =
+      ValueObjectCache.create(CACHE_MAXIMUM_SIZE, Telefono::new);
+
+  @SuppressWarnings("nls")
+  private static final Counter VALIDACIONES = MetricRegistry.global().counter(
+      "modelo_validaciones_total", "Validaciones de valores del modelo", "tipo", "telefono");
+  @SuppressWarnings("nls")
+  private static final Counter RECHAZOS = MetricRegistry.global().counter(
+      "modelo_validaciones_rechazadas_total", "Valores del modelo no válidos", "tipo", "telefono");
+
   private static final long serialVersionUID = -2942809812240299434L;
 
   private final String _value;
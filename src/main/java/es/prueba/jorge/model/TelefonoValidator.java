@@ -0,0 +1,48 @@
+package es.prueba.jorge.model;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkPositionIndexes;
+
+import com.google.common.annotations.Beta;
+import com.google.errorprone.annotations.Immutable;
+
+import javax.annotation.Nonnull;
+
+import es.prueba.jorge.commons.CharSequenceValidator;
+
+/**
+ * Reconoce el mismo lenguaje que la expresión regular {@code [1-9][0-9]{n}} utilizada
+ * históricamente por {@link Telefono}, donde {@code n} es {@link Telefono#TELEFONO_LENGTH} - 1.
+ *
+ * @author Jorge García Villanueva &lt;Jorgegv95@gmail.com&gt;
+ */
+@Beta
+@Immutable
+public final class TelefonoValidator implements CharSequenceValidator {
+  /** Instancia compartida, el validador no tiene estado. */
+  public static final TelefonoValidator INSTANCE = new TelefonoValidator();
+
+  @Override
+  public boolean matches(@Nonnull final CharSequence value, final int start, final int end) {
+    checkPositionIndexes(start, end, checkNotNull(value).length());
+    if ((end - start) != Telefono.TELEFONO_LENGTH) {
+      return false;
+    }
+    // El teléfono no puede empezar por 0
+    final char first = value.charAt(start);
+    if ((first < '1') || (first > '9')) {
+      return false;
+    }
+    for (int i = start + 1; i < end; i++) {
+      final char c = value.charAt(i);
+      if ((c < '0') || (c > '9')) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private TelefonoValidator() {
+    // Singleton
+  }
+}
@@ -37,6 +37,10 @@ public final class TipoCRUD implements ValueObject<TipoCRUD> {
     }
   }
 
+  /** Valores existentes ordenados, calculados una única vez. */
+  private static final ImmutableList<String> TIPOS_CRUD =
+      ImmutableList.sortedCopyOf(TIPO_CRUD.keySet());
+
   /** Constante para una operación de {@code ALTA}. */
   static public TipoCRUD ALTA = TIPO_CRUD.get(TipoCRUDValues.ALTA.name());
 
@@ -50,7 +54,7 @@ public final class TipoCRUD implements ValueObject<TipoCRUD> {
    * @return Una lista ordenada e inmutable de todos los valores de {@link TipoCRUD} existentes.
    */
   public static ImmutableList<String> getTiposCRUD() {
-    return ImmutableList.sortedCopyOf(TIPO_CRUD.keySet());
+    return TIPOS_CRUD;
   }
 
   /**
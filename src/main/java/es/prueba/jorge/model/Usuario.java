@@ -5,12 +5,11 @@ import static com.google.common.base.Preconditions.checkNotNull;
 import com.google.common.base.MoreObjects;
 
 import java.time.Instant;
-import java.util.HashMap;
-import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 import es.prueba.jorge.commons.Entity;
 
@@ -34,56 +33,56 @@ public class Usuario extends Entity<Usuario, UsuarioId> {
    * @return the persona
    */
   public Persona persona() {
-    return _datos.persona;
+    return _persona;
   }
 
   /**
    * @return the perfil
    */
   public Perfil perfil() {
-    return _datos.perfil;
+    return _perfil;
   }
 
   /**
    * @return the email
    */
   public Email email() {
-    return _datos.email;
+    return _email;
   }
 
   /**
    * @return the email
    */
   public Telefono telefono() {
-    return _datos.telefono;
+    return _telefono;
   }
 
   /**
    * @return the ultimaVisita
    */
   public Optional<Instant> ultimaVisita() {
-    return Optional.ofNullable(_datos.ultimaVisita);
+    return Optional.ofNullable(_ultimaVisita);
   }
 
   /**
    * @return the alta
    */
   public DatosCRUD alta() {
-    return _datos.operaciones.get(TipoCRUD.ALTA);
+    return _alta;
   }
 
   /**
    * @return the baja
    */
   public Optional<DatosCRUD> baja() {
-    return Optional.ofNullable(_datos.operaciones.get(TipoCRUD.BAJA));
+    return Optional.ofNullable(_baja);
   }
 
   /**
    * @return the modificacion
    */
   public Optional<DatosCRUD> modificacion() {
-    return Optional.ofNullable(_datos.operaciones.get(TipoCRUD.MOD));
+    return Optional.ofNullable(_modificacion);
   }
 
   @Override
@@ -113,23 +112,47 @@ public class Usuario extends Entity<Usuario, UsuarioId> {
    * @param telefono del {@code usuario}
    * @param email del {@code usuario}
    * @param ultimaVisita del {@code usuario}
-   * @param operaciones realizadas por el {@code usuario}
+   * @param alta {@link DatosCRUD} del alta del {@code usuario}
+   * @param baja {@link DatosCRUD} de la baja del {@code usuario}, si la hay
+   * @param modificacion {@link DatosCRUD} de la última modificación del {@code usuario}, si la hay
    */
   Usuario(@Nonnull final UsuarioId identity, @Nonnull final Persona persona,
       @Nonnull final Perfil perfil, @Nonnull final Telefono telefono, @Nonnull final Email email,
-      @Nonnull final Instant ultimaVisita, @Nonnull final Map<TipoCRUD, DatosCRUD> operaciones) {
+      @Nonnull final Instant ultimaVisita, @Nonnull final DatosCRUD alta,
+      @Nullable final DatosCRUD baja, @Nullable final DatosCRUD modificacion) {
     super(identity);
-    _datos.persona = checkNotNull(persona);
-    _datos.perfil = checkNotNull(perfil);
-    _datos.telefono = checkNotNull(telefono);
-    _datos.email = checkNotNull(email);
-    _datos.ultimaVisita = ultimaVisita;
-    _datos.operaciones.putAll(operaciones);
+    _persona = checkNotNull(persona);
+    _perfil = checkNotNull(perfil);
+    _telefono = checkNotNull(telefono);
+    _email = checkNotNull(email);
+    _ultimaVisita = ultimaVisita;
+    _alta = alta;
+    _baja = baja;
+    _modificacion = modificacion;
   }
 
   private static final long serialVersionUID = -8431449940515179676L;
-  private final Data _datos = new Data();
 
+  // Los datos se guardan directamente en la instancia y las operaciones CRUD en un campo por
+  // TipoCRUD, sin objetos ni mapas intermedios por cada Usuario.
+  /** {@link Persona} asociada al {@link UsuarioId} */
+  private final Persona _persona;
+  /** {@link Perfil} del usuario */
+  private final Perfil _perfil;
+  /** Teléfono de contacto del Usuario */
+  private final Telefono _telefono;
+  /** Email del Usuario */
+  private final Email _email;
+  /** Último acceso del usuario */
+  private final Instant _ultimaVisita;
+  /** Datos de la operación de {@link TipoCRUD#ALTA} */
+  private final DatosCRUD _alta;
+  /** Datos de la operación de {@link TipoCRUD#BAJA} */
+  private final DatosCRUD _baja;
+  /** Datos de la última operación de {@link TipoCRUD#MOD} */
+  private final DatosCRUD _modificacion;
+
+  /** Datos del {@link Usuario} en construcción. */
   private static final class Data {
     /** {@link Persona} asociada al {@link UsuarioId} */
     Persona persona;
@@ -141,9 +164,12 @@ public class Usuario extends Entity<Usuario, UsuarioId> {
     Email email;
     /** Último acceso del usuario */
     Instant ultimaVisita;
-    /** Datos de operaciones realizadas */
-    // Operaciones globales
-    final Map<TipoCRUD, DatosCRUD> operaciones = new HashMap<>(TipoCRUD.getTiposCRUD().size());
+    /** Datos del alta */
+    DatosCRUD alta;
+    /** Datos de la baja */
+    DatosCRUD baja;
+    /** Datos de la última modificación */
+    DatosCRUD modificacion;
 
     Data() {
       // Nothing to do
@@ -159,7 +185,7 @@ public class Usuario extends Entity<Usuario, UsuarioId> {
      */
     public Usuario build() {
       return new Usuario(uid, _item.persona, _item.perfil, _item.telefono, _item.email,
-          _item.ultimaVisita, _item.operaciones);
+          _item.ultimaVisita, _item.alta, _item.baja, _item.modificacion);
     }
 
     /**
@@ -231,7 +257,7 @@ public class Usuario extends Entity<Usuario, UsuarioId> {
      * @throws NullPointerException si {@code value} es {@code null}.
      */
     public Builder withDatosAlta(@Nonnull final DatosCRUD value) {
-      _item.operaciones.put(TipoCRUD.ALTA, checkNotNull(value));
+      _item.alta = checkNotNull(value);
 
       return this;
     }
@@ -244,7 +270,7 @@ public class Usuario extends Entity<Usuario, UsuarioId> {
      *         llamadas.
      */
     public Builder withDatosBaja(@Nonnull final DatosCRUD value) {
-      _item.operaciones.put(TipoCRUD.BAJA, checkNotNull(value));
+      _item.baja = checkNotNull(value);
 
       return this;
     }
@@ -258,7 +284,7 @@ public class Usuario extends Entity<Usuario, UsuarioId> {
      *         llamadas.
      */
     public Builder withDatosUltimaModificacion(@Nonnull final DatosCRUD value) {
-      _item.operaciones.put(TipoCRUD.MOD, checkNotNull(value));
+      _item.modificacion = checkNotNull(value);
 
       return this;
     }
@@ -0,0 +1,95 @@
+package es.prueba.jorge.model.reparto;
+
+import java.util.List;
+
+import javax.annotation.Nonnull;
+
+import es.prueba.jorge.model.Solicitud;
+import es.prueba.jorge.model.Usuario;
+
+/**
+ * Estrategia con la que {@link RepartoSolicitudes} elige el {@link Usuario} al que asignar cada
+ * {@link Solicitud}.
+ * <p>
+ * Por cada reparto y trabajador se crea un {@link Asignador} nuevo con su parte de los candidatos
+ * elegibles, de modo que el estado de la estrategia (contadores, cargas...) no se comparte entre
+ * repartos ni, salvo al robar trabajo, entre trabajadores.
+ *
+ * @author Jorge García Villanueva &lt;Jorgegv95@gmail.com&gt;
+ */
+@FunctionalInterface
+public interface EstrategiaReparto {
+  /**
+   * Reparte las solicitudes de forma cíclica entre los candidatos.
+   *
+   * @return la estrategia <i>round-robin</i>.
+   */
+  static EstrategiaReparto roundRobin() {
+    return RoundRobin::new;
+  }
+
+  /**
+   * Asigna cada solicitud al candidato con menos solicitudes asignadas hasta el momento.
+   *
+   * @return la estrategia <i>least-loaded</i>.
+   */
+  static EstrategiaReparto menosCargado() {
+    return MenosCargado::new;
+  }
+
+  /**
+   * Asigna todas las solicitudes de un mismo solicitante al mismo candidato. Cada solicitante nuevo
+   * se asigna al candidato con menos solicitantes asignados.
+   *
+   * @return la estrategia <i>sticky</i> por solicitante.
+   */
+  static EstrategiaReparto porSolicitante() {
+    return new EstrategiaReparto() {
+      @Override
+      public Asignador crear(@Nonnull final List<Usuario> candidatos) {
+        return new PorSolicitante(candidatos);
+      }
+
+      /** Todas las solicitudes de un solicitante han de ir al mismo {@code Asignador} */
+      @Override
+      public int clave(@Nonnull final Solicitud solicitud, final int orden) {
+        return solicitud.solicitante().hashCode();
+      }
+    };
+  }
+
+  /**
+   * Crea el {@link Asignador} de un reparto.
+   *
+   * @param candidatos {@link Usuario}s elegibles, al menos uno.
+   * @return un nuevo {@code Asignador}.
+   * @throws IllegalArgumentException si no hay candidatos.
+   */
+  Asignador crear(@Nonnull List<Usuario> candidatos);
+
+  /**
+   * Clave con la que {@link RepartoSolicitudes} elige el {@link Asignador} de cada
+   * {@link Solicitud}: las solicitudes con la misma clave se asignan siempre con el mismo.
+   *
+   * @param solicitud a repartir.
+   * @param orden de {@code solicitud} entre las que se reparten.
+   * @return por defecto {@code orden}, que reparte las solicitudes entre los {@code Asignador}es en
+   *         proporción a sus candidatos.
+   */
+  default int clave(@Nonnull final Solicitud solicitud, final int orden) {
+    return orden;
+  }
+
+  /**
+   * Elige el {@link Usuario} de cada {@link Solicitud} dentro de un reparto. Las implementaciones
+   * han de ser seguras para su uso concurrente.
+   */
+  @FunctionalInterface
+  interface Asignador {
+    /**
+     * @param solicitud a asignar.
+     * @return el {@link Usuario} al que se asigna {@code solicitud}.
+     */
+    Usuario asignar(@Nonnull Solicitud solicitud);
+  }
+}
@@ -0,0 +1,76 @@
+package es.prueba.jorge.model.reparto;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.google.common.collect.ImmutableList;
+
+import java.util.List;
+
+import javax.annotation.Nonnull;
+
+import es.prueba.jorge.model.Solicitud;
+import es.prueba.jorge.model.Usuario;
+
+/**
+ * Asignación al candidato con menos solicitudes asignadas.
+ * <p>
+ * Mantiene un montículo binario de índices de candidatos ordenado por carga. Como cada asignación
+ * sólo incrementa la carga de la raíz, basta con hundirla, con coste {@code O(log n)} y sin crear
+ * objetos.
+ *
+ * @author Jorge García Villanueva &lt;Jorgegv95@gmail.com&gt;
+ * @see EstrategiaReparto#menosCargado()
+ */
+final class MenosCargado implements EstrategiaReparto.Asignador {
+  MenosCargado(@Nonnull final List<Usuario> candidatos) {
+    checkArgument(!candidatos.isEmpty());
+    _candidatos = ImmutableList.copyOf(candidatos);
+    _cargas = new int[_candidatos.size()];
+    _monticulo = new int[_candidatos.size()];
+    // Con todas las cargas a 0 cualquier orden es un montículo válido
+    for (int i = 0; i < _monticulo.length; i++) {
+      _monticulo[i] = i;
+    }
+  }
+
+  @Override
+  public synchronized Usuario asignar(@Nonnull final Solicitud solicitud) {
+    final int elegido = _monticulo[0];
+    _cargas[elegido]++;
+    hundir();
+    return _candidatos.get(elegido);
+  }
+
+  /** Recoloca la raíz tras incrementar su carga. */
+  private void hundir() {
+    final int n = _monticulo.length;
+    final int raiz = _monticulo[0];
+    int i = 0;
+    while (true) {
+      int menor = (2 * i) + 1;
+      if (menor >= n) {
+        break;
+      }
+      if (((menor + 1) < n) && menor(_monticulo[menor + 1], _monticulo[menor])) {
+        menor++;
+      }
+      if (!menor(_monticulo[menor], raiz)) {
+        break;
+      }
+      _monticulo[i] = _monticulo[menor];
+      i = menor;
+    }
+    _monticulo[i] = raiz;
+  }
+
+  /** A igual carga se prefiere el candidato de menor índice para que el orden sea estable. */
+  private boolean menor(final int a, final int b) {
+    return (_cargas[a] < _cargas[b]) || ((_cargas[a] == _cargas[b]) && (a < b));
+  }
+
+  private final ImmutableList<Usuario> _candidatos;
+  /** Solicitudes asignadas a cada candidato, por índice. */
+  private final int[] _cargas;
+  /** Índices de candidatos ordenados como montículo por carga. */
+  private final int[] _monticulo;
+}
@@ -0,0 +1,32 @@
+package es.prueba.jorge.model.reparto;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.annotation.Nonnull;
+
+import es.prueba.jorge.model.Solicitud;
+import es.prueba.jorge.model.Usuario;
+
+/**
+ * Asigna todas las solicitudes de un mismo solicitante al mismo candidato. Cada solicitante nuevo
+ * se asigna al candidato con menos solicitantes asignados.
+ *
+ * @author Jorge García Villanueva &lt;Jorgegv95@gmail.com&gt;
+ * @see EstrategiaReparto#porSolicitante()
+ */
+final class PorSolicitante implements EstrategiaReparto.Asignador {
+  PorSolicitante(@Nonnull final List<Usuario> candidatos) {
+    _primeraAsignacion = new MenosCargado(candidatos);
+  }
+
+  @Override
+  public Usuario asignar(@Nonnull final Solicitud solicitud) {
+    return _asignados.computeIfAbsent(solicitud.solicitante(),
+        solicitante -> _primeraAsignacion.asignar(solicitud));
+  }
+
+  private final MenosCargado _primeraAsignacion;
+  private final ConcurrentMap<String, Usuario> _asignados = new ConcurrentHashMap<>();
+}
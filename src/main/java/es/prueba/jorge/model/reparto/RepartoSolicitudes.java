@@ -0,0 +1,162 @@
+package es.prueba.jorge.model.reparto;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.collect.ImmutableList;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+import javax.annotation.Nonnull;
+
+import es.prueba.jorge.model.Perfil;
+import es.prueba.jorge.model.Solicitud;
+import es.prueba.jorge.model.SolicitudId;
+import es.prueba.jorge.model.Usuario;
+import es.prueba.jorge.model.UsuarioId;
+
+/**
+ * Reparte las {@link Solicitud}es marcadas para {@link Solicitud#repartir() repartir} entre los
+ * {@link Usuario}s elegibles.
+ * <p>
+ * Los candidatos se dividen en una partición por trabajador, cada una con su propio
+ * {@link EstrategiaReparto.Asignador}, de modo que los trabajadores no compiten por el estado de
+ * la {@link EstrategiaReparto}. Cada solicitud va a la cola de la partición de su
+ * {@link EstrategiaReparto#clave(Solicitud, int) clave}, en proporción a sus candidatos, y cada
+ * trabajador se ejecuta como una tarea del {@link Executor} proporcionado. Cuando un trabajador
+ * vacía su cola toma solicitudes del final de las colas de los demás (<i>work-stealing</i>), de
+ * modo que ninguno queda ocioso mientras quede trabajo, y las asigna con el {@code Asignador} de
+ * la partición de la que las toma: el {@code Usuario} de cada solicitud no depende de qué
+ * trabajador la procese, y sólo se comparte un {@code Asignador} al robar.
+ *
+ * @author Jorge García Villanueva &lt;Jorgegv95@gmail.com&gt;
+ */
+public class RepartoSolicitudes {
+  /**
+   * @param perfil que han de tener los {@link Usuario}s elegibles.
+   * @return un filtro de elegibilidad por {@link Perfil}.
+   */
+  public static Predicate<Usuario> conPerfil(@Nonnull final Perfil perfil) {
+    checkNotNull(perfil);
+    return usuario -> perfil.equals(usuario.perfil());
+  }
+
+  /**
+   * @param executor en el que ejecutar los trabajadores del reparto.
+   * @param paralelismo número máximo de trabajadores de cada reparto, que no tiene más que
+   *        {@code Usuario}s elegibles.
+   * @throws IllegalArgumentException si {@code paralelismo} no es positivo.
+   */
+  public RepartoSolicitudes(@Nonnull final Executor executor, final int paralelismo) {
+    checkArgument(paralelismo > 0);
+    _executor = checkNotNull(executor);
+    _paralelismo = paralelismo;
+  }
+
+  /**
+   * Reparte las {@code solicitudes} marcadas para repartir entre los {@code usuarios} elegibles.
+   *
+   * @param solicitudes a repartir. Las no marcadas para repartir se descartan.
+   * @param usuarios candidatos a recibir solicitudes.
+   * @param elegible filtro de los {@code usuarios} que pueden recibir solicitudes.
+   * @param estrategia con la que elegir el {@link Usuario} de cada solicitud.
+   * @return el {@link ResultadoReparto}, disponible cuando terminen todos los trabajadores.
+   * @throws IllegalArgumentException si no hay ningún {@code Usuario} elegible.
+   */
+  public CompletableFuture<ResultadoReparto> repartir(
+      @Nonnull final Collection<Solicitud> solicitudes,
+      @Nonnull final Collection<Usuario> usuarios, @Nonnull final Predicate<? super Usuario> elegible,
+      @Nonnull final EstrategiaReparto estrategia) {
+    final List<Usuario> candidatos = checkNotNull(usuarios).stream().filter(checkNotNull(elegible))
+        .collect(ImmutableList.toImmutableList());
+    checkArgument(!candidatos.isEmpty(), "No hay usuarios elegibles para el reparto"); //$NON-NLS-1$
+    checkNotNull(estrategia);
+
+    final long inicio = System.nanoTime();
+    // El candidato i es de la partición i % particiones
+    final int particiones = Math.min(_paralelismo, candidatos.size());
+    final List<EstrategiaReparto.Asignador> asignadores = new ArrayList<>(particiones);
+    final List<ConcurrentLinkedDeque<Solicitud>> colas = new ArrayList<>(particiones);
+    for (int i = 0; i < particiones; i++) {
+      final List<Usuario> particion = new ArrayList<>((candidatos.size() / particiones) + 1);
+      for (int j = i; j < candidatos.size(); j += particiones) {
+        particion.add(candidatos.get(j));
+      }
+      asignadores.add(estrategia.crear(particion));
+      colas.add(new ConcurrentLinkedDeque<>());
+    }
+    int descartadas = 0;
+    int repartibles = 0;
+    for (final Solicitud solicitud : checkNotNull(solicitudes)) {
+      if (solicitud.repartir()) {
+        final int candidato =
+            Math.floorMod(estrategia.clave(solicitud, repartibles++), candidatos.size());
+        colas.get(candidato % particiones).addLast(solicitud);
+      } else {
+        descartadas++;
+      }
+    }
+
+    final Map<SolicitudId, Usuario> asignaciones = new ConcurrentHashMap<>(repartibles);
+    // Se crean de antemano los contadores de todos los candidatos para no hacerlo en cada solicitud
+    final Map<UsuarioId, AtomicInteger> cargas = new ConcurrentHashMap<>(candidatos.size());
+    candidatos.forEach(candidato -> cargas.put(candidato.identity(), new AtomicInteger()));
+    final LongAdder robadas = new LongAdder();
+
+    final CompletableFuture<?>[] trabajadores = new CompletableFuture<?>[particiones];
+    for (int i = 0; i < particiones; i++) {
+      final int propia = i;
+      trabajadores[i] = CompletableFuture.runAsync(
+          () -> trabajar(propia, colas, asignadores, asignaciones, cargas, robadas), _executor);
+    }
+
+    final int totalDescartadas = descartadas;
+    return CompletableFuture.allOf(trabajadores).thenApply(ignored -> {
+      final Map<UsuarioId, Integer> totales = new HashMap<>(cargas.size());
+      cargas.forEach((id, carga) -> totales.put(id, carga.get()));
+      return new ResultadoReparto(asignaciones, totales, totalDescartadas, robadas.sum(),
+          Duration.ofNanos(System.nanoTime() - inicio));
+    });
+  }
+
+  /**
+   * Procesa la cola {@code propia} por el principio y, cuando se vacía, roba del final de las
+   * demás, asignando cada solicitud con el {@code Asignador} de su cola. Como todas las colas se
+   * llenan antes de arrancar, no hay trabajo nuevo cuando todas están vacías.
+   */
+  private static void trabajar(final int propia,
+      final List<ConcurrentLinkedDeque<Solicitud>> colas,
+      final List<EstrategiaReparto.Asignador> asignadores,
+      final Map<SolicitudId, Usuario> asignaciones, final Map<UsuarioId, AtomicInteger> cargas,
+      final LongAdder robadas) {
+    for (int i = 0; i < colas.size(); i++) {
+      final int cola = (propia + i) % colas.size();
+      final EstrategiaReparto.Asignador asignador = asignadores.get(cola);
+      Solicitud solicitud;
+      while ((solicitud = (i == 0) ? colas.get(cola).pollFirst()
+          : colas.get(cola).pollLast()) != null) {
+        if (i > 0) {
+          robadas.increment();
+        }
+        final Usuario usuario = checkNotNull(asignador.asignar(solicitud));
+        asignaciones.put(solicitud.identity(), usuario);
+        cargas.computeIfAbsent(usuario.identity(), id -> new AtomicInteger()).incrementAndGet();
+      }
+    }
+  }
+
+  private final Executor _executor;
+  private final int _paralelismo;
+}
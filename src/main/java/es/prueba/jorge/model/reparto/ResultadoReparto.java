@@ -0,0 +1,118 @@
+package es.prueba.jorge.model.reparto;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.base.MoreObjects;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Map;
+
+import javax.annotation.Nonnull;
+
+import es.prueba.jorge.model.SolicitudId;
+import es.prueba.jorge.model.Usuario;
+import es.prueba.jorge.model.UsuarioId;
+
+/**
+ * Resultado de un reparto de {@link es.prueba.jorge.model.Solicitud Solicitud}es: las asignaciones
+ * realizadas y las medidas de rendimiento y equidad del reparto.
+ *
+ * @author Jorge García Villanueva &lt;Jorgegv95@gmail.com&gt;
+ */
+public final class ResultadoReparto {
+  /**
+   * @return el {@link Usuario} asignado a cada solicitud repartida.
+   */
+  public Map<SolicitudId, Usuario> asignaciones() {
+    return _asignaciones;
+  }
+
+  /**
+   * @return número de solicitudes asignadas a cada candidato, incluidos los que no han recibido
+   *         ninguna.
+   */
+  public Map<UsuarioId, Integer> cargas() {
+    return _cargas;
+  }
+
+  /**
+   * @return número de solicitudes no marcadas para repartir.
+   */
+  public int descartadas() {
+    return _descartadas;
+  }
+
+  /**
+   * @return número de solicitudes que un trabajador ha tomado de la cola de otro.
+   */
+  public long robadas() {
+    return _robadas;
+  }
+
+  /**
+   * @return tiempo empleado en el reparto.
+   */
+  public Duration duracion() {
+    return _duracion;
+  }
+
+  /**
+   * @return solicitudes repartidas por segundo.
+   */
+  public double solicitudesPorSegundo() {
+    final long nanos = Math.max(1L, _duracion.toNanos());
+    return (_asignaciones.size() * 1e9) / nanos;
+  }
+
+  /**
+   * @return la menor carga asignada a un candidato.
+   */
+  public int cargaMinima() {
+    return _cargas.values().stream().mapToInt(Integer::intValue).min().orElse(0);
+  }
+
+  /**
+   * @return la mayor carga asignada a un candidato.
+   */
+  public int cargaMaxima() {
+    return _cargas.values().stream().mapToInt(Integer::intValue).max().orElse(0);
+  }
+
+  /**
+   * @return la desviación típica de la carga entre candidatos. {@code 0} indica un reparto
+   *         perfectamente equitativo.
+   */
+  public double desviacionCarga() {
+    final double media =
+        _cargas.values().stream().mapToInt(Integer::intValue).average().orElse(0);
+    final double varianza = _cargas.values().stream()
+        .mapToDouble(carga -> (carga - media) * (carga - media)).average().orElse(0);
+    return Math.sqrt(varianza);
+  }
+
+  @SuppressWarnings("nls")
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this).add("repartidas", _asignaciones.size())
+        .add("descartadas", _descartadas).add("robadas", _robadas).add("duracion", _duracion)
+        .add("cargaMinima", cargaMinima()).add("cargaMaxima", cargaMaxima())
+        .add("desviacionCarga", desviacionCarga()).toString();
+  }
+
+  ResultadoReparto(@Nonnull final Map<SolicitudId, Usuario> asignaciones,
+      @Nonnull final Map<UsuarioId, Integer> cargas, final int descartadas, final long robadas,
+      @Nonnull final Duration duracion) {
+    _asignaciones = Collections.unmodifiableMap(checkNotNull(asignaciones));
+    _cargas = Collections.unmodifiableMap(checkNotNull(cargas));
+    _descartadas = descartadas;
+    _robadas = robadas;
+    _duracion = checkNotNull(duracion);
+  }
+
+  private final Map<SolicitudId, Usuario> _asignaciones;
+  private final Map<UsuarioId, Integer> _cargas;
+  private final int _descartadas;
+  private final long _robadas;
+  private final Duration _duracion;
+}
@@ -0,0 +1,34 @@
+package es.prueba.jorge.model.reparto;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.google.common.collect.ImmutableList;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.Nonnull;
+
+import es.prueba.jorge.model.Solicitud;
+import es.prueba.jorge.model.Usuario;
+
+/**
+ * Asignación cíclica entre los candidatos.
+ *
+ * @author Jorge García Villanueva &lt;Jorgegv95@gmail.com&gt;
+ * @see EstrategiaReparto#roundRobin()
+ */
+final class RoundRobin implements EstrategiaReparto.Asignador {
+  RoundRobin(@Nonnull final List<Usuario> candidatos) {
+    checkArgument(!candidatos.isEmpty());
+    _candidatos = ImmutableList.copyOf(candidatos);
+  }
+
+  @Override
+  public Usuario asignar(@Nonnull final Solicitud solicitud) {
+    return _candidatos.get(Math.floorMod(_siguiente.getAndIncrement(), _candidatos.size()));
+  }
+
+  private final ImmutableList<Usuario> _candidatos;
+  private final AtomicInteger _siguiente = new AtomicInteger();
+}
@@ -0,0 +1,433 @@
+package es.prueba.jorge.server.auditoria;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+import com.google.common.base.MoreObjects;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import javax.annotation.Nonnull;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import es.prueba.jorge.commons.Counter;
+import es.prueba.jorge.commons.MetricRegistry;
+import es.prueba.jorge.model.DatosCRUD;
+import es.prueba.jorge.model.TipoCRUD;
+import es.prueba.jorge.model.Usuario;
+import es.prueba.jorge.model.UsuarioId;
+import es.prueba.jorge.server.persistence.UsuarioModificado;
+import es.prueba.jorge.server.persistence.UsuariosInsertados;
+
+/**
+ * Diario de auditoría de las operaciones CRUD sobre {@link Usuario}s: un registro por cada
+ * {@code ALTA}, {@code BAJA} o {@code MOD}, en el orden en que se producen y sin sobrescribir
+ * ninguno.
+ * <p>
+ * El diario se guarda en segmentos de tamaño fijo proyectados en memoria
+ * ({@link MappedByteBuffer}) en un directorio. Cada segmento se llama como la secuencia de su
+ * primer registro y, al llenarse, se vuelca a disco y se abre el siguiente. Los registros son de
+ * {@value #TAMANO_REGISTRO} bytes:
+ *
+ * <pre>
+ * 0  int  usuario afectado
+ * 4  int  usuario que realiza la operación ({@link DatosCRUD#usuarioId()})
+ * 8  long instante, en nanosegundos desde la época ({@link DatosCRUD#instant()})
+ * 16 byte {@link TipoCRUD}: 0 ALTA, 1 BAJA, 2 MOD
+ * 17 (relleno)
+ * 20 int  CRC32 de los bytes 0-19
+ * </pre>
+ * <p>
+ * Añadir un registro sólo escribe en el segmento proyectado, sin crear objetos. Los registros
+ * sobreviven a una caída del proceso en cuanto se añaden, pero sólo a una del sistema tras un
+ * {@link #flush()} o un {@link #sincronizar(long)}, que agrupa los volcados de varios hilos
+ * (<i>group commit</i>): mientras uno vuelca, los demás siguen añadiendo, y el siguiente volcado
+ * cubre a todos los que esperaban. Al abrir el diario se recorre el último segmento hasta el
+ * primer registro cuyo CRC no coincide (una escritura a medias) y se pone a cero desde él, de modo
+ * que el diario queda siempre como un prefijo íntegro de lo añadido.
+ * <p>
+ * Las operaciones se registran antes de confirmar su transacción y se vuelcan a disco antes de
+ * que se confirme, de modo que si no se pueden guardar la transacción se deshace y el error le
+ * llega a quien la confirma. Si la confirmación falla después, el diario conserva una operación
+ * que no llegó a la base de datos: sobra un registro, pero nunca falta uno confirmado.
+ *
+ * @author Jorge García Villanueva &lt;Jorgegv95@gmail.com&gt;
+ */
+public class DiarioCRUD implements Closeable {
+  /** Bytes de cada registro */
+  public static final int TAMANO_REGISTRO = 24;
+  /** Extensión de los ficheros de los segmentos */
+  public static final String EXTENSION = ".diario"; //$NON-NLS-1$
+  /** Métrica con el número de operaciones de cada {@link TipoCRUD} */
+  public static final String METRICA_OPERACIONES = "usuario_operaciones_total"; //$NON-NLS-1$
+
+  /**
+   * Lector de los registros del diario, que los recibe por campos para no crear objetos.
+   */
+  @FunctionalInterface
+  public interface Lector {
+    /**
+     * @param secuencia del registro, consecutiva desde 0.
+     * @param usuario afectado por la operación.
+     * @param tipo de la operación.
+     * @param autor {@link UsuarioId} de quien realiza la operación.
+     * @param epochNanos instante de la operación, en nanosegundos desde la época.
+     */
+    void registro(long secuencia, int usuario, @Nonnull TipoCRUD tipo, int autor,
+        long epochNanos);
+  }
+
+  /**
+   * @param epochNanos nanosegundos desde la época, como los de {@link Lector#registro}.
+   * @return el {@link Instant} correspondiente.
+   */
+  public static Instant instant(final long epochNanos) {
+    return Instant.ofEpochSecond(Math.floorDiv(epochNanos, NANOS),
+        Math.floorMod(epochNanos, NANOS));
+  }
+
+  /**
+   * Abre el diario del directorio indicado, creándolo si no existe, y descarta el registro
+   * incompleto que haya podido dejar una caída.
+   *
+   * @param directorio de los segmentos.
+   * @param tamanoSegmento bytes de cada segmento nuevo, redondeados a registros completos.
+   * @throws IOException si no se puede leer o crear el diario.
+   * @throws IllegalArgumentException si en un segmento no cabe un registro.
+   */
+  public DiarioCRUD(@Nonnull final Path directorio, final int tamanoSegmento)
+      throws IOException {
+    checkArgument(tamanoSegmento >= TAMANO_REGISTRO, "tamanoSegmento ha de ser al menos %s: %s", //$NON-NLS-1$
+        TAMANO_REGISTRO, tamanoSegmento);
+    _directorio = Files.createDirectories(checkNotNull(directorio));
+    _tamanoSegmento = tamanoSegmento - (tamanoSegmento % TAMANO_REGISTRO);
+    final List<Path> segmentos = segmentos();
+    if (segmentos.isEmpty()) {
+      abrir(0);
+    } else {
+      recuperar(segmentos.get(segmentos.size() - 1));
+    }
+  }
+
+  /**
+   * Añade un registro al final del diario y cuenta la operación en la serie de su {@code tipo} de
+   * {@value #METRICA_OPERACIONES} de {@link MetricRegistry#global()}.
+   *
+   * @param usuario afectado por la operación.
+   * @param tipo de la operación.
+   * @param datos de quién y cuándo realiza la operación.
+   * @return la secuencia del registro.
+   * @throws IOException si no se puede crear un segmento nuevo.
+   * @throws IllegalStateException si el diario está cerrado.
+   */
+  public synchronized long append(@Nonnull final UsuarioId usuario, @Nonnull final TipoCRUD tipo,
+      @Nonnull final DatosCRUD datos) throws IOException {
+    checkState(_segmento != null, "Diario cerrado"); //$NON-NLS-1$
+    final byte codigo = codigo(tipo);
+    final Instant instant = datos.instant();
+    if (_escritos == _capacidad) {
+      _segmento.force();
+      abrir(_siguiente);
+    }
+    final int posicion = _escritos * TAMANO_REGISTRO;
+    _segmento.putInt(posicion, usuario.id());
+    _segmento.putInt(posicion + 4, datos.usuarioId().id());
+    _segmento.putLong(posicion + 8, (instant.getEpochSecond() * NANOS) + instant.getNano());
+    _segmento.put(posicion + 16, codigo);
+    _segmento.putInt(posicion + CRC, crc(_segmento, posicion));
+    _escritos++;
+    OPERACIONES[codigo].increment();
+    return _siguiente++;
+  }
+
+  /**
+   * Vuelca a disco los registros añadidos al segmento actual.
+   */
+  public synchronized void flush() {
+    if (_segmento != null) {
+      _segmento.force();
+    }
+  }
+
+  /**
+   * Vuelca a disco los registros añadidos hasta {@code secuencia}, salvo que otro hilo ya lo haya
+   * hecho. Sólo espera al volcado en curso, no a los que añaden registros.
+   *
+   * @param secuencia del último registro que ha de quedar en disco.
+   * @throws IllegalStateException si el diario está cerrado.
+   */
+  public void sincronizar(final long secuencia) {
+    synchronized (_volcado) {
+      if (secuencia < _volcados) {
+        return;
+      }
+      final MappedByteBuffer segmento;
+      final long siguiente;
+      synchronized (this) {
+        checkState(_segmento != null, "Diario cerrado"); //$NON-NLS-1$
+        // Los segmentos anteriores se vuelcan al llenarse, en append
+        segmento = _segmento;
+        siguiente = _siguiente;
+      }
+      segmento.force();
+      _volcados = siguiente;
+    }
+  }
+
+  /**
+   * @return la secuencia que tendrá el siguiente registro, que es también el número de registros
+   *         del diario.
+   */
+  public synchronized long siguiente() {
+    return _siguiente;
+  }
+
+  /**
+   * Recorre en orden los registros añadidos hasta el momento a partir de {@code desde}.
+   *
+   * @param desde secuencia del primer registro a leer.
+   * @param lector que recibe los registros.
+   * @throws IOException si no se pueden leer los segmentos.
+   * @throws IllegalStateException si un segmento completo tiene un registro corrupto.
+   */
+  public void leer(final long desde, @Nonnull final Lector lector) throws IOException {
+    leer(desde, Long.MAX_VALUE, lector);
+  }
+
+  /**
+   * Recorre en orden los registros con secuencia entre {@code desde} y {@code hasta} (excluida)
+   * añadidos hasta el momento.
+   *
+   * @param desde secuencia del primer registro a leer.
+   * @param hasta secuencia siguiente al último registro a leer.
+   * @param lector que recibe los registros.
+   * @throws IOException si no se pueden leer los segmentos.
+   * @throws IllegalStateException si un segmento completo tiene un registro corrupto.
+   */
+  public void leer(final long desde, final long hasta, @Nonnull final Lector lector)
+      throws IOException {
+    checkNotNull(lector);
+    final long limite = Math.min(hasta, siguiente());
+    final CRC32 crc = new CRC32();
+    final List<Path> segmentos = segmentos();
+    for (int s = 0; s < segmentos.size(); s++) {
+      final long primero = primero(segmentos.get(s));
+      final long fin = Math.min(limite,
+          (s + 1 < segmentos.size()) ? primero(segmentos.get(s + 1)) : Long.MAX_VALUE);
+      if ((fin <= desde) || (primero >= limite)) {
+        continue;
+      }
+      final MappedByteBuffer segmento = proyectar(segmentos.get(s), FileChannel.MapMode.READ_ONLY);
+      for (long secuencia = Math.max(desde, primero); secuencia < fin; secuencia++) {
+        final int posicion = Math.toIntExact(secuencia - primero) * TAMANO_REGISTRO;
+        checkState(valido(segmento, posicion, crc), "Registro %s corrupto en %s", secuencia, //$NON-NLS-1$
+            segmentos.get(s));
+        lector.registro(secuencia, segmento.getInt(posicion), TIPOS[segmento.get(posicion + 16)],
+            segmento.getInt(posicion + 4), segmento.getLong(posicion + 8));
+      }
+    }
+  }
+
+  /**
+   * Registra y vuelca a disco, antes de confirmar su transacción, la operación con la que se ha
+   * guardado el {@link Usuario}: la baja si la tiene y es posterior a su última modificación, la
+   * modificación si la tiene o, si no, el alta.
+   *
+   * @param evento del guardado.
+   * @throws IOException si no se puede añadir el registro, lo que deshace la transacción.
+   */
+  @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+  public void onUsuarioModificado(@Nonnull final UsuarioModificado evento) throws IOException {
+    final Usuario usuario = evento.usuario();
+    final long secuencia;
+    if (usuario.baja().isPresent() && (!usuario.modificacion().isPresent()
+        || (usuario.baja().get().compareTo(usuario.modificacion().get()) >= 0))) {
+      secuencia = append(usuario.identity(), TipoCRUD.BAJA, usuario.baja().get());
+    } else if (usuario.modificacion().isPresent()) {
+      secuencia = append(usuario.identity(), TipoCRUD.MOD, usuario.modificacion().get());
+    } else {
+      secuencia = append(usuario.identity(), TipoCRUD.ALTA, usuario.alta());
+    }
+    sincronizar(secuencia);
+  }
+
+  /**
+   * Registra el alta de cada {@link Usuario} insertado y las vuelca a disco juntas antes de
+   * confirmar su transacción.
+   *
+   * @param evento de la inserción.
+   * @throws IOException si no se puede añadir algún registro, lo que deshace la transacción.
+   */
+  @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+  public void onUsuariosInsertados(@Nonnull final UsuariosInsertados evento) throws IOException {
+    long secuencia = -1;
+    for (final Usuario usuario : evento.usuarios()) {
+      secuencia = append(usuario.identity(), TipoCRUD.ALTA, usuario.alta());
+    }
+    sincronizar(secuencia);
+  }
+
+  /**
+   * Vuelca a disco el segmento actual y cierra el diario.
+   */
+  @Override
+  public synchronized void close() {
+    flush();
+    _segmento = null;
+  }
+
+  @SuppressWarnings("nls")
+  @Override
+  public synchronized String toString() {
+    return MoreObjects.toStringHelper(this).add("directorio", _directorio)
+        .add("siguiente", _siguiente).toString();
+  }
+
+  /**
+   * Abre el último segmento y sitúa el final del diario tras su último registro íntegro, poniendo
+   * a cero lo que haya a continuación.
+   */
+  private void recuperar(final Path ultimo) throws IOException {
+    final long primero = primero(ultimo);
+    if (Files.size(ultimo) < TAMANO_REGISTRO) {
+      // Caída al crear el segmento, antes de proyectarlo
+      Files.delete(ultimo);
+      abrir(primero);
+      return;
+    }
+    _segmento = proyectar(ultimo, FileChannel.MapMode.READ_WRITE);
+    _capacidad = _segmento.capacity() / TAMANO_REGISTRO;
+    int escritos = 0;
+    while ((escritos < _capacidad) && valido(_segmento, escritos * TAMANO_REGISTRO, _crc)) {
+      escritos++;
+    }
+    boolean truncado = false;
+    for (int i = escritos * TAMANO_REGISTRO; i < _segmento.capacity(); i++) {
+      if (_segmento.get(i) != 0) {
+        _segmento.put(i, (byte) 0);
+        truncado = true;
+      }
+    }
+    if (truncado) {
+      _segmento.force();
+      LOG.warn("Descartado el registro incompleto {} de {}", primero + escritos, ultimo); //$NON-NLS-1$
+    }
+    _escritos = escritos;
+    _siguiente = primero + escritos;
+  }
+
+  /** Crea y proyecta el segmento que empieza en {@code primero}. */
+  private void abrir(final long primero) throws IOException {
+    final Path fichero = _directorio.resolve(String.format("%020d%s", primero, EXTENSION)); //$NON-NLS-1$
+    try (FileChannel channel = FileChannel.open(fichero, StandardOpenOption.CREATE_NEW,
+        StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+      _segmento = channel.map(FileChannel.MapMode.READ_WRITE, 0, _tamanoSegmento);
+    }
+    _capacidad = _tamanoSegmento / TAMANO_REGISTRO;
+    _escritos = 0;
+    _siguiente = primero;
+  }
+
+  private List<Path> segmentos() throws IOException {
+    final List<Path> segmentos = new ArrayList<>();
+    try (DirectoryStream<Path> ficheros =
+        Files.newDirectoryStream(_directorio, "*" + EXTENSION)) { //$NON-NLS-1$
+      ficheros.forEach(segmentos::add);
+    }
+    // Los nombres tienen el mismo número de dígitos, así que se ordenan por secuencia
+    Collections.sort(segmentos);
+    return segmentos;
+  }
+
+  private static long primero(final Path segmento) {
+    final String nombre = segmento.getFileName().toString();
+    return Long.parseLong(nombre.substring(0, nombre.length() - EXTENSION.length()));
+  }
+
+  private static MappedByteBuffer proyectar(final Path segmento, final FileChannel.MapMode modo)
+      throws IOException {
+    try (FileChannel channel = (modo == FileChannel.MapMode.READ_ONLY)
+        ? FileChannel.open(segmento, StandardOpenOption.READ)
+        : FileChannel.open(segmento, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+      return channel.map(modo, 0, channel.size());
+    }
+  }
+
+  private static boolean valido(final MappedByteBuffer segmento, final int posicion,
+      final CRC32 crc) {
+    final byte codigo = segmento.get(posicion + 16);
+    return (codigo >= 0) && (codigo < TIPOS.length)
+        && (segmento.getInt(posicion + CRC) == crc(segmento, posicion, crc));
+  }
+
+  private int crc(final MappedByteBuffer segmento, final int posicion) {
+    return crc(segmento, posicion, _crc);
+  }
+
+  /** CRC32 de los datos del registro, sobre el propio segmento para no copiarlos. */
+  private static int crc(final MappedByteBuffer segmento, final int posicion, final CRC32 crc) {
+    crc.reset();
+    segmento.limit(posicion + CRC).position(posicion);
+    crc.update(segmento);
+    segmento.limit(segmento.capacity()).position(0);
+    return (int) crc.getValue();
+  }
+
+  /** Los {@code TipoCRUD} son canónicos, por lo que se comparan por identidad. */
+  private static byte codigo(final TipoCRUD tipo) {
+    for (byte codigo = 0; codigo < TIPOS.length; codigo++) {
+      if (TIPOS[codigo] == tipo) {
+        return codigo;
+      }
+    }
+    throw new IllegalArgumentException("TipoCRUD desconocido: " + tipo); //$NON-NLS-1$
+  }
+
+  private static final Logger LOG = LoggerFactory.getLogger(DiarioCRUD.class);
+  private static final long NANOS = 1_000_000_000L;
+  /** Posición del CRC en el registro, que cubre los bytes anteriores */
+  private static final int CRC = 20;
+  /** {@link TipoCRUD} de cada código */
+  private static final TipoCRUD[] TIPOS = {TipoCRUD.ALTA, TipoCRUD.BAJA, TipoCRUD.MOD};
+  /** Contador de operaciones de cada código */
+  private static final Counter[] OPERACIONES = new Counter[TIPOS.length];
+
+  static {
+    for (int codigo = 0; codigo < TIPOS.length; codigo++) {
+      OPERACIONES[codigo] = MetricRegistry.global().counter(METRICA_OPERACIONES,
+          "Operaciones CRUD sobre Usuarios registradas", //$NON-NLS-1$
+          "tipo", TIPOS[codigo].value()); //$NON-NLS-1$
+    }
+  }
+
+  private final Path _directorio;
+  private final int _tamanoSegmento;
+  private final CRC32 _crc = new CRC32();
+  /** Cerrojo de {@link #sincronizar(long)}, distinto del de {@link #append} */
+  private final Object _volcado = new Object();
+  /** Registros volcados a disco por {@link #sincronizar(long)}, protegido por {@link #_volcado} */
+  private long _volcados;
+  private MappedByteBuffer _segmento;
+  /** Registros que caben en {@link #_segmento} */
+  private int _capacidad;
+  /** Registros escritos en {@link #_segmento} */
+  private int _escritos;
+  private long _siguiente;
+}
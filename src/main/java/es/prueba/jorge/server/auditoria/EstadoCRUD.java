@@ -0,0 +1,116 @@
+package es.prueba.jorge.server.auditoria;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.base.MoreObjects;
+
+import java.util.Objects;
+import java.util.Optional;
+
+import javax.annotation.Nonnull;
+
+import es.prueba.jorge.model.DatosCRUD;
+import es.prueba.jorge.model.Usuario;
+import es.prueba.jorge.model.UsuarioId;
+
+/**
+ * Estado de las operaciones CRUD de un {@link Usuario} según su historia en el {@link DiarioCRUD}:
+ * su última alta y, desde ella, su baja y su última modificación.
+ *
+ * @author Jorge García Villanueva &lt;Jorgegv95@gmail.com&gt;
+ * @see ProyeccionCRUD
+ */
+public final class EstadoCRUD {
+  /**
+   * @param usuarioId del {@link Usuario}.
+   * @param alta última alta, si la hay en la historia.
+   * @param baja desde la última alta, si la hay.
+   * @param modificacion última desde la última alta, si la hay.
+   */
+  public EstadoCRUD(@Nonnull final UsuarioId usuarioId, @Nonnull final Optional<DatosCRUD> alta,
+      @Nonnull final Optional<DatosCRUD> baja, @Nonnull final Optional<DatosCRUD> modificacion) {
+    _usuarioId = checkNotNull(usuarioId);
+    _alta = checkNotNull(alta);
+    _baja = checkNotNull(baja);
+    _modificacion = checkNotNull(modificacion);
+  }
+
+  /**
+   * @return el {@link UsuarioId} del {@link Usuario}.
+   */
+  public UsuarioId usuarioId() {
+    return _usuarioId;
+  }
+
+  /**
+   * @return los datos de la última alta.
+   */
+  public Optional<DatosCRUD> alta() {
+    return _alta;
+  }
+
+  /**
+   * @return los datos de la baja posterior a la última alta.
+   */
+  public Optional<DatosCRUD> baja() {
+    return _baja;
+  }
+
+  /**
+   * @return los datos de la última modificación posterior a la última alta.
+   */
+  public Optional<DatosCRUD> modificacion() {
+    return _modificacion;
+  }
+
+  /**
+   * Reconstruye {@code usuario} con los datos CRUD de este estado. El diario sólo guarda quién y
+   * cuándo, por lo que el resto de datos se conservan de {@code usuario}.
+   *
+   * @param usuario a reconstruir, con el mismo {@link UsuarioId}.
+   * @return un {@code Usuario} con los datos de {@code usuario} y el alta, baja y modificación de
+   *         este estado (el alta de {@code usuario} si la historia no la tiene).
+   * @throws IllegalArgumentException si {@code usuario} es de otro {@code UsuarioId}.
+   */
+  public Usuario aplicar(@Nonnull final Usuario usuario) {
+    checkArgument(_usuarioId.equals(checkNotNull(usuario).identity()));
+    final Usuario.Builder builder = Usuario.builder(_usuarioId).withPersona(usuario.persona())
+        .withPerfil(usuario.perfil()).withEmail(usuario.email()).withTelefono(usuario.telefono())
+        .withDatosAlta(_alta.orElse(usuario.alta()));
+    usuario.ultimaVisita().ifPresent(builder::withUltimaVisita);
+    _baja.ifPresent(builder::withDatosBaja);
+    _modificacion.ifPresent(builder::withDatosUltimaModificacion);
+    return builder.build();
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(_usuarioId, _alta, _baja, _modificacion);
+  }
+
+  @Override
+  public boolean equals(final Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (Objects.isNull(obj) || (getClass() != obj.getClass())) {
+      return false;
+    }
+    final EstadoCRUD other = (EstadoCRUD) obj;
+    return _usuarioId.equals(other._usuarioId) && _alta.equals(other._alta)
+        && _baja.equals(other._baja) && _modificacion.equals(other._modificacion);
+  }
+
+  @SuppressWarnings("nls")
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this).add("usuarioId", _usuarioId).add("alta", _alta)
+        .add("baja", _baja).add("modificacion", _modificacion).toString();
+  }
+
+  private final UsuarioId _usuarioId;
+  private final Optional<DatosCRUD> _alta;
+  private final Optional<DatosCRUD> _baja;
+  private final Optional<DatosCRUD> _modificacion;
+}
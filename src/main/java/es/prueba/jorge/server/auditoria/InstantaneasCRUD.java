@@ -0,0 +1,146 @@
+package es.prueba.jorge.server.auditoria;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.base.MoreObjects;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import javax.annotation.Nonnull;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+
+/**
+ * Instantáneas periódicas de la {@link ProyeccionCRUD} del {@link DiarioCRUD}, para reconstruir el
+ * estado de los {@code Usuario}s reproduciendo sólo los registros posteriores a la última.
+ * <p>
+ * Cada instantánea se llama como la secuencia hasta la que incluye el diario, y se conservan las
+ * más recientes. Una reconstrucción hasta una secuencia anterior (por ejemplo, la previa a una
+ * modificación masiva errónea) parte de la última instantánea que no la supera.
+ *
+ * @author Jorge García Villanueva &lt;Jorgegv95@gmail.com&gt;
+ */
+public class InstantaneasCRUD {
+  /** Extensión de los ficheros de las instantáneas */
+  public static final String EXTENSION = ".crud"; //$NON-NLS-1$
+
+  /**
+   * @param diario a proyectar.
+   * @param directorio de las instantáneas.
+   * @param executor en el que reproducir las particiones.
+   * @param particiones número de particiones de las proyecciones.
+   * @param conservar número de instantáneas a conservar.
+   * @throws IOException si no se puede crear el directorio.
+   * @throws IllegalArgumentException si {@code particiones} o {@code conservar} no son positivos.
+   */
+  public InstantaneasCRUD(@Nonnull final DiarioCRUD diario, @Nonnull final Path directorio,
+      @Nonnull final Executor executor, final int particiones, final int conservar)
+      throws IOException {
+    checkArgument(particiones > 0, "particiones ha de ser positivo: %s", particiones); //$NON-NLS-1$
+    checkArgument(conservar > 0, "conservar ha de ser positivo: %s", conservar); //$NON-NLS-1$
+    _diario = checkNotNull(diario);
+    _directorio = Files.createDirectories(checkNotNull(directorio));
+    _executor = checkNotNull(executor);
+    _particiones = particiones;
+    _conservar = conservar;
+  }
+
+  /**
+   * @return la proyección del diario completo.
+   * @throws IOException si no se pueden leer la instantánea o el diario.
+   */
+  public ProyeccionCRUD reconstruir() throws IOException {
+    return reconstruir(Long.MAX_VALUE);
+  }
+
+  /**
+   * Reconstruye la proyección del diario hasta una secuencia a partir de la última instantánea
+   * que no la supera.
+   *
+   * @param hasta secuencia siguiente al último registro a incluir.
+   * @return la proyección de los registros anteriores a {@code hasta}.
+   * @throws IOException si no se pueden leer la instantánea o el diario.
+   */
+  public ProyeccionCRUD reconstruir(final long hasta) throws IOException {
+    ProyeccionCRUD proyeccion = null;
+    final List<Path> instantaneas = instantaneas();
+    for (int i = instantaneas.size() - 1; (i >= 0) && (proyeccion == null); i--) {
+      if (secuencia(instantaneas.get(i)) <= hasta) {
+        proyeccion = ProyeccionCRUD.leer(instantaneas.get(i), _particiones);
+      }
+    }
+    if (proyeccion == null) {
+      proyeccion = new ProyeccionCRUD(_particiones);
+    }
+    proyeccion.reproducir(_diario, hasta, _executor);
+    return proyeccion;
+  }
+
+  /**
+   * Guarda una instantánea del diario completo si tiene registros posteriores a la última, y
+   * borra las que sobran.
+   *
+   * @throws IOException si no se puede escribir la instantánea.
+   */
+  @Scheduled(fixedDelayString = "${audit-journal.snapshot-interval-ms:600000}")
+  public synchronized void instantanea() throws IOException {
+    final List<Path> instantaneas = instantaneas();
+    if (!instantaneas.isEmpty()
+        && (secuencia(instantaneas.get(instantaneas.size() - 1)) >= _diario.siguiente())) {
+      return;
+    }
+    final long inicio = System.nanoTime();
+    final ProyeccionCRUD proyeccion = reconstruir();
+    final Path fichero =
+        _directorio.resolve(String.format("%020d%s", proyeccion.secuencia(), EXTENSION)); //$NON-NLS-1$
+    proyeccion.escribir(fichero);
+    LOG.info("Instantánea {} de {} usuarios en {} ms", fichero, proyeccion.size(), //$NON-NLS-1$
+        (System.nanoTime() - inicio) / 1_000_000);
+    instantaneas.add(fichero);
+    for (int i = 0; i < (instantaneas.size() - _conservar); i++) {
+      Files.deleteIfExists(instantaneas.get(i));
+    }
+  }
+
+  @SuppressWarnings("nls")
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this).add("directorio", _directorio)
+        .add("particiones", _particiones).toString();
+  }
+
+  /** Instantáneas ordenadas por secuencia */
+  private List<Path> instantaneas() throws IOException {
+    final List<Path> instantaneas = new ArrayList<>();
+    try (DirectoryStream<Path> ficheros =
+        Files.newDirectoryStream(_directorio, "*" + EXTENSION)) { //$NON-NLS-1$
+      ficheros.forEach(instantaneas::add);
+    }
+    // Los nombres tienen el mismo número de dígitos, así que se ordenan por secuencia
+    Collections.sort(instantaneas);
+    return instantaneas;
+  }
+
+  private static long secuencia(final Path instantanea) {
+    final String nombre = instantanea.getFileName().toString();
+    return Long.parseLong(nombre.substring(0, nombre.length() - EXTENSION.length()));
+  }
+
+  private static final Logger LOG = LoggerFactory.getLogger(InstantaneasCRUD.class);
+
+  private final DiarioCRUD _diario;
+  private final Path _directorio;
+  private final Executor _executor;
+  private final int _particiones;
+  private final int _conservar;
+}
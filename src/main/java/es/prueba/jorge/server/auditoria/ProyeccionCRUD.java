@@ -0,0 +1,517 @@
+package es.prueba.jorge.server.auditoria;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+import com.google.common.base.MoreObjects;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+import javax.annotation.Nonnull;
+
+import es.prueba.jorge.model.DatosCRUD;
+import es.prueba.jorge.model.TipoCRUD;
+import es.prueba.jorge.model.Usuario;
+import es.prueba.jorge.model.UsuarioId;
+
+/**
+ * Proyección del {@link DiarioCRUD} en el {@link EstadoCRUD} de cada {@link Usuario}, obtenida
+ * reproduciendo su historia.
+ * <p>
+ * El estado se reparte en particiones por {@link UsuarioId}, de modo que
+ * {@link #reproducir(DiarioCRUD, long, Executor)} aplica cada partición en una tarea distinta sin
+ * sincronización. El diario se lee, y se comprueban sus CRC, una sola vez: se recorre por lotes
+ * que se reparten por partición, y mientras las tareas aplican un lote, cada una los registros de
+ * sus {@code Usuario}s y en orden, se lee el siguiente. Cada partición guarda los datos en arrays
+ * de primitivos con direccionamiento abierto, como {@link es.prueba.jorge.commons.IntEntityMap},
+ * para que reproducir no cree objetos más allá de los lotes, que se reutilizan.
+ * <p>
+ * La proyección puede guardarse en una instantánea binaria con {@link #escribir(Path)} y
+ * recuperarse con {@link #leer(Path, int)}, tras lo que basta reproducir los registros posteriores
+ * a la instantánea.
+ * <p>
+ * No es seguro para su uso concurrente sin sincronización externa.
+ *
+ * @author Jorge García Villanueva &lt;Jorgegv95@gmail.com&gt;
+ * @see InstantaneasCRUD
+ */
+public class ProyeccionCRUD {
+  /**
+   * Crea una proyección vacía, anterior al primer registro del diario.
+   *
+   * @param particiones número de particiones, y de tareas al reproducir.
+   * @throws IllegalArgumentException si {@code particiones} no es positivo.
+   */
+  public ProyeccionCRUD(final int particiones) {
+    checkArgument(particiones > 0, "particiones ha de ser positivo: %s", particiones); //$NON-NLS-1$
+    _particiones = new Particion[particiones];
+    for (int i = 0; i < particiones; i++) {
+      _particiones[i] = new Particion();
+    }
+  }
+
+  /**
+   * Lee la proyección guardada en una instantánea.
+   *
+   * @param fichero de la instantánea, escrito con {@link #escribir(Path)}.
+   * @param particiones número de particiones, no necesariamente el de la proyección guardada.
+   * @return la proyección guardada.
+   * @throws IOException si no se puede leer la instantánea.
+   * @throws IllegalStateException si la instantánea no es válida.
+   */
+  public static ProyeccionCRUD leer(@Nonnull final Path fichero, final int particiones)
+      throws IOException {
+    final ProyeccionCRUD proyeccion = new ProyeccionCRUD(particiones);
+    final CRC32 crc = new CRC32();
+    try (InputStream in = new BufferedInputStream(Files.newInputStream(fichero), BUFFER)) {
+      final ByteBuffer cabecera = ByteBuffer.allocate(CABECERA);
+      leer(in, cabecera, CABECERA, crc, fichero);
+      checkState((cabecera.getInt(0) == MAGIC) && (cabecera.getInt(4) == VERSION),
+          "%s no es una instantánea", fichero); //$NON-NLS-1$
+      proyeccion._secuencia = cabecera.getLong(8);
+      final int usuarios = cabecera.getInt(16);
+      // La instantánea está en el orden de las tablas que la escribieron: insertarla en una tabla
+      // pequeña que va creciendo acumularía todas las colisiones de sondeo lineal
+      final int porParticion = (usuarios / particiones) + (usuarios / (4 * particiones));
+      for (final Particion particion : proyeccion._particiones) {
+        particion.reservar(Particion.capacidad(porParticion));
+      }
+      final ByteBuffer registro = ByteBuffer.allocate(REGISTRO);
+      for (int i = 0; i < usuarios; i++) {
+        leer(in, registro, 5, crc, fichero);
+        final int usuario = registro.getInt(0);
+        final byte flags = registro.get(4);
+        // Antes de leer las operaciones: unos flags corruptos desbordarían el registro
+        checkState((flags & ~OPERADO) == 0,
+            "Flags %s del usuario %s no válidos en la instantánea %s", //$NON-NLS-1$
+            Byte.valueOf(flags), Integer.valueOf(usuario), fichero);
+        leer(in, registro, 12 * Integer.bitCount(flags), crc, fichero);
+        int posicion = 0;
+        final Particion particion = proyeccion.particion(usuario);
+        final int slot = particion.slot(usuario);
+        particion._flags[slot] = (byte) (OCUPADO | flags);
+        for (int operacion = 0; operacion < OPERACIONES; operacion++) {
+          if ((flags & (1 << operacion)) != 0) {
+            particion._autores[operacion][slot] = registro.getInt(posicion);
+            particion._nanos[operacion][slot] = registro.getLong(posicion + 4);
+            posicion += 12;
+          }
+        }
+      }
+      final int esperado = (int) crc.getValue();
+      leer(in, cabecera, 4, new CRC32(), fichero);
+      checkState((cabecera.getInt(0) == esperado) && (in.read() < 0),
+          "CRC de la instantánea %s incorrecto", fichero); //$NON-NLS-1$
+    }
+    return proyeccion;
+  }
+
+  /**
+   * @return la secuencia del siguiente registro del diario a aplicar.
+   */
+  public long secuencia() {
+    return _secuencia;
+  }
+
+  /**
+   * @return número de {@link Usuario}s con historia.
+   */
+  public int size() {
+    int size = 0;
+    for (final Particion particion : _particiones) {
+      size += particion._size;
+    }
+    return size;
+  }
+
+  /**
+   * @param id del {@link Usuario}.
+   * @return su {@link EstadoCRUD}, o vacío si no tiene historia.
+   */
+  public Optional<EstadoCRUD> estado(@Nonnull final UsuarioId id) {
+    final Particion particion = particion(checkNotNull(id).id());
+    final int slot = particion.buscar(id.id());
+    return (slot < 0) ? Optional.empty() : Optional.of(particion.estado(slot));
+  }
+
+  /**
+   * Recorre el {@link EstadoCRUD} de todos los {@link Usuario}s, sin un orden determinado.
+   *
+   * @param action a ejecutar con cada {@code EstadoCRUD}.
+   */
+  public void forEach(@Nonnull final Consumer<? super EstadoCRUD> action) {
+    checkNotNull(action);
+    for (final Particion particion : _particiones) {
+      for (int slot = 0; slot < particion._flags.length; slot++) {
+        if (particion._flags[slot] != 0) {
+          action.accept(particion.estado(slot));
+        }
+      }
+    }
+  }
+
+  /**
+   * Aplica los registros del diario desde {@link #secuencia()} hasta {@code hasta}, con una tarea
+   * por partición.
+   *
+   * @param diario del que leer los registros.
+   * @param hasta secuencia siguiente al último registro a aplicar; se limita a los registros que
+   *        tenga el diario.
+   * @param executor en el que ejecutar las tareas.
+   * @throws IOException si no se puede leer el diario.
+   */
+  public void reproducir(@Nonnull final DiarioCRUD diario, final long hasta,
+      @Nonnull final Executor executor) throws IOException {
+    final long desde = _secuencia;
+    final long fin = Math.min(hasta, diario.siguiente());
+    if (fin <= desde) {
+      return;
+    }
+    checkNotNull(executor);
+    if (_particiones.length == 1) {
+      diario.leer(desde, fin, _particiones[0]);
+      _secuencia = fin;
+      return;
+    }
+    // Se lee un lote mientras se aplica el otro
+    final Lote[] lotes = {new Lote(_particiones.length), new Lote(_particiones.length)};
+    CompletableFuture<?> aplicando = CompletableFuture.completedFuture(null);
+    try {
+      for (long inicio = desde; inicio < fin; inicio += LOTE) {
+        final Lote lote = lotes[(int) (((inicio - desde) / LOTE) & 1)];
+        lote.vaciar();
+        diario.leer(inicio, Math.min(fin, inicio + LOTE), lote);
+        aplicando.join();
+        aplicando = aplicar(lote, executor);
+      }
+      aplicando.join();
+    } finally {
+      // Si falla la lectura, no se vuelve con tareas modificando las particiones
+      aplicando.exceptionally(e -> null).join();
+    }
+    _secuencia = fin;
+  }
+
+  /**
+   * Guarda la proyección en una instantánea. Se escribe en un fichero temporal que sustituye a
+   * {@code fichero} una vez volcado a disco, y después se vuelca el directorio para que la
+   * sustitución también sobreviva a una caída, de modo que no quedan instantáneas a medias.
+   *
+   * @param fichero de la instantánea.
+   * @throws IOException si no se puede escribir la instantánea.
+   */
+  public void escribir(@Nonnull final Path fichero) throws IOException {
+    final Path temporal = fichero.resolveSibling(fichero.getFileName() + ".tmp"); //$NON-NLS-1$
+    final CRC32 crc = new CRC32();
+    try (FileOutputStream file = new FileOutputStream(temporal.toFile());
+        OutputStream out = new BufferedOutputStream(file, BUFFER)) {
+      final ByteBuffer buffer = ByteBuffer.allocate(Math.max(CABECERA, REGISTRO));
+      buffer.putInt(MAGIC).putInt(VERSION).putLong(_secuencia).putInt(size());
+      escribir(out, buffer, crc);
+      for (final Particion particion : _particiones) {
+        for (int slot = 0; slot < particion._flags.length; slot++) {
+          final byte flags = (byte) (particion._flags[slot] & ~OCUPADO);
+          if (particion._flags[slot] != 0) {
+            buffer.putInt(particion._claves[slot]).put(flags);
+            for (int operacion = 0; operacion < OPERACIONES; operacion++) {
+              if ((flags & (1 << operacion)) != 0) {
+                buffer.putInt(particion._autores[operacion][slot])
+                    .putLong(particion._nanos[operacion][slot]);
+              }
+            }
+            escribir(out, buffer, crc);
+          }
+        }
+      }
+      buffer.putInt((int) crc.getValue());
+      escribir(out, buffer, new CRC32());
+      out.flush();
+      file.getFD().sync();
+    }
+    Files.move(temporal, fichero, StandardCopyOption.ATOMIC_MOVE,
+        StandardCopyOption.REPLACE_EXISTING);
+    sincronizarDirectorio(fichero.toAbsolutePath().getParent());
+  }
+
+  @SuppressWarnings("nls")
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this).add("secuencia", _secuencia).add("usuarios", size())
+        .add("particiones", _particiones.length).toString();
+  }
+
+  /** Aplica cada partición de {@code lote} en una tarea. */
+  private CompletableFuture<?> aplicar(final Lote lote, final Executor executor) {
+    final CompletableFuture<?>[] tareas = new CompletableFuture<?>[_particiones.length];
+    for (int i = 0; i < _particiones.length; i++) {
+      final int indice = i;
+      tareas[i] = CompletableFuture.runAsync(() -> lote.aplicar(indice, _particiones[indice]),
+          executor);
+    }
+    return CompletableFuture.allOf(tareas);
+  }
+
+  private Particion particion(final int usuario) {
+    return _particiones[indice(usuario)];
+  }
+
+  private int indice(final int usuario) {
+    return Math.floorMod(usuario, _particiones.length);
+  }
+
+  private static void escribir(final OutputStream out, final ByteBuffer buffer, final CRC32 crc)
+      throws IOException {
+    crc.update(buffer.array(), 0, buffer.position());
+    out.write(buffer.array(), 0, buffer.position());
+    buffer.clear();
+  }
+
+  /** Vuelca a disco la entrada que deja el {@code rename} en el directorio, si se puede abrir */
+  private static void sincronizarDirectorio(final Path directorio) throws IOException {
+    final FileChannel canal;
+    try {
+      canal = FileChannel.open(directorio, StandardOpenOption.READ);
+    } catch (final IOException e) {
+      // Windows no abre directorios, y en él el rename ya es duradero
+      return;
+    }
+    try (FileChannel abierto = canal) {
+      abierto.force(true);
+    }
+  }
+
+  private static void leer(final InputStream in, final ByteBuffer buffer, final int bytes,
+      final CRC32 crc, final Path fichero) throws IOException {
+    int leidos = 0;
+    while (leidos < bytes) {
+      final int n = in.read(buffer.array(), leidos, bytes - leidos);
+      checkState(n >= 0, "Instantánea %s incompleta", fichero); //$NON-NLS-1$
+      leidos += n;
+    }
+    crc.update(buffer.array(), 0, bytes);
+  }
+
+  /** Cabecera de las instantáneas: "CRUD" */
+  private static final int MAGIC = 0x43525544;
+  private static final int VERSION = 1;
+  /** MAGIC, VERSION, secuencia y número de {@code Usuario}s */
+  private static final int CABECERA = 20;
+  /** Usuario, flags y hasta tres operaciones de autor e instante */
+  private static final int REGISTRO = 5 + (3 * 12);
+  private static final int BUFFER = 1 << 16;
+  /** Registros del diario que se leen antes de aplicarlos */
+  private static final int LOTE = 1 << 16;
+
+  /** Índices de las operaciones y sus bits en los flags */
+  private static final int ALTA = 0;
+  private static final int BAJA = 1;
+  private static final int MOD = 2;
+  private static final int OPERACIONES = 3;
+  /** Bits de los flags de las operaciones */
+  private static final int OPERADO = (1 << OPERACIONES) - 1;
+  /** Bit de los flags que marca las posiciones ocupadas */
+  private static final byte OCUPADO = (byte) 0x80;
+
+  private final Particion[] _particiones;
+  private long _secuencia;
+
+  /**
+   * Registros de un tramo del diario repartidos por partición, en arrays paralelos que se
+   * reutilizan de un lote al siguiente.
+   */
+  private static final class Lote implements DiarioCRUD.Lector {
+    Lote(final int particiones) {
+      final int capacidad =
+          Math.max(MIN_CAPACIDAD, (LOTE / particiones) + (LOTE / (4 * particiones)));
+      _secuencias = new long[particiones][capacidad];
+      _usuarios = new int[particiones][capacidad];
+      _tipos = new TipoCRUD[particiones][capacidad];
+      _autores = new int[particiones][capacidad];
+      _nanos = new long[particiones][capacidad];
+      _sizes = new int[particiones];
+    }
+
+    @Override
+    public void registro(final long secuencia, final int usuario, final TipoCRUD tipo,
+        final int autor, final long epochNanos) {
+      final int particion = Math.floorMod(usuario, _sizes.length);
+      final int i = _sizes[particion]++;
+      if (i == _usuarios[particion].length) {
+        // Reparto desigual: la partición crece y conserva la capacidad en los siguientes lotes
+        final int capacidad = Math.min(LOTE, i << 1);
+        _secuencias[particion] = Arrays.copyOf(_secuencias[particion], capacidad);
+        _usuarios[particion] = Arrays.copyOf(_usuarios[particion], capacidad);
+        _tipos[particion] = Arrays.copyOf(_tipos[particion], capacidad);
+        _autores[particion] = Arrays.copyOf(_autores[particion], capacidad);
+        _nanos[particion] = Arrays.copyOf(_nanos[particion], capacidad);
+      }
+      _secuencias[particion][i] = secuencia;
+      _usuarios[particion][i] = usuario;
+      _tipos[particion][i] = tipo;
+      _autores[particion][i] = autor;
+      _nanos[particion][i] = epochNanos;
+    }
+
+    /** Aplica en orden los registros de la partición {@code indice}. */
+    void aplicar(final int indice, final Particion particion) {
+      for (int i = 0; i < _sizes[indice]; i++) {
+        particion.registro(_secuencias[indice][i], _usuarios[indice][i], _tipos[indice][i],
+            _autores[indice][i], _nanos[indice][i]);
+      }
+    }
+
+    void vaciar() {
+      Arrays.fill(_sizes, 0);
+    }
+
+    private static final int MIN_CAPACIDAD = 1 << 10;
+
+    private final long[][] _secuencias;
+    private final int[][] _usuarios;
+    private final TipoCRUD[][] _tipos;
+    private final int[][] _autores;
+    private final long[][] _nanos;
+    private final int[] _sizes;
+  }
+
+  /**
+   * Estado de los {@code Usuario}s de una partición en arrays paralelos indexados por posición.
+   */
+  private static final class Particion implements DiarioCRUD.Lector {
+    Particion() {
+      reservar(MIN_CAPACIDAD);
+    }
+
+    @Override
+    public void registro(final long secuencia, final int usuario, final TipoCRUD tipo,
+        final int autor, final long epochNanos) {
+      final int slot = slot(usuario);
+      final int operacion;
+      if (tipo == TipoCRUD.ALTA) {
+        // Un alta empieza una vida nueva del Usuario
+        _flags[slot] = OCUPADO;
+        operacion = ALTA;
+      } else {
+        operacion = (tipo == TipoCRUD.BAJA) ? BAJA : MOD;
+      }
+      _flags[slot] |= 1 << operacion;
+      _autores[operacion][slot] = autor;
+      _nanos[operacion][slot] = epochNanos;
+    }
+
+    EstadoCRUD estado(final int slot) {
+      return new EstadoCRUD(new UsuarioId(_claves[slot]), datos(slot, ALTA), datos(slot, BAJA),
+          datos(slot, MOD));
+    }
+
+    /** Posición de {@code usuario}, o {@code -1} si no está. */
+    int buscar(final int usuario) {
+      int slot = hash(usuario);
+      while (_flags[slot] != 0) {
+        if (_claves[slot] == usuario) {
+          return slot;
+        }
+        slot = (slot + 1) & _mask;
+      }
+      return -1;
+    }
+
+    /** Posición de {@code usuario}, que se ocupa si no está. */
+    int slot(final int usuario) {
+      int slot = hash(usuario);
+      while (_flags[slot] != 0) {
+        if (_claves[slot] == usuario) {
+          return slot;
+        }
+        slot = (slot + 1) & _mask;
+      }
+      if (_size >= _umbral) {
+        reservar(_claves.length << 1);
+        return slot(usuario);
+      }
+      _claves[slot] = usuario;
+      _flags[slot] = OCUPADO;
+      _size++;
+      return slot;
+    }
+
+    private Optional<DatosCRUD> datos(final int slot, final int operacion) {
+      return ((_flags[slot] & (1 << operacion)) == 0) ? Optional.empty()
+          : Optional.of(new DatosCRUD(new UsuarioId(_autores[operacion][slot]),
+              DiarioCRUD.instant(_nanos[operacion][slot])));
+    }
+
+    /** Capacidad, potencia de 2, para {@code usuarios} sin redimensionar. */
+    static int capacidad(final int usuarios) {
+      final int minimo = (int) Math.ceil(Math.max(usuarios, 1) / LOAD_FACTOR);
+      return Math.max(MIN_CAPACIDAD, Integer.highestOneBit(minimo - 1) << 1);
+    }
+
+    /** Dispersión multiplicativa (Fibonacci) para repartir identidades consecutivas. */
+    private int hash(final int usuario) {
+      return (usuario * GOLDEN_RATIO) >>> _shift;
+    }
+
+    void reservar(final int capacidad) {
+      final int[] claves = _claves;
+      final byte[] flags = _flags;
+      final int[][] autores = _autores;
+      final long[][] nanos = _nanos;
+      _claves = new int[capacidad];
+      _flags = new byte[capacidad];
+      _autores = new int[OPERACIONES][capacidad];
+      _nanos = new long[OPERACIONES][capacidad];
+      _mask = capacidad - 1;
+      _shift = Integer.numberOfLeadingZeros(_mask);
+      _umbral = (int) (capacidad * LOAD_FACTOR);
+      if (flags != null) {
+        for (int i = 0; i < flags.length; i++) {
+          if (flags[i] != 0) {
+            int slot = hash(claves[i]);
+            while (_flags[slot] != 0) {
+              slot = (slot + 1) & _mask;
+            }
+            _claves[slot] = claves[i];
+            _flags[slot] = flags[i];
+            for (int operacion = 0; operacion < OPERACIONES; operacion++) {
+              _autores[operacion][slot] = autores[operacion][i];
+              _nanos[operacion][slot] = nanos[operacion][i];
+            }
+          }
+        }
+      }
+    }
+
+    private static final int GOLDEN_RATIO = 0x9E3779B9;
+    private static final float LOAD_FACTOR = 0.6f;
+    private static final int MIN_CAPACIDAD = 16;
+
+    private int[] _claves;
+    /** Operaciones presentes y {@link #OCUPADO}; {@code 0} indica una posición libre. */
+    private byte[] _flags;
+    private int[][] _autores;
+    private long[][] _nanos;
+    private int _mask;
+    private int _shift;
+    private int _umbral;
+    private int _size;
+  }
+}
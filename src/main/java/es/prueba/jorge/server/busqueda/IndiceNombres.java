@@ -0,0 +1,639 @@
+package es.prueba.jorge.server.busqueda;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.base.MoreObjects;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nonnull;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import es.prueba.jorge.model.DatosCRUD;
+import es.prueba.jorge.model.Persona;
+import es.prueba.jorge.model.Usuario;
+import es.prueba.jorge.model.UsuarioId;
+import es.prueba.jorge.server.persistence.UsuarioModificado;
+import es.prueba.jorge.server.persistence.UsuarioRepository;
+import es.prueba.jorge.server.persistence.UsuariosInsertados;
+
+/**
+ * Índice en memoria para buscar {@link Usuario}s por las palabras de su {@link Persona} (nombre y
+ * apellidos), por prefijo o por cualquier fragmento de al menos {@value #NGRAMA} letras, sin
+ * distinguir mayúsculas ni tildes (ver {@link Plegado}).
+ * <p>
+ * Un {@code Usuario} coincide con una búsqueda si cada palabra buscada coincide con alguna de sus
+ * palabras: exactamente ({@value #EXACTA} puntos), como prefijo ({@value #PREFIJO} puntos) o como
+ * fragmento ({@value #FRAGMENTO} punto). Los resultados se ordenan por la suma de puntos y, a
+ * igualdad, por el nombre más corto.
+ * <p>
+ * Las palabras de todos los {@code Usuario}s forman un diccionario ordenado, en el que se buscan
+ * los prefijos, y un índice de trigramas de ese diccionario, en el que se buscan los fragmentos.
+ * Cada palabra del diccionario tiene la lista de {@code Usuario}s que la contienen. Para cada
+ * búsqueda se recorren sólo los candidatos de la palabra buscada más selectiva, comprobando el
+ * resto de palabras sobre cada candidato. Se recorren como mucho {@value #MAX_CANDIDATOS}
+ * candidatos (primero los de la palabra idéntica, luego los de prefijo en orden alfabético y por
+ * último los de fragmento), de modo que el coste no crece con el número de {@code Usuario}s. Si
+ * la puntuación máxima de los candidatos restantes no puede mejorar los resultados se paran antes
+ * y los resultados son exactos; una búsqueda muy poco selectiva, como una sola letra, retorna en
+ * cambio los mejores de esos candidatos, marcados como {@link ResultadosBusqueda#truncada()}.
+ * <p>
+ * Las listas guardan junto a cada entrada su clave de ordenación y una firma de 64 bits con sus
+ * palabras y los prefijos y trigramas de estas, de modo que la mayoría de candidatos se descartan
+ * al recorrerlas sin acceder a la entrada: los que no tienen alguno de los prefijos o trigramas
+ * del resto de palabras buscadas y los que, según su firma, no pueden mejorar los resultados ya
+ * encontrados.
+ * <p>
+ * Las búsquedas no bloquean: las estructuras son concurrentes y las listas de cada palabra sólo
+ * crecen, publicando cada alta con una escritura {@code volatile}. Al modificar o dar de baja un
+ * {@code Usuario} su entrada anterior se marca como no vigente y las búsquedas la ignoran; las
+ * listas se compactan al crecer. Las modificaciones se serializan entre sí y se aplican en orden de
+ * su último {@link DatosCRUD}, por lo que una carga inicial lenta no sobrescribe un cambio
+ * posterior.
+ *
+ * @author Jorge García Villanueva &lt;Jorgegv95@gmail.com&gt;
+ */
+public class IndiceNombres {
+  /** Número máximo de resultados de una búsqueda */
+  public static final int MAX_LIMITE = 100;
+  /** Número máximo de candidatos que se comprueban en una búsqueda */
+  public static final int MAX_CANDIDATOS = 5_000;
+  /** Longitud de los fragmentos del índice de trigramas */
+  public static final int NGRAMA = 3;
+  /** Puntos de una palabra idéntica a la buscada */
+  public static final int EXACTA = 3;
+  /** Puntos de una palabra que empieza por la buscada */
+  public static final int PREFIJO = 2;
+  /** Puntos de una palabra que contiene la buscada */
+  public static final int FRAGMENTO = 1;
+
+  /**
+   * @param usuarios repositorio del que {@link #cargar(UsuarioRepository) cargar} el índice al
+   *        arrancar la aplicación.
+   * @param executor en el que ejecutar esa carga.
+   */
+  public IndiceNombres(@Nonnull final UsuarioRepository usuarios,
+      @Nonnull final Executor executor) {
+    _usuarios = checkNotNull(usuarios);
+    _executor = checkNotNull(executor);
+  }
+
+  /**
+   * Índice vacío, que no se carga al arrancar.
+   */
+  IndiceNombres() {
+    _usuarios = null;
+    _executor = null;
+  }
+
+  /**
+   * Añade, sustituye o, si está dado de baja, elimina un {@link Usuario}. Se ignora si el índice ya
+   * tiene un estado posterior del {@code Usuario}.
+   *
+   * @param usuario a indexar.
+   */
+  public synchronized void indexar(@Nonnull final Usuario usuario) {
+    final int id = checkNotNull(usuario).identity().id();
+    final long cambio = ultimoCambio(usuario);
+    final Entrada anterior = _entradas.get(id);
+    if ((anterior != null) && (anterior._cambio > cambio)) {
+      return;
+    }
+    if (anterior != null) {
+      anterior._vigente = false;
+    }
+    if (usuario.baja().isPresent()) {
+      // Se conserva una entrada sin palabras para descartar estados anteriores
+      _entradas.put(id, new Entrada(id, NINGUNA, cambio));
+      return;
+    }
+    final Persona persona = usuario.persona();
+    final List<String> palabras = new ArrayList<>(Plegado.palabras(persona.nombre()));
+    palabras.addAll(Plegado.palabras(persona.apellido1()));
+    persona.apellido2().ifPresent(apellido2 -> palabras.addAll(Plegado.palabras(apellido2)));
+    // Las entradas comparten las palabras del diccionario
+    final String[] propias = new String[palabras.size()];
+    final Postings[] postings = new Postings[propias.length];
+    for (int i = 0; i < propias.length; i++) {
+      final String palabra = palabras.get(i);
+      postings[i] = _diccionario.get(palabra);
+      if (postings[i] == null) {
+        postings[i] = new Postings(palabra);
+        _diccionario.put(palabra, postings[i]);
+        for (int j = 0; j <= (palabra.length() - NGRAMA); j++) {
+          _trigramas.computeIfAbsent(palabra.substring(j, j + NGRAMA),
+              trigrama -> ConcurrentHashMap.newKeySet()).add(palabra);
+        }
+      }
+      propias[i] = postings[i]._palabra;
+    }
+    final Entrada entrada = new Entrada(id, propias, cambio);
+    _entradas.put(id, entrada);
+    for (final Postings lista : postings) {
+      lista.add(entrada);
+    }
+  }
+
+  /**
+   * Indexa todos los {@link Usuario}s del repositorio, por páginas. Puede ejecutarse a la vez que
+   * se indexan los cambios: no sustituye el estado de un {@code Usuario} modificado después.
+   *
+   * @param usuarios repositorio del que leer los {@code Usuario}s.
+   * @return el número de {@code Usuario}s leídos.
+   */
+  public long cargar(@Nonnull final UsuarioRepository usuarios) {
+    checkNotNull(usuarios);
+    long total = 0;
+    UsuarioId ultimo = null;
+    List<Usuario> pagina;
+    do {
+      pagina = usuarios.findPage(ultimo, TAMANO_PAGINA);
+      pagina.forEach(this::indexar);
+      total += pagina.size();
+      if (!pagina.isEmpty()) {
+        ultimo = pagina.get(pagina.size() - 1).identity();
+      }
+    } while (pagina.size() == TAMANO_PAGINA);
+    return total;
+  }
+
+  /**
+   * Busca los {@link Usuario}s que coinciden con todas las palabras de {@code consulta}.
+   *
+   * @param consulta palabras a buscar.
+   * @param limite número máximo de resultados, entre 1 y {@value #MAX_LIMITE}.
+   * @return los resultados de mayor a menor puntuación, vacíos si {@code consulta} no tiene
+   *         palabras.
+   * @throws IllegalArgumentException si {@code limite} no es válido.
+   */
+  public ResultadosBusqueda buscar(@Nonnull final String consulta, final int limite) {
+    checkArgument((limite > 0) && (limite <= MAX_LIMITE),
+        "limite fuera de rango: %s", limite); //$NON-NLS-1$
+    final String[] palabras = Plegado.palabras(consulta).toArray(NINGUNA);
+    if (palabras.length == 0) {
+      return new ResultadosBusqueda(Collections.emptyList(), false);
+    }
+    // Los candidatos salen de la palabra con menos Usuarios
+    List<Postings> candidatos = null;
+    int guia = -1;
+    int minimo = Integer.MAX_VALUE;
+    for (int i = 0; i < palabras.length; i++) {
+      final List<Postings> postings = new ArrayList<>();
+      final int total = postings(palabras[i], postings, minimo);
+      if (total < minimo) {
+        minimo = total;
+        candidatos = postings;
+        guia = i;
+      }
+    }
+    final String palabraGuia = palabras[guia];
+    palabras[guia] = null;
+    long mascara = 0;
+    final long[] exactas = new long[palabras.length - 1];
+    int resto = 0;
+    for (final String palabra : palabras) {
+      if (palabra != null) {
+        mascara |= mascara(palabra);
+        // Sólo puede coincidir exactamente si es una palabra del diccionario
+        exactas[resto++] = _diccionario.containsKey(palabra) ? exacta(palabra) : 0L;
+      }
+    }
+    final int maximoResto = EXACTA * exactas.length;
+    final Mejores mejores = new Mejores(limite);
+    int recorridos = 0;
+    boolean truncada = false;
+    listas: for (final Postings postings : candidatos) {
+      // Las listas van de mayor a menor puntuación de la palabra guía: la de cada candidato es la
+      // de la primera lista en que aparece, y se para cuando ya no puede mejorar los resultados
+      final int puntuacionGuia = postings.puntuacion(palabraGuia);
+      if (mejores.completos() && (mejores.peor() > (puntuacionGuia + maximoResto))) {
+        break;
+      }
+      final Postings.Lista lista = postings._lista;
+      final int size = lista._size;
+      for (int i = 0; i < size; i++, recorridos++) {
+        if (recorridos == MAX_CANDIDATOS) {
+          // Quedan candidatos que podrían mejorar los resultados
+          truncada = true;
+          break listas;
+        }
+        final long firma = lista._firmas[i];
+        if (((firma & mascara) != mascara) || (mejores.completos()
+            && !mejores.admite(puntuacionGuia + maximo(firma, exactas), lista._claves[i]))) {
+          continue;
+        }
+        final Entrada entrada = lista._entradas[i];
+        if (entrada._vigente) {
+          final int puntuacion = puntuacion(entrada, palabras);
+          if (puntuacion >= 0) {
+            mejores.add(entrada, puntuacionGuia + puntuacion);
+          }
+        }
+      }
+    }
+    return new ResultadosBusqueda(mejores.resultados(), truncada);
+  }
+
+  /**
+   * @return número de {@link Usuario}s indexados.
+   */
+  public int size() {
+    int size = 0;
+    for (final Entrada entrada : _entradas.values()) {
+      if (entrada._palabras.length > 0) {
+        size++;
+      }
+    }
+    return size;
+  }
+
+  /**
+   * Carga el índice en segundo plano al arrancar la aplicación. Hasta que termina, las búsquedas
+   * sólo encuentran los {@code Usuario}s ya cargados.
+   *
+   * @param evento de arranque.
+   */
+  @EventListener
+  public void onApplicationReady(@Nonnull final ApplicationReadyEvent evento) {
+    if (_usuarios != null) {
+      _executor.execute(() -> {
+        final long inicio = System.nanoTime();
+        final long total = cargar(_usuarios);
+        LOG.info("Índice de nombres cargado con {} usuarios en {} ms", total, //$NON-NLS-1$
+            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio));
+      });
+    }
+  }
+
+  /**
+   * Indexa el estado confirmado de un {@link Usuario} guardado.
+   *
+   * @param evento del guardado.
+   */
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onUsuarioModificado(@Nonnull final UsuarioModificado evento) {
+    indexar(evento.usuario());
+  }
+
+  /**
+   * Indexa los {@link Usuario}s dados de alta de forma masiva.
+   *
+   * @param evento de la inserción.
+   */
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onUsuariosInsertados(@Nonnull final UsuariosInsertados evento) {
+    evento.usuarios().forEach(this::indexar);
+  }
+
+  @SuppressWarnings("nls")
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this).add("usuarios", _entradas.size())
+        .add("palabras", _diccionario.size()).add("trigramas", _trigramas.size()).toString();
+  }
+
+  /**
+   * Añade a {@code postings} las listas de las palabras del diccionario que coinciden con
+   * {@code palabra}: la idéntica, las que empiezan por ella en orden y las que la contienen. Deja
+   * de añadir al superar {@code maximo} {@code Usuario}s o {@link #MAX_CANDIDATOS}.
+   *
+   * @return el número de {@code Usuario}s de las listas añadidas.
+   */
+  private int postings(final String palabra, final List<Postings> postings, final int maximo) {
+    final int limite = Math.min(maximo, MAX_CANDIDATOS);
+    int total = 0;
+    final NavigableMap<String, Postings> prefijos =
+        _diccionario.subMap(palabra, true, palabra + Character.MAX_VALUE, false);
+    for (final Postings prefijo : prefijos.values()) {
+      postings.add(prefijo);
+      total += prefijo._lista._size;
+      if (total > limite) {
+        return total;
+      }
+    }
+    if (palabra.length() >= NGRAMA) {
+      for (final String fragmento : fragmentos(palabra)) {
+        if (!fragmento.startsWith(palabra)) {
+          final Postings lista = _diccionario.get(fragmento);
+          postings.add(lista);
+          total += lista._lista._size;
+          if (total > limite) {
+            return total;
+          }
+        }
+      }
+    }
+    return total;
+  }
+
+  /** Palabras del diccionario que contienen {@code palabra}, según sus trigramas. */
+  private List<String> fragmentos(final String palabra) {
+    Set<String> menor = null;
+    for (int i = 0; i <= (palabra.length() - NGRAMA); i++) {
+      final Set<String> palabras = _trigramas.get(palabra.substring(i, i + NGRAMA));
+      if (palabras == null) {
+        return Collections.emptyList();
+      }
+      if ((menor == null) || (palabras.size() < menor.size())) {
+        menor = palabras;
+      }
+    }
+    final List<String> fragmentos = new ArrayList<>();
+    for (final String candidata : menor) {
+      if (candidata.contains(palabra)) {
+        fragmentos.add(candidata);
+      }
+    }
+    return fragmentos;
+  }
+
+  /**
+   * Suma de puntos de {@code entrada} para las {@code palabras} no nulas, o -1 si alguna no
+   * coincide.
+   */
+  private static int puntuacion(final Entrada entrada, final String[] palabras) {
+    int puntuacion = 0;
+    for (final String palabra : palabras) {
+      if (palabra == null) {
+        continue;
+      }
+      int mejor = 0;
+      for (final String propia : entrada._palabras) {
+        mejor = Math.max(mejor, puntuacion(propia, palabra));
+      }
+      if (mejor == 0) {
+        return -1;
+      }
+      puntuacion += mejor;
+    }
+    return puntuacion;
+  }
+
+  /** Puntos de la palabra {@code propia} de un {@code Usuario} para la {@code buscada} */
+  private static int puntuacion(final String propia, final String buscada) {
+    if (propia.startsWith(buscada)) {
+      return (propia.length() == buscada.length()) ? EXACTA : PREFIJO;
+    }
+    return ((buscada.length() >= NGRAMA) && propia.contains(buscada)) ? FRAGMENTO : 0;
+  }
+
+  /**
+   * Puntuación máxima de un candidato con {@code firma} para las palabras buscadas cuyos bits de
+   * palabra exacta son {@code exactas}: sin el bit, como mucho coinciden como prefijo.
+   */
+  private static int maximo(final long firma, final long[] exactas) {
+    int maximo = 0;
+    for (final long exacta : exactas) {
+      maximo += ((firma & exacta) != 0) ? EXACTA : PREFIJO;
+    }
+    return maximo;
+  }
+
+  /**
+   * Bits de la firma de una palabra: en los {@value #BITS_PALABRA} bits altos la palabra entera y
+   * en el resto su primera letra, sus dos primeras y sus trigramas.
+   */
+  private static long firma(final String palabra) {
+    long firma = exacta(palabra) | bit(palabra, 0, 1)
+        | bit(palabra, 0, Math.min(2, palabra.length()));
+    for (int i = 0; i <= (palabra.length() - NGRAMA); i++) {
+      firma |= bit(palabra, i, i + NGRAMA);
+    }
+    return firma;
+  }
+
+  /** Uno de los {@value #BITS_PALABRA} bits altos, elegido por los 4 bits altos del hash */
+  private static long exacta(final String palabra) {
+    return 1L << ((64 - BITS_PALABRA) + (hash(palabra, 0, palabra.length()) >>> 28));
+  }
+
+  /**
+   * Bits que ha de tener la firma de un {@code Usuario} para que alguna de sus palabras pueda
+   * coincidir con la {@code buscada}: como prefijo de una o dos letras, o como prefijo o fragmento
+   * de al menos {@value #NGRAMA} letras.
+   */
+  private static long mascara(final String buscada) {
+    if (buscada.length() < NGRAMA) {
+      return bit(buscada, 0, buscada.length());
+    }
+    long mascara = 0;
+    for (int i = 0; i <= (buscada.length() - NGRAMA); i++) {
+      mascara |= bit(buscada, i, i + NGRAMA);
+    }
+    return mascara;
+  }
+
+  /** Uno de los {@code 64 - BITS_PALABRA} bits bajos según {@code palabra[desde, hasta)} */
+  private static long bit(final String palabra, final int desde, final int hasta) {
+    return 1L << ((hash(palabra, desde, hasta) & 0x7FFFFFFF) % (64 - BITS_PALABRA));
+  }
+
+  private static int hash(final String palabra, final int desde, final int hasta) {
+    int hash = 0;
+    for (int i = desde; i < hasta; i++) {
+      hash = (31 * hash) + palabra.charAt(i);
+    }
+    // Mezcla final de MurmurHash3, para que los bits altos dependan de todas las letras
+    hash = (hash ^ (hash >>> 16)) * 0x85EBCA6B;
+    hash = (hash ^ (hash >>> 13)) * 0xC2B2AE35;
+    return hash ^ (hash >>> 16);
+  }
+
+  /** Nanosegundos del último {@link DatosCRUD} del {@code Usuario}, para ordenar sus estados. */
+  private static long ultimoCambio(final Usuario usuario) {
+    Instant ultimo = usuario.alta().instant();
+    if (usuario.modificacion().isPresent()
+        && usuario.modificacion().get().instant().isAfter(ultimo)) {
+      ultimo = usuario.modificacion().get().instant();
+    }
+    if (usuario.baja().isPresent() && usuario.baja().get().instant().isAfter(ultimo)) {
+      ultimo = usuario.baja().get().instant();
+    }
+    return (ultimo.getEpochSecond() * 1_000_000_000L) + ultimo.getNano();
+  }
+
+  private static final Logger LOG = LoggerFactory.getLogger(IndiceNombres.class);
+  /** Número de {@code Usuario}s por página en la carga inicial */
+  private static final int TAMANO_PAGINA = 1000;
+  private static final String[] NINGUNA = new String[0];
+  /** Bits de la firma para las palabras enteras */
+  private static final int BITS_PALABRA = 16;
+
+  /** Repositorio para la carga inicial; {@code null} en un índice vacío */
+  private final UsuarioRepository _usuarios;
+  private final Executor _executor;
+  /** Palabras de los {@code Usuario}s, con la lista de los que la contienen */
+  private final ConcurrentSkipListMap<String, Postings> _diccionario =
+      new ConcurrentSkipListMap<>();
+  /** Palabras del diccionario por cada trigrama que contienen */
+  private final Map<String, Set<String>> _trigramas = new ConcurrentHashMap<>();
+  /** Última entrada de cada {@code Usuario} */
+  private final Map<Integer, Entrada> _entradas = new ConcurrentHashMap<>();
+
+  /**
+   * Estado indexado de un {@code Usuario}. Es inmutable salvo {@link #_vigente}, que pasa a
+   * {@code false} cuando se sustituye.
+   */
+  private static final class Entrada {
+    Entrada(final int id, final String[] palabras, final long cambio) {
+      _id = id;
+      _palabras = palabras;
+      _cambio = cambio;
+      long longitud = 0;
+      long firma = 0;
+      for (final String palabra : palabras) {
+        longitud += palabra.length();
+        firma |= firma(palabra);
+      }
+      _clave = (longitud << 32) | (id & 0xFFFFFFFFL);
+      _firma = firma;
+    }
+
+    final int _id;
+    /** Longitud de todas las palabras e identificador, para desempatar por el nombre más corto */
+    final long _clave;
+    /** Firma de las palabras, ver {@link IndiceNombres#firma(String)} */
+    final long _firma;
+    final String[] _palabras;
+    final long _cambio;
+    volatile boolean _vigente = true;
+  }
+
+  /**
+   * Lista de las entradas que contienen una palabra. Sólo la modifica el escritor del índice:
+   * añade en la {@link Lista} actual y publica el nuevo tamaño, o al llenarse publica una
+   * {@code Lista} nueva sin las entradas no vigentes.
+   */
+  private static final class Postings {
+    Postings(final String palabra) {
+      _palabra = palabra;
+    }
+
+    /** Puntos de {@link #_palabra} para la palabra {@code buscada} */
+    int puntuacion(final String buscada) {
+      return IndiceNombres.puntuacion(_palabra, buscada);
+    }
+
+    void add(final Entrada entrada) {
+      Lista lista = _lista;
+      if (lista._size == lista._entradas.length) {
+        int vigentes = 0;
+        for (final Entrada existente : lista._entradas) {
+          if (existente._vigente) {
+            vigentes++;
+          }
+        }
+        final Lista nueva = new Lista(Math.max(4, 2 * (vigentes + 1)));
+        for (final Entrada existente : lista._entradas) {
+          if (existente._vigente) {
+            nueva.set(nueva._size, existente);
+            nueva._size++;
+          }
+        }
+        lista = nueva;
+        _lista = lista;
+      }
+      lista.set(lista._size, entrada);
+      lista._size++;
+    }
+
+    final String _palabra;
+    volatile Lista _lista = new Lista(1);
+
+    /** Entradas con su clave y su firma en <i>arrays</i> paralelos, para recorrerlas en orden */
+    static final class Lista {
+      Lista(final int capacidad) {
+        _entradas = new Entrada[capacidad];
+        _claves = new long[capacidad];
+        _firmas = new long[capacidad];
+      }
+
+      void set(final int i, final Entrada entrada) {
+        _entradas[i] = entrada;
+        _claves[i] = entrada._clave;
+        _firmas[i] = entrada._firma;
+      }
+
+      final Entrada[] _entradas;
+      final long[] _claves;
+      final long[] _firmas;
+      /** Entradas publicadas; las escribe un único hilo */
+      volatile int _size;
+    }
+  }
+
+  /**
+   * Los {@code limite} mejores resultados, sin repetir {@code Usuario}, ordenados de mejor a peor.
+   */
+  private static final class Mejores {
+    Mejores(final int limite) {
+      _entradas = new Entrada[limite];
+      _puntuaciones = new int[limite];
+    }
+
+    void add(final Entrada entrada, final int puntuacion) {
+      for (int i = 0; i < _size; i++) {
+        if (_entradas[i]._id == entrada._id) {
+          return;
+        }
+      }
+      if (completos() && !admite(puntuacion, entrada._clave)) {
+        return;
+      }
+      int i = Math.min(_size, _entradas.length - 1);
+      while ((i > 0) && ((puntuacion > _puntuaciones[i - 1])
+          || ((puntuacion == _puntuaciones[i - 1])
+              && (entrada._clave < _entradas[i - 1]._clave)))) {
+        _entradas[i] = _entradas[i - 1];
+        _puntuaciones[i] = _puntuaciones[i - 1];
+        i--;
+      }
+      _entradas[i] = entrada;
+      _puntuaciones[i] = puntuacion;
+      _size = Math.min(_size + 1, _entradas.length);
+    }
+
+    boolean completos() {
+      return _size == _entradas.length;
+    }
+
+    int peor() {
+      return _puntuaciones[_size - 1];
+    }
+
+    /** Si un candidato con {@code puntuacion} y {@code clave} entraría en los resultados */
+    boolean admite(final int puntuacion, final long clave) {
+      final int peor = _size - 1;
+      return (puntuacion > _puntuaciones[peor])
+          || ((puntuacion == _puntuaciones[peor]) && (clave < _entradas[peor]._clave));
+    }
+
+    List<ResultadoBusqueda> resultados() {
+      final List<ResultadoBusqueda> resultados = new ArrayList<>(_size);
+      for (int i = 0; i < _size; i++) {
+        resultados.add(new ResultadoBusqueda(new UsuarioId(_entradas[i]._id), _puntuaciones[i]));
+      }
+      return resultados;
+    }
+
+    private final Entrada[] _entradas;
+    private final int[] _puntuaciones;
+    private int _size;
+  }
+}
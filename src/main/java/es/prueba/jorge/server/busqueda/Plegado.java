@@ -0,0 +1,75 @@
+package es.prueba.jorge.server.busqueda;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Normalización de nombres para buscarlos sin distinguir mayúsculas, tildes ni diéresis.
+ * <p>
+ * Cada letra se pasa a minúscula sin marcas diacríticas ({@code Á→a}, {@code ü→u}, {@code ç→c}) y
+ * la {@code ñ} se pliega a {@code n}, ya que al buscar por teléfono es habitual escribir
+ * {@code Nunez} por {@code Núñez}. Lo que no es letra ni dígito separa palabras.
+ *
+ * @author Jorge García Villanueva &lt;Jorgegv95@gmail.com&gt;
+ */
+public final class Plegado {
+  /**
+   * @param texto a normalizar.
+   * @return las palabras de {@code texto} normalizadas, en orden.
+   */
+  public static List<String> palabras(@Nonnull final CharSequence texto) {
+    final int length = checkNotNull(texto).length();
+    final List<String> palabras = new ArrayList<>(4);
+    final StringBuilder palabra = new StringBuilder(length);
+    for (int i = 0; i < length; i++) {
+      final char c = plegar(texto.charAt(i));
+      if (c != SEPARADOR) {
+        palabra.append(c);
+      } else if (palabra.length() > 0) {
+        palabras.add(palabra.toString());
+        palabra.setLength(0);
+      }
+    }
+    if (palabra.length() > 0) {
+      palabras.add(palabra.toString());
+    }
+    return palabras;
+  }
+
+  /**
+   * @param c carácter a normalizar.
+   * @return {@code c} en minúscula y sin marcas diacríticas, o {@value #SEPARADOR} si no es letra
+   *         ni dígito.
+   */
+  public static char plegar(final char c) {
+    if (c < TABLA.length) {
+      return TABLA[c];
+    }
+    return Character.isLetterOrDigit(c) ? Character.toLowerCase(c) : SEPARADOR;
+  }
+
+  /** Carácter con el que {@link #plegar(char)} indica un separador */
+  public static final char SEPARADOR = ' ';
+
+  /** Plegado de Latin-1 y Latin Extended-A, precalculado con la descomposición de Unicode */
+  private static final char[] TABLA = new char[0x180];
+  static {
+    for (char c = 0; c < TABLA.length; c++) {
+      if (!Character.isLetterOrDigit(c)) {
+        TABLA[c] = SEPARADOR;
+      } else {
+        final char base = Normalizer.normalize(String.valueOf(c), Normalizer.Form.NFD).charAt(0);
+        TABLA[c] = Character.toLowerCase((base < 0x80) ? base : c);
+      }
+    }
+  }
+
+  private Plegado() {
+    // Clase de utilidades
+  }
+}
@@ -0,0 +1,49 @@
+package es.prueba.jorge.server.busqueda;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.base.MoreObjects;
+
+import javax.annotation.Nonnull;
+
+import es.prueba.jorge.model.UsuarioId;
+
+/**
+ * {@code Usuario} encontrado por {@link IndiceNombres} y su puntuación.
+ *
+ * @author Jorge García Villanueva &lt;Jorgegv95@gmail.com&gt;
+ */
+public final class ResultadoBusqueda {
+  /**
+   * @param usuarioId del {@code Usuario} encontrado.
+   * @param puntuacion de la coincidencia; mayor cuanto mejor.
+   */
+  public ResultadoBusqueda(@Nonnull final UsuarioId usuarioId, final int puntuacion) {
+    _usuarioId = checkNotNull(usuarioId);
+    _puntuacion = puntuacion;
+  }
+
+  /**
+   * @return el {@link UsuarioId} del {@code Usuario} encontrado.
+   */
+  public UsuarioId usuarioId() {
+    return _usuarioId;
+  }
+
+  /**
+   * @return la puntuación de la coincidencia; mayor cuanto mejor.
+   */
+  public int puntuacion() {
+    return _puntuacion;
+  }
+
+  @SuppressWarnings("nls")
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this).add("usuarioId", _usuarioId)
+        .add("puntuacion", _puntuacion).toString();
+  }
+
+  private final UsuarioId _usuarioId;
+  private final int _puntuacion;
+}
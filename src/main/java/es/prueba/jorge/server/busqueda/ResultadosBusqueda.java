@@ -0,0 +1,52 @@
+package es.prueba.jorge.server.busqueda;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableList;
+
+import java.util.List;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Resultados de una búsqueda en {@link IndiceNombres}, de mejor a peor, y si son exactos.
+ *
+ * @author Jorge García Villanueva &lt;Jorgegv95@gmail.com&gt;
+ */
+public final class ResultadosBusqueda {
+  /**
+   * @param resultados de mejor a peor.
+   * @param truncada si la búsqueda ha dejado candidatos sin comprobar, en cuyo caso puede haber
+   *        {@code Usuario}s mejores que los {@code resultados}.
+   */
+  public ResultadosBusqueda(@Nonnull final List<ResultadoBusqueda> resultados,
+      final boolean truncada) {
+    _resultados = ImmutableList.copyOf(resultados);
+    _truncada = truncada;
+  }
+
+  /**
+   * @return los resultados de mejor a peor.
+   */
+  public List<ResultadoBusqueda> resultados() {
+    return _resultados;
+  }
+
+  /**
+   * @return {@code true} si la búsqueda ha parado en {@value IndiceNombres#MAX_CANDIDATOS}
+   *         candidatos sin poder descartar el resto, por lo que puede haber {@code Usuario}s
+   *         mejores que los {@link #resultados()}.
+   */
+  public boolean truncada() {
+    return _truncada;
+  }
+
+  @SuppressWarnings("nls")
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this).add("resultados", _resultados)
+        .add("truncada", _truncada).toString();
+  }
+
+  private final List<ResultadoBusqueda> _resultados;
+  private final boolean _truncada;
+}
@@ -0,0 +1,114 @@
+package es.prueba.jorge.server.codec;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Codificación binaria compacta y versionada de un tipo, para cachés, instantáneas y
+ * transferencias entre nodos.
+ * <p>
+ * Lo codificado con {@link #codificar(Object)} o {@link #codificarTodos(Collection)} empieza por
+ * la {@link #VERSION} del formato con que se escribió, y al leerlo se descodifica con esa misma
+ * versión. Cada cambio de formato incrementa {@code VERSION} y conserva la lectura de las
+ * anteriores en {@link #leer(Entrada, int)}, de modo que los datos antiguos siguen pudiendo leerse.
+ *
+ * @param <T> tipo codificado.
+ * @author Jorge García Villanueva &lt;Jorgegv95@gmail.com&gt;
+ */
+public interface CodecBinario<T> {
+  /** Versión actual del formato, la que se escribe */
+  int VERSION = 1;
+
+  /**
+   * Escribe {@code valor} con el formato de la versión actual, sin la versión.
+   *
+   * @param salida en la que escribir.
+   * @param valor a escribir.
+   */
+  void escribir(@Nonnull Salida salida, @Nonnull T valor);
+
+  /**
+   * Lee un valor escrito con el formato de {@code version}.
+   *
+   * @param entrada de la que leer.
+   * @param version del formato, entre 1 y {@link #VERSION}.
+   * @return el valor leído.
+   * @throws IllegalArgumentException si los datos no son válidos.
+   */
+  T leer(@Nonnull Entrada entrada, int version);
+
+  /**
+   * @param valor a codificar.
+   * @return la versión actual y {@code valor} codificado.
+   */
+  default byte[] codificar(@Nonnull final T valor) {
+    final Salida salida = new Salida().varint(VERSION);
+    escribir(salida, checkNotNull(valor));
+    return salida.toByteArray();
+  }
+
+  /**
+   * @param bytes codificados con {@link #codificar(Object)} con esta versión o una anterior.
+   * @return el valor descodificado.
+   * @throws IllegalArgumentException si los datos no son válidos o sobran bytes.
+   */
+  default T decodificar(@Nonnull final byte[] bytes) {
+    final Entrada entrada = new Entrada(bytes);
+    final T valor = leer(entrada, version(entrada));
+    checkArgument(!entrada.quedan(), "Bytes sobrantes tras la posición %s", //$NON-NLS-1$
+        entrada.posicion());
+    return valor;
+  }
+
+  /**
+   * @param valores a codificar.
+   * @return la versión actual, el número de valores y cada uno de ellos codificado.
+   */
+  default byte[] codificarTodos(@Nonnull final Collection<? extends T> valores) {
+    final Salida salida = new Salida(Math.max(256, valores.size() * 64)).varint(VERSION)
+        .varint(valores.size());
+    valores.forEach(valor -> escribir(salida, checkNotNull(valor)));
+    return salida.toByteArray();
+  }
+
+  /**
+   * @param bytes codificados con {@link #codificarTodos(Collection)} con esta versión o una
+   *        anterior.
+   * @return los valores descodificados, en el mismo orden.
+   * @throws IllegalArgumentException si los datos no son válidos o sobran bytes.
+   */
+  default List<T> decodificarTodos(@Nonnull final byte[] bytes) {
+    final Entrada entrada = new Entrada(bytes);
+    final int version = version(entrada);
+    final int size = entrada.varint();
+    checkArgument(size >= 0, "Número de valores negativo: %s", size); //$NON-NLS-1$
+    // Cada valor ocupa al menos un byte, así que un número mayor no puede ser válido
+    checkArgument(size <= bytes.length, "Número de valores no válido: %s", size); //$NON-NLS-1$
+    final List<T> valores = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      valores.add(leer(entrada, version));
+    }
+    checkArgument(!entrada.quedan(), "Bytes sobrantes tras la posición %s", //$NON-NLS-1$
+        entrada.posicion());
+    return valores;
+  }
+
+  /**
+   * Lee la versión del formato de {@code entrada}.
+   *
+   * @param entrada de la que leer.
+   * @return la versión leída.
+   * @throws IllegalArgumentException si la versión no está soportada.
+   */
+  static int version(@Nonnull final Entrada entrada) {
+    final int version = entrada.varint();
+    checkArgument((version >= 1) && (version <= VERSION), "Versión no soportada: %s", version); //$NON-NLS-1$
+    return version;
+  }
+}
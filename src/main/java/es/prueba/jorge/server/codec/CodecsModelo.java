@@ -0,0 +1,330 @@
+package es.prueba.jorge.server.codec;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import es.prueba.jorge.model.DatosCRUD;
+import es.prueba.jorge.model.Direccion;
+import es.prueba.jorge.model.Email;
+import es.prueba.jorge.model.Perfil;
+import es.prueba.jorge.model.Persona;
+import es.prueba.jorge.model.Solicitud;
+import es.prueba.jorge.model.SolicitudId;
+import es.prueba.jorge.model.Telefono;
+import es.prueba.jorge.model.TipoCRUD;
+import es.prueba.jorge.model.Usuario;
+import es.prueba.jorge.model.UsuarioId;
+
+/**
+ * {@link CodecBinario}s de las {@code Entity}s y {@code ValueObject}s de
+ * {@code es.prueba.jorge.model}.
+ * <p>
+ * Formato de la versión 1 (<i>v</i>: <i>varint</i>, <i>z</i>: <i>varint</i> en <i>zigzag</i>,
+ * <i>t</i>: texto, <i>i</i>: {@link Salida#instante(Instant, long) instante}):
+ *
+ * <pre>
+ * UsuarioId, SolicitudId  v id
+ * Perfil, TipoCRUD        byte código del diccionario ({@link #PERFILES}, {@link #TIPOS_CRUD})
+ * Email                   t
+ * Telefono                int de 4 bytes (siempre son 9 cifras sin 0 inicial)
+ * DatosCRUD               v autor, i instante respecto a la época
+ * Persona                 byte opcionales (bit 0: apellido2), t nombre, t apellido1, [t apellido2]
+ * Direccion               t direccion, v codigoPostal, t poblacion, t provincia
+ * Solicitud               v id, byte opcionales (bit 0: repartir), t solicitante
+ * Usuario                 v id, byte (bits 0-3: apellido2, ultimaVisita, baja, modificacion;
+ *                         bits 4-7: código del Perfil), t nombre, t apellido1, [t apellido2],
+ *                         Telefono, Email, DatosCRUD alta, [i ultimaVisita], [v autor, i baja],
+ *                         [v autor, i modificacion]; los instantes opcionales respecto al alta
+ * </pre>
+ * <p>
+ * Los códigos de los diccionarios no pueden cambiar: los valores nuevos se añaden al final.
+ *
+ * @author Jorge García Villanueva &lt;Jorgegv95@gmail.com&gt;
+ */
+public final class CodecsModelo {
+  /** Códigos de {@link Perfil}, por posición */
+  @SuppressWarnings("nls")
+  public static final List<String> PERFILES =
+      ImmutableList.of("CLIENTE", "EXTERNO", "ADMINISTRADOR");
+  /** Códigos de {@link TipoCRUD}, por posición, los mismos del diario de auditoría */
+  @SuppressWarnings("nls")
+  public static final List<String> TIPOS_CRUD = ImmutableList.of("ALTA", "BAJA", "MOD");
+
+  /** {@link CodecBinario} de {@link UsuarioId} */
+  public static final CodecBinario<UsuarioId> USUARIO_ID = new CodecBinario<UsuarioId>() {
+    @Override
+    public void escribir(final Salida salida, final UsuarioId valor) {
+      salida.varint(valor.id());
+    }
+
+    @Override
+    public UsuarioId leer(final Entrada entrada, final int version) {
+      return new UsuarioId(entrada.varint());
+    }
+  };
+
+  /** {@link CodecBinario} de {@link SolicitudId} */
+  public static final CodecBinario<SolicitudId> SOLICITUD_ID = new CodecBinario<SolicitudId>() {
+    @Override
+    public void escribir(final Salida salida, final SolicitudId valor) {
+      salida.varint(valor.id());
+    }
+
+    @Override
+    public SolicitudId leer(final Entrada entrada, final int version) {
+      return new SolicitudId(entrada.varint());
+    }
+  };
+
+  /** {@link CodecBinario} de {@link Perfil} */
+  public static final CodecBinario<Perfil> PERFIL =
+      new Diccionario<>(PERFILES, Perfil.getPerfiles(), Perfil::perfil, Perfil::valueOf);
+
+  /** {@link CodecBinario} de {@link TipoCRUD} */
+  public static final CodecBinario<TipoCRUD> TIPO_CRUD = new Diccionario<>(TIPOS_CRUD,
+      TipoCRUD.getTiposCRUD(), TipoCRUD::value, TipoCRUD::valueOf);
+
+  /** {@link CodecBinario} de {@link Email} */
+  public static final CodecBinario<Email> EMAIL = new CodecBinario<Email>() {
+    @Override
+    public void escribir(final Salida salida, final Email valor) {
+      salida.texto(valor.email());
+    }
+
+    @Override
+    public Email leer(final Entrada entrada, final int version) {
+      return valido(entrada, Email::of);
+    }
+  };
+
+  /** {@link CodecBinario} de {@link Telefono} */
+  public static final CodecBinario<Telefono> TELEFONO = new CodecBinario<Telefono>() {
+    @Override
+    public void escribir(final Salida salida, final Telefono valor) {
+      salida.entero32(Integer.parseInt(valor.telefono()));
+    }
+
+    @Override
+    public Telefono leer(final Entrada entrada, final int version) {
+      final int numero = entrada.entero32();
+      final String telefono = Integer.toString(numero);
+      checkArgument(Telefono.isValid(telefono), "Teléfono no válido: %s", numero); //$NON-NLS-1$
+      return Telefono.of(telefono);
+    }
+  };
+
+  /** {@link CodecBinario} de {@link DatosCRUD} */
+  public static final CodecBinario<DatosCRUD> DATOS_CRUD = new CodecBinario<DatosCRUD>() {
+    @Override
+    public void escribir(final Salida salida, final DatosCRUD valor) {
+      salida.varint(valor.usuarioId().id()).instante(valor.instant(), 0);
+    }
+
+    @Override
+    public DatosCRUD leer(final Entrada entrada, final int version) {
+      return new DatosCRUD(new UsuarioId(entrada.varint()), entrada.instante(0));
+    }
+  };
+
+  /** {@link CodecBinario} de {@link Persona} */
+  public static final CodecBinario<Persona> PERSONA = new CodecBinario<Persona>() {
+    @Override
+    public void escribir(final Salida salida, final Persona valor) {
+      salida.byteSinSigno(valor.apellido2().isPresent() ? APELLIDO2 : 0);
+      escribirPersona(salida, valor);
+    }
+
+    @Override
+    public Persona leer(final Entrada entrada, final int version) {
+      final int opcionales = entrada.byteSinSigno();
+      checkArgument((opcionales & ~APELLIDO2) == 0, "Opcionales no válidos: %s", opcionales); //$NON-NLS-1$
+      return leerPersona(entrada, opcionales);
+    }
+  };
+
+  /** {@link CodecBinario} de {@link Direccion} */
+  public static final CodecBinario<Direccion> DIRECCION = new CodecBinario<Direccion>() {
+    @Override
+    public void escribir(final Salida salida, final Direccion valor) {
+      salida.texto(valor.direccion()).varint(valor.codigoPostal()).texto(valor.poblacion())
+          .texto(valor.provincia());
+    }
+
+    @Override
+    public Direccion leer(final Entrada entrada, final int version) {
+      return Direccion.builder().withDireccion(entrada.texto())
+          .withCodigoPostal(entrada.varint()).withPoblacion(entrada.texto())
+          .withProvincia(entrada.texto()).build();
+    }
+  };
+
+  /** {@link CodecBinario} de {@link Solicitud} */
+  public static final CodecBinario<Solicitud> SOLICITUD = new CodecBinario<Solicitud>() {
+    @Override
+    public void escribir(final Salida salida, final Solicitud valor) {
+      salida.varint(valor.identity().id()).byteSinSigno(valor.repartir() ? REPARTIR : 0)
+          .texto(valor.solicitante());
+    }
+
+    @Override
+    public Solicitud leer(final Entrada entrada, final int version) {
+      final SolicitudId id = new SolicitudId(entrada.varint());
+      final int opcionales = entrada.byteSinSigno();
+      checkArgument((opcionales & ~REPARTIR) == 0, "Opcionales no válidos: %s", opcionales); //$NON-NLS-1$
+      return Solicitud.builder(id).withRepartir(opcionales == REPARTIR)
+          .withSolicitante(entrada.texto()).build();
+    }
+  };
+
+  /** {@link CodecBinario} de {@link Usuario} */
+  public static final CodecBinario<Usuario> USUARIO = new CodecBinario<Usuario>() {
+    @Override
+    public void escribir(final Salida salida, final Usuario valor) {
+      final Persona persona = valor.persona();
+      int cabecera = ((Diccionario<Perfil>) PERFIL).codigo(valor.perfil()) << BITS_OPCIONALES;
+      cabecera |= persona.apellido2().isPresent() ? APELLIDO2 : 0;
+      cabecera |= valor.ultimaVisita().isPresent() ? ULTIMA_VISITA : 0;
+      cabecera |= valor.baja().isPresent() ? BAJA : 0;
+      cabecera |= valor.modificacion().isPresent() ? MODIFICACION : 0;
+      salida.varint(valor.identity().id()).byteSinSigno(cabecera);
+      escribirPersona(salida, persona);
+      TELEFONO.escribir(salida, valor.telefono());
+      salida.texto(valor.email().email());
+      DATOS_CRUD.escribir(salida, valor.alta());
+      final long base = valor.alta().instant().getEpochSecond();
+      if (valor.ultimaVisita().isPresent()) {
+        salida.instante(valor.ultimaVisita().get(), base);
+      }
+      if (valor.baja().isPresent()) {
+        salida.varint(valor.baja().get().usuarioId().id())
+            .instante(valor.baja().get().instant(), base);
+      }
+      if (valor.modificacion().isPresent()) {
+        salida.varint(valor.modificacion().get().usuarioId().id())
+            .instante(valor.modificacion().get().instant(), base);
+      }
+    }
+
+    @Override
+    public Usuario leer(final Entrada entrada, final int version) {
+      final Usuario.Builder usuario = Usuario.builder(new UsuarioId(entrada.varint()));
+      final int cabecera = entrada.byteSinSigno();
+      usuario.withPersona(leerPersona(entrada, cabecera))
+          .withPerfil(((Diccionario<Perfil>) PERFIL).valor(cabecera >>> BITS_OPCIONALES))
+          .withTelefono(TELEFONO.leer(entrada, version)).withEmail(valido(entrada, Email::of));
+      final DatosCRUD alta = DATOS_CRUD.leer(entrada, version);
+      usuario.withDatosAlta(alta);
+      final long base = alta.instant().getEpochSecond();
+      if ((cabecera & ULTIMA_VISITA) != 0) {
+        usuario.withUltimaVisita(entrada.instante(base));
+      }
+      if ((cabecera & BAJA) != 0) {
+        usuario.withDatosBaja(new DatosCRUD(new UsuarioId(entrada.varint()),
+            entrada.instante(base)));
+      }
+      if ((cabecera & MODIFICACION) != 0) {
+        usuario.withDatosUltimaModificacion(new DatosCRUD(new UsuarioId(entrada.varint()),
+            entrada.instante(base)));
+      }
+      return usuario.build();
+    }
+  };
+
+  private static void escribirPersona(final Salida salida, final Persona persona) {
+    salida.texto(persona.nombre()).texto(persona.apellido1());
+    if (persona.apellido2().isPresent()) {
+      salida.texto(persona.apellido2().get());
+    }
+  }
+
+  private static Persona leerPersona(final Entrada entrada, final int opcionales) {
+    final Persona.Builder persona =
+        Persona.builder().withNombre(entrada.texto()).withApellido1(entrada.texto());
+    if ((opcionales & APELLIDO2) != 0) {
+      persona.withApellido2(entrada.texto());
+    }
+    return persona.build();
+  }
+
+  /** Lee un texto y crea el valor, convirtiendo cualquier error de validación en uno de datos */
+  private static <T> T valido(final Entrada entrada, final Function<String, T> crear) {
+    final String texto = entrada.texto();
+    try {
+      return crear.apply(texto);
+    } catch (final IllegalArgumentException | NullPointerException e) {
+      throw new IllegalArgumentException("Valor no válido: " + texto, e); //$NON-NLS-1$
+    }
+  }
+
+  /** Bits de la cabecera de {@code Usuario} para los opcionales; el resto es el perfil */
+  private static final int BITS_OPCIONALES = 4;
+  private static final int APELLIDO2 = 1;
+  private static final int ULTIMA_VISITA = 1 << 1;
+  private static final int BAJA = 1 << 2;
+  private static final int MODIFICACION = 1 << 3;
+  private static final int REPARTIR = 1;
+
+  static {
+    checkState(PERFILES.size() <= (1 << (Byte.SIZE - BITS_OPCIONALES)),
+        "Demasiados perfiles para la cabecera de Usuario"); //$NON-NLS-1$
+  }
+
+  /**
+   * {@code ValueObject} de un conjunto cerrado de valores, codificado como su posición en el
+   * diccionario. Falla al cargarse si algún valor no tiene código.
+   */
+  private static final class Diccionario<T> implements CodecBinario<T> {
+    Diccionario(final List<String> nombres, final List<String> todos,
+        final Function<T, String> nombre, final Function<String, T> valor) {
+      checkState(nombres.containsAll(todos), "Valores sin código: %s no está en %s", todos, //$NON-NLS-1$
+          nombres);
+      final ImmutableList.Builder<T> valores = ImmutableList.builder();
+      final ImmutableMap.Builder<T, Integer> codigos = ImmutableMap.builder();
+      for (int i = 0; i < nombres.size(); i++) {
+        final T v = valor.apply(nombres.get(i));
+        valores.add(v);
+        codigos.put(v, Integer.valueOf(i));
+      }
+      _valores = valores.build();
+      _codigos = codigos.build();
+      _nombre = nombre;
+    }
+
+    @Override
+    public void escribir(final Salida salida, final T valor) {
+      salida.byteSinSigno(codigo(valor));
+    }
+
+    @Override
+    public T leer(final Entrada entrada, final int version) {
+      return valor(entrada.byteSinSigno());
+    }
+
+    int codigo(final T valor) {
+      final Integer codigo = _codigos.get(valor);
+      checkState(codigo != null, "%s sin código en el diccionario", _nombre.apply(valor)); //$NON-NLS-1$
+      return codigo.intValue();
+    }
+
+    T valor(final int codigo) {
+      checkArgument(codigo < _valores.size(), "Código desconocido: %s", codigo); //$NON-NLS-1$
+      return _valores.get(codigo);
+    }
+
+    private final List<T> _valores;
+    private final Map<T, Integer> _codigos;
+    private final Function<T, String> _nombre;
+  }
+
+  private CodecsModelo() {
+    // Clase de utilidades
+  }
+}
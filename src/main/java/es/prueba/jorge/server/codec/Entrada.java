@@ -0,0 +1,180 @@
+package es.prueba.jorge.server.codec;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkPositionIndexes;
+
+import com.google.common.base.MoreObjects;
+
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.Instant;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Lectura de lo escrito con una {@link Salida}.
+ * <p>
+ * Los datos truncados o mal formados producen una {@link IllegalArgumentException}, nunca un valor
+ * incorrecto ni una lectura fuera de los límites indicados.
+ *
+ * @author Jorge García Villanueva &lt;Jorgegv95@gmail.com&gt;
+ */
+public final class Entrada {
+  /**
+   * @param bytes a leer, completos.
+   */
+  public Entrada(@Nonnull final byte[] bytes) {
+    this(bytes, 0, bytes.length);
+  }
+
+  /**
+   * @param bytes a leer.
+   * @param inicio posición del primer byte a leer.
+   * @param fin posición siguiente al último byte a leer.
+   * @throws IndexOutOfBoundsException si los límites no están dentro de {@code bytes}.
+   */
+  public Entrada(@Nonnull final byte[] bytes, final int inicio, final int fin) {
+    checkPositionIndexes(inicio, fin, checkNotNull(bytes).length);
+    _bytes = bytes;
+    _posicion = inicio;
+    _fin = fin;
+  }
+
+  /**
+   * @return el siguiente byte, de 0 a 255.
+   */
+  public int byteSinSigno() {
+    disponibles(1);
+    return _bytes[_posicion++] & 0xFF;
+  }
+
+  /**
+   * @return el siguiente entero de 4 bytes, el más significativo primero.
+   */
+  public int entero32() {
+    disponibles(4);
+    final int valor = ((_bytes[_posicion] & 0xFF) << 24) | ((_bytes[_posicion + 1] & 0xFF) << 16)
+        | ((_bytes[_posicion + 2] & 0xFF) << 8) | (_bytes[_posicion + 3] & 0xFF);
+    _posicion += 4;
+    return valor;
+  }
+
+  /**
+   * @return el siguiente <i>varint</i> de hasta 32 bits.
+   */
+  public int varint() {
+    int valor = 0;
+    for (int desplazamiento = 0; desplazamiento < 32; desplazamiento += 7) {
+      disponibles(1);
+      final byte b = _bytes[_posicion++];
+      valor |= (b & 0x7F) << desplazamiento;
+      if (b >= 0) {
+        checkArgument((desplazamiento < 28) || ((b & 0x70) == 0), "varint demasiado largo"); //$NON-NLS-1$
+        return valor;
+      }
+    }
+    throw new IllegalArgumentException("varint demasiado largo"); //$NON-NLS-1$
+  }
+
+  /**
+   * @return el siguiente <i>varint</i> de hasta 64 bits en <i>zigzag</i>.
+   */
+  public long varlongZigzag() {
+    long valor = 0;
+    for (int desplazamiento = 0; desplazamiento < 64; desplazamiento += 7) {
+      disponibles(1);
+      final byte b = _bytes[_posicion++];
+      valor |= (long) (b & 0x7F) << desplazamiento;
+      if (b >= 0) {
+        checkArgument((desplazamiento < 63) || ((b & 0x7E) == 0), "varint demasiado largo"); //$NON-NLS-1$
+        return (valor >>> 1) ^ -(valor & 1);
+      }
+    }
+    throw new IllegalArgumentException("varint demasiado largo"); //$NON-NLS-1$
+  }
+
+  /**
+   * @return el siguiente texto.
+   */
+  public String texto() {
+    final int longitud = varint();
+    checkArgument(longitud >= 0, "longitud negativa: %s", longitud); //$NON-NLS-1$
+    disponibles(longitud);
+    final String texto = new String(_bytes, _posicion, longitud, StandardCharsets.UTF_8);
+    _posicion += longitud;
+    return texto;
+  }
+
+  /**
+   * @param base segundos respecto a los que se escribió el instante.
+   * @return el siguiente {@link Instant}.
+   * @see Salida#instante(Instant, long)
+   */
+  public Instant instante(final long base) {
+    final long segundos = varlongZigzag() + base;
+    final int nanos = varint();
+    final int valor = nanos >>> 2;
+    final long nanosegundos;
+    switch (nanos & 0x3) {
+      case MILIS:
+        checkArgument(valor < 1000, "milisegundos fuera de rango: %s", valor); //$NON-NLS-1$
+        nanosegundos = valor * 1_000_000L;
+        break;
+      case MICROS:
+        checkArgument(valor < 1_000_000, "microsegundos fuera de rango: %s", valor); //$NON-NLS-1$
+        nanosegundos = valor * 1000L;
+        break;
+      case NANOS:
+        checkArgument(valor < 1_000_000_000, "nanosegundos fuera de rango: %s", valor); //$NON-NLS-1$
+        nanosegundos = valor;
+        break;
+      default:
+        checkArgument(valor == 0, "nanosegundos sin unidad: %s", valor); //$NON-NLS-1$
+        nanosegundos = 0;
+    }
+    try {
+      return Instant.ofEpochSecond(segundos, nanosegundos);
+    } catch (final DateTimeException e) {
+      throw new IllegalArgumentException("Instante fuera de rango: " + segundos, e); //$NON-NLS-1$
+    }
+  }
+
+  /**
+   * @return {@code true} si quedan bytes por leer.
+   */
+  public boolean quedan() {
+    return _posicion < _fin;
+  }
+
+  /**
+   * @return posición del siguiente byte a leer.
+   */
+  public int posicion() {
+    return _posicion;
+  }
+
+  @SuppressWarnings("nls")
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this).add("posicion", _posicion).add("fin", _fin)
+        .toString();
+  }
+
+  @SuppressWarnings("nls")
+  private void disponibles(final int bytes) {
+    if (bytes > (_fin - _posicion)) {
+      throw new IllegalArgumentException("Datos truncados: se esperaban " + bytes
+          + " bytes en la posición " + _posicion + " y quedan " + (_fin - _posicion));
+    }
+  }
+
+  // Unidad de los nanosegundos de los instantes, en sus dos bits menos significativos
+  static final int MILIS = 1;
+  static final int MICROS = 2;
+  static final int NANOS = 3;
+
+  private final byte[] _bytes;
+  private final int _fin;
+  private int _posicion;
+}
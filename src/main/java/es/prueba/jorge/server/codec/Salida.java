@@ -0,0 +1,215 @@
+package es.prueba.jorge.server.codec;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.base.MoreObjects;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Arrays;
+
+import javax.annotation.Nonnull;
+
+/**
+ * <i>Buffer</i> de escritura de {@link CodecBinario}, que crece según se necesita.
+ * <p>
+ * Los enteros se escriben como <i>varints</i> (7 bits por byte, el menos significativo primero),
+ * en <i>zigzag</i> los que pueden ser negativos, y los textos como su longitud en UTF-8 seguida de
+ * sus bytes. Una misma {@code Salida} puede reutilizarse con {@link #reset()} para no reservar un
+ * <i>buffer</i> nuevo en cada codificación.
+ *
+ * @author Jorge García Villanueva &lt;Jorgegv95@gmail.com&gt;
+ */
+public final class Salida {
+  /**
+   * Ctor con capacidad inicial para 256 bytes.
+   */
+  public Salida() {
+    this(256);
+  }
+
+  /**
+   * @param capacidad inicial del <i>buffer</i>, en bytes.
+   * @throws IllegalArgumentException si {@code capacidad} no es positiva.
+   */
+  public Salida(final int capacidad) {
+    checkArgument(capacidad > 0, "capacidad ha de ser positiva: %s", capacidad); //$NON-NLS-1$
+    _bytes = new byte[capacidad];
+  }
+
+  /**
+   * @param valor a escribir, de 0 a 255.
+   * @return esta misma {@code Salida}.
+   */
+  public Salida byteSinSigno(final int valor) {
+    checkArgument((valor & ~0xFF) == 0, "fuera de rango: %s", valor); //$NON-NLS-1$
+    asegurar(1);
+    _bytes[_size++] = (byte) valor;
+    return this;
+  }
+
+  /**
+   * @param valor a escribir en 4 bytes, el más significativo primero.
+   * @return esta misma {@code Salida}.
+   */
+  public Salida entero32(final int valor) {
+    asegurar(4);
+    _bytes[_size++] = (byte) (valor >>> 24);
+    _bytes[_size++] = (byte) (valor >>> 16);
+    _bytes[_size++] = (byte) (valor >>> 8);
+    _bytes[_size++] = (byte) valor;
+    return this;
+  }
+
+  /**
+   * @param valor a escribir como <i>varint</i>; los negativos ocupan 5 bytes.
+   * @return esta misma {@code Salida}.
+   */
+  public Salida varint(final int valor) {
+    asegurar(5);
+    int resto = valor;
+    while ((resto & ~0x7F) != 0) {
+      _bytes[_size++] = (byte) ((resto & 0x7F) | 0x80);
+      resto >>>= 7;
+    }
+    _bytes[_size++] = (byte) resto;
+    return this;
+  }
+
+  /**
+   * @param valor a escribir como <i>varint</i> en <i>zigzag</i>, de modo que los valores cercanos
+   *        a 0, positivos o negativos, ocupan pocos bytes.
+   * @return esta misma {@code Salida}.
+   */
+  public Salida varlongZigzag(final long valor) {
+    asegurar(10);
+    long resto = (valor << 1) ^ (valor >> 63);
+    while ((resto & ~0x7FL) != 0) {
+      _bytes[_size++] = (byte) ((resto & 0x7F) | 0x80);
+      resto >>>= 7;
+    }
+    _bytes[_size++] = (byte) resto;
+    return this;
+  }
+
+  /**
+   * Escribe la longitud en UTF-8 de {@code texto} y sus bytes, sin objetos intermedios salvo si
+   * contiene caracteres fuera del plano básico. Como en {@link String#getBytes}, los sustitutos
+   * sin pareja se escriben como {@code '?'}.
+   *
+   * @param texto a escribir.
+   * @return esta misma {@code Salida}.
+   */
+  public Salida texto(@Nonnull final String texto) {
+    final int length = texto.length();
+    int longitud = 0;
+    for (int i = 0; i < length; i++) {
+      final char c = texto.charAt(i);
+      if (c < 0x80) {
+        longitud++;
+      } else if (c < 0x800) {
+        longitud += 2;
+      } else if (Character.isSurrogate(c)) {
+        // Pares sustitutos (y sustitutos sueltos) con las reglas de String.getBytes
+        final byte[] utf8 = texto.getBytes(StandardCharsets.UTF_8);
+        varint(utf8.length);
+        asegurar(utf8.length);
+        System.arraycopy(utf8, 0, _bytes, _size, utf8.length);
+        _size += utf8.length;
+        return this;
+      } else {
+        longitud += 3;
+      }
+    }
+    varint(longitud);
+    asegurar(longitud);
+    for (int i = 0; i < length; i++) {
+      final char c = texto.charAt(i);
+      if (c < 0x80) {
+        _bytes[_size++] = (byte) c;
+      } else if (c < 0x800) {
+        _bytes[_size++] = (byte) (0xC0 | (c >> 6));
+        _bytes[_size++] = (byte) (0x80 | (c & 0x3F));
+      } else {
+        _bytes[_size++] = (byte) (0xE0 | (c >> 12));
+        _bytes[_size++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+        _bytes[_size++] = (byte) (0x80 | (c & 0x3F));
+      }
+    }
+    return this;
+  }
+
+  /**
+   * Escribe un {@link Instant} como sus segundos desde {@code base} en <i>zigzag</i> seguidos de
+   * sus nanosegundos, que ocupan menos si son milisegundos o microsegundos exactos.
+   *
+   * @param instante a escribir.
+   * @param base segundos respecto a los que escribir {@code instante}, {@code 0} para la época.
+   * @return esta misma {@code Salida}.
+   */
+  public Salida instante(@Nonnull final Instant instante, final long base) {
+    varlongZigzag(instante.getEpochSecond() - base);
+    final int nanos = instante.getNano();
+    if (nanos == 0) {
+      varint(0);
+    } else if ((nanos % 1_000_000) == 0) {
+      varint(((nanos / 1_000_000) << 2) | Entrada.MILIS);
+    } else if ((nanos % 1000) == 0) {
+      varint(((nanos / 1000) << 2) | Entrada.MICROS);
+    } else {
+      varint((nanos << 2) | Entrada.NANOS);
+    }
+    return this;
+  }
+
+  /**
+   * @return número de bytes escritos.
+   */
+  public int size() {
+    return _size;
+  }
+
+  /**
+   * Descarta lo escrito, conservando el <i>buffer</i>.
+   *
+   * @return esta misma {@code Salida}.
+   */
+  public Salida reset() {
+    _size = 0;
+    return this;
+  }
+
+  /**
+   * @return una copia de los bytes escritos.
+   */
+  public byte[] toByteArray() {
+    return Arrays.copyOf(_bytes, _size);
+  }
+
+  /**
+   * @param out en la que escribir los bytes escritos.
+   * @throws IOException si falla la escritura.
+   */
+  public void writeTo(@Nonnull final OutputStream out) throws IOException {
+    checkNotNull(out).write(_bytes, 0, _size);
+  }
+
+  @SuppressWarnings("nls")
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this).add("size", _size).add("capacidad", _bytes.length)
+        .toString();
+  }
+
+  private void asegurar(final int bytes) {
+    if ((_size + bytes) > _bytes.length) {
+      _bytes = Arrays.copyOf(_bytes, Math.max(_bytes.length * 2, _size + bytes));
+    }
+  }
+
+  private byte[] _bytes;
+  private int _size;
+}
@@ -1,28 +1,80 @@
 package es.prueba.jorge.server.config;
 
+import static com.google.common.base.Preconditions.checkNotNull;
+
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.SerializationFeature;
 
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+import javax.annotation.Nonnull;
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
 
+import org.apache.catalina.Lifecycle;
+import org.apache.coyote.AbstractProtocol;
+import org.apache.coyote.ProtocolHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.aop.interceptor.AsyncUncaughtExceptionHandler;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
 import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.scheduling.annotation.AsyncConfigurer;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.concurrent.ConcurrentTaskScheduler;
 import org.springframework.scheduling.config.ScheduledTaskRegistrar;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 import org.springframework.web.filter.CorsFilter;
 
+import es.prueba.jorge.model.reparto.RepartoSolicitudes;
+import es.prueba.jorge.server.auditoria.DiarioCRUD;
+import es.prueba.jorge.server.auditoria.InstantaneasCRUD;
+import es.prueba.jorge.server.busqueda.IndiceNombres;
+import es.prueba.jorge.server.direcciones.CodigosPostales;
+import es.prueba.jorge.server.exportacion.ExportacionUsuarios;
+import es.prueba.jorge.server.importacion.ImportacionUsuarios;
+import es.prueba.jorge.server.importacion.LoteUsuarios;
+import es.prueba.jorge.server.json.ConversorJson;
+import es.prueba.jorge.server.json.ModuloModelo;
+import es.prueba.jorge.server.persistence.CheckpointRepository;
+import es.prueba.jorge.server.persistence.UltimasVisitas;
+import es.prueba.jorge.server.persistence.UsuarioCache;
+import es.prueba.jorge.server.persistence.UsuarioRepository;
+import es.prueba.jorge.server.scheduling.DispatchingTaskScheduler;
+import es.prueba.jorge.server.scheduling.InstrumentedScheduledExecutor;
+import es.prueba.jorge.server.scheduling.VirtualThreads;
+import es.prueba.jorge.server.web.FiltroLatencias;
+
 /**
  * @author Jorge García Villanueva &lt;jorgegv95@gmail.com&gt;
  */
 @Configuration
 @ConfigurationProperties()
-public class ApplicationConfiguration implements SchedulingConfigurer {
+@EnableScheduling
+@EnableAsync
+public class ApplicationConfiguration implements SchedulingConfigurer, AsyncConfigurer {
   /**
    * {@code Bean} para configurar Jackson.
+   * <p>
+   * Las clases del modelo se serializan con {@link ModuloModelo}, sin reflexión. Las claves de los
+   * mapas no se ordenan en cada respuesta: los mapas que se serializan ya tienen un orden estable.
    *
    * @return Un {@link Jackson2ObjectMapperBuilder} configurado para la creación de
    *         {@link ObjectMapper}.
@@ -31,7 +83,7 @@ public class ApplicationConfiguration implements SchedulingConfigurer {
   @Bean
   public Jackson2ObjectMapperBuilder jacksonBuilder() {
     final Jackson2ObjectMapperBuilder builder = new Jackson2ObjectMapperBuilder();
-    builder.featuresToEnable(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS);
+    builder.modulesToInstall(new ModuloModelo());
     return builder;
   }
 
@@ -58,15 +110,336 @@ public class ApplicationConfiguration implements SchedulingConfigurer {
     return new CorsFilter(source);
   }
 
+  /**
+   * {@code Bean} del filtro que mide la latencia de las peticiones por <i>endpoint</i>.
+   *
+   * @return un {@link FiltroLatencias} configurado con {@code request-latency.*}.
+   */
+  @Bean
+  public FiltroLatencias filtroLatencias() {
+    return new FiltroLatencias(_properties.getRequestLatency().getSlowThreshold());
+  }
+
+  /**
+   * Registra el {@link FiltroLatencias} antes que cualquier otro filtro, para que su medida incluya
+   * la seguridad.
+   *
+   * @param filtro a registrar.
+   * @return el registro del filtro.
+   */
+  @Bean
+  @SuppressWarnings("static-method")
+  public FilterRegistrationBean<FiltroLatencias> filtroLatenciasRegistration(
+      final FiltroLatencias filtro) {
+    final FilterRegistrationBean<FiltroLatencias> registration =
+        new FilterRegistrationBean<>(filtro);
+    registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+    return registration;
+  }
+
+  /**
+   * {@code Bean} del conversor JSON de las respuestas, que mide el tiempo de serializarlas.
+   *
+   * @param objectMapper configurado con {@link #jacksonBuilder()}.
+   * @return un {@link ConversorJson} con {@code objectMapper}.
+   */
+  @Bean
+  @SuppressWarnings("static-method")
+  public MappingJackson2HttpMessageConverter mappingJackson2HttpMessageConverter(
+      final ObjectMapper objectMapper) {
+    return new ConversorJson(objectMapper);
+  }
+
+  /**
+   * Planifica las tareas {@code @Scheduled} en el {@link #taskExecutor()}. Con
+   * {@code virtual-threads} activo, el cuerpo de cada ejecución se ejecuta en un hilo virtual del
+   * {@link #blockingExecutor()} mientras el hilo del planificador espera a que termine, para
+   * mantener los retrasos fijos y las medidas del planificador.
+   */
   @Override
   public void configureTasks(final ScheduledTaskRegistrar taskRegistrar) {
-    taskRegistrar.setScheduler(taskExecutor());
+    final ExecutorService blocking = blockingExecutor();
+    final ConcurrentTaskScheduler scheduler = (blocking == _virtualBlocking)
+        ? new DispatchingTaskScheduler(taskExecutor(), blocking)
+        : new ConcurrentTaskScheduler(taskExecutor());
+    // Los errores de las tareas @Scheduled se capturan aquí, antes de llegar al planificador
+    scheduler.setErrorHandler(error -> {
+      InstrumentedScheduledExecutor.recordCurrentTaskFail();
+      LOG.error("Error en tarea programada", error); //$NON-NLS-1$
+    });
+    taskRegistrar.setTaskScheduler(scheduler);
+  }
+
+  @Override
+  public Executor getAsyncExecutor() {
+    return blockingExecutor();
+  }
+
+  @Override
+  public AsyncUncaughtExceptionHandler getAsyncUncaughtExceptionHandler() {
+    return (error, method, params) -> LOG.error("Error en tarea asíncrona {}", method, error); //$NON-NLS-1$
   }
 
+  /**
+   * {@code Bean} del planificador de las tareas periódicas y las {@code @Scheduled}, que también
+   * acceden a base de datos. Sus hilos son siempre de plataforma; con {@code virtual-threads}
+   * activo, el cuerpo de las tareas {@code @Scheduled} se ejecuta en el {@link #blockingExecutor()}
+   * (ver {@link #configureTasks(ScheduledTaskRegistrar)}).
+   *
+   * @return un {@link InstrumentedScheduledExecutor} configurado con {@code scheduler.io.*}.
+   */
+  @Bean(destroyMethod = "shutdown")
+  public InstrumentedScheduledExecutor taskExecutor() {
+    final ApplicationProperties.Pool io = _properties.getScheduler().getIo();
+    return new InstrumentedScheduledExecutor(io.getName(), io.getThreadNamePrefix(),
+        io.getPoolSize(), io.getMaxPoolSize());
+  }
+
+  /**
+   * {@code Bean} del ejecutor de las tareas que esperan E/S (lectura de ficheros, carga de índices,
+   * métodos {@code @Async}...). Con {@code virtual-threads} activo cada tarea se ejecuta en un hilo
+   * virtual nuevo, de modo que las esperas no ocupan hilos de plataforma ni hay un número máximo
+   * de hilos; si no, se ejecutan en el {@link #taskExecutor()}.
+   * <p>
+   * No se cierra como {@code Bean}: la vista del {@link #taskExecutor()} no es dueña del
+   * planificador, que se cierra con su propio {@code Bean} después de las tareas que lo usan, y el
+   * ejecutor de hilos virtuales se cierra en {@link #cerrarHilosVirtuales()}.
+   *
+   * @return un {@link ExecutorService} que no se puede reconfigurar.
+   */
+  @Bean(destroyMethod = "")
+  public ExecutorService blockingExecutor() {
+    final String prefix = _properties.getScheduler().getIo().getThreadNamePrefix();
+    final Optional<ExecutorService> virtual =
+        virtualThreads(prefix, VirtualThreads::newThreadPerTaskExecutor);
+    _virtualBlocking = virtual.orElse(null);
+    return virtual.orElseGet(() -> Executors.unconfigurableExecutorService(taskExecutor()));
+  }
+
+  /**
+   * Cierra el {@link #blockingExecutor()} de hilos virtuales, si se ha creado. Spring destruye
+   * esta configuración después de los {@code Bean}s que crea, así que ya no hay tareas que lo usen.
+   */
+  @PreDestroy
+  public void cerrarHilosVirtuales() {
+    final ExecutorService virtual = _virtualBlocking;
+    if (virtual != null) {
+      virtual.shutdown();
+    }
+  }
+
+  /**
+   * {@code Bean} del planificador para tareas de cálculo.
+   *
+   * @return un {@link InstrumentedScheduledExecutor} configurado con {@code scheduler.cpu.*}.
+   */
+  @Bean(destroyMethod = "shutdown")
+  public InstrumentedScheduledExecutor cpuExecutor() {
+    final ApplicationProperties.Pool cpu = _properties.getScheduler().getCpu();
+    return new InstrumentedScheduledExecutor(cpu.getName(), cpu.getThreadNamePrefix(),
+        cpu.getPoolSize(), cpu.getMaxPoolSize());
+  }
+
+  /**
+   * {@code Bean} para el reparto de solicitudes.
+   *
+   * @return un {@link RepartoSolicitudes} que ejecuta sus trabajadores en el
+   *         {@link #cpuExecutor()}, con un trabajador por hilo.
+   */
   @Bean
-  @SuppressWarnings({"static-method", "javadoc"})
-  public Object taskExecutor() {
-    return Executors.newScheduledThreadPool(14);
+  public RepartoSolicitudes repartoSolicitudes() {
+    final InstrumentedScheduledExecutor executor = cpuExecutor();
+    return new RepartoSolicitudes(executor, executor.getCorePoolSize());
   }
 
+  /**
+   * {@code Bean} para la importación masiva de usuarios. Los ficheros se leen en el
+   * {@link #blockingExecutor()} y se validan en el {@link #cpuExecutor()}, con hasta dos lotes en
+   * vuelo por hilo de cálculo.
+   *
+   * @param usuarios repositorio de {@code Usuario}s.
+   * @param checkpoints repositorio de puntos de control.
+   * @param transactionManager de la aplicación.
+   * @return un {@link ImportacionUsuarios}.
+   */
+  @Bean
+  public ImportacionUsuarios importacionUsuarios(final UsuarioRepository usuarios,
+      final CheckpointRepository checkpoints,
+      final PlatformTransactionManager transactionManager) {
+    final InstrumentedScheduledExecutor cpu = cpuExecutor();
+    return new ImportacionUsuarios(usuarios, checkpoints, transactionManager, blockingExecutor(),
+        cpu, 2 * cpu.getCorePoolSize());
+  }
+
+  /**
+   * {@code Bean} para las altas y modificaciones de usuarios en lotes, que se validan en el
+   * {@link #cpuExecutor()} con una parte por hilo.
+   *
+   * @param usuarios repositorio de {@code Usuario}s.
+   * @param transactionManager de la aplicación.
+   * @return un {@link LoteUsuarios} configurado con {@code usuario-bulk.*}.
+   */
+  @Bean
+  public LoteUsuarios loteUsuarios(final UsuarioRepository usuarios,
+      final PlatformTransactionManager transactionManager) {
+    final ApplicationProperties.Bulk bulk = _properties.getUsuarioBulk();
+    final InstrumentedScheduledExecutor cpu = cpuExecutor();
+    return new LoteUsuarios(usuarios, transactionManager, cpu, cpu.getCorePoolSize(),
+        bulk.getTransactionSize(), bulk.getMaxItems());
+  }
+
+  /**
+   * {@code Bean} para la exportación de usuarios en NDJSON.
+   *
+   * @param usuarios repositorio de {@code Usuario}s.
+   * @return un {@link ExportacionUsuarios}.
+   */
+  @Bean
+  @SuppressWarnings("static-method")
+  public ExportacionUsuarios exportacionUsuarios(final UsuarioRepository usuarios) {
+    return new ExportacionUsuarios(usuarios);
+  }
+
+  /**
+   * {@code Bean} de la caché de lectura de usuarios, invalidada con cada {@code UsuarioModificado}.
+   *
+   * @param usuarios repositorio de {@code Usuario}s.
+   * @return una {@link UsuarioCache} configurada con {@code usuario-cache.*}.
+   */
+  @Bean
+  public UsuarioCache usuarioCache(final UsuarioRepository usuarios) {
+    final ApplicationProperties.Cache cache = _properties.getUsuarioCache();
+    return new UsuarioCache(usuarios, cache.getMaximumSize(), cache.getExpireAfterWrite());
+  }
+
+  /**
+   * {@code Bean} de la escritura diferida de la última visita de los usuarios, que se escribe en
+   * el {@link #taskExecutor()}. Al cerrar la aplicación escribe las visitas pendientes.
+   *
+   * @param usuarios repositorio de {@code Usuario}s.
+   * @param cache de {@code Usuario}s a invalidar tras cada escritura.
+   * @return un {@link UltimasVisitas} configurado con {@code usuario-last-visit.*}.
+   */
+  @Bean(destroyMethod = "close")
+  public UltimasVisitas ultimasVisitas(final UsuarioRepository usuarios,
+      final UsuarioCache cache) {
+    final ApplicationProperties.LastVisit lastVisit = _properties.getUsuarioLastVisit();
+    return new UltimasVisitas(usuarios, cache, taskExecutor(), lastVisit.getFlushInterval(),
+        lastVisit.getMaxPending());
+  }
+
+  /**
+   * {@code Bean} del índice de búsqueda de usuarios por nombre, que se carga al arrancar en el
+   * {@link #blockingExecutor()}.
+   *
+   * @param usuarios repositorio de {@code Usuario}s.
+   * @return un {@link IndiceNombres}.
+   */
+  @Bean
+  public IndiceNombres indiceNombres(final UsuarioRepository usuarios) {
+    return new IndiceNombres(usuarios, blockingExecutor());
+  }
+
+  /**
+   * {@code Bean} del diario de auditoría de las operaciones CRUD sobre usuarios. Se vuelca a disco
+   * al cerrar la aplicación.
+   *
+   * @return un {@link DiarioCRUD} configurado con {@code audit-journal.*}.
+   * @throws IOException si no se puede abrir el diario.
+   */
+  @Bean(destroyMethod = "close")
+  public DiarioCRUD diarioCRUD() throws IOException {
+    final ApplicationProperties.Journal journal = _properties.getAuditJournal();
+    return new DiarioCRUD(Paths.get(journal.getDirectory()), journal.getSegmentSize());
+  }
+
+  /**
+   * {@code Bean} de las instantáneas de la proyección del diario de auditoría, que se reproduce
+   * con una partición por hilo del {@link #cpuExecutor()}.
+   *
+   * @param diario de auditoría.
+   * @return un {@link InstantaneasCRUD} configurado con {@code audit-journal.*}.
+   * @throws IOException si no se puede crear el directorio de las instantáneas.
+   */
+  @Bean
+  public InstantaneasCRUD instantaneasCRUD(final DiarioCRUD diario) throws IOException {
+    final ApplicationProperties.Journal journal = _properties.getAuditJournal();
+    final InstrumentedScheduledExecutor cpu = cpuExecutor();
+    return new InstantaneasCRUD(diario, Paths.get(journal.getSnapshotDirectory()), cpu,
+        cpu.getCorePoolSize(), journal.getSnapshotsToKeep());
+  }
+
+  /**
+   * {@code Bean} del índice de códigos postales para normalizar direcciones. Sólo se crea si se ha
+   * configurado el fichero de referencia, y el índice se recompila cuando este cambia.
+   *
+   * @return un {@link CodigosPostales} configurado con {@code postal-codes.*}.
+   * @throws IOException si no se puede leer la referencia o el índice.
+   */
+  @Bean
+  @ConditionalOnProperty("postal-codes.source")
+  public CodigosPostales codigosPostales() throws IOException {
+    final ApplicationProperties.PostalCodes postalCodes = _properties.getPostalCodes();
+    return CodigosPostales.abrir(Paths.get(postalCodes.getSource()),
+        Paths.get(postalCodes.getIndex()));
+  }
+
+  /**
+   * {@code Bean} que, con {@code virtual-threads} activo, atiende cada petición HTTP de Tomcat en
+   * un hilo virtual nuevo en lugar de en su <i>pool</i> de hilos de plataforma. Tomcat sólo cierra
+   * los ejecutores que crea él, así que este se cierra al parar el conector.
+   *
+   * @return un {@link WebServerFactoryCustomizer} para Tomcat.
+   */
+  @Bean
+  public WebServerFactoryCustomizer<TomcatServletWebServerFactory> virtualThreadsCustomizer() {
+    return factory -> virtualThreads("http", VirtualThreads::newThreadPerTaskExecutor) //$NON-NLS-1$
+        .ifPresent(executor -> factory.addConnectorCustomizers(connector -> {
+          final ProtocolHandler handler = connector.getProtocolHandler();
+          if (handler instanceof AbstractProtocol) {
+            ((AbstractProtocol<?>) handler).setExecutor(executor);
+            connector.addLifecycleListener(event -> {
+              if (Lifecycle.AFTER_STOP_EVENT.equals(event.getType())) {
+                executor.shutdown();
+              }
+            });
+          } else {
+            executor.shutdown();
+          }
+        }));
+  }
+
+  /**
+   * @param prefix del nombre de los hilos.
+   * @param source que crea el objeto basado en hilos virtuales, vacío si no están soportados.
+   * @return el objeto creado por {@code source} si se han activado los hilos virtuales y la JVM
+   *         los soporta; vacío para seguir con hilos de plataforma.
+   */
+  private <T> Optional<T> virtualThreads(final String prefix,
+      final Function<String, Optional<T>> source) {
+    if (!_properties.isVirtualThreads()) {
+      return Optional.empty();
+    }
+    final Optional<T> result = source.apply(prefix);
+    if (result.isPresent()) {
+      LOG.info("Hilos virtuales activos para {}", prefix); //$NON-NLS-1$
+    } else {
+      LOG.warn("La JVM no soporta hilos virtuales, {} usará hilos de plataforma", prefix); //$NON-NLS-1$
+    }
+    return result;
+  }
+
+  /**
+   * @param properties de la aplicación.
+   */
+  @Inject
+  public ApplicationConfiguration(@Nonnull final ApplicationProperties properties) {
+    _properties = checkNotNull(properties);
+  }
+
+  private static final Logger LOG = LoggerFactory.getLogger(ApplicationConfiguration.class);
+
+  private final ApplicationProperties _properties;
+  /** {@link #blockingExecutor()} si es de hilos virtuales */
+  private volatile ExecutorService _virtualBlocking;
 }
@@ -3,6 +3,8 @@
  */
 package es.prueba.jorge.server.config;
 
+import java.time.Duration;
+
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
@@ -14,5 +16,564 @@ import org.springframework.context.annotation.Configuration;
 @Configuration
 @ConfigurationProperties()
 public class ApplicationProperties {
-  // Nothing to declare
+  /**
+   * @return las propiedades de los planificadores de tareas ({@code scheduler.*}).
+   */
+  public Scheduler getScheduler() {
+    return scheduler;
+  }
+
+  /**
+   * @return {@code true} si se ha activado la ejecución en hilos virtuales
+   *         ({@code virtual-threads}). Sólo tiene efecto en JVM que los soporten.
+   */
+  public boolean isVirtualThreads() {
+    return virtualThreads;
+  }
+
+  /**
+   * @param virtualThreads si se ejecutan las peticiones y las tareas de E/S en hilos virtuales.
+   */
+  public void setVirtualThreads(final boolean virtualThreads) {
+    this.virtualThreads = virtualThreads;
+  }
+
+  /**
+   * @return las propiedades de la caché de {@code Usuario}s ({@code usuario-cache.*}).
+   */
+  public Cache getUsuarioCache() {
+    return usuarioCache;
+  }
+
+  /**
+   * @return las propiedades del diario de auditoría ({@code audit-journal.*}).
+   */
+  public Journal getAuditJournal() {
+    return auditJournal;
+  }
+
+  /**
+   * @return las propiedades del índice de códigos postales ({@code postal-codes.*}).
+   */
+  public PostalCodes getPostalCodes() {
+    return postalCodes;
+  }
+
+  /**
+   * @return las propiedades de los <i>tokens</i> de acceso ({@code auth-token.*}).
+   */
+  public AuthToken getAuthToken() {
+    return authToken;
+  }
+
+  /**
+   * @return las propiedades del administrador inicial ({@code auth-admin.*}).
+   */
+  public Admin getAuthAdmin() {
+    return authAdmin;
+  }
+
+  /**
+   * @return las propiedades de la exposición de métricas ({@code metrics.*}).
+   */
+  public Metrics getMetrics() {
+    return metrics;
+  }
+
+  /**
+   * @return las propiedades de las escrituras de {@code Usuario}s en lotes
+   *         ({@code usuario-bulk.*}).
+   */
+  public Bulk getUsuarioBulk() {
+    return usuarioBulk;
+  }
+
+  /**
+   * @return las propiedades de la escritura diferida de la última visita de los {@code Usuario}s
+   *         ({@code usuario-last-visit.*}).
+   */
+  public LastVisit getUsuarioLastVisit() {
+    return usuarioLastVisit;
+  }
+
+  /**
+   * @return las propiedades de la medida de latencia de las peticiones
+   *         ({@code request-latency.*}).
+   */
+  public RequestLatency getRequestLatency() {
+    return requestLatency;
+  }
+
+  private final Scheduler scheduler = new Scheduler();
+  private boolean virtualThreads;
+  private final Cache usuarioCache = new Cache(100_000, Duration.ofMinutes(10));
+  private final Journal auditJournal = new Journal();
+  private final PostalCodes postalCodes = new PostalCodes();
+  private final AuthToken authToken = new AuthToken();
+  private final Admin authAdmin = new Admin();
+  private final Metrics metrics = new Metrics();
+  private final Bulk usuarioBulk = new Bulk();
+  private final RequestLatency requestLatency = new RequestLatency();
+  private final LastVisit usuarioLastVisit = new LastVisit();
+
+  /**
+   * Propiedades de la escritura diferida de la última visita.
+   */
+  public static class LastVisit {
+    /**
+     * @return intervalo entre escrituras de las visitas pendientes.
+     */
+    public Duration getFlushInterval() {
+      return flushInterval;
+    }
+
+    /**
+     * @param flushInterval intervalo entre escrituras de las visitas pendientes.
+     */
+    public void setFlushInterval(final Duration flushInterval) {
+      this.flushInterval = flushInterval;
+    }
+
+    /**
+     * @return número de {@code Usuario}s con visitas pendientes a partir del cual se escriben sin
+     *         esperar al intervalo.
+     */
+    public int getMaxPending() {
+      return maxPending;
+    }
+
+    /**
+     * @param maxPending número de {@code Usuario}s con visitas pendientes a partir del cual se
+     *        escriben sin esperar al intervalo.
+     */
+    public void setMaxPending(final int maxPending) {
+      this.maxPending = maxPending;
+    }
+
+    private Duration flushInterval = Duration.ofSeconds(1);
+    private int maxPending = 10_000;
+  }
+
+  /**
+   * Propiedades de la medida de latencia de las peticiones.
+   */
+  public static class RequestLatency {
+    /**
+     * @return latencia a partir de la cual una petición se registra como lenta.
+     */
+    public Duration getSlowThreshold() {
+      return slowThreshold;
+    }
+
+    /**
+     * @param slowThreshold latencia a partir de la cual una petición se registra como lenta.
+     */
+    public void setSlowThreshold(final Duration slowThreshold) {
+      this.slowThreshold = slowThreshold;
+    }
+
+    private Duration slowThreshold = Duration.ofSeconds(1);
+  }
+
+  /**
+   * Propiedades de las escrituras en lotes.
+   */
+  public static class Bulk {
+    /**
+     * @return número máximo de elementos de un lote.
+     */
+    public int getMaxItems() {
+      return maxItems;
+    }
+
+    /**
+     * @param maxItems número máximo de elementos de un lote.
+     */
+    public void setMaxItems(final int maxItems) {
+      this.maxItems = maxItems;
+    }
+
+    /**
+     * @return número de elementos por transacción, {@code 0} para una transacción por lote.
+     */
+    public int getTransactionSize() {
+      return transactionSize;
+    }
+
+    /**
+     * @param transactionSize número de elementos por transacción, {@code 0} para una transacción
+     *        por lote.
+     */
+    public void setTransactionSize(final int transactionSize) {
+      this.transactionSize = transactionSize;
+    }
+
+    private int maxItems = 1000;
+    private int transactionSize;
+  }
+
+  /**
+   * Propiedades de los <i>tokens</i> de acceso.
+   */
+  public static class AuthToken {
+    /**
+     * @return clave con la que se firman los <i>tokens</i>, en Base64.
+     */
+    public String getSecret() {
+      return secret;
+    }
+
+    /**
+     * @param secret clave con la que se firman los <i>tokens</i>, en Base64.
+     */
+    public void setSecret(final String secret) {
+      this.secret = secret;
+    }
+
+    /**
+     * @return validez de cada <i>token</i> desde que se emite.
+     */
+    public Duration getValidity() {
+      return validity;
+    }
+
+    /**
+     * @param validity validez de cada <i>token</i> desde que se emite.
+     */
+    public void setValidity(final Duration validity) {
+      this.validity = validity;
+    }
+
+    private String secret;
+    private Duration validity = Duration.ofMinutes(15);
+  }
+
+  /**
+   * Propiedades del administrador inicial, con el que dar claves al resto de {@code Usuario}s.
+   */
+  public static class Admin {
+    /**
+     * @return número del {@code UsuarioId} del administrador.
+     */
+    public int getUserId() {
+      return userId;
+    }
+
+    /**
+     * @param userId número del {@code UsuarioId} del administrador.
+     */
+    public void setUserId(final int userId) {
+      this.userId = userId;
+    }
+
+    /**
+     * @return clave del administrador, ya codificada y con el prefijo de su algoritmo.
+     */
+    public String getPassword() {
+      return password;
+    }
+
+    /**
+     * @param password clave del administrador, ya codificada y con el prefijo de su algoritmo.
+     */
+    public void setPassword(final String password) {
+      this.password = password;
+    }
+
+    /**
+     * @return email con el que dar de alta al administrador si no existe.
+     */
+    public String getEmail() {
+      return email;
+    }
+
+    /**
+     * @param email con el que dar de alta al administrador si no existe.
+     */
+    public void setEmail(final String email) {
+      this.email = email;
+    }
+
+    /**
+     * @return teléfono con el que dar de alta al administrador si no existe.
+     */
+    public String getTelephone() {
+      return telephone;
+    }
+
+    /**
+     * @param telephone teléfono con el que dar de alta al administrador si no existe.
+     */
+    public void setTelephone(final String telephone) {
+      this.telephone = telephone;
+    }
+
+    /** Fuera de la secuencia de {@code UsuarioId}s, que empieza en 1 */
+    private int userId;
+    private String password;
+    private String email;
+    private String telephone;
+  }
+
+  /**
+   * Propiedades de la exposición de métricas.
+   */
+  public static class Metrics {
+    /**
+     * @return <i>token</i> fijo con el que los recolectores leen {@code GET /metrics}, o
+     *         {@code null} si sólo lo pueden leer los administradores.
+     */
+    public String getScrapeToken() {
+      return scrapeToken;
+    }
+
+    /**
+     * @param scrapeToken <i>token</i> fijo con el que los recolectores leen {@code GET /metrics}.
+     */
+    public void setScrapeToken(final String scrapeToken) {
+      this.scrapeToken = scrapeToken;
+    }
+
+    private String scrapeToken;
+  }
+
+  /**
+   * Propiedades de un diario en disco.
+   */
+  public static class Journal {
+    /**
+     * @return directorio de los segmentos del diario.
+     */
+    public String getDirectory() {
+      return directory;
+    }
+
+    /**
+     * @param directory directorio de los segmentos del diario.
+     */
+    public void setDirectory(final String directory) {
+      this.directory = directory;
+    }
+
+    /**
+     * @return bytes de cada segmento.
+     */
+    public int getSegmentSize() {
+      return segmentSize;
+    }
+
+    /**
+     * @param segmentSize bytes de cada segmento.
+     */
+    public void setSegmentSize(final int segmentSize) {
+      this.segmentSize = segmentSize;
+    }
+
+    /**
+     * @return directorio de las instantáneas de la proyección del diario.
+     */
+    public String getSnapshotDirectory() {
+      return snapshotDirectory;
+    }
+
+    /**
+     * @param snapshotDirectory directorio de las instantáneas de la proyección del diario.
+     */
+    public void setSnapshotDirectory(final String snapshotDirectory) {
+      this.snapshotDirectory = snapshotDirectory;
+    }
+
+    /**
+     * @return número de instantáneas a conservar.
+     */
+    public int getSnapshotsToKeep() {
+      return snapshotsToKeep;
+    }
+
+    /**
+     * @param snapshotsToKeep número de instantáneas a conservar.
+     */
+    public void setSnapshotsToKeep(final int snapshotsToKeep) {
+      this.snapshotsToKeep = snapshotsToKeep;
+    }
+
+    private String directory = "diario"; //$NON-NLS-1$
+    private int segmentSize = 64 << 20;
+    private String snapshotDirectory = "diario/instantaneas"; //$NON-NLS-1$
+    private int snapshotsToKeep = 3;
+  }
+
+  /**
+   * Propiedades del índice de códigos postales.
+   */
+  public static class PostalCodes {
+    /**
+     * @return fichero de referencia con las poblaciones y provincias de cada código postal.
+     */
+    public String getSource() {
+      return source;
+    }
+
+    /**
+     * @param source fichero de referencia con las poblaciones y provincias de cada código postal.
+     */
+    public void setSource(final String source) {
+      this.source = source;
+    }
+
+    /**
+     * @return fichero del índice compilado a partir de {@link #getSource()}.
+     */
+    public String getIndex() {
+      return index;
+    }
+
+    /**
+     * @param index fichero del índice compilado a partir de {@link #getSource()}.
+     */
+    public void setIndex(final String index) {
+      this.index = index;
+    }
+
+    private String source;
+    private String index = "codigos-postales.idx"; //$NON-NLS-1$
+  }
+
+  /**
+   * Propiedades de una caché.
+   */
+  public static class Cache {
+    /**
+     * @return número máximo de entradas.
+     */
+    public long getMaximumSize() {
+      return maximumSize;
+    }
+
+    /**
+     * @param maximumSize número máximo de entradas.
+     */
+    public void setMaximumSize(final long maximumSize) {
+      this.maximumSize = maximumSize;
+    }
+
+    /**
+     * @return tiempo que se conserva cada entrada desde que se carga.
+     */
+    public Duration getExpireAfterWrite() {
+      return expireAfterWrite;
+    }
+
+    /**
+     * @param expireAfterWrite tiempo que se conserva cada entrada desde que se carga.
+     */
+    public void setExpireAfterWrite(final Duration expireAfterWrite) {
+      this.expireAfterWrite = expireAfterWrite;
+    }
+
+    Cache(final long maximumSize, final Duration expireAfterWrite) {
+      this.maximumSize = maximumSize;
+      this.expireAfterWrite = expireAfterWrite;
+    }
+
+    private long maximumSize;
+    private Duration expireAfterWrite;
+  }
+
+  /**
+   * Propiedades de los planificadores de tareas.
+   */
+  public static class Scheduler {
+    /**
+     * @return el <i>pool</i> para tareas de cálculo ({@code scheduler.cpu.*}).
+     */
+    public Pool getCpu() {
+      return cpu;
+    }
+
+    /**
+     * @return el <i>pool</i> para tareas que esperan E/S, como el acceso a base de datos, y para
+     *         las tareas {@code @Scheduled} ({@code scheduler.io.*}).
+     */
+    public Pool getIo() {
+      return io;
+    }
+
+    private final Pool cpu = new Pool("cpu", Runtime.getRuntime().availableProcessors(), //$NON-NLS-1$
+        4 * Runtime.getRuntime().availableProcessors());
+    private final Pool io = new Pool("io", 14, 256); //$NON-NLS-1$
+  }
+
+  /**
+   * Propiedades de un <i>pool</i> de hilos.
+   */
+  public static class Pool {
+    /**
+     * @return nombre del planificador, con el que se consulta y modifica en {@code /scheduler}.
+     */
+    public String getName() {
+      return name;
+    }
+
+    /**
+     * @param name nombre del planificador.
+     */
+    public void setName(final String name) {
+      this.name = name;
+    }
+
+    /**
+     * @return prefijo del nombre de los hilos.
+     */
+    public String getThreadNamePrefix() {
+      return threadNamePrefix;
+    }
+
+    /**
+     * @param threadNamePrefix prefijo del nombre de los hilos.
+     */
+    public void setThreadNamePrefix(final String threadNamePrefix) {
+      this.threadNamePrefix = threadNamePrefix;
+    }
+
+    /**
+     * @return número de hilos inicial.
+     */
+    public int getPoolSize() {
+      return poolSize;
+    }
+
+    /**
+     * @param poolSize número de hilos inicial.
+     */
+    public void setPoolSize(final int poolSize) {
+      this.poolSize = poolSize;
+    }
+
+    /**
+     * @return número máximo de hilos al modificarlo en caliente.
+     */
+    public int getMaxPoolSize() {
+      return maxPoolSize;
+    }
+
+    /**
+     * @param maxPoolSize número máximo de hilos al modificarlo en caliente.
+     */
+    public void setMaxPoolSize(final int maxPoolSize) {
+      this.maxPoolSize = maxPoolSize;
+    }
+
+    Pool(final String name, final int poolSize, final int maxPoolSize) {
+      this.name = name;
+      this.threadNamePrefix = name;
+      this.poolSize = poolSize;
+      this.maxPoolSize = maxPoolSize;
+    }
+
+    private String name;
+    private String threadNamePrefix;
+    private int poolSize;
+    private int maxPoolSize;
+  }
 }
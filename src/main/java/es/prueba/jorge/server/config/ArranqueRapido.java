@@ -0,0 +1,120 @@
+package es.prueba.jorge.server.config;
+
+import java.lang.reflect.Method;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.AnnotatedBeanDefinition;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.beans.factory.support.AbstractBeanDefinition;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.core.type.AnnotatedTypeMetadata;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * Perfil {@value #PERFIL} de arranque rápido, pensado para despliegues escalonados y
+ * autoescalado. Activar con {@code --spring.profiles.active=arranque-rapido} (y el resto de
+ * perfiles que hagan falta).
+ * <p>
+ * Con el perfil, los <i>beans</i> <i>singleton</i> se crean la primera vez que se usan en lugar de
+ * al arrancar, como {@code spring.main.lazy-initialization} de versiones posteriores de Spring
+ * Boot. Los que Spring Boot necesita para levantar el servidor (filtros, {@code DispatcherServlet},
+ * seguridad...) se siguen creando al arrancar porque los pide él, y el resto, como el
+ * {@code EntityManagerFactory} de JPA o Spring Data REST, con la primera petición que los necesite,
+ * que tarda más a cambio. Se crean al arrancar, por ser críticos:
+ * <ul>
+ * <li>los que tienen métodos {@link Scheduled}, que de otro modo no se programarían;
+ * <li>los {@link SmartInitializingSingleton};
+ * <li>los anotados explícitamente con {@link Lazy @Lazy(false)}.
+ * </ul>
+ * {@code application-arranque-rapido.properties} desactiva además lo que sólo cuesta al arrancar.
+ * El índice de componentes ({@code META-INF/spring.components}) se genera al compilar y se usa en
+ * todos los perfiles; y el archivo de clases compartidas (AppCDS) se genera y se mide con las
+ * tareas {@code arranqueCds} y {@code arranqueBenchmark} de Gradle.
+ *
+ * @author Jorge García Villanueva &lt;Jorgegv95@gmail.com&gt;
+ */
+@Configuration
+@Profile(ArranqueRapido.PERFIL)
+public class ArranqueRapido {
+  /** Nombre del perfil */
+  public static final String PERFIL = "arranque-rapido"; //$NON-NLS-1$
+
+  /**
+   * {@code Bean} que marca como diferidos los <i>beans</i> no críticos. Es estático para que se
+   * registre antes de crear esta configuración.
+   *
+   * @return un {@link BeanFactoryPostProcessor} que difiere la creación de los <i>beans</i>.
+   */
+  @Bean
+  public static BeanFactoryPostProcessor inicializacionDiferida() {
+    return ArranqueRapido::diferir;
+  }
+
+  private static void diferir(final ConfigurableListableBeanFactory beanFactory) {
+    int diferidos = 0;
+    for (final String nombre : beanFactory.getBeanDefinitionNames()) {
+      final BeanDefinition definicion = beanFactory.getBeanDefinition(nombre);
+      if ((definicion instanceof AbstractBeanDefinition) && definicion.isSingleton()
+          && !definicion.isAbstract() && !definicion.isLazyInit()
+          && (definicion.getRole() == BeanDefinition.ROLE_APPLICATION)
+          && !lazyExplicito(definicion) && !critico(beanFactory, definicion)) {
+        definicion.setLazyInit(true);
+        diferidos++;
+      }
+    }
+    LOG.info("Arranque rápido: {} beans diferidos", Integer.valueOf(diferidos)); //$NON-NLS-1$
+  }
+
+  /** Si el bean, o su método factoría, lleva un {@link Lazy} que hay que respetar */
+  private static boolean lazyExplicito(final BeanDefinition definicion) {
+    if (!(definicion instanceof AnnotatedBeanDefinition)) {
+      return false;
+    }
+    final AnnotatedBeanDefinition anotada = (AnnotatedBeanDefinition) definicion;
+    final AnnotatedTypeMetadata metadatos = (anotada.getFactoryMethodMetadata() != null)
+        ? anotada.getFactoryMethodMetadata() : anotada.getMetadata();
+    return metadatos.isAnnotated(Lazy.class.getName());
+  }
+
+  /**
+   * Si el bean es crítico por su tipo. El tipo se obtiene de la definición, sin crear nada; si no
+   * se puede determinar, se considera crítico.
+   */
+  private static boolean critico(final ConfigurableListableBeanFactory beanFactory,
+      final BeanDefinition definicion) {
+    final String tipo = (definicion instanceof AnnotatedBeanDefinition)
+        && (((AnnotatedBeanDefinition) definicion).getFactoryMethodMetadata() != null)
+            ? ((AnnotatedBeanDefinition) definicion).getFactoryMethodMetadata()
+                .getReturnTypeName()
+            : definicion.getBeanClassName();
+    if (tipo == null) {
+      return true;
+    }
+    try {
+      final Class<?> clase = ClassUtils.forName(tipo, beanFactory.getBeanClassLoader());
+      if (SmartInitializingSingleton.class.isAssignableFrom(clase)) {
+        return true;
+      }
+      for (final Method metodo : ReflectionUtils.getAllDeclaredMethods(clase)) {
+        if (AnnotatedElementUtils.hasAnnotation(metodo, Scheduled.class)) {
+          return true;
+        }
+      }
+      return false;
+    } catch (final ClassNotFoundException | LinkageError e) {
+      return true;
+    }
+  }
+
+  private static final Logger LOG = LoggerFactory.getLogger(ArranqueRapido.class);
+}
@@ -0,0 +1,189 @@
+package es.prueba.jorge.server.config;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Strings.isNullOrEmpty;
+
+import java.io.IOException;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.util.Base64;
+
+import javax.annotation.Nonnull;
+import javax.inject.Inject;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
+import org.springframework.security.config.annotation.web.configuration.WebSecurityConfigurerAdapter;
+import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.crypto.factory.PasswordEncoderFactories;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.web.authentication.AnonymousAuthenticationFilter;
+
+import es.prueba.jorge.model.Perfil;
+import es.prueba.jorge.model.UsuarioId;
+import es.prueba.jorge.server.auditoria.DiarioCRUD;
+import es.prueba.jorge.server.persistence.CredencialRepository;
+import es.prueba.jorge.server.persistence.UsuarioCache;
+import es.prueba.jorge.server.persistence.UsuarioRepository;
+import es.prueba.jorge.server.seguridad.AdministradorInicial;
+import es.prueba.jorge.server.seguridad.CredencialesUsuario;
+import es.prueba.jorge.server.seguridad.FiltroTokens;
+import es.prueba.jorge.server.seguridad.RevocacionTokens;
+import es.prueba.jorge.server.seguridad.TokensAcceso;
+
+/**
+ * Configuración de seguridad sin estado con <i>tokens</i> de acceso firmados.
+ * <p>
+ * Sólo {@code POST /auth/token} comprueba la clave de un {@code Usuario}, contra
+ * {@link CredencialesUsuario}, y emite un <i>token</i> con {@link TokensAcceso}. El resto de
+ * peticiones se autentican con ese <i>token</i> en {@link FiltroTokens}, sin sesión HTTP ni
+ * consultas al almacén de {@code Usuario}s.
+ * <p>
+ * Las operaciones de administración (el tamaño de los <i>pools</i>, las altas en lote, la
+ * exportación y las métricas) requieren el {@link Perfil#ADMINISTRADOR}, cuyo primer
+ * {@code Usuario} se configura con {@code auth-admin.*} (ver {@link AdministradorInicial}).
+ * {@code GET /metrics} lo pueden leer además los recolectores con el <i>token</i> fijo
+ * {@code metrics.scrape-token}.
+ *
+ * @author Jorge García Villanueva &lt;Jorgegv95@gmail.com&gt;
+ */
+@Configuration
+@EnableWebSecurity
+public class SecurityConfiguration extends WebSecurityConfigurerAdapter {
+  /**
+   * {@code Bean} del emisor de <i>tokens</i> de acceso. Sin {@code auth-token.secret} se firma con
+   * una clave aleatoria, y los <i>tokens</i> dejan de valer al reiniciar y no se aceptan en otras
+   * instancias.
+   *
+   * @return un {@link TokensAcceso} configurado con {@code auth-token.*}.
+   */
+  @Bean
+  public TokensAcceso tokensAcceso() {
+    final ApplicationProperties.AuthToken authToken = _properties.getAuthToken();
+    final byte[] clave;
+    if (isNullOrEmpty(authToken.getSecret())) {
+      LOG.warn("Sin auth-token.secret: los tokens se firman con una clave aleatoria"); //$NON-NLS-1$
+      clave = new byte[TokensAcceso.LONGITUD_CLAVE_MINIMA];
+      new SecureRandom().nextBytes(clave);
+    } else {
+      clave = Base64.getDecoder().decode(authToken.getSecret());
+    }
+    return new TokensAcceso(clave, authToken.getValidity(), Clock.systemUTC());
+  }
+
+  /**
+   * {@code Bean} de la lista de revocación de <i>tokens</i>, cargada con las bajas recientes del
+   * diario de auditoría.
+   *
+   * @return un {@link RevocacionTokens} configurado con {@code auth-token.validity}.
+   * @throws IOException si no se puede leer el diario.
+   */
+  @Bean
+  public RevocacionTokens revocacionTokens() throws IOException {
+    final RevocacionTokens revocacion =
+        new RevocacionTokens(_properties.getAuthToken().getValidity(), Clock.systemUTC());
+    revocacion.cargar(_diario);
+    return revocacion;
+  }
+
+  /**
+   * {@code Bean} con los datos de inicio de sesión de los {@code Usuario}s, que Spring Boot usa
+   * para autenticar con clave.
+   *
+   * @param usuarios caché de {@code Usuario}s.
+   * @param credenciales repositorio de las claves.
+   * @return un {@link CredencialesUsuario}.
+   */
+  @Bean
+  @SuppressWarnings("static-method")
+  public CredencialesUsuario credencialesUsuario(final UsuarioCache usuarios,
+      final CredencialRepository credenciales) {
+    return new CredencialesUsuario(usuarios, credenciales);
+  }
+
+  /**
+   * {@code Bean} del administrador inicial. Sólo se crea si se ha configurado su clave.
+   *
+   * @param usuarios repositorio de {@code Usuario}s.
+   * @param credenciales repositorio de las claves.
+   * @return un {@link AdministradorInicial} configurado con {@code auth-admin.*}.
+   */
+  @Bean
+  @ConditionalOnProperty("auth-admin.password")
+  public AdministradorInicial administradorInicial(final UsuarioRepository usuarios,
+      final CredencialRepository credenciales) {
+    final ApplicationProperties.Admin admin = _properties.getAuthAdmin();
+    return new AdministradorInicial(usuarios, credenciales, new UsuarioId(admin.getUserId()),
+        admin.getPassword(), admin.getEmail(), admin.getTelephone());
+  }
+
+  /**
+   * {@code Bean} para codificar y comprobar claves. Las claves llevan el prefijo de su algoritmo
+   * y se codifican con BCrypt.
+   *
+   * @return un {@link PasswordEncoder} que delega según el prefijo.
+   */
+  @Bean
+  @SuppressWarnings("static-method")
+  public PasswordEncoder passwordEncoder() {
+    return PasswordEncoderFactories.createDelegatingPasswordEncoder();
+  }
+
+  /**
+   * {@code Bean} con el que autenticar la clave al emitir un <i>token</i>.
+   *
+   * @return el {@link AuthenticationManager} de {@link #credencialesUsuario}.
+   */
+  @Bean
+  @Override
+  public AuthenticationManager authenticationManagerBean() throws Exception {
+    return super.authenticationManagerBean();
+  }
+
+  @Override
+  @SuppressWarnings("nls")
+  protected void configure(final HttpSecurity http) throws Exception {
+    final String administrador = Perfil.ADMINISTRADOR.perfil();
+    http.cors().and().csrf().disable()
+        .sessionManagement().sessionCreationPolicy(SessionCreationPolicy.STATELESS).and()
+        .authorizeRequests().antMatchers(HttpMethod.POST, "/auth/token").permitAll()
+        .antMatchers(HttpMethod.PUT, "/scheduler/*/pool-size").hasRole(administrador)
+        .antMatchers(HttpMethod.POST, "/usuarios/lote").hasRole(administrador)
+        .antMatchers(HttpMethod.GET, FiltroTokens.METRICAS)
+        .hasAnyRole(administrador, FiltroTokens.ROL_METRICAS)
+        .antMatchers("/usuarios/export", "/latencias", "/cache/metrics", "/scheduler/metrics")
+        .hasRole(administrador)
+        .anyRequest().authenticated().and()
+        .exceptionHandling().authenticationEntryPoint((request, response, e) -> {
+          response.setHeader(HttpHeaders.WWW_AUTHENTICATE, "Bearer");
+          response.sendError(401);
+        }).and()
+        .addFilterBefore(new FiltroTokens(tokensAcceso(), revocacionTokens(),
+            _properties.getMetrics().getScrapeToken()),
+            AnonymousAuthenticationFilter.class);
+  }
+
+  /**
+   * @param properties de la aplicación.
+   * @param diario de auditoría, del que cargar las bajas recientes.
+   */
+  @Inject
+  public SecurityConfiguration(@Nonnull final ApplicationProperties properties,
+      @Nonnull final DiarioCRUD diario) {
+    _properties = checkNotNull(properties);
+    _diario = checkNotNull(diario);
+  }
+
+  private static final Logger LOG = LoggerFactory.getLogger(SecurityConfiguration.class);
+
+  private final ApplicationProperties _properties;
+  private final DiarioCRUD _diario;
+}
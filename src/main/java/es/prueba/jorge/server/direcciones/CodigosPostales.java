@@ -0,0 +1,413 @@
+package es.prueba.jorge.server.direcciones;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableList;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeSet;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+import javax.annotation.Nonnull;
+
+import es.prueba.jorge.model.Direccion;
+import es.prueba.jorge.server.busqueda.Plegado;
+import es.prueba.jorge.server.direcciones.DireccionNormalizada.Estado;
+
+/**
+ * Índice de referencia de códigos postales, con las poblaciones y la provincia de cada uno, para
+ * validar y normalizar {@link Direccion}es.
+ * <p>
+ * El índice se compila con {@link #compilar(Path, Path)} a partir de un fichero de referencia local
+ * en texto, con una línea {@code codigoPostal;poblacion;provincia} por población (por ejemplo, el
+ * callejero de Correos exportado a CSV), y se abre proyectado en memoria con {@link #abrir(Path)}:
+ * los códigos postales y los índices de sus nombres se consultan directamente en el fichero, fuera
+ * del <i>heap</i>, y sólo los nombres distintos se cargan como {@link String}s.
+ * <p>
+ * Al {@link #normalizar(Direccion) normalizar} una {@code Direccion} válida se sustituyen su
+ * población y provincia por las cadenas de referencia, compartidas por todas las direcciones del
+ * mismo lugar. Los nombres se comparan sin distinguir mayúsculas ni tildes (ver {@link Plegado}).
+ * Las direcciones cuya provincia o población no corresponde al código postal se marcan y se
+ * retornan sin modificar.
+ * <p>
+ * Es inmutable y seguro para su uso concurrente.
+ *
+ * @author Jorge García Villanueva &lt;Jorgegv95@gmail.com&gt;
+ */
+public final class CodigosPostales {
+  /** Separador de los campos del fichero de referencia */
+  public static final char SEPARADOR = ';';
+
+  /**
+   * Compila un fichero de referencia en un índice para {@link #abrir(Path)}. Las líneas vacías,
+   * las que empiezan por {@code #} y una primera línea de cabecera se ignoran, igual que las
+   * poblaciones repetidas.
+   *
+   * @param origen fichero de referencia en UTF-8.
+   * @param destino del índice; se sustituye de forma atómica si ya existe.
+   * @throws IOException si no se puede leer el origen o escribir el destino.
+   * @throws IllegalStateException si alguna línea no es válida o un código postal tiene más de una
+   *         provincia.
+   */
+  @SuppressWarnings("nls")
+  public static void compilar(@Nonnull final Path origen, @Nonnull final Path destino)
+      throws IOException {
+    checkNotNull(destino);
+    // Poblaciones por código postal, ordenadas, y provincia de cada código postal
+    final Map<Integer, TreeSet<String>> poblaciones = new HashMap<>();
+    final Map<Integer, String> provincias = new HashMap<>();
+    try (BufferedReader in = Files.newBufferedReader(checkNotNull(origen))) {
+      String linea;
+      int numero = 0;
+      while ((linea = in.readLine()) != null) {
+        numero++;
+        linea = linea.trim();
+        if (linea.isEmpty() || (linea.charAt(0) == '#')
+            || ((numero == 1) && !Character.isDigit(linea.charAt(0)))) {
+          continue;
+        }
+        final String[] campos = linea.split(String.valueOf(SEPARADOR), -1);
+        checkState(campos.length == 3, "%s:%s: se esperaban 3 campos", origen, numero);
+        final Integer codigo = codigoPostal(campos[0].trim(), origen, numero);
+        final String poblacion = campos[1].trim();
+        final String provincia = campos[2].trim();
+        checkState(!poblacion.isEmpty() && !provincia.isEmpty(),
+            "%s:%s: población y provincia son obligatorias", origen, numero);
+        final String anterior = provincias.putIfAbsent(codigo, provincia);
+        checkState((anterior == null) || anterior.equals(provincia),
+            "%s:%s: el código postal %s es de %s", origen, numero, codigo, anterior);
+        poblaciones.computeIfAbsent(codigo, clave -> new TreeSet<>()).add(poblacion);
+      }
+    }
+
+    final List<Integer> codigos = new ArrayList<>(poblaciones.keySet());
+    codigos.sort(Comparator.naturalOrder());
+    final Map<String, Integer> textos = new LinkedHashMap<>();
+    int entradas = 0;
+    for (final Integer codigo : codigos) {
+      textos.putIfAbsent(provincias.get(codigo), Integer.valueOf(textos.size()));
+      for (final String poblacion : poblaciones.get(codigo)) {
+        textos.putIfAbsent(poblacion, Integer.valueOf(textos.size()));
+        entradas++;
+      }
+    }
+    final byte[][] bytes = new byte[textos.size()][];
+    int totalBytes = 0;
+    for (final Map.Entry<String, Integer> texto : textos.entrySet()) {
+      bytes[texto.getValue().intValue()] = texto.getKey().getBytes(StandardCharsets.UTF_8);
+      totalBytes += bytes[texto.getValue().intValue()].length;
+    }
+
+    final Path temporal = destino.resolveSibling(destino.getFileName() + ".tmp");
+    final CRC32 crc = new CRC32();
+    try (FileOutputStream file = new FileOutputStream(temporal.toFile());
+        DataOutputStream out = new DataOutputStream(
+            new CheckedOutputStream(new BufferedOutputStream(file, BUFFER), crc))) {
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      out.writeInt(entradas);
+      out.writeInt(textos.size());
+      out.writeInt(totalBytes);
+      for (final Integer codigo : codigos) {
+        for (int i = 0; i < poblaciones.get(codigo).size(); i++) {
+          out.writeInt(codigo.intValue());
+        }
+      }
+      for (final Integer codigo : codigos) {
+        for (final String poblacion : poblaciones.get(codigo)) {
+          out.writeInt(textos.get(poblacion).intValue());
+        }
+      }
+      for (final Integer codigo : codigos) {
+        final int provincia = textos.get(provincias.get(codigo)).intValue();
+        for (int i = 0; i < poblaciones.get(codigo).size(); i++) {
+          out.writeInt(provincia);
+        }
+      }
+      int inicio = 0;
+      for (final byte[] texto : bytes) {
+        out.writeInt(inicio);
+        inicio += texto.length;
+      }
+      out.writeInt(inicio);
+      for (final byte[] texto : bytes) {
+        out.write(texto);
+      }
+      // El CRC se escribe fuera del flujo que lo calcula
+      out.flush();
+      final ByteBuffer valor = ByteBuffer.allocate(4).putInt(0, (int) crc.getValue());
+      file.write(valor.array());
+      file.getFD().sync();
+    }
+    Files.move(temporal, destino, StandardCopyOption.ATOMIC_MOVE,
+        StandardCopyOption.REPLACE_EXISTING);
+  }
+
+  /**
+   * Abre un índice compilado con {@link #compilar(Path, Path)}.
+   *
+   * @param fichero del índice.
+   * @return el índice, proyectado en memoria.
+   * @throws IOException si no se puede leer el fichero.
+   * @throws IllegalStateException si el fichero no es un índice válido.
+   */
+  @SuppressWarnings("nls")
+  public static CodigosPostales abrir(@Nonnull final Path fichero) throws IOException {
+    final MappedByteBuffer buffer;
+    try (FileChannel channel = FileChannel.open(checkNotNull(fichero), StandardOpenOption.READ)) {
+      checkState(channel.size() >= (CABECERA + 8), "%s no es un índice de códigos postales",
+          fichero);
+      buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    }
+    checkState((buffer.getInt(0) == MAGIC) && (buffer.getInt(4) == VERSION),
+        "%s no es un índice de códigos postales", fichero);
+    final int entradas = buffer.getInt(8);
+    final int textos = buffer.getInt(12);
+    final int bytes = buffer.getInt(16);
+    final long esperado = CABECERA + (12L * entradas) + (4L * (textos + 1)) + bytes + 4;
+    checkState(buffer.capacity() == esperado, "Tamaño del índice %s incorrecto", fichero);
+    final CRC32 crc = new CRC32();
+    final ByteBuffer contenido = buffer.duplicate();
+    contenido.limit(contenido.capacity() - 4);
+    crc.update(contenido);
+    checkState(buffer.getInt(buffer.capacity() - 4) == (int) crc.getValue(),
+        "CRC del índice %s incorrecto", fichero);
+    return new CodigosPostales(buffer, entradas, textos);
+  }
+
+  /**
+   * Abre el índice de un fichero de referencia, compilándolo antes si no existe o es anterior a
+   * la referencia.
+   *
+   * @param origen fichero de referencia, ver {@link #compilar(Path, Path)}.
+   * @param fichero del índice.
+   * @return el índice, proyectado en memoria.
+   * @throws IOException si no se puede leer la referencia o el índice.
+   * @throws IllegalStateException si la referencia o el índice no son válidos.
+   */
+  public static CodigosPostales abrir(@Nonnull final Path origen, @Nonnull final Path fichero)
+      throws IOException {
+    if (!Files.exists(fichero)
+        || Files.getLastModifiedTime(fichero).compareTo(Files.getLastModifiedTime(origen)) < 0) {
+      compilar(origen, fichero);
+    }
+    return abrir(fichero);
+  }
+
+  /**
+   * @return número de pares código postal y población del índice.
+   */
+  public int size() {
+    return _codigos.limit();
+  }
+
+  /**
+   * @param codigoPostal a consultar.
+   * @return la provincia de {@code codigoPostal}, o vacío si no está en el índice.
+   */
+  public Optional<String> provincia(final int codigoPostal) {
+    final int desde = primera(codigoPostal);
+    return (desde < 0) ? Optional.empty() : Optional.of(_textos[_provincias.get(desde)]);
+  }
+
+  /**
+   * @param codigoPostal a consultar.
+   * @return las poblaciones de {@code codigoPostal} en orden alfabético, vacío si no está en el
+   *         índice.
+   */
+  public List<String> poblaciones(final int codigoPostal) {
+    final ImmutableList.Builder<String> poblaciones = ImmutableList.builder();
+    final int desde = primera(codigoPostal);
+    if (desde >= 0) {
+      for (int i = desde; (i < _codigos.limit()) && (_codigos.get(i) == codigoPostal); i++) {
+        poblaciones.add(_textos[_poblaciones.get(i)]);
+      }
+    }
+    return poblaciones.build();
+  }
+
+  /**
+   * Valida una {@link Direccion} y, si es válida, sustituye su población y provincia por las de
+   * referencia.
+   *
+   * @param direccion a normalizar.
+   * @return la {@code Direccion} normalizada y el resultado de la validación.
+   */
+  public DireccionNormalizada normalizar(@Nonnull final Direccion direccion) {
+    final int codigoPostal = checkNotNull(direccion).codigoPostal();
+    final int desde = primera(codigoPostal);
+    if (desde < 0) {
+      return new DireccionNormalizada(direccion, Estado.CODIGO_POSTAL_DESCONOCIDO);
+    }
+    final int provincia = _provincias.get(desde);
+    if (!coincide(direccion.provincia(), provincia)) {
+      return new DireccionNormalizada(direccion, Estado.PROVINCIA_INCORRECTA);
+    }
+    for (int i = desde; (i < _codigos.limit()) && (_codigos.get(i) == codigoPostal); i++) {
+      final int poblacion = _poblaciones.get(i);
+      if (coincide(direccion.poblacion(), poblacion)) {
+        if ((direccion.poblacion() == _textos[poblacion])
+            && (direccion.provincia() == _textos[provincia])) {
+          return new DireccionNormalizada(direccion, Estado.VALIDA);
+        }
+        return new DireccionNormalizada(Direccion.builder().withDireccion(direccion.direccion())
+            .withCodigoPostal(codigoPostal).withPoblacion(_textos[poblacion])
+            .withProvincia(_textos[provincia]).build(), Estado.VALIDA);
+      }
+    }
+    return new DireccionNormalizada(direccion, Estado.POBLACION_INCORRECTA);
+  }
+
+  /**
+   * Normaliza un lote de {@link Direccion}es, ver {@link #normalizar(Direccion)}.
+   *
+   * @param direcciones a normalizar.
+   * @return el resultado de cada {@code Direccion}, en el mismo orden.
+   */
+  public List<DireccionNormalizada> normalizar(
+      @Nonnull final Collection<Direccion> direcciones) {
+    final List<DireccionNormalizada> normalizadas = new ArrayList<>(direcciones.size());
+    for (final Direccion direccion : direcciones) {
+      normalizadas.add(normalizar(direccion));
+    }
+    return normalizadas;
+  }
+
+  @SuppressWarnings("nls")
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this).add("entradas", size())
+        .add("textos", _textos.length).add("bytes", _buffer.capacity()).toString();
+  }
+
+  private CodigosPostales(final ByteBuffer buffer, final int entradas, final int textos) {
+    _buffer = buffer;
+    _codigos = vista(buffer, CABECERA, entradas);
+    _poblaciones = vista(buffer, CABECERA + (4 * entradas), entradas);
+    _provincias = vista(buffer, CABECERA + (8 * entradas), entradas);
+    final IntBuffer inicios = vista(buffer, CABECERA + (12 * entradas), textos + 1);
+    final int base = CABECERA + (12 * entradas) + (4 * (textos + 1));
+    _textos = new String[textos];
+    _claves = new String[textos];
+    final byte[] bytes = new byte[inicios.get(textos)];
+    final ByteBuffer origen = buffer.duplicate();
+    origen.position(base);
+    origen.get(bytes);
+    for (int i = 0; i < textos; i++) {
+      _textos[i] = new String(bytes, inicios.get(i), inicios.get(i + 1) - inicios.get(i),
+          StandardCharsets.UTF_8);
+      _claves[i] = String.join(" ", Plegado.palabras(_textos[i])); //$NON-NLS-1$
+    }
+  }
+
+  /** Posición de la primera entrada de {@code codigoPostal}, o -1 si no está en el índice */
+  private int primera(final int codigoPostal) {
+    int desde = 0;
+    int hasta = _codigos.limit();
+    while (desde < hasta) {
+      final int medio = (desde + hasta) >>> 1;
+      if (_codigos.get(medio) < codigoPostal) {
+        desde = medio + 1;
+      } else {
+        hasta = medio;
+      }
+    }
+    return ((desde < _codigos.limit()) && (_codigos.get(desde) == codigoPostal)) ? desde : -1;
+  }
+
+  /**
+   * Si {@code texto} es el texto de referencia {@code indice} sin distinguir mayúsculas, tildes
+   * ni separadores. Se compara letra a letra con su clave plegada para no crear objetos.
+   */
+  private boolean coincide(final String texto, final int indice) {
+    if (texto == _textos[indice]) {
+      return true;
+    }
+    final String clave = _claves[indice];
+    int posicion = 0;
+    boolean separador = false;
+    for (int i = 0; i < texto.length(); i++) {
+      final char c = Plegado.plegar(texto.charAt(i));
+      if (c == Plegado.SEPARADOR) {
+        separador = posicion > 0;
+        continue;
+      }
+      if (separador) {
+        if ((posicion == clave.length()) || (clave.charAt(posicion) != Plegado.SEPARADOR)) {
+          return false;
+        }
+        posicion++;
+        separador = false;
+      }
+      if ((posicion == clave.length()) || (clave.charAt(posicion) != c)) {
+        return false;
+      }
+      posicion++;
+    }
+    return posicion == clave.length();
+  }
+
+  private static IntBuffer vista(final ByteBuffer buffer, final int posicion, final int enteros) {
+    final ByteBuffer vista = buffer.duplicate();
+    vista.position(posicion);
+    vista.limit(posicion + (4 * enteros));
+    return vista.slice().asIntBuffer();
+  }
+
+  private static Integer codigoPostal(final String campo, final Path origen, final int numero) {
+    try {
+      final int codigo = Integer.parseInt(campo);
+      checkState((codigo > 0) && (codigo <= MAX_CODIGO_POSTAL),
+          "%s:%s: código postal fuera de rango: %s", origen, numero, campo); //$NON-NLS-1$
+      return Integer.valueOf(codigo);
+    } catch (final NumberFormatException e) {
+      throw new IllegalStateException(
+          String.format("%s:%s: código postal no válido: %s", origen, numero, campo), e); //$NON-NLS-1$
+    }
+  }
+
+  /** "CPOS" */
+  private static final int MAGIC = 0x43504F53;
+  private static final int VERSION = 1;
+  /** Bytes de la cabecera: magic, versión, entradas, textos y bytes de los textos */
+  private static final int CABECERA = 20;
+  private static final int MAX_CODIGO_POSTAL = 99_999;
+  private static final int BUFFER = 1 << 16;
+
+  /** Fichero proyectado, que se mantiene referenciado mientras se usan sus vistas */
+  private final ByteBuffer _buffer;
+  /** Código postal de cada entrada, en orden ascendente */
+  private final IntBuffer _codigos;
+  /** Índice en {@link #_textos} de la población de cada entrada */
+  private final IntBuffer _poblaciones;
+  /** Índice en {@link #_textos} de la provincia de cada entrada */
+  private final IntBuffer _provincias;
+  /** Nombres de referencia, compartidos por las {@code Direccion}es normalizadas */
+  private final String[] _textos;
+  /** {@link #_textos} plegados con {@link Plegado}, para compararlos */
+  private final String[] _claves;
+}
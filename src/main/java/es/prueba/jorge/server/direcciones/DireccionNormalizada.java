@@ -0,0 +1,71 @@
+package es.prueba.jorge.server.direcciones;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.base.MoreObjects;
+
+import javax.annotation.Nonnull;
+
+import es.prueba.jorge.model.Direccion;
+
+/**
+ * Resultado de normalizar una {@link Direccion} con {@link CodigosPostales}.
+ *
+ * @author Jorge García Villanueva &lt;Jorgegv95@gmail.com&gt;
+ */
+public final class DireccionNormalizada {
+  /**
+   * Resultado de la validación de una {@link Direccion}.
+   */
+  public enum Estado {
+    /** Código postal, población y provincia concuerdan; se usan los nombres de referencia */
+    VALIDA,
+    /** El código postal no está en la referencia */
+    CODIGO_POSTAL_DESCONOCIDO,
+    /** La provincia no es la del código postal */
+    PROVINCIA_INCORRECTA,
+    /** La población no es ninguna de las del código postal */
+    POBLACION_INCORRECTA
+  }
+
+  /**
+   * @param direccion normalizada si es {@link Estado#VALIDA válida}, o la original si no.
+   * @param estado de la validación.
+   */
+  public DireccionNormalizada(@Nonnull final Direccion direccion, @Nonnull final Estado estado) {
+    _direccion = checkNotNull(direccion);
+    _estado = checkNotNull(estado);
+  }
+
+  /**
+   * @return la {@link Direccion} con la población y provincia de referencia si es
+   *         {@link Estado#VALIDA válida}, o la original si no.
+   */
+  public Direccion direccion() {
+    return _direccion;
+  }
+
+  /**
+   * @return el resultado de la validación.
+   */
+  public Estado estado() {
+    return _estado;
+  }
+
+  /**
+   * @return {@code true} si la {@link Direccion} es {@link Estado#VALIDA válida}.
+   */
+  public boolean valida() {
+    return _estado == Estado.VALIDA;
+  }
+
+  @SuppressWarnings("nls")
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this).add("direccion", _direccion).add("estado", _estado)
+        .toString();
+  }
+
+  private final Direccion _direccion;
+  private final Estado _estado;
+}
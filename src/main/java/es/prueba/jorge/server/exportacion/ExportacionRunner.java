@@ -0,0 +1,73 @@
+package es.prueba.jorge.server.exportacion;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.BufferedOutputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+
+import javax.annotation.Nonnull;
+import javax.inject.Inject;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+/**
+ * Modo de línea de comandos de la exportación de {@code Usuario}s: con la opción
+ * {@code --exportar-usuarios=<fichero>} la aplicación exporta los {@code Usuario}s a
+ * {@code fichero} y termina. No admite la salida estándar ({@code -}), en la que también escriben
+ * el <i>banner</i> y el log de Spring Boot.
+ * <p>
+ * Para no arrancar el servidor web se puede añadir {@code --spring.main.web-application-type=none}.
+ *
+ * @author Jorge García Villanueva &lt;Jorgegv95@gmail.com&gt;
+ */
+@Component
+public class ExportacionRunner implements ApplicationRunner {
+  /** Opción que activa el modo de exportación */
+  public static final String OPCION = "exportar-usuarios"; //$NON-NLS-1$
+
+  /**
+   * @param exportacion con la que exportar los {@code Usuario}s.
+   * @param context de la aplicación, para terminarla tras la exportación.
+   */
+  @Inject
+  public ExportacionRunner(@Nonnull final ExportacionUsuarios exportacion,
+      @Nonnull final ConfigurableApplicationContext context) {
+    _exportacion = checkNotNull(exportacion);
+    _context = checkNotNull(context);
+  }
+
+  @Override
+  public void run(final ApplicationArguments args) throws Exception {
+    final List<String> ficheros = args.getOptionValues(OPCION);
+    if ((ficheros == null) || ficheros.isEmpty()) {
+      return;
+    }
+    final String fichero = ficheros.get(0);
+    checkArgument(!fichero.isEmpty() && !"-".equals(fichero), //$NON-NLS-1$
+        "--%s necesita la ruta del fichero: la salida estándar la comparte con el log", OPCION); //$NON-NLS-1$
+    final long inicio = System.nanoTime();
+    final long exportados;
+    try (OutputStream salida =
+        new BufferedOutputStream(Files.newOutputStream(Paths.get(fichero)))) {
+      exportados = _exportacion.exportar(salida, null);
+    }
+    LOG.info("Exportados {} usuarios a {} en {} ms", Long.valueOf(exportados), fichero, //$NON-NLS-1$
+        Long.valueOf((System.nanoTime() - inicio) / 1_000_000));
+    System.exit(SpringApplication.exit(_context));
+  }
+
+  private static final Logger LOG = LoggerFactory.getLogger(ExportacionRunner.class);
+
+  private final ExportacionUsuarios _exportacion;
+  private final ConfigurableApplicationContext _context;
+}
@@ -0,0 +1,115 @@
+package es.prueba.jorge.server.exportacion;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Optional;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import es.prueba.jorge.model.DatosCRUD;
+import es.prueba.jorge.model.Persona;
+import es.prueba.jorge.model.Usuario;
+import es.prueba.jorge.model.UsuarioId;
+import es.prueba.jorge.server.persistence.UsuarioRepository;
+
+/**
+ * Exportación de los {@link Usuario}s en NDJSON, un objeto JSON por línea, ordenados por
+ * {@link UsuarioId}.
+ * <p>
+ * Los {@code Usuario}s se leen por páginas de {@value #TAMANO_PAGINA} con
+ * {@link UsuarioRepository#findPage(UsuarioId, int) paginación por clave} y cada página se escribe
+ * en la salida antes de leer la siguiente, de modo que la memoria utilizada no depende del número
+ * de {@code Usuario}s y no hace falta contarlos. Las líneas tienen los campos de
+ * {@link es.prueba.jorge.server.importacion.FormatoImportacion#NDJSON}, por lo que el resultado puede
+ * volver a importarse.
+ *
+ * @author Jorge García Villanueva &lt;Jorgegv95@gmail.com&gt;
+ */
+public class ExportacionUsuarios {
+  /** {@code Usuario}s por página */
+  public static final int TAMANO_PAGINA = 1000;
+
+  /**
+   * @param usuarios repositorio del que leer los {@link Usuario}s.
+   */
+  public ExportacionUsuarios(@Nonnull final UsuarioRepository usuarios) {
+    _usuarios = checkNotNull(usuarios);
+  }
+
+  /**
+   * Escribe en {@code salida} los {@link Usuario}s posteriores a {@code despuesDe}. La salida se
+   * vuelca tras cada página, pero no se cierra.
+   *
+   * @param salida en la que escribir.
+   * @param despuesDe último {@link UsuarioId} ya exportado, para retomar una exportación, o
+   *        {@code null} para exportar todos.
+   * @return número de {@code Usuario}s exportados.
+   * @throws IOException si falla la escritura en {@code salida}.
+   */
+  public long exportar(@Nonnull final OutputStream salida, @Nullable final UsuarioId despuesDe)
+      throws IOException {
+    long exportados = 0;
+    try (JsonGenerator json = JSON.createGenerator(checkNotNull(salida), JsonEncoding.UTF8)) {
+      UsuarioId ultimo = despuesDe;
+      List<Usuario> pagina;
+      while (!(pagina = _usuarios.findPage(ultimo, TAMANO_PAGINA)).isEmpty()) {
+        for (final Usuario usuario : pagina) {
+          escribir(json, usuario);
+          json.writeRaw('\n');
+        }
+        json.flush();
+        exportados += pagina.size();
+        ultimo = pagina.get(pagina.size() - 1).identity();
+      }
+    }
+    return exportados;
+  }
+
+  @SuppressWarnings("nls")
+  private static void escribir(final JsonGenerator json, final Usuario usuario)
+      throws IOException {
+    final Persona persona = usuario.persona();
+    json.writeStartObject();
+    json.writeNumberField("id", usuario.identity().id());
+    json.writeStringField("nombre", persona.nombre());
+    json.writeStringField("apellido1", persona.apellido1());
+    if (persona.apellido2().isPresent()) {
+      json.writeStringField("apellido2", persona.apellido2().get());
+    }
+    json.writeStringField("perfil", usuario.perfil().perfil());
+    json.writeStringField("telefono", usuario.telefono().telefono());
+    json.writeStringField("email", usuario.email().email());
+    if (usuario.ultimaVisita().isPresent()) {
+      json.writeStringField("ultimaVisita", usuario.ultimaVisita().get().toString());
+    }
+    escribir(json, "alta", Optional.of(usuario.alta()));
+    escribir(json, "baja", usuario.baja());
+    escribir(json, "modificacion", usuario.modificacion());
+    json.writeEndObject();
+  }
+
+  @SuppressWarnings("nls")
+  private static void escribir(final JsonGenerator json, final String campo,
+      final Optional<DatosCRUD> datos) throws IOException {
+    if (datos.isPresent()) {
+      json.writeObjectFieldStart(campo);
+      json.writeNumberField("usuario", datos.get().usuarioId().id());
+      json.writeStringField("instante", datos.get().instant().toString());
+      json.writeEndObject();
+    }
+  }
+
+  /** Las líneas se separan explícitamente y la salida es del llamante */
+  private static final JsonFactory JSON = new JsonFactory().setRootValueSeparator(null)
+      .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+  private final UsuarioRepository _usuarios;
+}
@@ -0,0 +1,124 @@
+package es.prueba.jorge.server.importacion;
+
+import static es.prueba.jorge.server.importacion.FormatoImportacion.APELLIDO1;
+import static es.prueba.jorge.server.importacion.FormatoImportacion.APELLIDO2;
+import static es.prueba.jorge.server.importacion.FormatoImportacion.CAMPOS;
+import static es.prueba.jorge.server.importacion.FormatoImportacion.EMAIL;
+import static es.prueba.jorge.server.importacion.FormatoImportacion.NOMBRE;
+import static es.prueba.jorge.server.importacion.FormatoImportacion.PERFIL;
+import static es.prueba.jorge.server.importacion.FormatoImportacion.TELEFONO;
+
+import com.google.common.base.Utf8;
+
+import java.util.function.Function;
+
+import es.prueba.jorge.model.Email;
+import es.prueba.jorge.model.Perfil;
+import es.prueba.jorge.model.Persona;
+import es.prueba.jorge.model.Telefono;
+import es.prueba.jorge.model.Usuario;
+import es.prueba.jorge.model.UsuarioId;
+
+/**
+ * Datos de un {@link Usuario} que se dan de alta o se modifican en masa, ya validados: todos salvo
+ * su identificador y sus datos CRUD, que se asignan al escribirlo.
+ *
+ * @author Jorge García Villanueva &lt;Jorgegv95@gmail.com&gt;
+ */
+final class DatosUsuario {
+  /**
+   * @param campos valores de los campos, en el orden de {@link FormatoImportacion#CAMPOS} y
+   *        {@code null} los ausentes.
+   * @return los datos de {@code campos}.
+   * @throws IllegalArgumentException si falta algún campo obligatorio, alguno no es válido o no
+   *         cabe en su columna.
+   */
+  static DatosUsuario of(final String[] campos) {
+    final Persona.Builder persona = Persona.builder()
+        .withNombre(requerido(campos, NOMBRE)).withApellido1(requerido(campos, APELLIDO1));
+    if (campos[APELLIDO2] != null) {
+      persona.withApellido2(acotado(APELLIDO2, campos[APELLIDO2]));
+    }
+    final Perfil perfil = convertir(campos, PERFIL, Perfil::valueOf);
+    final Telefono telefono = convertir(campos, TELEFONO, Telefono::of);
+    // Cada email suele ser de un único Usuario: canonicalizarlo con Email.of costaría más de lo
+    // que ahorra
+    final Email email = convertir(campos, EMAIL, Email::new);
+    return new DatosUsuario(persona.build(), perfil, telefono, email);
+  }
+
+  /**
+   * @param id del {@link Usuario}.
+   * @return un {@link Usuario.Builder} con estos datos, al que sólo le faltan los datos CRUD.
+   */
+  Usuario.Builder builder(final UsuarioId id) {
+    return Usuario.builder(id).withPersona(_persona).withPerfil(_perfil).withTelefono(_telefono)
+        .withEmail(_email);
+  }
+
+  private DatosUsuario(final Persona persona, final Perfil perfil, final Telefono telefono,
+      final Email email) {
+    _persona = persona;
+    _perfil = perfil;
+    _telefono = telefono;
+    _email = email;
+  }
+
+  @SuppressWarnings("nls")
+  private static String requerido(final String[] campos, final int campo) {
+    if ((campos[campo] == null) || campos[campo].trim().isEmpty()) {
+      throw new IllegalArgumentException("Falta el campo " + CAMPOS.get(campo));
+    }
+    return acotado(campo, campos[campo].trim());
+  }
+
+  /**
+   * Comprueba que {@code valor} cabe en su columna, que Oracle mide en bytes: un texto con acentos
+   * puede caber en caracteres y no en bytes, y haría fallar la transacción de todo su lote.
+   */
+  @SuppressWarnings("nls")
+  private static String acotado(final int campo, final String valor) {
+    final int max = MAX_BYTES[campo];
+    // Cada carácter ocupa de 1 a 3 bytes (los pares sustitutos, 4 bytes por 2 caracteres)
+    if ((valor.length() * 3) <= max) {
+      return valor;
+    }
+    final int bytes;
+    try {
+      bytes = (valor.length() > max) ? valor.length() : Utf8.encodedLength(valor);
+    } catch (final IllegalArgumentException e) {
+      throw new IllegalArgumentException("Campo " + CAMPOS.get(campo) + " no válido: " + valor,
+          e);
+    }
+    if (bytes > max) {
+      throw new IllegalArgumentException(
+          "Campo " + CAMPOS.get(campo) + " de más de " + max + " bytes: " + valor);
+    }
+    return valor;
+  }
+
+  @SuppressWarnings("nls")
+  private static <T> T convertir(final String[] campos, final int campo,
+      final Function<String, T> conversor) {
+    final String valor = requerido(campos, campo);
+    try {
+      return conversor.apply(valor);
+    } catch (final IllegalArgumentException | NullPointerException e) {
+      throw new IllegalArgumentException("Campo " + CAMPOS.get(campo) + " no válido: " + valor,
+          e);
+    }
+  }
+
+  /**
+   * Longitud máxima en bytes de cada campo, en el orden de {@link FormatoImportacion#CAMPOS}: la de
+   * su columna {@code VARCHAR2} en {@code schema.sql}, que Oracle mide por defecto en bytes de la
+   * codificación de la base de datos (UTF-8).
+   */
+  private static final int[] MAX_BYTES = {100, 100, 100, 20, Telefono.TELEFONO_LENGTH,
+      Email.MAX_EMAIL_LENGTH};
+
+  private final Persona _persona;
+  private final Perfil _perfil;
+  private final Telefono _telefono;
+  private final Email _email;
+}
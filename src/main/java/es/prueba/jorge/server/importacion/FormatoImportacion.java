@@ -0,0 +1,145 @@
+package es.prueba.jorge.server.importacion;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Formatos de fichero admitidos por {@link ImportacionUsuarios}, con un {@code Usuario} por línea
+ * y los campos {@code nombre}, {@code apellido1}, {@code apellido2} (opcional), {@code perfil},
+ * {@code telefono} y {@code email}.
+ *
+ * @author Jorge García Villanueva &lt;Jorgegv95@gmail.com&gt;
+ */
+public enum FormatoImportacion {
+  /**
+   * Valores separados por comas, en el orden de los campos y opcionalmente entre comillas dobles
+   * (con {@code ""} para una comilla). La primera línea puede ser la cabecera con los nombres de
+   * los campos. Los valores no pueden contener saltos de línea.
+   */
+  CSV {
+    @Override
+    String[] campos(final String linea) {
+      final String[] campos = new String[CAMPOS.size()];
+      int campo = 0;
+      int i = 0;
+      final int length = linea.length();
+      final StringBuilder valor = new StringBuilder();
+      while (true) {
+        if (campo == campos.length) {
+          throw new IllegalArgumentException(
+              "Se esperaban " + campos.length + " campos y hay más"); //$NON-NLS-1$ //$NON-NLS-2$
+        }
+        valor.setLength(0);
+        if ((i < length) && (linea.charAt(i) == '"')) {
+          i++;
+          while (true) {
+            if (i == length) {
+              throw new IllegalArgumentException("Comillas sin cerrar"); //$NON-NLS-1$
+            }
+            final char c = linea.charAt(i++);
+            if (c != '"') {
+              valor.append(c);
+            } else if ((i < length) && (linea.charAt(i) == '"')) {
+              valor.append('"');
+              i++;
+            } else {
+              break;
+            }
+          }
+          if ((i < length) && (linea.charAt(i) != ',')) {
+            throw new IllegalArgumentException(
+                "Texto tras las comillas del campo " + CAMPOS.get(campo)); //$NON-NLS-1$
+          }
+        } else {
+          final int coma = linea.indexOf(',', i);
+          final int fin = (coma < 0) ? length : coma;
+          valor.append(linea, i, fin);
+          i = fin;
+        }
+        campos[campo++] = (valor.length() == 0) ? null : valor.toString();
+        if (i >= length) {
+          break;
+        }
+        i++; // ','
+      }
+      if (campo != campos.length) {
+        throw new IllegalArgumentException("Se esperaban " + campos.length + " campos y hay " //$NON-NLS-1$ //$NON-NLS-2$
+            + campo);
+      }
+      return campos;
+    }
+
+    @Override
+    boolean esCabecera(final String linea) {
+      return CABECERA_CSV.equalsIgnoreCase(linea.trim());
+    }
+  },
+
+  /**
+   * Un objeto JSON por línea con los campos por nombre. Se ignoran los campos desconocidos.
+   */
+  NDJSON {
+    @Override
+    String[] campos(final String linea) {
+      final String[] campos = new String[CAMPOS.size()];
+      try (JsonParser parser = JSON.createParser(linea)) {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+          throw new IllegalArgumentException("Se esperaba un objeto JSON"); //$NON-NLS-1$
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+          final int campo = CAMPOS.indexOf(parser.getCurrentName());
+          final JsonToken token = parser.nextToken();
+          if (token.isStructStart()) {
+            parser.skipChildren();
+          } else if ((campo >= 0) && (token != JsonToken.VALUE_NULL)) {
+            campos[campo] = parser.getText();
+          }
+        }
+        if (parser.currentToken() != JsonToken.END_OBJECT) {
+          throw new IllegalArgumentException("Objeto JSON incompleto"); //$NON-NLS-1$
+        }
+      } catch (final JsonProcessingException e) {
+        throw new IllegalArgumentException("JSON no válido: " + e.getOriginalMessage(), e); //$NON-NLS-1$
+      } catch (final IOException e) {
+        throw new IllegalArgumentException("JSON no válido: " + e.getMessage(), e); //$NON-NLS-1$
+      }
+      return campos;
+    }
+  };
+
+  /** Nombres de los campos, en el orden en que los retorna {@link #campos(String)} */
+  @SuppressWarnings("nls")
+  static final List<String> CAMPOS =
+      Arrays.asList("nombre", "apellido1", "apellido2", "perfil", "telefono", "email");
+  static final int NOMBRE = 0;
+  static final int APELLIDO1 = 1;
+  static final int APELLIDO2 = 2;
+  static final int PERFIL = 3;
+  static final int TELEFONO = 4;
+  static final int EMAIL = 5;
+
+  /**
+   * @param linea no vacía del fichero.
+   * @return los valores de los campos de {@code linea}, {@code null} los ausentes o vacíos.
+   * @throws IllegalArgumentException si {@code linea} no tiene el formato esperado.
+   */
+  abstract String[] campos(String linea);
+
+  /**
+   * @param linea primera línea del fichero.
+   * @return {@code true} si {@code linea} es una cabecera que no contiene datos.
+   */
+  @SuppressWarnings("static-method")
+  boolean esCabecera(final String linea) {
+    return false;
+  }
+
+  private static final String CABECERA_CSV = String.join(",", CAMPOS); //$NON-NLS-1$
+  private static final JsonFactory JSON = new JsonFactory();
+}
@@ -0,0 +1,324 @@
+package es.prueba.jorge.server.importacion;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+import com.google.common.base.CharMatcher;
+import com.google.common.collect.ImmutableList;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nonnull;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import es.prueba.jorge.model.DatosCRUD;
+import es.prueba.jorge.model.Usuario;
+import es.prueba.jorge.server.persistence.CheckpointRepository;
+import es.prueba.jorge.server.persistence.UsuarioRepository;
+
+/**
+ * Importación masiva de {@link Usuario}s desde ficheros {@link FormatoImportacion CSV o NDJSON}.
+ * <p>
+ * El fichero se procesa en flujo, por lotes de {@value #TAMANO_LOTE} líneas, en tres etapas:
+ * <ol>
+ * <li>Lectura secuencial, en el {@code Executor} de lectura.</li>
+ * <li>Análisis y validación de cada lote en el {@code Executor} de validación, varios lotes en
+ * paralelo, sin acceder a la base de datos. Las filas válidas se convierten en
+ * {@link DatosUsuario} y las no válidas en líneas del fichero de errores, con su número de línea y
+ * el motivo.</li>
+ * <li>Escritura, en el hilo que llama a {@link #importar}: cada lote recibe sus identificadores,
+ * reservados sólo para las filas válidas, y se da de alta con
+ * {@link UsuarioRepository#insertAll(Collection)} en una transacción que también guarda el punto
+ * de control del fichero.</li>
+ * </ol>
+ * Entre la lectura y la escritura hay una cola acotada de lotes en vuelo, de modo que la lectura se
+ * detiene si la base de datos no da abasto y la memoria no crece con el tamaño del fichero. Los
+ * lotes se escriben en el orden del fichero, por lo que el punto de control es siempre la última
+ * línea confirmada y una importación interrumpida se retoma donde se quedó sin duplicar filas.
+ *
+ * @author Jorge García Villanueva &lt;Jorgegv95@gmail.com&gt;
+ */
+public class ImportacionUsuarios {
+  /** Líneas por lote, y por transacción */
+  public static final int TAMANO_LOTE = 1000;
+
+  /**
+   * @param usuarios donde dar de alta los {@link Usuario}s.
+   * @param checkpoints donde guardar los puntos de control.
+   * @param transactionManager con el que confirmar cada lote.
+   * @param lectura {@link Executor} en el que leer los ficheros.
+   * @param validacion {@link Executor} en el que validar los lotes.
+   * @param capacidad número máximo de lotes leídos pendientes de escribir.
+   * @throws IllegalArgumentException si {@code capacidad} no es positiva.
+   */
+  public ImportacionUsuarios(@Nonnull final UsuarioRepository usuarios,
+      @Nonnull final CheckpointRepository checkpoints,
+      @Nonnull final PlatformTransactionManager transactionManager,
+      @Nonnull final Executor lectura, @Nonnull final Executor validacion, final int capacidad) {
+    checkArgument(capacidad > 0);
+    _usuarios = checkNotNull(usuarios);
+    _checkpoints = checkNotNull(checkpoints);
+    _transactionTemplate = new TransactionTemplate(checkNotNull(transactionManager));
+    _lectura = checkNotNull(lectura);
+    _validacion = checkNotNull(validacion);
+    _capacidad = capacidad;
+  }
+
+  /**
+   * Importa los {@link Usuario}s de {@code fichero}, retomando la importación desde su punto de
+   * control si lo tiene. Las filas rechazadas se añaden a {@code errores}.
+   * <p>
+   * Al terminar se conserva el punto de control, de modo que repetir la importación del mismo
+   * fichero no da de alta nada. Para importarlo de nuevo hay que eliminarlo con
+   * {@link CheckpointRepository#delete(String)}.
+   *
+   * @param fichero a importar.
+   * @param formato de {@code fichero}.
+   * @param errores fichero en el que añadir las filas rechazadas.
+   * @param alta {@link DatosCRUD} del alta de los {@code Usuario}s importados.
+   * @return el {@link ProgresoImportacion} final.
+   * @throws IOException si falla la lectura de {@code fichero} o la escritura de {@code errores}.
+   * @throws IllegalStateException si ya se está importando {@code fichero}.
+   */
+  public ProgresoImportacion importar(@Nonnull final Path fichero,
+      @Nonnull final FormatoImportacion formato, @Nonnull final Path errores,
+      @Nonnull final DatosCRUD alta) throws IOException {
+    final String clave = checkNotNull(fichero).toAbsolutePath().normalize().toString();
+    final Importacion importacion = new Importacion(fichero, checkNotNull(formato),
+        checkNotNull(alta), new ProgresoImportacion(clave, _checkpoints.linea(clave)));
+    checkState(_enCurso.putIfAbsent(clave, importacion.progreso) == null,
+        "Ya se está importando %s", clave); //$NON-NLS-1$
+    try (BufferedWriter salida = Files.newBufferedWriter(checkNotNull(errores),
+        StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+      LOG.info("Importando {} desde la línea {}", clave, importacion.progreso.desde()); //$NON-NLS-1$
+      CompletableFuture.runAsync(importacion::leer, _lectura);
+      importacion.escribir(salida);
+      LOG.info("Importación terminada: {}", importacion.progreso); //$NON-NLS-1$
+      return importacion.progreso;
+    } catch (final UncheckedIOException e) {
+      throw e.getCause();
+    } finally {
+      importacion.cancelar();
+      importacion.progreso.terminar();
+      _enCurso.remove(clave);
+    }
+  }
+
+  /**
+   * @return el progreso de las importaciones en curso.
+   */
+  public Collection<ProgresoImportacion> enCurso() {
+    return ImmutableList.copyOf(_enCurso.values());
+  }
+
+  private static final Logger LOG = LoggerFactory.getLogger(ImportacionUsuarios.class);
+  /** Lotes entre cada registro del progreso en el log */
+  private static final int LOTES_POR_LOG = 100;
+  /** Espera máxima para encolar un lote antes de comprobar si se ha cancelado la importación */
+  private static final long ESPERA_MILLIS = 100;
+
+  private final UsuarioRepository _usuarios;
+  private final CheckpointRepository _checkpoints;
+  private final TransactionTemplate _transactionTemplate;
+  private final Executor _lectura;
+  private final Executor _validacion;
+  private final int _capacidad;
+  private final Map<String, ProgresoImportacion> _enCurso = new ConcurrentHashMap<>();
+
+  /**
+   * Lote de líneas consecutivas del fichero. Se rellena en la lectura y se completa con el
+   * resultado de la validación.
+   */
+  private static final class Lote {
+    Lote(final long primeraLinea, final String[] lineas) {
+      this.primeraLinea = primeraLinea;
+      this.lineas = lineas;
+    }
+
+    long ultimaLinea() {
+      return (primeraLinea + lineas.length) - 1;
+    }
+
+    /** Número de la primera línea del lote */
+    final long primeraLinea;
+    /** Líneas del lote, {@code null} las que no contienen datos */
+    final String[] lineas;
+    /** Datos de las filas válidas del lote, sin identificador hasta que se escriben */
+    final List<DatosUsuario> validos = new ArrayList<>(TAMANO_LOTE);
+    /** Líneas del fichero de errores correspondientes a las filas rechazadas */
+    final List<String> rechazos = new ArrayList<>();
+  }
+
+  /** Marca de fin de fichero en la cola */
+  private static final CompletableFuture<Lote> FIN =
+      CompletableFuture.completedFuture(new Lote(0, new String[0]));
+
+  /**
+   * Estado de la importación de un fichero.
+   */
+  private final class Importacion {
+    Importacion(final Path fichero, final FormatoImportacion formato, final DatosCRUD alta,
+        final ProgresoImportacion progreso) {
+      this.fichero = fichero;
+      this.formato = formato;
+      this.alta = alta;
+      this.progreso = progreso;
+    }
+
+    /**
+     * Lee el fichero desde el punto de control y encola cada lote para su validación. Se bloquea
+     * mientras la cola está llena.
+     */
+    void leer() {
+      try (BufferedReader entrada = Files.newBufferedReader(fichero, StandardCharsets.UTF_8)) {
+        long numero = 0;
+        String linea;
+        while ((numero < progreso.desde()) && (entrada.readLine() != null)) {
+          numero++;
+        }
+        String[] lineas = new String[TAMANO_LOTE];
+        int n = 0;
+        while (!cancelada && ((linea = entrada.readLine()) != null)) {
+          numero++;
+          final boolean datos =
+              !linea.trim().isEmpty() && ((numero != 1) || !formato.esCabecera(linea));
+          lineas[n++] = datos ? linea : null;
+          if (datos) {
+            progreso.leida();
+          }
+          if (n == TAMANO_LOTE) {
+            encolar(new Lote((numero - n) + 1, lineas));
+            lineas = new String[TAMANO_LOTE];
+            n = 0;
+          }
+        }
+        if (n > 0) {
+          final String[] resto = new String[n];
+          System.arraycopy(lineas, 0, resto, 0, n);
+          encolar(new Lote((numero - n) + 1, resto));
+        }
+        encolar(FIN);
+      } catch (final IOException e) {
+        encolar(failed(new UncheckedIOException(e)));
+      } catch (final RuntimeException e) {
+        encolar(failed(e));
+      }
+    }
+
+    /**
+     * Confirma en orden cada lote validado, junto con el punto de control, tras añadir sus filas
+     * rechazadas a {@code errores}.
+     */
+    void escribir(final BufferedWriter errores) throws IOException {
+      long lotes = 0;
+      while (true) {
+        final Lote lote;
+        try {
+          final CompletableFuture<Lote> siguiente = cola.take();
+          if (siguiente == FIN) {
+            return;
+          }
+          lote = siguiente.join();
+        } catch (final InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new IllegalStateException("Importación interrumpida", e); //$NON-NLS-1$
+        } catch (final CompletionException e) {
+          throw (e.getCause() instanceof RuntimeException) ? (RuntimeException) e.getCause() : e;
+        }
+
+        for (final String rechazo : lote.rechazos) {
+          errores.write(rechazo);
+          errores.newLine();
+        }
+        // Los errores se vuelcan antes de confirmar: si la importación se interrumpe entre ambos
+        // pasos, al retomarla se repiten errores pero no se pierden
+        errores.flush();
+        final List<Usuario> altas = new ArrayList<>(lote.validos.size());
+        for (final DatosUsuario datos : lote.validos) {
+          altas.add(datos.builder(_usuarios.nextId()).withDatosAlta(alta).build());
+        }
+        _transactionTemplate.execute(status -> {
+          _usuarios.insertAll(altas);
+          _checkpoints.save(progreso.fichero(), lote.ultimaLinea());
+          return null;
+        });
+        progreso.confirmado(lote.ultimaLinea(), lote.validos.size(), lote.rechazos.size());
+        if ((++lotes % LOTES_POR_LOG) == 0) {
+          LOG.info("{}", progreso); //$NON-NLS-1$
+        }
+      }
+    }
+
+    void cancelar() {
+      cancelada = true;
+      cola.clear();
+    }
+
+    private void encolar(final CompletableFuture<Lote> lote) {
+      try {
+        while (!cancelada && !cola.offer(lote, ESPERA_MILLIS, TimeUnit.MILLISECONDS)) {
+          // La cola está llena: se espera a que la escritura avance
+        }
+      } catch (final InterruptedException e) {
+        Thread.currentThread().interrupt();
+        cancelada = true;
+      }
+    }
+
+    private void encolar(final Lote lote) {
+      encolar(CompletableFuture.supplyAsync(() -> validar(lote), _validacion));
+    }
+
+    private Lote validar(final Lote lote) {
+      for (int i = 0; i < lote.lineas.length; i++) {
+        final String linea = lote.lineas[i];
+        if (linea != null) {
+          try {
+            lote.validos.add(DatosUsuario.of(formato.campos(linea)));
+          } catch (final IllegalArgumentException e) {
+            // El motivo no puede romper el formato de una línea por rechazo
+            final String motivo = CharMatcher.anyOf("\t\r\n").replaceFrom(e.getMessage(), ' '); //$NON-NLS-1$
+            lote.rechazos.add((lote.primeraLinea + i) + "\t" + motivo + "\t" + linea); //$NON-NLS-1$ //$NON-NLS-2$
+          }
+        }
+      }
+      return lote;
+    }
+
+    private <T> CompletableFuture<T> failed(final Throwable e) {
+      final CompletableFuture<T> future = new CompletableFuture<>();
+      future.completeExceptionally(e);
+      return future;
+    }
+
+    final Path fichero;
+    final FormatoImportacion formato;
+    final DatosCRUD alta;
+    final ProgresoImportacion progreso;
+    final BlockingQueue<CompletableFuture<Lote>> cola = new ArrayBlockingQueue<>(_capacidad);
+    volatile boolean cancelada;
+  }
+}
@@ -0,0 +1,315 @@
+package es.prueba.jorge.server.importacion;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static es.prueba.jorge.server.importacion.FormatoImportacion.CAMPOS;
+
+import com.google.common.base.MoreObjects;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+import javax.annotation.Nonnull;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import es.prueba.jorge.model.DatosCRUD;
+import es.prueba.jorge.model.TipoCRUD;
+import es.prueba.jorge.model.Usuario;
+import es.prueba.jorge.model.UsuarioId;
+import es.prueba.jorge.server.persistence.UsuarioRepository;
+
+/**
+ * Altas y modificaciones de {@link Usuario}s en lotes, con un resultado por elemento.
+ * <p>
+ * Cada elemento tiene los campos de {@link FormatoImportacion} y, si es una modificación, el
+ * {@value #ID} del {@code Usuario}; sin él es un alta. Un lote se escribe en dos etapas:
+ * <ol>
+ * <li>Validación de todos los elementos con {@link Usuario.Builder}, en paralelo en el
+ * {@code Executor} de validación si el lote tiene al menos {@value #MIN_PARALELO} elementos. Los
+ * elementos no válidos se rechazan sin impedir que se escriban los demás.</li>
+ * <li>Escritura en el hilo que llama a {@link #escribir}, en una única transacción o en
+ * transacciones de {@code tamanoTransaccion} elementos: se bloquean y leen de una vez los
+ * {@code Usuario}s a modificar, y las altas y las modificaciones se escriben cada una con un
+ * <i>batch</i> JDBC ({@link UsuarioRepository#insertAll(Collection)} y
+ * {@link UsuarioRepository#updateAll(Collection)}).</li>
+ * </ol>
+ * Los {@code Usuario}s se escriben con los {@link DatosCRUD} del lote: como datos del alta en las
+ * altas y como datos de la modificación en las modificaciones, de modo que el diario de auditoría
+ * registra un {@code ALTA} o un {@code MOD} por cada uno. Si una transacción de varios elementos
+ * no se confirma, por un error de la base de datos o de cualquier otro tipo, se reintentan uno a
+ * uno, cada uno en su propia transacción, de modo que sólo se rechazan con el error los que fallan
+ * por sí mismos y el resto del lote sigue adelante. Un fallo nunca descarta los resultados de las
+ * transacciones ya confirmadas.
+ *
+ * @author Jorge García Villanueva &lt;Jorgegv95@gmail.com&gt;
+ */
+public class LoteUsuarios {
+  /** Campo con el {@code UsuarioId} de las modificaciones */
+  public static final String ID = "id"; //$NON-NLS-1$
+  /** Número de elementos a partir del cual se validan en paralelo */
+  public static final int MIN_PARALELO = 64;
+
+  /**
+   * @param usuarios donde escribir los {@link Usuario}s.
+   * @param transactionManager con el que confirmar cada transacción.
+   * @param validacion {@link Executor} en el que validar los lotes.
+   * @param paralelismo número máximo de partes en que se divide la validación de un lote.
+   * @param tamanoTransaccion número de elementos por transacción, o {@code 0} para escribir cada
+   *        lote en una única transacción.
+   * @param maxElementos número máximo de elementos de un lote.
+   * @throws IllegalArgumentException si {@code paralelismo} o {@code maxElementos} no son
+   *         positivos, o {@code tamanoTransaccion} es negativo.
+   */
+  public LoteUsuarios(@Nonnull final UsuarioRepository usuarios,
+      @Nonnull final PlatformTransactionManager transactionManager,
+      @Nonnull final Executor validacion, final int paralelismo, final int tamanoTransaccion,
+      final int maxElementos) {
+    checkArgument(paralelismo > 0);
+    checkArgument(tamanoTransaccion >= 0);
+    checkArgument(maxElementos > 0);
+    _usuarios = checkNotNull(usuarios);
+    _transactionTemplate = new TransactionTemplate(checkNotNull(transactionManager));
+    _validacion = checkNotNull(validacion);
+    _paralelismo = paralelismo;
+    _tamanoTransaccion = tamanoTransaccion;
+    _maxElementos = maxElementos;
+  }
+
+  /**
+   * Valida y escribe un lote de altas y modificaciones.
+   *
+   * @param elementos del lote, con los valores de sus campos por nombre.
+   * @param datos de quién y cuándo escribe el lote.
+   * @return el resultado de cada elemento, en el orden del lote.
+   * @throws IllegalArgumentException si el lote tiene más de {@code maxElementos} elementos.
+   */
+  public List<ResultadoLote> escribir(@Nonnull final List<Map<String, String>> elementos,
+      @Nonnull final DatosCRUD datos) {
+    checkArgument(elementos.size() <= _maxElementos,
+        "El lote no puede tener más de %s elementos: %s", _maxElementos, //$NON-NLS-1$
+        elementos.size());
+    checkNotNull(datos);
+    final Elemento[] validados = validar(elementos, datos);
+    final ResultadoLote[] resultados = new ResultadoLote[validados.length];
+    final Set<UsuarioId> modificados = new HashSet<>();
+    for (int i = 0; i < validados.length; i++) {
+      final Elemento elemento = validados[i];
+      if (elemento.error != null) {
+        resultados[i] = ResultadoLote.error(i, elemento.id, elemento.error);
+      } else if ((elemento.alta == null) && !modificados.add(elemento.id)) {
+        // Dos modificaciones del mismo Usuario en un batch no tienen un orden definido
+        resultados[i] = ResultadoLote.error(i, elemento.id, "Usuario repetido en el lote"); //$NON-NLS-1$
+      }
+    }
+
+    final int tamano = (_tamanoTransaccion == 0) ? validados.length : _tamanoTransaccion;
+    for (int desde = 0; desde < validados.length; desde += tamano) {
+      escribir(validados, resultados, desde, Math.min(validados.length, desde + tamano), datos);
+    }
+    return Collections.unmodifiableList(Arrays.asList(resultados));
+  }
+
+  @SuppressWarnings("nls")
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this).add("paralelismo", _paralelismo)
+        .add("tamanoTransaccion", _tamanoTransaccion).add("maxElementos", _maxElementos)
+        .toString();
+  }
+
+  private static final Logger LOG = LoggerFactory.getLogger(LoteUsuarios.class);
+
+  private final UsuarioRepository _usuarios;
+  private final TransactionTemplate _transactionTemplate;
+  private final Executor _validacion;
+  private final int _paralelismo;
+  private final int _tamanoTransaccion;
+  private final int _maxElementos;
+
+  /**
+   * Elemento validado: un alta, una modificación o un error.
+   */
+  private static final class Elemento {
+    /** Identificador de la modificación o del alta, si se conoce */
+    UsuarioId id;
+    /** {@code Usuario} completo del alta */
+    Usuario alta;
+    /** Datos de la modificación */
+    DatosUsuario modificacion;
+    /** Motivo del rechazo */
+    String error;
+
+    Elemento() {
+      // Nothing to do
+    }
+  }
+
+  private Elemento[] validar(final List<Map<String, String>> elementos, final DatosCRUD datos) {
+    final Elemento[] validados = new Elemento[elementos.size()];
+    final int partes = Math.min(_paralelismo, validados.length / (MIN_PARALELO / 2));
+    if ((validados.length < MIN_PARALELO) || (partes < 2)) {
+      validar(elementos, datos, validados, 0, validados.length);
+      return validados;
+    }
+    final List<CompletableFuture<Void>> tareas = new ArrayList<>(partes);
+    for (int parte = 0; parte < partes; parte++) {
+      final int desde = (int) (((long) validados.length * parte) / partes);
+      final int hasta = (int) (((long) validados.length * (parte + 1)) / partes);
+      tareas.add(CompletableFuture
+          .runAsync(() -> validar(elementos, datos, validados, desde, hasta), _validacion));
+    }
+    try {
+      CompletableFuture.allOf(tareas.toArray(new CompletableFuture<?>[partes])).join();
+    } catch (final CompletionException e) {
+      throw (e.getCause() instanceof RuntimeException) ? (RuntimeException) e.getCause() : e;
+    }
+    return validados;
+  }
+
+  private void validar(final List<Map<String, String>> elementos, final DatosCRUD datos,
+      final Elemento[] validados, final int desde, final int hasta) {
+    for (int i = desde; i < hasta; i++) {
+      final Map<String, String> campos = elementos.get(i);
+      final Elemento elemento = new Elemento();
+      validados[i] = elemento;
+      try {
+        checkArgument(campos != null, "Elemento vacío"); //$NON-NLS-1$
+        final String[] valores = new String[CAMPOS.size()];
+        for (int campo = 0; campo < valores.length; campo++) {
+          valores[campo] = campos.get(CAMPOS.get(campo));
+        }
+        final String id = campos.get(ID);
+        if (id != null) {
+          elemento.id = id(id);
+        }
+        final DatosUsuario usuario = DatosUsuario.of(valores);
+        if (elemento.id == null) {
+          // El identificador se reserva sólo para las altas válidas
+          elemento.id = _usuarios.nextId();
+          elemento.alta = usuario.builder(elemento.id).withDatosAlta(datos).build();
+        } else {
+          elemento.modificacion = usuario;
+        }
+      } catch (final IllegalArgumentException e) {
+        elemento.error = e.getMessage();
+      }
+    }
+  }
+
+  /**
+   * Escribe en una transacción los elementos válidos entre {@code desde} y {@code hasta}. Si no se
+   * confirma y son varios, los escribe uno a uno.
+   */
+  private void escribir(final Elemento[] elementos, final ResultadoLote[] resultados,
+      final int desde, final int hasta, final DatosCRUD datos) {
+    final List<UsuarioId> ids = new ArrayList<>();
+    // Elementos que escribe esta transacción, y cuyo resultado se descarta si no se confirma
+    final boolean[] escritos = new boolean[hasta - desde];
+    int pendientes = 0;
+    for (int i = desde; i < hasta; i++) {
+      if (resultados[i] == null) {
+        escritos[i - desde] = true;
+        pendientes++;
+        if (elementos[i].alta == null) {
+          ids.add(elementos[i].id);
+        }
+      }
+    }
+    if (pendientes == 0) {
+      return;
+    }
+    try {
+      _transactionTemplate.execute(status -> {
+        final Map<UsuarioId, Usuario> existentes =
+            ids.isEmpty() ? Collections.emptyMap() : _usuarios.findAllForUpdate(ids);
+        final List<Usuario> altas = new ArrayList<>(hasta - desde);
+        final List<Usuario> modificaciones = new ArrayList<>(ids.size());
+        for (int i = desde; i < hasta; i++) {
+          final Elemento elemento = elementos[i];
+          if (resultados[i] != null) {
+            continue;
+          }
+          if (elemento.alta != null) {
+            altas.add(elemento.alta);
+            resultados[i] = ResultadoLote.correcto(i, elemento.id, TipoCRUD.ALTA);
+            continue;
+          }
+          final Usuario existente = existentes.get(elemento.id);
+          if (existente == null) {
+            resultados[i] = ResultadoLote.error(i, elemento.id, "No existe el Usuario"); //$NON-NLS-1$
+          } else if (existente.baja().isPresent()) {
+            resultados[i] = ResultadoLote.error(i, elemento.id, "Usuario dado de baja"); //$NON-NLS-1$
+          } else {
+            modificaciones.add(modificacion(elemento, existente, datos));
+            resultados[i] = ResultadoLote.correcto(i, elemento.id, TipoCRUD.MOD);
+          }
+        }
+        if (!altas.isEmpty()) {
+          _usuarios.insertAll(altas);
+        }
+        if (!modificaciones.isEmpty()) {
+          _usuarios.updateAll(modificaciones);
+        }
+        return null;
+      });
+    } catch (final RuntimeException e) {
+      // No sólo DataAccessException y TransactionException: un fallo de los listeners de la
+      // confirmación, como el del diario, llega envuelto en otras excepciones y tampoco puede
+      // descartar los resultados de las transacciones ya confirmadas
+      if (pendientes > 1) {
+        LOG.warn("Lote de Usuarios con elementos {} a {} no confirmado, se reintentan uno a uno", //$NON-NLS-1$
+            desde, hasta - 1, e);
+        for (int i = desde; i < hasta; i++) {
+          if (escritos[i - desde]) {
+            resultados[i] = null;
+            escribir(elementos, resultados, i, i + 1, datos);
+          }
+        }
+        return;
+      }
+      final Throwable causa = NestedExceptionUtils.getMostSpecificCause(e);
+      final String motivo = "Transacción no confirmada: " //$NON-NLS-1$
+          + ((causa.getMessage() != null) ? causa.getMessage() : causa.getClass().getName());
+      LOG.warn("Lote de Usuarios con elementos {} a {} no confirmado", desde, hasta - 1, e); //$NON-NLS-1$
+      for (int i = desde; i < hasta; i++) {
+        if (escritos[i - desde]) {
+          resultados[i] = ResultadoLote.error(i, elementos[i].id, motivo);
+        }
+      }
+    }
+  }
+
+  /**
+   * @return {@code existente} con los datos de {@code elemento} y modificado con {@code datos}.
+   */
+  private static Usuario modificacion(final Elemento elemento, final Usuario existente,
+      final DatosCRUD datos) {
+    final Usuario.Builder builder = elemento.modificacion.builder(elemento.id)
+        .withDatosAlta(existente.alta()).withDatosUltimaModificacion(datos);
+    existente.ultimaVisita().ifPresent(builder::withUltimaVisita);
+    return builder.build();
+  }
+
+  @SuppressWarnings("nls")
+  private static UsuarioId id(final String id) {
+    try {
+      return new UsuarioId(Integer.parseInt(id.trim()));
+    } catch (final IllegalArgumentException e) {
+      throw new IllegalArgumentException("Campo " + ID + " no válido: " + id, e);
+    }
+  }
+}
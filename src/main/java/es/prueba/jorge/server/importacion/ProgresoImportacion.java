@@ -0,0 +1,139 @@
+package es.prueba.jorge.server.importacion;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableMap;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Progreso de una importación de {@link ImportacionUsuarios}: contadores de filas y rendimiento.
+ * <p>
+ * Se actualiza mientras la importación avanza, por lo que puede consultarse en cualquier momento;
+ * al terminar es el resultado de la importación.
+ *
+ * @author Jorge García Villanueva &lt;Jorgegv95@gmail.com&gt;
+ */
+public final class ProgresoImportacion {
+  /**
+   * @return el fichero importado.
+   */
+  public String fichero() {
+    return _fichero;
+  }
+
+  /**
+   * @return la línea del punto de control desde la que se ha retomado la importación, {@code 0} si
+   *         ha empezado desde el principio.
+   */
+  public long desde() {
+    return _desde;
+  }
+
+  /**
+   * @return número de filas leídas del fichero en esta ejecución.
+   */
+  public long leidas() {
+    return _leidas.sum();
+  }
+
+  /**
+   * @return número de {@code Usuario}s dados de alta en esta ejecución.
+   */
+  public long importadas() {
+    return _importadas.sum();
+  }
+
+  /**
+   * @return número de filas rechazadas en esta ejecución.
+   */
+  public long rechazadas() {
+    return _rechazadas.sum();
+  }
+
+  /**
+   * @return última línea confirmada en base de datos, la del punto de control.
+   */
+  public long ultimaLinea() {
+    return _ultimaLinea;
+  }
+
+  /**
+   * @return {@code true} si la importación ha terminado.
+   */
+  public boolean terminada() {
+    return _fin != 0L;
+  }
+
+  /**
+   * @return tiempo transcurrido desde el inicio hasta el final de la importación, o hasta ahora si
+   *         no ha terminado.
+   */
+  public Duration duracion() {
+    return Duration.ofNanos((terminada() ? _fin : System.nanoTime()) - _inicio);
+  }
+
+  /**
+   * @return filas procesadas (importadas o rechazadas) por segundo.
+   */
+  public double filasPorSegundo() {
+    final long nanos = duracion().toNanos();
+    return (nanos == 0L) ? 0.0 : ((importadas() + rechazadas()) * 1e9) / nanos;
+  }
+
+  /**
+   * @return una vista del progreso apta para serializar.
+   */
+  @SuppressWarnings("nls")
+  public Map<String, Object> toMap() {
+    return ImmutableMap.<String, Object>builder().put("fichero", _fichero).put("desde", _desde)
+        .put("leidas", leidas()).put("importadas", importadas()).put("rechazadas", rechazadas())
+        .put("ultimaLinea", _ultimaLinea).put("terminada", terminada())
+        .put("duracionMillis", duracion().toMillis()).put("filasPorSegundo", filasPorSegundo())
+        .build();
+  }
+
+  @SuppressWarnings("nls")
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this).add("fichero", _fichero).add("desde", _desde)
+        .add("leidas", leidas()).add("importadas", importadas()).add("rechazadas", rechazadas())
+        .add("ultimaLinea", _ultimaLinea).add("duracion", duracion())
+        .add("filasPorSegundo", Math.round(filasPorSegundo())).toString();
+  }
+
+  ProgresoImportacion(@Nonnull final String fichero, final long desde) {
+    _fichero = checkNotNull(fichero);
+    _desde = desde;
+    _ultimaLinea = desde;
+    _inicio = System.nanoTime();
+  }
+
+  void leida() {
+    _leidas.increment();
+  }
+
+  void confirmado(final long ultimaLinea, final int importadas, final int rechazadas) {
+    _importadas.add(importadas);
+    _rechazadas.add(rechazadas);
+    _ultimaLinea = ultimaLinea;
+  }
+
+  void terminar() {
+    _fin = System.nanoTime();
+  }
+
+  private final String _fichero;
+  private final long _desde;
+  private final long _inicio;
+  private final LongAdder _leidas = new LongAdder();
+  private final LongAdder _importadas = new LongAdder();
+  private final LongAdder _rechazadas = new LongAdder();
+  private volatile long _ultimaLinea;
+  private volatile long _fin;
+}
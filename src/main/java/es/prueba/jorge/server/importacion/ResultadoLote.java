@@ -0,0 +1,104 @@
+package es.prueba.jorge.server.importacion;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableMap;
+
+import java.util.Map;
+import java.util.Optional;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import es.prueba.jorge.model.TipoCRUD;
+import es.prueba.jorge.model.Usuario;
+import es.prueba.jorge.model.UsuarioId;
+
+/**
+ * Resultado de un elemento de un lote de {@link LoteUsuarios}: la operación con la que se ha
+ * escrito su {@link Usuario} o el motivo por el que no se ha escrito.
+ *
+ * @author Jorge García Villanueva &lt;Jorgegv95@gmail.com&gt;
+ */
+public final class ResultadoLote {
+  /**
+   * @return la posición del elemento en el lote, desde 0.
+   */
+  public int indice() {
+    return _indice;
+  }
+
+  /**
+   * @return el {@link UsuarioId} del {@link Usuario}: el asignado en un alta o el indicado en una
+   *         modificación.
+   */
+  public Optional<UsuarioId> usuarioId() {
+    return Optional.ofNullable(_usuarioId);
+  }
+
+  /**
+   * @return la operación con la que se ha escrito el {@link Usuario}, {@link TipoCRUD#ALTA} o
+   *         {@link TipoCRUD#MOD}, o vacía si no se ha escrito.
+   */
+  public Optional<TipoCRUD> tipo() {
+    return Optional.ofNullable(_tipo);
+  }
+
+  /**
+   * @return el motivo por el que no se ha escrito el {@link Usuario}, o vacío si se ha escrito.
+   */
+  public Optional<String> error() {
+    return Optional.ofNullable(_error);
+  }
+
+  /**
+   * @return {@code true} si se ha escrito el {@link Usuario}.
+   */
+  public boolean correcto() {
+    return _error == null;
+  }
+
+  /**
+   * @return una vista del resultado apta para serializar, sin los campos vacíos.
+   */
+  @SuppressWarnings("nls")
+  public Map<String, Object> toMap() {
+    final ImmutableMap.Builder<String, Object> mapa =
+        ImmutableMap.<String, Object>builder().put("indice", _indice);
+    usuarioId().ifPresent(id -> mapa.put("id", id));
+    tipo().ifPresent(tipo -> mapa.put("tipo", tipo));
+    error().ifPresent(error -> mapa.put("error", error));
+    return mapa.build();
+  }
+
+  @SuppressWarnings("nls")
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this).omitNullValues().add("indice", _indice)
+        .add("usuarioId", _usuarioId).add("tipo", _tipo).add("error", _error).toString();
+  }
+
+  static ResultadoLote correcto(final int indice, @Nonnull final UsuarioId usuarioId,
+      @Nonnull final TipoCRUD tipo) {
+    return new ResultadoLote(indice, checkNotNull(usuarioId), checkNotNull(tipo), null);
+  }
+
+  static ResultadoLote error(final int indice, @Nullable final UsuarioId usuarioId,
+      @Nonnull final String error) {
+    return new ResultadoLote(indice, usuarioId, null, checkNotNull(error));
+  }
+
+  private ResultadoLote(final int indice, final UsuarioId usuarioId, final TipoCRUD tipo,
+      final String error) {
+    _indice = indice;
+    _usuarioId = usuarioId;
+    _tipo = tipo;
+    _error = error;
+  }
+
+  private final int _indice;
+  private final UsuarioId _usuarioId;
+  private final TipoCRUD _tipo;
+  private final String _error;
+}
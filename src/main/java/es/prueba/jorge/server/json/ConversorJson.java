@@ -0,0 +1,55 @@
+package es.prueba.jorge.server.json;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+
+import javax.annotation.Nonnull;
+
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+import es.prueba.jorge.commons.Histogram;
+import es.prueba.jorge.commons.MetricRegistry;
+import es.prueba.jorge.commons.RequestTimings;
+import es.prueba.jorge.server.web.FiltroLatencias;
+
+/**
+ * Conversor JSON de las respuestas que mide el tiempo de serializarlas.
+ * <p>
+ * Cada escritura se registra en la serie {@code tipo="respuesta"} de
+ * {@value ModuloModelo#METRICA_SERIALIZACION} y se suma a la fase
+ * {@link RequestTimings.Phase#SERIALIZATION} de la petición. Incluye el volcado al
+ * {@code OutputStream} de la respuesta, que sólo espera a la red cuando se llena su
+ * <i>buffer</i>.
+ *
+ * @author Jorge García Villanueva &lt;Jorgegv95@gmail.com&gt;
+ */
+public class ConversorJson extends MappingJackson2HttpMessageConverter {
+  /**
+   * @param objectMapper con el que serializar.
+   */
+  public ConversorJson(@Nonnull final ObjectMapper objectMapper) {
+    super(objectMapper);
+  }
+
+  @Override
+  protected void writeInternal(final Object object, final Type type,
+      final HttpOutputMessage outputMessage) throws IOException, HttpMessageNotWritableException {
+    final long inicio = System.nanoTime();
+    try {
+      super.writeInternal(object, type, outputMessage);
+    } finally {
+      final long nanos = System.nanoTime() - inicio;
+      SERIALIZACION.record(nanos);
+      FiltroLatencias.sumar(RequestTimings.Phase.SERIALIZATION, nanos);
+    }
+  }
+
+  @SuppressWarnings("nls")
+  private static final Histogram SERIALIZACION = MetricRegistry.global().histogram(
+      ModuloModelo.METRICA_SERIALIZACION, "Duración de la serialización JSON del modelo", "tipo",
+      "respuesta");
+}
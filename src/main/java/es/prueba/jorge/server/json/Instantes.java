@@ -0,0 +1,193 @@
+package es.prueba.jorge.server.json;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+
+import java.io.IOException;
+import java.time.Instant;
+
+/**
+ * Escritura y lectura de {@link Instant}s en el formato de {@link Instant#toString()} (ISO-8601 en
+ * UTC) sin los objetos intermedios de {@code DateTimeFormatter}, que suponen más de 500 bytes por
+ * instante.
+ * <p>
+ * Solamente se tratan directamente los años entre 0 y 9999 con el formato exacto de
+ * {@code toString()}; el resto de instantes y textos se delega en {@link Instant#toString()} y
+ * {@link Instant#parse(CharSequence)}, por lo que el resultado es siempre el mismo.
+ *
+ * @author Jorge García Villanueva &lt;Jorgegv95@gmail.com&gt;
+ */
+final class Instantes {
+  /**
+   * Escribe {@code instante} como cadena JSON.
+   *
+   * @param json generador en el que escribir.
+   * @param instante a escribir.
+   * @throws IOException si falla la escritura.
+   */
+  static void escribir(final JsonGenerator json, final Instant instante) throws IOException {
+    final char[] texto = new char[LONGITUD_MAXIMA];
+    final int longitud = formatear(instante, texto);
+    if (longitud < 0) {
+      json.writeString(instante.toString());
+    } else {
+      json.writeString(texto, 0, longitud);
+    }
+  }
+
+  /**
+   * Lee el {@link Instant} de la cadena JSON actual de {@code parser}.
+   *
+   * @param parser posicionado en la cadena a leer.
+   * @return el instante leído.
+   * @throws IOException si falla la lectura.
+   * @throws java.time.format.DateTimeParseException si el texto no es un instante.
+   */
+  static Instant leer(final JsonParser parser) throws IOException {
+    final Instant instante = interpretar(parser.getTextCharacters(), parser.getTextOffset(),
+        parser.getTextLength());
+    return (instante != null) ? instante : Instant.parse(parser.getText());
+  }
+
+  /**
+   * @return la longitud del texto escrito en {@code destino}, o {@code -1} si el año está fuera del
+   *         rango tratado.
+   */
+  static int formatear(final Instant instante, final char[] destino) {
+    final long segundos = instante.getEpochSecond();
+    final long dia = Math.floorDiv(segundos, SEGUNDOS_DIA);
+    final int segundoDia = (int) Math.floorMod(segundos, SEGUNDOS_DIA);
+
+    // Fecha civil a partir del día desde 1970-01-01 (algoritmo de H. Hinnant)
+    final long z = dia + 719_468L;
+    final long era = Math.floorDiv(z, 146_097L);
+    final int diaEra = (int) (z - (era * 146_097L));
+    final int anoEra = (diaEra - (diaEra / 1460) + (diaEra / 36_524) - (diaEra / 146_096)) / 365;
+    final int diaAno = diaEra - ((365 * anoEra) + (anoEra / 4) - (anoEra / 100));
+    final int mesMarzo = ((5 * diaAno) + 2) / 153;
+    final int diaMes = (diaAno - (((153 * mesMarzo) + 2) / 5)) + 1;
+    final int mes = (mesMarzo < 10) ? (mesMarzo + 3) : (mesMarzo - 9);
+    final long ano = anoEra + (era * 400) + ((mes <= 2) ? 1 : 0);
+    if ((ano < 0) || (ano > 9999)) {
+      return -1;
+    }
+
+    digitos(destino, 0, (int) ano, 4);
+    destino[4] = '-';
+    digitos(destino, 5, mes, 2);
+    destino[7] = '-';
+    digitos(destino, 8, diaMes, 2);
+    destino[10] = 'T';
+    digitos(destino, 11, segundoDia / 3600, 2);
+    destino[13] = ':';
+    digitos(destino, 14, (segundoDia / 60) % 60, 2);
+    destino[16] = ':';
+    digitos(destino, 17, segundoDia % 60, 2);
+    int longitud = 19;
+    final int nanos = instante.getNano();
+    if (nanos != 0) {
+      destino[longitud++] = '.';
+      // Como toString(): en grupos de tres cifras, hasta la última no nula
+      if ((nanos % 1_000_000) == 0) {
+        digitos(destino, longitud, nanos / 1_000_000, 3);
+        longitud += 3;
+      } else if ((nanos % 1000) == 0) {
+        digitos(destino, longitud, nanos / 1000, 6);
+        longitud += 6;
+      } else {
+        digitos(destino, longitud, nanos, 9);
+        longitud += 9;
+      }
+    }
+    destino[longitud++] = 'Z';
+    return longitud;
+  }
+
+  /**
+   * @return el instante de {@code texto}, o {@code null} si no tiene exactamente el formato de
+   *         {@code toString()} con un año de cuatro cifras.
+   */
+  static Instant interpretar(final char[] texto, final int inicio, final int longitud) {
+    if ((longitud < 20) || (longitud > LONGITUD_MAXIMA)
+        || (texto[(inicio + longitud) - 1] != 'Z') || (texto[inicio + 4] != '-')
+        || (texto[inicio + 7] != '-') || (texto[inicio + 10] != 'T')
+        || (texto[inicio + 13] != ':') || (texto[inicio + 16] != ':')) {
+      return null;
+    }
+    final int ano = numero(texto, inicio, 4);
+    final int mes = numero(texto, inicio + 5, 2);
+    final int diaMes = numero(texto, inicio + 8, 2);
+    final int hora = numero(texto, inicio + 11, 2);
+    final int minuto = numero(texto, inicio + 14, 2);
+    final int segundo = numero(texto, inicio + 17, 2);
+    if ((ano < 0) || (mes < 1) || (mes > 12) || (diaMes < 1) || (diaMes > diasMes(ano, mes))
+        || (hora < 0) || (hora > 23) || (minuto < 0) || (minuto > 59) || (segundo < 0)
+        || (segundo > 59)) {
+      return null;
+    }
+
+    int nanos = 0;
+    final int cifras = longitud - 21;
+    if (cifras >= 0) {
+      if ((cifras == 0) || (texto[inicio + 19] != '.')) {
+        return null;
+      }
+      final int fraccion = numero(texto, inicio + 20, cifras);
+      if (fraccion < 0) {
+        return null;
+      }
+      nanos = fraccion * POTENCIAS[9 - cifras];
+    } else if (longitud != 20) {
+      return null;
+    }
+
+    // Día desde 1970-01-01 a partir de la fecha civil (algoritmo de H. Hinnant)
+    final int anoMarzo = (mes <= 2) ? (ano - 1) : ano;
+    final int era = Math.floorDiv(anoMarzo, 400);
+    final int anoEra = anoMarzo - (era * 400);
+    final int diaAno = ((((153 * (mes + ((mes > 2) ? -3 : 9))) + 2) / 5) + diaMes) - 1;
+    final int diaEra = ((anoEra * 365) + (anoEra / 4)) - (anoEra / 100) + diaAno;
+    final long dia = ((era * 146_097L) + diaEra) - 719_468L;
+    return Instant.ofEpochSecond((dia * SEGUNDOS_DIA) + (hora * 3600) + (minuto * 60) + segundo,
+        nanos);
+  }
+
+  private static void digitos(final char[] destino, final int inicio, final int valor,
+      final int cifras) {
+    int resto = valor;
+    for (int i = (inicio + cifras) - 1; i >= inicio; i--) {
+      destino[i] = (char) ('0' + (resto % 10));
+      resto /= 10;
+    }
+  }
+
+  /** @return el valor de las {@code cifras}, o {@code -1} si alguna no es una cifra */
+  private static int numero(final char[] texto, final int inicio, final int cifras) {
+    int valor = 0;
+    for (int i = inicio; i < (inicio + cifras); i++) {
+      final int cifra = texto[i] - '0';
+      if ((cifra < 0) || (cifra > 9)) {
+        return -1;
+      }
+      valor = (valor * 10) + cifra;
+    }
+    return valor;
+  }
+
+  private static int diasMes(final int ano, final int mes) {
+    if (mes == 2) {
+      return (((ano % 4) == 0) && (((ano % 100) != 0) || ((ano % 400) == 0))) ? 29 : 28;
+    }
+    return ((mes == 4) || (mes == 6) || (mes == 9) || (mes == 11)) ? 30 : 31;
+  }
+
+  /** {@code 2018-04-01T10:15:30.123456789Z} */
+  private static final int LONGITUD_MAXIMA = 30;
+  private static final long SEGUNDOS_DIA = 86_400L;
+  private static final int[] POTENCIAS =
+      {1, 10, 100, 1000, 10_000, 100_000, 1_000_000, 10_000_000, 100_000_000};
+
+  private Instantes() {
+    // Clase de utilidades
+  }
+}
@@ -0,0 +1,616 @@
+package es.prueba.jorge.server.json;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonStreamContext;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.deser.std.StdScalarDeserializer;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.std.StdScalarSerializer;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Optional;
+import java.util.function.Function;
+
+import es.prueba.jorge.commons.Histogram;
+import es.prueba.jorge.commons.MetricRegistry;
+import es.prueba.jorge.model.DatosCRUD;
+import es.prueba.jorge.model.Direccion;
+import es.prueba.jorge.model.Email;
+import es.prueba.jorge.model.Perfil;
+import es.prueba.jorge.model.Persona;
+import es.prueba.jorge.model.Telefono;
+import es.prueba.jorge.model.TipoCRUD;
+import es.prueba.jorge.model.Usuario;
+import es.prueba.jorge.model.UsuarioId;
+
+/**
+ * Módulo de Jackson con los serializadores y deserializadores del modelo, escritos a mano para que
+ * Jackson no tenga que recurrir a la reflexión sobre sus clases, que exponen métodos de acceso
+ * como {@link Usuario#persona()} en lugar de <i>getters</i>.
+ * <p>
+ * Los {@code ValueObject}s de un único valor ({@link Email}, {@link Telefono}, {@link Perfil},
+ * {@link TipoCRUD} y {@link UsuarioId}) se serializan como escalares. El resto se serializa como
+ * objetos con los campos siempre en el mismo orden, por lo que no hace falta ordenarlos, y con los
+ * nombres de la exportación NDJSON donde coinciden. Los campos opcionales ausentes se omiten y,
+ * al deserializar, los campos desconocidos se tratan según
+ * {@link com.fasterxml.jackson.databind.DeserializationFeature#FAIL_ON_UNKNOWN_PROPERTIES}.
+ * <p>
+ * El tiempo de serializar cada {@link Usuario} se registra en {@value #METRICA_SERIALIZACION} de
+ * {@link MetricRegistry#global()}. En un <i>array</i> de {@code Usuario}s, como una página, cada
+ * uno empieza donde termina el anterior, y su medida reutiliza la lectura del reloj con la que
+ * terminó la del anterior: una lectura por {@code Usuario} en lugar de dos.
+ *
+ * @author Jorge García Villanueva &lt;Jorgegv95@gmail.com&gt;
+ */
+public final class ModuloModelo extends SimpleModule {
+  /** Métrica con la duración de la serialización de cada {@link Usuario} */
+  public static final String METRICA_SERIALIZACION = "json_serializacion_seconds"; //$NON-NLS-1$
+
+  /**
+   * Ctor del módulo. Registra los serializadores y deserializadores de todas las clases del modelo.
+   */
+  public ModuloModelo() {
+    super(ModuloModelo.class.getSimpleName());
+    escalar(Email.class, Email::email, Email::of);
+    escalar(Telefono.class, Telefono::telefono, Telefono::of);
+    escalar(Perfil.class, Perfil::perfil, Perfil::valueOf);
+    escalar(TipoCRUD.class, TipoCRUD::value, TipoCRUD::valueOf);
+    addSerializer(UsuarioId.class, new UsuarioIdSerializer());
+    addDeserializer(UsuarioId.class, new UsuarioIdDeserializer());
+    addSerializer(DatosCRUD.class, new DatosCRUDSerializer());
+    addDeserializer(DatosCRUD.class, new DatosCRUDDeserializer());
+    addSerializer(Persona.class, new PersonaSerializer());
+    addDeserializer(Persona.class, new PersonaDeserializer());
+    addSerializer(Direccion.class, new DireccionSerializer());
+    addDeserializer(Direccion.class, new DireccionDeserializer());
+    addSerializer(Usuario.class, new UsuarioSerializer());
+    addDeserializer(Usuario.class, new UsuarioDeserializer());
+  }
+
+  private <T> void escalar(final Class<T> tipo, final Function<T, String> valor,
+      final Function<String, T> crear) {
+    addSerializer(tipo, new EscalarSerializer<>(tipo, valor));
+    addDeserializer(tipo, new EscalarDeserializer<>(tipo, crear));
+  }
+
+  @SuppressWarnings("nls")
+  private static final Histogram SERIALIZACION_USUARIO = MetricRegistry.global().histogram(
+      METRICA_SERIALIZACION, "Duración de la serialización JSON del modelo", "tipo", "Usuario");
+
+  // Nombres de los campos, codificados una única vez
+  private static final SerializedString ID = new SerializedString("id"); //$NON-NLS-1$
+  private static final SerializedString PERSONA = new SerializedString("persona"); //$NON-NLS-1$
+  private static final SerializedString PERFIL = new SerializedString("perfil"); //$NON-NLS-1$
+  private static final SerializedString TELEFONO = new SerializedString("telefono"); //$NON-NLS-1$
+  private static final SerializedString EMAIL = new SerializedString("email"); //$NON-NLS-1$
+  private static final SerializedString ULTIMA_VISITA =
+      new SerializedString("ultimaVisita"); //$NON-NLS-1$
+  private static final SerializedString ALTA = new SerializedString("alta"); //$NON-NLS-1$
+  private static final SerializedString BAJA = new SerializedString("baja"); //$NON-NLS-1$
+  private static final SerializedString MODIFICACION =
+      new SerializedString("modificacion"); //$NON-NLS-1$
+  private static final SerializedString NOMBRE = new SerializedString("nombre"); //$NON-NLS-1$
+  private static final SerializedString APELLIDO1 = new SerializedString("apellido1"); //$NON-NLS-1$
+  private static final SerializedString APELLIDO2 = new SerializedString("apellido2"); //$NON-NLS-1$
+  private static final SerializedString USUARIO = new SerializedString("usuario"); //$NON-NLS-1$
+  private static final SerializedString INSTANTE = new SerializedString("instante"); //$NON-NLS-1$
+  private static final SerializedString DIRECCION = new SerializedString("direccion"); //$NON-NLS-1$
+  private static final SerializedString CODIGO_POSTAL =
+      new SerializedString("codigoPostal"); //$NON-NLS-1$
+  private static final SerializedString POBLACION = new SerializedString("poblacion"); //$NON-NLS-1$
+  private static final SerializedString PROVINCIA = new SerializedString("provincia"); //$NON-NLS-1$
+
+  private static final long serialVersionUID = 5209367345081927146L;
+
+  private static void escribir(final JsonGenerator json, final Persona persona)
+      throws IOException {
+    json.writeStartObject();
+    json.writeFieldName(NOMBRE);
+    json.writeString(persona.nombre());
+    json.writeFieldName(APELLIDO1);
+    json.writeString(persona.apellido1());
+    if (persona.apellido2().isPresent()) {
+      json.writeFieldName(APELLIDO2);
+      json.writeString(persona.apellido2().get());
+    }
+    json.writeEndObject();
+  }
+
+  private static void escribir(final JsonGenerator json, final SerializedString campo,
+      final Optional<DatosCRUD> datos) throws IOException {
+    if (datos.isPresent()) {
+      json.writeFieldName(campo);
+      escribir(json, datos.get());
+    }
+  }
+
+  private static void escribir(final JsonGenerator json, final DatosCRUD datos)
+      throws IOException {
+    json.writeStartObject();
+    json.writeFieldName(USUARIO);
+    json.writeNumber(datos.usuarioId().id());
+    json.writeFieldName(INSTANTE);
+    Instantes.escribir(json, datos.instant());
+    json.writeEndObject();
+  }
+
+  private static Persona persona(final JsonParser parser, final DeserializationContext ctxt,
+      final StdDeserializer<?> deserializer) throws IOException {
+    comienzoObjeto(parser, ctxt, Persona.class);
+    final Persona.Builder persona = Persona.builder();
+    String nombre = null;
+    String apellido1 = null;
+    String campo;
+    while ((campo = parser.nextFieldName()) != null) {
+      parser.nextToken();
+      switch (campo) {
+        case "nombre": //$NON-NLS-1$
+          nombre = texto(parser, ctxt, Persona.class);
+          break;
+        case "apellido1": //$NON-NLS-1$
+          apellido1 = texto(parser, ctxt, Persona.class);
+          break;
+        case "apellido2": //$NON-NLS-1$
+          if (parser.currentToken() != JsonToken.VALUE_NULL) {
+            persona.withApellido2(texto(parser, ctxt, Persona.class));
+          }
+          break;
+        default:
+          desconocido(parser, ctxt, deserializer, Persona.class, campo);
+      }
+    }
+    return persona.withNombre(requerido(ctxt, deserializer, nombre, "nombre")) //$NON-NLS-1$
+        .withApellido1(requerido(ctxt, deserializer, apellido1, "apellido1")).build(); //$NON-NLS-1$
+  }
+
+  private static DatosCRUD datosCRUD(final JsonParser parser, final DeserializationContext ctxt,
+      final StdDeserializer<?> deserializer) throws IOException {
+    comienzoObjeto(parser, ctxt, DatosCRUD.class);
+    UsuarioId usuario = null;
+    Instant instante = null;
+    String campo;
+    while ((campo = parser.nextFieldName()) != null) {
+      parser.nextToken();
+      switch (campo) {
+        case "usuario": //$NON-NLS-1$
+          usuario = usuarioId(parser, ctxt);
+          break;
+        case "instante": //$NON-NLS-1$
+          instante = instante(parser, ctxt);
+          break;
+        default:
+          desconocido(parser, ctxt, deserializer, DatosCRUD.class, campo);
+      }
+    }
+    return new DatosCRUD(requerido(ctxt, deserializer, usuario, "usuario"), //$NON-NLS-1$
+        requerido(ctxt, deserializer, instante, "instante")); //$NON-NLS-1$
+  }
+
+  /** {@code null} si el valor es {@code null}, para los campos opcionales */
+  private static DatosCRUD datosCRUDOpcionales(final JsonParser parser,
+      final DeserializationContext ctxt, final StdDeserializer<?> deserializer) throws IOException {
+    return (parser.currentToken() == JsonToken.VALUE_NULL) ? null
+        : datosCRUD(parser, ctxt, deserializer);
+  }
+
+  private static UsuarioId usuarioId(final JsonParser parser, final DeserializationContext ctxt)
+      throws IOException {
+    if (parser.currentToken() != JsonToken.VALUE_NUMBER_INT) {
+      throw ctxt.wrongTokenException(parser, UsuarioId.class, JsonToken.VALUE_NUMBER_INT, null);
+    }
+    return new UsuarioId(parser.getIntValue());
+  }
+
+  private static Instant instante(final JsonParser parser, final DeserializationContext ctxt)
+      throws IOException {
+    texto(parser, ctxt, Instant.class);
+    try {
+      return Instantes.leer(parser);
+    } catch (final DateTimeParseException e) {
+      throw ctxt.weirdStringException(parser.getText(), Instant.class, e.getMessage());
+    }
+  }
+
+  private static <T> T valor(final JsonParser parser, final DeserializationContext ctxt,
+      final Class<T> tipo, final Function<String, T> crear) throws IOException {
+    final String texto = texto(parser, ctxt, tipo);
+    try {
+      return crear.apply(texto);
+    } catch (final IllegalArgumentException | NullPointerException e) {
+      throw ctxt.weirdStringException(texto, tipo, "valor no válido"); //$NON-NLS-1$
+    }
+  }
+
+  private static String texto(final JsonParser parser, final DeserializationContext ctxt,
+      final Class<?> tipo) throws IOException {
+    if (parser.currentToken() != JsonToken.VALUE_STRING) {
+      throw ctxt.wrongTokenException(parser, tipo, JsonToken.VALUE_STRING, null);
+    }
+    return parser.getText();
+  }
+
+  private static void comienzoObjeto(final JsonParser parser, final DeserializationContext ctxt,
+      final Class<?> tipo) throws IOException {
+    if (parser.currentToken() != JsonToken.START_OBJECT) {
+      throw ctxt.wrongTokenException(parser, tipo, JsonToken.START_OBJECT, null);
+    }
+  }
+
+  /** Lo descarta o falla según la configuración, como hace {@code StdDeserializer} */
+  private static void desconocido(final JsonParser parser, final DeserializationContext ctxt,
+      final StdDeserializer<?> deserializer, final Class<?> tipo, final String campo)
+      throws IOException {
+    if (!ctxt.handleUnknownProperty(parser, deserializer, tipo, campo)) {
+      parser.skipChildren();
+    }
+  }
+
+  private static <T> T requerido(final DeserializationContext ctxt,
+      final StdDeserializer<?> deserializer, final T valor, final String campo)
+      throws IOException {
+    if (valor == null) {
+      ctxt.reportInputMismatch(deserializer, "Falta el campo %s", campo); //$NON-NLS-1$
+    }
+    return valor;
+  }
+
+  /**
+   * {@code ValueObject} de un único valor, serializado como cadena.
+   */
+  private static final class EscalarSerializer<T> extends StdScalarSerializer<T> {
+    EscalarSerializer(final Class<T> tipo, final Function<T, String> valor) {
+      super(tipo);
+      _valor = valor;
+    }
+
+    @Override
+    public void serialize(final T value, final JsonGenerator json,
+        final SerializerProvider provider) throws IOException {
+      json.writeString(_valor.apply(value));
+    }
+
+    private final Function<T, String> _valor;
+
+    private static final long serialVersionUID = -3080623186393117962L;
+  }
+
+  private static final class EscalarDeserializer<T> extends StdScalarDeserializer<T> {
+    EscalarDeserializer(final Class<T> tipo, final Function<String, T> crear) {
+      super(tipo);
+      _tipo = tipo;
+      _crear = crear;
+    }
+
+    @Override
+    public T deserialize(final JsonParser parser, final DeserializationContext ctxt)
+        throws IOException {
+      return valor(parser, ctxt, _tipo, _crear);
+    }
+
+    private final Class<T> _tipo;
+    private final Function<String, T> _crear;
+
+    private static final long serialVersionUID = 8916123578542385045L;
+  }
+
+  private static final class UsuarioIdSerializer extends StdScalarSerializer<UsuarioId> {
+    UsuarioIdSerializer() {
+      super(UsuarioId.class);
+    }
+
+    @Override
+    public void serialize(final UsuarioId value, final JsonGenerator json,
+        final SerializerProvider provider) throws IOException {
+      json.writeNumber(value.id());
+    }
+
+    private static final long serialVersionUID = 2290745460637916385L;
+  }
+
+  private static final class UsuarioIdDeserializer extends StdScalarDeserializer<UsuarioId> {
+    UsuarioIdDeserializer() {
+      super(UsuarioId.class);
+    }
+
+    @Override
+    public UsuarioId deserialize(final JsonParser parser, final DeserializationContext ctxt)
+        throws IOException {
+      return usuarioId(parser, ctxt);
+    }
+
+    private static final long serialVersionUID = -6500954021683614378L;
+  }
+
+  private static final class DatosCRUDSerializer extends StdSerializer<DatosCRUD> {
+    DatosCRUDSerializer() {
+      super(DatosCRUD.class);
+    }
+
+    @Override
+    public void serialize(final DatosCRUD value, final JsonGenerator json,
+        final SerializerProvider provider) throws IOException {
+      escribir(json, value);
+    }
+
+    private static final long serialVersionUID = 4485329218213062035L;
+  }
+
+  private static final class DatosCRUDDeserializer extends StdDeserializer<DatosCRUD> {
+    DatosCRUDDeserializer() {
+      super(DatosCRUD.class);
+    }
+
+    @Override
+    public DatosCRUD deserialize(final JsonParser parser, final DeserializationContext ctxt)
+        throws IOException {
+      return datosCRUD(parser, ctxt, this);
+    }
+
+    private static final long serialVersionUID = -2754508931839528064L;
+  }
+
+  private static final class PersonaSerializer extends StdSerializer<Persona> {
+    PersonaSerializer() {
+      super(Persona.class);
+    }
+
+    @Override
+    public void serialize(final Persona value, final JsonGenerator json,
+        final SerializerProvider provider) throws IOException {
+      escribir(json, value);
+    }
+
+    private static final long serialVersionUID = -5969014757386040113L;
+  }
+
+  private static final class PersonaDeserializer extends StdDeserializer<Persona> {
+    PersonaDeserializer() {
+      super(Persona.class);
+    }
+
+    @Override
+    public Persona deserialize(final JsonParser parser, final DeserializationContext ctxt)
+        throws IOException {
+      return persona(parser, ctxt, this);
+    }
+
+    private static final long serialVersionUID = 1771698325127374306L;
+  }
+
+  private static final class DireccionSerializer extends StdSerializer<Direccion> {
+    DireccionSerializer() {
+      super(Direccion.class);
+    }
+
+    @Override
+    public void serialize(final Direccion value, final JsonGenerator json,
+        final SerializerProvider provider) throws IOException {
+      json.writeStartObject();
+      json.writeFieldName(DIRECCION);
+      json.writeString(value.direccion());
+      json.writeFieldName(CODIGO_POSTAL);
+      json.writeNumber(value.codigoPostal());
+      json.writeFieldName(POBLACION);
+      json.writeString(value.poblacion());
+      json.writeFieldName(PROVINCIA);
+      json.writeString(value.provincia());
+      json.writeEndObject();
+    }
+
+    private static final long serialVersionUID = -7163962290147355466L;
+  }
+
+  private static final class DireccionDeserializer extends StdDeserializer<Direccion> {
+    DireccionDeserializer() {
+      super(Direccion.class);
+    }
+
+    @SuppressWarnings("nls")
+    @Override
+    public Direccion deserialize(final JsonParser parser, final DeserializationContext ctxt)
+        throws IOException {
+      comienzoObjeto(parser, ctxt, Direccion.class);
+      String direccion = null;
+      Integer codigoPostal = null;
+      String poblacion = null;
+      String provincia = null;
+      String campo;
+      while ((campo = parser.nextFieldName()) != null) {
+        parser.nextToken();
+        switch (campo) {
+          case "direccion":
+            direccion = texto(parser, ctxt, Direccion.class);
+            break;
+          case "codigoPostal":
+            if (parser.currentToken() != JsonToken.VALUE_NUMBER_INT) {
+              throw ctxt.wrongTokenException(parser, Direccion.class, JsonToken.VALUE_NUMBER_INT,
+                  null);
+            }
+            codigoPostal = Integer.valueOf(parser.getIntValue());
+            break;
+          case "poblacion":
+            poblacion = texto(parser, ctxt, Direccion.class);
+            break;
+          case "provincia":
+            provincia = texto(parser, ctxt, Direccion.class);
+            break;
+          default:
+            desconocido(parser, ctxt, this, Direccion.class, campo);
+        }
+      }
+      final Direccion.Builder builder = Direccion.builder()
+          .withDireccion(requerido(ctxt, this, direccion, "direccion"))
+          .withPoblacion(requerido(ctxt, this, poblacion, "poblacion"))
+          .withProvincia(requerido(ctxt, this, provincia, "provincia"));
+      try {
+        return builder.withCodigoPostal(requerido(ctxt, this, codigoPostal, "codigoPostal")
+            .intValue()).build();
+      } catch (final IllegalArgumentException e) {
+        return ctxt.reportInputMismatch(this, e.getMessage());
+      }
+    }
+
+    private static final long serialVersionUID = 3651287436208736829L;
+  }
+
+  private static final class UsuarioSerializer extends StdSerializer<Usuario> {
+    UsuarioSerializer() {
+      super(Usuario.class);
+    }
+
+    @Override
+    public void serialize(final Usuario value, final JsonGenerator json,
+        final SerializerProvider provider) throws IOException {
+      final JsonStreamContext contexto = json.getOutputContext();
+      final Encadenado anterior = (Encadenado) provider.getAttribute(Encadenado.class);
+      final long inicio =
+          ((anterior != null) && anterior.sigue(contexto)) ? anterior.fin : System.nanoTime();
+      try {
+        json.writeStartObject();
+        json.writeFieldName(ID);
+        json.writeNumber(value.identity().id());
+        json.writeFieldName(PERSONA);
+        escribir(json, value.persona());
+        json.writeFieldName(PERFIL);
+        json.writeString(value.perfil().perfil());
+        json.writeFieldName(TELEFONO);
+        json.writeString(value.telefono().telefono());
+        json.writeFieldName(EMAIL);
+        json.writeString(value.email().email());
+        if (value.ultimaVisita().isPresent()) {
+          json.writeFieldName(ULTIMA_VISITA);
+          Instantes.escribir(json, value.ultimaVisita().get());
+        }
+        json.writeFieldName(ALTA);
+        escribir(json, value.alta());
+        escribir(json, BAJA, value.baja());
+        escribir(json, MODIFICACION, value.modificacion());
+        json.writeEndObject();
+      } finally {
+        final long fin = SERIALIZACION_USUARIO.recordSince(inicio);
+        if (anterior == null) {
+          provider.setAttribute(Encadenado.class, new Encadenado(contexto, fin));
+        } else {
+          anterior.terminado(contexto, fin);
+        }
+      }
+    }
+
+    private static final long serialVersionUID = -1369146916001497826L;
+  }
+
+  /**
+   * Último {@link Usuario} serializado en una llamada a Jackson, para que el siguiente de un
+   * <i>array</i> empiece a medir donde terminó.
+   */
+  private static final class Encadenado {
+    Encadenado(final JsonStreamContext contexto, final long fin) {
+      terminado(contexto, fin);
+    }
+
+    /**
+     * @return {@code true} si {@code contexto} es el <i>array</i> del anterior y no se ha escrito
+     *         nada desde que terminó.
+     */
+    boolean sigue(final JsonStreamContext contexto) {
+      return (contexto == _contexto) && contexto.inArray()
+          && (contexto.getEntryCount() == _entradas);
+    }
+
+    void terminado(final JsonStreamContext contexto, final long terminado) {
+      _contexto = contexto;
+      _entradas = contexto.getEntryCount();
+      fin = terminado;
+    }
+
+    private JsonStreamContext _contexto;
+    private int _entradas;
+    /** Valor de {@link System#nanoTime()} al terminar */
+    long fin;
+  }
+
+  private static final class UsuarioDeserializer extends StdDeserializer<Usuario> {
+    UsuarioDeserializer() {
+      super(Usuario.class);
+    }
+
+    @SuppressWarnings("nls")
+    @Override
+    public Usuario deserialize(final JsonParser parser, final DeserializationContext ctxt)
+        throws IOException {
+      comienzoObjeto(parser, ctxt, Usuario.class);
+      UsuarioId id = null;
+      Persona persona = null;
+      Perfil perfil = null;
+      Telefono telefono = null;
+      Email email = null;
+      Instant ultimaVisita = null;
+      DatosCRUD alta = null;
+      DatosCRUD baja = null;
+      DatosCRUD modificacion = null;
+      String campo;
+      while ((campo = parser.nextFieldName()) != null) {
+        parser.nextToken();
+        switch (campo) {
+          case "id":
+            id = usuarioId(parser, ctxt);
+            break;
+          case "persona":
+            persona = persona(parser, ctxt, this);
+            break;
+          case "perfil":
+            perfil = valor(parser, ctxt, Perfil.class, Perfil::valueOf);
+            break;
+          case "telefono":
+            telefono = valor(parser, ctxt, Telefono.class, Telefono::of);
+            break;
+          case "email":
+            email = valor(parser, ctxt, Email.class, Email::of);
+            break;
+          case "ultimaVisita":
+            ultimaVisita =
+                (parser.currentToken() == JsonToken.VALUE_NULL) ? null : instante(parser, ctxt);
+            break;
+          case "alta":
+            alta = datosCRUD(parser, ctxt, this);
+            break;
+          case "baja":
+            baja = datosCRUDOpcionales(parser, ctxt, this);
+            break;
+          case "modificacion":
+            modificacion = datosCRUDOpcionales(parser, ctxt, this);
+            break;
+          default:
+            desconocido(parser, ctxt, this, Usuario.class, campo);
+        }
+      }
+      final Usuario.Builder usuario = Usuario.builder(requerido(ctxt, this, id, "id"))
+          .withPersona(requerido(ctxt, this, persona, "persona"))
+          .withPerfil(requerido(ctxt, this, perfil, "perfil"))
+          .withTelefono(requerido(ctxt, this, telefono, "telefono"))
+          .withEmail(requerido(ctxt, this, email, "email"))
+          .withDatosAlta(requerido(ctxt, this, alta, "alta"));
+      if (ultimaVisita != null) {
+        usuario.withUltimaVisita(ultimaVisita);
+      }
+      if (baja != null) {
+        usuario.withDatosBaja(baja);
+      }
+      if (modificacion != null) {
+        usuario.withDatosUltimaModificacion(modificacion);
+      }
+      return usuario.build();
+    }
+
+    private static final long serialVersionUID = 6925841437046282069L;
+  }
+
+}
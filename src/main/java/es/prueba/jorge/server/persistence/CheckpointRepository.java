@@ -0,0 +1,76 @@
+package es.prueba.jorge.server.persistence;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import javax.annotation.Nonnull;
+import javax.inject.Inject;
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Puntos de control de las importaciones, en la tabla {@code IMPORTACION_CHECKPOINT}.
+ * <p>
+ * Cada punto de control guarda la última línea importada de un fichero. Se actualiza en la misma
+ * transacción que las filas importadas, de modo que una importación interrumpida puede retomarse
+ * sin duplicar ni perder filas.
+ *
+ * @author Jorge García Villanueva &lt;Jorgegv95@gmail.com&gt;
+ */
+@Repository
+@Transactional
+public class CheckpointRepository {
+  /**
+   * @param dataSource de la base de datos.
+   */
+  @Inject
+  public CheckpointRepository(@Nonnull final DataSource dataSource) {
+    _jdbcTemplate = new JdbcTemplate(checkNotNull(dataSource));
+  }
+
+  /**
+   * @param fichero identificador del fichero importado.
+   * @return la última línea importada de {@code fichero}, o {@code 0} si no hay punto de control.
+   */
+  @SuppressWarnings("nls")
+  @Transactional(readOnly = true)
+  public long linea(@Nonnull final String fichero) {
+    return _jdbcTemplate
+        .queryForList("SELECT LINEA FROM IMPORTACION_CHECKPOINT WHERE FICHERO = ?", Long.class,
+            checkNotNull(fichero))
+        .stream().findFirst().orElse(Long.valueOf(0L)).longValue();
+  }
+
+  /**
+   * @param fichero identificador del fichero importado.
+   * @param linea última línea importada de {@code fichero}.
+   * @throws IllegalArgumentException si {@code linea} es negativa.
+   */
+  @SuppressWarnings("nls")
+  public void save(@Nonnull final String fichero, final long linea) {
+    checkArgument(linea >= 0);
+    final Long valor = Long.valueOf(linea);
+    if (_jdbcTemplate.update("UPDATE IMPORTACION_CHECKPOINT SET LINEA = ? WHERE FICHERO = ?",
+        valor, checkNotNull(fichero)) == 0) {
+      _jdbcTemplate.update("INSERT INTO IMPORTACION_CHECKPOINT (FICHERO, LINEA) VALUES (?, ?)",
+          fichero, valor);
+    }
+  }
+
+  /**
+   * Elimina el punto de control de {@code fichero}, para poder importarlo de nuevo desde el
+   * principio.
+   *
+   * @param fichero identificador del fichero importado.
+   */
+  @SuppressWarnings("nls")
+  public void delete(@Nonnull final String fichero) {
+    _jdbcTemplate.update("DELETE FROM IMPORTACION_CHECKPOINT WHERE FICHERO = ?",
+        checkNotNull(fichero));
+  }
+
+  private final JdbcTemplate _jdbcTemplate;
+}
@@ -0,0 +1,65 @@
+package es.prueba.jorge.server.persistence;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.Optional;
+
+import javax.annotation.Nonnull;
+import javax.inject.Inject;
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import es.prueba.jorge.model.Usuario;
+import es.prueba.jorge.model.UsuarioId;
+
+/**
+ * Claves de inicio de sesión de los {@link Usuario}s, en la tabla {@code CREDENCIAL}.
+ * <p>
+ * Las claves se guardan ya codificadas por el {@code PasswordEncoder} de la aplicación, con el
+ * prefijo de su algoritmo (por ejemplo {@code {bcrypt}}). Sólo se consultan al iniciar sesión:
+ * las peticiones se autentican después con un <i>token</i> de acceso.
+ *
+ * @author Jorge García Villanueva &lt;Jorgegv95@gmail.com&gt;
+ */
+@Repository
+@Transactional
+public class CredencialRepository {
+  /**
+   * @param dataSource de la base de datos.
+   */
+  @Inject
+  public CredencialRepository(@Nonnull final DataSource dataSource) {
+    _jdbcTemplate = new JdbcTemplate(checkNotNull(dataSource));
+  }
+
+  /**
+   * @param usuarioId del {@link Usuario}.
+   * @return la clave codificada del {@code Usuario}, si tiene.
+   */
+  @SuppressWarnings("nls")
+  @Transactional(readOnly = true)
+  public Optional<String> clave(@Nonnull final UsuarioId usuarioId) {
+    return _jdbcTemplate
+        .queryForList("SELECT CLAVE FROM CREDENCIAL WHERE USUARIO_ID = ?", String.class,
+            Integer.valueOf(usuarioId.id()))
+        .stream().findFirst();
+  }
+
+  /**
+   * @param usuarioId del {@link Usuario}.
+   * @param clave del {@code Usuario}, ya codificada.
+   */
+  @SuppressWarnings("nls")
+  public void save(@Nonnull final UsuarioId usuarioId, @Nonnull final String clave) {
+    final Integer id = Integer.valueOf(usuarioId.id());
+    if (_jdbcTemplate.update("UPDATE CREDENCIAL SET CLAVE = ? WHERE USUARIO_ID = ?",
+        checkNotNull(clave), id) == 0) {
+      _jdbcTemplate.update("INSERT INTO CREDENCIAL (USUARIO_ID, CLAVE) VALUES (?, ?)", id, clave);
+    }
+  }
+
+  private final JdbcTemplate _jdbcTemplate;
+}
@@ -0,0 +1,53 @@
+package es.prueba.jorge.server.persistence;
+
+import java.time.Instant;
+
+import javax.annotation.Nullable;
+import javax.persistence.Column;
+import javax.persistence.Embeddable;
+
+import es.prueba.jorge.model.DatosCRUD;
+import es.prueba.jorge.model.UsuarioId;
+
+/**
+ * Columnas de unos {@link DatosCRUD}. {@link UsuarioJpa} las incluye una vez por operación,
+ * renombrando las columnas con {@code @AttributeOverride}.
+ *
+ * @author Jorge García Villanueva &lt;Jorgegv95@gmail.com&gt;
+ */
+@Embeddable
+public class DatosCRUDJpa {
+  /**
+   * @param datos a persistir, si los hay.
+   * @return las columnas correspondientes a {@code datos}, o {@code null} si no los hay.
+   */
+  static DatosCRUDJpa of(@Nullable final DatosCRUD datos) {
+    if (datos == null) {
+      return null;
+    }
+    final DatosCRUDJpa jpa = new DatosCRUDJpa();
+    jpa.usuario = Integer.valueOf(datos.usuarioId().id());
+    jpa.instante = datos.instant();
+    return jpa;
+  }
+
+  /**
+   * @param jpa columnas leídas, {@code null} si todas eran nulas.
+   * @return los {@link DatosCRUD} correspondientes a {@code jpa}, o {@code null} si no los hay.
+   */
+  static DatosCRUD toDatosCRUD(@Nullable final DatosCRUDJpa jpa) {
+    return (jpa == null) ? null : new DatosCRUD(new UsuarioId(jpa.usuario.intValue()), jpa.instante);
+  }
+
+  /** Ctor para JPA. */
+  protected DatosCRUDJpa() {
+    // Nothing to do
+  }
+
+  /** Identificador del {@code Usuario} que realizó la operación */
+  @Column(name = "USUARIO")
+  private Integer usuario;
+  /** Momento de la operación */
+  @Column(name = "INSTANTE")
+  private Instant instante;
+}
@@ -0,0 +1,25 @@
+package es.prueba.jorge.server.persistence;
+
+import javax.persistence.AttributeConverter;
+import javax.persistence.Converter;
+
+import es.prueba.jorge.model.Email;
+
+/**
+ * Persiste un {@link Email} como su valor en una columna de texto. Al leer se obtiene la instancia
+ * canónica con {@link Email#of(String)}.
+ *
+ * @author Jorge García Villanueva &lt;Jorgegv95@gmail.com&gt;
+ */
+@Converter(autoApply = true)
+public class EmailConverter implements AttributeConverter<Email, String> {
+  @Override
+  public String convertToDatabaseColumn(final Email attribute) {
+    return (attribute == null) ? null : attribute.email();
+  }
+
+  @Override
+  public Email convertToEntityAttribute(final String dbData) {
+    return (dbData == null) ? null : Email.of(dbData);
+  }
+}
@@ -0,0 +1,24 @@
+package es.prueba.jorge.server.persistence;
+
+import javax.persistence.AttributeConverter;
+import javax.persistence.Converter;
+
+import es.prueba.jorge.model.Perfil;
+
+/**
+ * Persiste un {@link Perfil} como su código en una columna de texto.
+ *
+ * @author Jorge García Villanueva &lt;Jorgegv95@gmail.com&gt;
+ */
+@Converter(autoApply = true)
+public class PerfilConverter implements AttributeConverter<Perfil, String> {
+  @Override
+  public String convertToDatabaseColumn(final Perfil attribute) {
+    return (attribute == null) ? null : attribute.perfil();
+  }
+
+  @Override
+  public Perfil convertToEntityAttribute(final String dbData) {
+    return (dbData == null) ? null : Perfil.valueOf(dbData);
+  }
+}
@@ -0,0 +1,50 @@
+package es.prueba.jorge.server.persistence;
+
+import javax.persistence.Column;
+import javax.persistence.Embeddable;
+
+import es.prueba.jorge.model.Persona;
+
+/**
+ * Columnas de la {@link Persona} de un {@link UsuarioJpa}.
+ *
+ * @author Jorge García Villanueva &lt;Jorgegv95@gmail.com&gt;
+ */
+@Embeddable
+public class PersonaJpa {
+  /**
+   * @param persona a persistir.
+   * @return las columnas correspondientes a {@code persona}.
+   */
+  static PersonaJpa of(final Persona persona) {
+    final PersonaJpa jpa = new PersonaJpa();
+    jpa.nombre = persona.nombre();
+    jpa.apellido1 = persona.apellido1();
+    jpa.apellido2 = persona.apellido2().orElse(null);
+    return jpa;
+  }
+
+  /**
+   * @return la {@link Persona} correspondiente a estas columnas.
+   */
+  Persona toPersona() {
+    final Persona.Builder builder =
+        Persona.builder().withNombre(nombre).withApellido1(apellido1);
+    if (apellido2 != null) {
+      builder.withApellido2(apellido2);
+    }
+    return builder.build();
+  }
+
+  /** Ctor para JPA. */
+  protected PersonaJpa() {
+    // Nothing to do
+  }
+
+  @Column(name = "NOMBRE", nullable = false, length = 100)
+  private String nombre;
+  @Column(name = "APELLIDO1", nullable = false, length = 100)
+  private String apellido1;
+  @Column(name = "APELLIDO2", length = 100)
+  private String apellido2;
+}
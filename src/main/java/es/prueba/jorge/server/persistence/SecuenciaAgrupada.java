@@ -0,0 +1,62 @@
+package es.prueba.jorge.server.persistence;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.base.MoreObjects;
+
+import javax.annotation.Nonnull;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Reparte identificadores de una secuencia de base de datos en bloques (<i>pooled-lo</i>).
+ * <p>
+ * La secuencia ha de crearse con {@code INCREMENT BY} igual al {@code incremento} indicado. Cada
+ * {@code NEXTVAL} reserva el bloque {@code [valor, valor + incremento)}, de modo que sólo se va a
+ * base de datos una vez cada {@code incremento} identificadores. Los identificadores de un bloque
+ * que no se lleguen a usar se pierden al reiniciar, como con cualquier secuencia con caché.
+ *
+ * @author Jorge García Villanueva &lt;Jorgegv95@gmail.com&gt;
+ */
+public class SecuenciaAgrupada {
+  /**
+   * @param jdbcTemplate con el que consultar la secuencia.
+   * @param secuencia nombre de la secuencia.
+   * @param incremento de la secuencia, tamaño de cada bloque.
+   * @throws IllegalArgumentException si {@code incremento} no es positivo.
+   */
+  public SecuenciaAgrupada(@Nonnull final JdbcTemplate jdbcTemplate,
+      @Nonnull final String secuencia, final int incremento) {
+    checkArgument(incremento > 0);
+    _jdbcTemplate = checkNotNull(jdbcTemplate);
+    _nextval = "SELECT " + checkNotNull(secuencia) + ".NEXTVAL FROM DUAL"; //$NON-NLS-1$ //$NON-NLS-2$
+    _incremento = incremento;
+  }
+
+  /**
+   * @return el siguiente identificador. Sólo consulta la base de datos al agotar el bloque.
+   */
+  public synchronized long next() {
+    if (_siguiente == _limite) {
+      _siguiente = _jdbcTemplate.queryForObject(_nextval, Long.class).longValue();
+      _limite = _siguiente + _incremento;
+    }
+    return _siguiente++;
+  }
+
+  @SuppressWarnings("nls")
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this).add("nextval", _nextval)
+        .add("incremento", _incremento).toString();
+  }
+
+  private final JdbcTemplate _jdbcTemplate;
+  private final String _nextval;
+  private final int _incremento;
+  /** Siguiente identificador del bloque actual */
+  private long _siguiente;
+  /** Primer identificador fuera del bloque actual */
+  private long _limite;
+}
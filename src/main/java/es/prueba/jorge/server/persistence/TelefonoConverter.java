@@ -0,0 +1,25 @@
+package es.prueba.jorge.server.persistence;
+
+import javax.persistence.AttributeConverter;
+import javax.persistence.Converter;
+
+import es.prueba.jorge.model.Telefono;
+
+/**
+ * Persiste un {@link Telefono} como su valor en una columna de texto. Al leer se obtiene la
+ * instancia canónica con {@link Telefono#of(String)}.
+ *
+ * @author Jorge García Villanueva &lt;Jorgegv95@gmail.com&gt;
+ */
+@Converter(autoApply = true)
+public class TelefonoConverter implements AttributeConverter<Telefono, String> {
+  @Override
+  public String convertToDatabaseColumn(final Telefono attribute) {
+    return (attribute == null) ? null : attribute.telefono();
+  }
+
+  @Override
+  public Telefono convertToEntityAttribute(final String dbData) {
+    return (dbData == null) ? null : Telefono.of(dbData);
+  }
+}
@@ -0,0 +1,220 @@
+package es.prueba.jorge.server.persistence;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.base.MoreObjects;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.annotation.Nonnull;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import es.prueba.jorge.commons.Counter;
+import es.prueba.jorge.commons.MetricRegistry;
+import es.prueba.jorge.model.Usuario;
+import es.prueba.jorge.model.UsuarioId;
+
+/**
+ * Escritura diferida (<i>write-behind</i>) de la última visita de los {@link Usuario}s.
+ * <p>
+ * Cada visita se anota en memoria conservando sólo la más reciente de cada {@code Usuario}, y las
+ * pendientes se guardan juntas en un <i>batch</i> JDBC de
+ * {@link UsuarioRepository#updateUltimaVisita(Map)} cada {@code intervalo}, o antes si se acumulan
+ * {@code maxPendientes} {@code Usuario}s. Un pico de miles de inicios de sesión por segundo cuesta
+ * así una escritura por intervalo en lugar de un {@code UPDATE} por cada uno. Las visitas de un
+ * {@code Usuario} que ya tenía una pendiente son escrituras evitadas, y se cuentan en
+ * {@value #METRICA_EVITADAS} de {@link MetricRegistry#global()}.
+ * <p>
+ * La última visita del repositorio, y de {@link UsuarioCache}, que se invalida tras cada
+ * escritura, va hasta un intervalo por detrás. Si falla una escritura sus visitas vuelven a quedar
+ * pendientes para la siguiente; al cerrar se escriben las que queden.
+ *
+ * @author Jorge García Villanueva &lt;Jorgegv95@gmail.com&gt;
+ */
+public class UltimasVisitas implements Closeable {
+  /** Métrica con las visitas anotadas */
+  public static final String METRICA_VISITAS = "usuario_visitas_total"; //$NON-NLS-1$
+  /** Métrica con las últimas visitas escritas en el repositorio */
+  public static final String METRICA_ESCRITAS = "usuario_visitas_escritas_total"; //$NON-NLS-1$
+  /** Métrica con las escrituras evitadas al agrupar visitas del mismo {@code Usuario} */
+  public static final String METRICA_EVITADAS = "usuario_visitas_evitadas_total"; //$NON-NLS-1$
+
+  /**
+   * @param usuarios repositorio en el que escribir las visitas.
+   * @param cache de {@code Usuario}s a invalidar tras cada escritura.
+   * @param scheduler en el que se escriben las visitas.
+   * @param intervalo entre escrituras.
+   * @param maxPendientes número de {@code Usuario}s con visitas pendientes a partir del cual se
+   *        escriben sin esperar al intervalo.
+   * @throws IllegalArgumentException si {@code intervalo} o {@code maxPendientes} no son positivos.
+   */
+  @SuppressWarnings("nls")
+  public UltimasVisitas(@Nonnull final UsuarioRepository usuarios,
+      @Nonnull final UsuarioCache cache, @Nonnull final ScheduledExecutorService scheduler,
+      @Nonnull final Duration intervalo, final int maxPendientes) {
+    checkArgument(!intervalo.isNegative() && !intervalo.isZero(),
+        "intervalo ha de ser positivo: %s", intervalo);
+    checkArgument(maxPendientes > 0, "maxPendientes ha de ser positivo: %s", maxPendientes);
+    _usuarios = checkNotNull(usuarios);
+    _cache = checkNotNull(cache);
+    _scheduler = checkNotNull(scheduler);
+    _maxPendientes = maxPendientes;
+    MetricRegistry.global().gauge("usuario_visitas_pendientes",
+        "Usuarios con la última visita pendiente de escribir", _pendientes::size);
+    _programada = scheduler.scheduleWithFixedDelay(this::escribirPendientes, intervalo.toNanos(),
+        intervalo.toNanos(), TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * Anota una visita de un {@link Usuario}. Sólo accede a memoria, salvo que esté cerrado, en cuyo
+   * caso la escribe, o que el planificador rechace una escritura anticipada, que se hace entonces
+   * en el hilo actual.
+   *
+   * @param id del {@code Usuario}.
+   * @param instante de la visita.
+   */
+  public void registrar(@Nonnull final UsuarioId id, @Nonnull final Instant instante) {
+    VISITAS.increment();
+    _pendientes.merge(checkNotNull(id), checkNotNull(instante), UltimasVisitas::agrupar);
+    if (_cerrado) {
+      escribir();
+    } else if ((_pendientes.size() >= _maxPendientes) && _anticipada.compareAndSet(false, true)) {
+      anticipar();
+    }
+  }
+
+  /**
+   * Escribe las visitas pendientes en un <i>batch</i> e invalida sus {@link Usuario}s en la caché.
+   * Si falla, las visitas vuelven a quedar pendientes.
+   *
+   * @return número de {@code Usuario}s escritos.
+   */
+  public synchronized int escribir() {
+    if (_pendientes.isEmpty()) {
+      return 0;
+    }
+    final Map<UsuarioId, Instant> lote = new HashMap<>(_pendientes.size() * 2);
+    for (final UsuarioId id : _pendientes.keySet()) {
+      final Instant instante = _pendientes.remove(id);
+      if (instante != null) {
+        lote.put(id, instante);
+      }
+    }
+    try {
+      _usuarios.updateUltimaVisita(lote);
+    } catch (final RuntimeException e) {
+      lote.forEach((id, instante) -> _pendientes.merge(id, instante, UltimasVisitas::max));
+      throw e;
+    }
+    lote.keySet().forEach(_cache::invalidate);
+    ESCRITAS.add(lote.size());
+    return lote.size();
+  }
+
+  /**
+   * @return número de {@link Usuario}s con la última visita pendiente de escribir.
+   */
+  public int pendientes() {
+    return _pendientes.size();
+  }
+
+  /**
+   * @return escrituras evitadas desde el arranque al agrupar visitas del mismo {@link Usuario}.
+   */
+  public static long evitadas() {
+    return EVITADAS.sum();
+  }
+
+  /**
+   * Deja de escribir periódicamente y escribe las visitas pendientes.
+   */
+  @Override
+  @SuppressWarnings("nls")
+  public void close() {
+    _cerrado = true;
+    _programada.cancel(false);
+    escribir();
+    LOG.info("Últimas visitas: {} anotadas, {} escritas, {} escrituras evitadas",
+        Long.valueOf(VISITAS.sum()), Long.valueOf(ESCRITAS.sum()), Long.valueOf(evitadas()));
+  }
+
+  @SuppressWarnings("nls")
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this).add("pendientes", pendientes())
+        .add("maxPendientes", _maxPendientes).add("evitadas", evitadas()).toString();
+  }
+
+  /**
+   * Escribe las visitas pendientes sin esperar al intervalo. Si el planificador rechaza la tarea
+   * (cerrado o saturado) se escriben en el hilo actual, sin propagar el rechazo a la petición.
+   */
+  private void anticipar() {
+    final Runnable escritura = () -> {
+      try {
+        escribirPendientes();
+      } finally {
+        _anticipada.set(false);
+      }
+    };
+    try {
+      _scheduler.execute(escritura);
+    } catch (final RejectedExecutionException e) {
+      LOG.warn("Escritura anticipada de las últimas visitas rechazada, se escriben ya", e); //$NON-NLS-1$
+      escritura.run();
+    }
+  }
+
+  /** Escritura programada, que no se interrumpe si falla */
+  private void escribirPendientes() {
+    try {
+      escribir();
+    } catch (final RuntimeException e) {
+      LOG.error("Error al escribir las últimas visitas, {} pendientes", //$NON-NLS-1$
+          Integer.valueOf(pendientes()), e);
+    }
+  }
+
+  /** Une dos visitas del mismo {@code Usuario}, contando la escritura evitada */
+  private static Instant agrupar(final Instant pendiente, final Instant nueva) {
+    EVITADAS.increment();
+    return max(pendiente, nueva);
+  }
+
+  private static Instant max(final Instant a, final Instant b) {
+    return a.isBefore(b) ? b : a;
+  }
+
+  private static final Logger LOG = LoggerFactory.getLogger(UltimasVisitas.class);
+  private static final Counter VISITAS = MetricRegistry.global().counter(METRICA_VISITAS,
+      "Visitas de Usuarios anotadas"); //$NON-NLS-1$
+  private static final Counter ESCRITAS = MetricRegistry.global().counter(METRICA_ESCRITAS,
+      "Últimas visitas de Usuarios escritas en el repositorio"); //$NON-NLS-1$
+  private static final Counter EVITADAS = MetricRegistry.global().counter(METRICA_EVITADAS,
+      "Escrituras de la última visita evitadas al agruparlas"); //$NON-NLS-1$
+
+  private final UsuarioRepository _usuarios;
+  private final UsuarioCache _cache;
+  private final ScheduledExecutorService _scheduler;
+  private final int _maxPendientes;
+  /** Última visita pendiente de escribir de cada {@code Usuario} */
+  private final ConcurrentMap<UsuarioId, Instant> _pendientes = new ConcurrentHashMap<>();
+  /** Si hay una escritura anticipada por {@link #_maxPendientes} en curso */
+  private final AtomicBoolean _anticipada = new AtomicBoolean();
+  private final ScheduledFuture<?> _programada;
+  private volatile boolean _cerrado;
+}
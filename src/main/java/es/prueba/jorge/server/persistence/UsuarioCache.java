@@ -0,0 +1,143 @@
+package es.prueba.jorge.server.persistence;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableMap;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import javax.annotation.Nonnull;
+
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import es.prueba.jorge.model.Usuario;
+import es.prueba.jorge.model.UsuarioId;
+
+/**
+ * Caché de lectura de {@link Usuario}s por {@link UsuarioId} delante de {@link UsuarioRepository}.
+ * <p>
+ * Los {@code Usuario}s que no están en la caché se cargan del repositorio al pedirlos. La caché
+ * limita su tamaño con la política W-TinyLFU de Caffeine, que conserva los {@code Usuario}s más
+ * pedidos aunque un recorrido puntual lea muchos otros, y caduca cada entrada un tiempo después de
+ * cargarla. Los {@code Usuario}s inexistentes no se guardan, por lo que un alta posterior se ve
+ * enseguida.
+ * <p>
+ * La caducidad es sólo una red de seguridad. Cada {@link UsuarioModificado} invalida su entrada
+ * cuando se confirma la transacción que lo publica, de modo que la siguiente lectura ya carga el
+ * estado confirmado. Un cargador lento no puede resucitar un estado anterior: la carga se hace
+ * dentro del cómputo atómico de la entrada, y la invalidación espera a que termine y la descarta.
+ *
+ * @author Jorge García Villanueva &lt;Jorgegv95@gmail.com&gt;
+ */
+public class UsuarioCache {
+  /**
+   * @param usuarios repositorio del que cargar los {@link Usuario}s.
+   * @param maximumSize número máximo de {@code Usuario}s en la caché.
+   * @param expireAfterWrite tiempo que se conserva cada {@code Usuario} desde que se carga.
+   * @throws IllegalArgumentException si {@code maximumSize} o {@code expireAfterWrite} no son
+   *         positivos.
+   */
+  public UsuarioCache(@Nonnull final UsuarioRepository usuarios, final long maximumSize,
+      @Nonnull final Duration expireAfterWrite) {
+    this(checkNotNull(usuarios)::findById, maximumSize, expireAfterWrite);
+  }
+
+  /**
+   * @param loader con el que cargar los {@link Usuario}s que no están en la caché.
+   * @param maximumSize número máximo de {@code Usuario}s en la caché.
+   * @param expireAfterWrite tiempo que se conserva cada {@code Usuario} desde que se carga.
+   */
+  UsuarioCache(@Nonnull final Function<UsuarioId, Optional<Usuario>> loader,
+      final long maximumSize, @Nonnull final Duration expireAfterWrite) {
+    checkNotNull(loader);
+    checkArgument(maximumSize > 0, "maximumSize ha de ser positivo: %s", maximumSize); //$NON-NLS-1$
+    checkArgument(!expireAfterWrite.isNegative() && !expireAfterWrite.isZero(),
+        "expireAfterWrite ha de ser positivo: %s", expireAfterWrite); //$NON-NLS-1$
+    _cache = Caffeine.newBuilder().maximumSize(maximumSize)
+        .expireAfterWrite(expireAfterWrite.toNanos(), TimeUnit.NANOSECONDS).recordStats()
+        .build(id -> loader.apply(id).orElse(null));
+  }
+
+  /**
+   * @param id del {@link Usuario} a obtener.
+   * @return el {@code Usuario} con el {@code id} indicado, si existe.
+   */
+  public Optional<Usuario> get(@Nonnull final UsuarioId id) {
+    return Optional.ofNullable(_cache.get(checkNotNull(id)));
+  }
+
+  /**
+   * @param id del {@link Usuario} a obtener.
+   * @return el {@code Usuario} con el {@code id} indicado si está en la caché, sin cargarlo ni
+   *         contarlo en las estadísticas.
+   */
+  public Optional<Usuario> getIfPresent(@Nonnull final UsuarioId id) {
+    return Optional.ofNullable(_cache.asMap().get(checkNotNull(id)));
+  }
+
+  /**
+   * Descarta el {@link Usuario} {@code id} de la caché. Si se está cargando, espera a que termine
+   * la carga.
+   *
+   * @param id del {@code Usuario} a descartar.
+   */
+  public void invalidate(@Nonnull final UsuarioId id) {
+    _cache.invalidate(checkNotNull(id));
+  }
+
+  /**
+   * Invalida el {@link Usuario} modificado cuando se confirma la transacción, o inmediatamente si
+   * se ha publicado fuera de una transacción.
+   *
+   * @param evento de la modificación.
+   */
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onUsuarioModificado(@Nonnull final UsuarioModificado evento) {
+    invalidate(evento.usuarioId());
+  }
+
+  /**
+   * @return número aproximado de {@link Usuario}s en la caché.
+   */
+  public long size() {
+    return _cache.estimatedSize();
+  }
+
+  /**
+   * @return aciertos, fallos, desalojos y tiempos de carga acumulados.
+   */
+  public CacheStats stats() {
+    return _cache.stats();
+  }
+
+  /**
+   * @return una vista del tamaño y métricas de la caché apta para serializar.
+   */
+  @SuppressWarnings("nls")
+  public Map<String, Object> toMap() {
+    final CacheStats stats = stats();
+    return ImmutableMap.<String, Object>builder().put("size", size())
+        .put("hits", stats.hitCount()).put("misses", stats.missCount())
+        .put("hitRate", stats.hitRate()).put("evictions", stats.evictionCount())
+        .put("loads", stats.loadCount()).put("loadFailures", stats.loadFailureCount())
+        .put("totalLoadTimeNanos", stats.totalLoadTime())
+        .put("averageLoadPenaltyNanos", stats.averageLoadPenalty()).build();
+  }
+
+  @SuppressWarnings("nls")
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this).add("size", size()).add("stats", stats()).toString();
+  }
+
+  private final LoadingCache<UsuarioId, Usuario> _cache;
+}
@@ -0,0 +1,107 @@
+package es.prueba.jorge.server.persistence;
+
+import java.time.Instant;
+
+import javax.persistence.AttributeOverride;
+import javax.persistence.AttributeOverrides;
+import javax.persistence.Column;
+import javax.persistence.Embedded;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+import es.prueba.jorge.model.Email;
+import es.prueba.jorge.model.Perfil;
+import es.prueba.jorge.model.Telefono;
+import es.prueba.jorge.model.Usuario;
+import es.prueba.jorge.model.UsuarioId;
+
+/**
+ * Fila de la tabla {@code USUARIO} con los datos de un {@link Usuario}.
+ * <p>
+ * El modelo es inmutable y no depende de JPA, por lo que se persiste a través de esta clase: los
+ * <i>value objects</i> de una columna mediante {@code AttributeConverter}s y {@link PersonaJpa} y
+ * {@link DatosCRUDJpa} como <i>embeddables</i>. El identificador se asigna antes de persistir,
+ * normalmente con {@link UsuarioRepository#nextId()}. La última visita no se actualiza al hacer
+ * {@code merge}, para que no retroceda respecto a la guardada.
+ *
+ * @author Jorge García Villanueva &lt;Jorgegv95@gmail.com&gt;
+ */
+@Entity
+@Table(name = "USUARIO")
+public class UsuarioJpa {
+  /**
+   * @param usuario a persistir.
+   * @return la fila correspondiente a {@code usuario}.
+   */
+  static UsuarioJpa of(final Usuario usuario) {
+    final UsuarioJpa jpa = new UsuarioJpa();
+    jpa.id = usuario.identity().id();
+    jpa.persona = PersonaJpa.of(usuario.persona());
+    jpa.perfil = usuario.perfil();
+    jpa.telefono = usuario.telefono();
+    jpa.email = usuario.email();
+    jpa.ultimaVisita = usuario.ultimaVisita().orElse(null);
+    jpa.alta = DatosCRUDJpa.of(usuario.alta());
+    jpa.baja = DatosCRUDJpa.of(usuario.baja().orElse(null));
+    jpa.modificacion = DatosCRUDJpa.of(usuario.modificacion().orElse(null));
+    return jpa;
+  }
+
+  /**
+   * @return el {@link Usuario} correspondiente a esta fila.
+   */
+  Usuario toUsuario() {
+    final Usuario.Builder builder = Usuario.builder(new UsuarioId(id))
+        .withPersona(persona.toPersona()).withPerfil(perfil).withTelefono(telefono)
+        .withEmail(email).withDatosAlta(DatosCRUDJpa.toDatosCRUD(alta));
+    if (ultimaVisita != null) {
+      builder.withUltimaVisita(ultimaVisita);
+    }
+    if (baja != null) {
+      builder.withDatosBaja(DatosCRUDJpa.toDatosCRUD(baja));
+    }
+    if (modificacion != null) {
+      builder.withDatosUltimaModificacion(DatosCRUDJpa.toDatosCRUD(modificacion));
+    }
+    return builder.build();
+  }
+
+  /** Ctor para JPA. */
+  protected UsuarioJpa() {
+    // Nothing to do
+  }
+
+  // Los campos siguen la convención de JPA (sin prefijo) porque sus nombres son los de las
+  // consultas JPQL.
+  @Id
+  @Column(name = "ID")
+  private int id;
+  @Embedded
+  private PersonaJpa persona;
+  @Column(name = "PERFIL", nullable = false, length = 20)
+  private Perfil perfil;
+  @Column(name = "TELEFONO", nullable = false, length = Telefono.TELEFONO_LENGTH)
+  private Telefono telefono;
+  @Column(name = "EMAIL", nullable = false, length = Email.MAX_EMAIL_LENGTH)
+  private Email email;
+  @Column(name = "ULTIMA_VISITA", updatable = false)
+  private Instant ultimaVisita;
+  @Embedded
+  @AttributeOverrides({
+      @AttributeOverride(name = "usuario",
+          column = @Column(name = "ALTA_USUARIO", nullable = false)),
+      @AttributeOverride(name = "instante",
+          column = @Column(name = "ALTA_INSTANTE", nullable = false))})
+  private DatosCRUDJpa alta;
+  @Embedded
+  @AttributeOverrides({
+      @AttributeOverride(name = "usuario", column = @Column(name = "BAJA_USUARIO")),
+      @AttributeOverride(name = "instante", column = @Column(name = "BAJA_INSTANTE"))})
+  private DatosCRUDJpa baja;
+  @Embedded
+  @AttributeOverrides({
+      @AttributeOverride(name = "usuario", column = @Column(name = "MOD_USUARIO")),
+      @AttributeOverride(name = "instante", column = @Column(name = "MOD_INSTANTE"))})
+  private DatosCRUDJpa modificacion;
+}
@@ -0,0 +1,48 @@
+package es.prueba.jorge.server.persistence;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.base.MoreObjects;
+
+import javax.annotation.Nonnull;
+
+import es.prueba.jorge.model.Usuario;
+import es.prueba.jorge.model.UsuarioId;
+
+/**
+ * Evento que publica {@link UsuarioRepository} al guardar los cambios de un {@link Usuario}
+ * existente (su modificación o su baja), para que quien tenga copias del {@code Usuario} las
+ * invalide.
+ *
+ * @author Jorge García Villanueva &lt;Jorgegv95@gmail.com&gt;
+ */
+public final class UsuarioModificado {
+  /**
+   * @param usuario guardado.
+   */
+  public UsuarioModificado(@Nonnull final Usuario usuario) {
+    _usuario = checkNotNull(usuario);
+  }
+
+  /**
+   * @return el {@link UsuarioId} del {@link Usuario} guardado.
+   */
+  public UsuarioId usuarioId() {
+    return _usuario.identity();
+  }
+
+  /**
+   * @return el {@link Usuario} tal como se ha guardado.
+   */
+  public Usuario usuario() {
+    return _usuario;
+  }
+
+  @SuppressWarnings("nls")
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this).add("usuarioId", usuarioId()).toString();
+  }
+
+  private final Usuario _usuario;
+}
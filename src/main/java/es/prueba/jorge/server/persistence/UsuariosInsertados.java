@@ -0,0 +1,41 @@
+package es.prueba.jorge.server.persistence;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableList;
+
+import java.util.List;
+
+import javax.annotation.Nonnull;
+
+import es.prueba.jorge.model.Usuario;
+
+/**
+ * Evento que publica {@link UsuarioRepository} al dar de alta {@link Usuario}s de forma masiva.
+ *
+ * @author Jorge García Villanueva &lt;Jorgegv95@gmail.com&gt;
+ */
+public final class UsuariosInsertados {
+  /**
+   * @param usuarios dados de alta.
+   */
+  public UsuariosInsertados(@Nonnull final List<Usuario> usuarios) {
+    _usuarios = ImmutableList.copyOf(checkNotNull(usuarios));
+  }
+
+  /**
+   * @return los {@link Usuario}s dados de alta.
+   */
+  public List<Usuario> usuarios() {
+    return _usuarios;
+  }
+
+  @SuppressWarnings("nls")
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this).add("usuarios", _usuarios.size()).toString();
+  }
+
+  private final List<Usuario> _usuarios;
+}
@@ -0,0 +1,140 @@
+package es.prueba.jorge.server.persistence;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Objects;
+import java.util.Optional;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import es.prueba.jorge.model.DatosCRUD;
+import es.prueba.jorge.model.Usuario;
+import es.prueba.jorge.model.UsuarioId;
+
+/**
+ * Versión de un {@link Usuario}: su {@link UsuarioId} y los instantes de su alta, última
+ * modificación, baja y última visita.
+ * <p>
+ * Cada cambio de un {@code Usuario} cambia alguno de esos instantes, de modo que su versión
+ * identifica su estado y sirve de validador fuerte ({@code ETag}) de su representación sin
+ * cargarlo completo: {@link UsuarioRepository#findVersion(UsuarioId)} sólo lee esas columnas.
+ *
+ * @author Jorge García Villanueva &lt;Jorgegv95@gmail.com&gt;
+ */
+public final class VersionUsuario {
+  /**
+   * @param usuario del que obtener la versión.
+   * @return la versión de {@code usuario}.
+   */
+  public static VersionUsuario of(@Nonnull final Usuario usuario) {
+    return new VersionUsuario(usuario.identity(), usuario.ultimaVisita().orElse(null),
+        usuario.alta().instant(), usuario.baja().map(DatosCRUD::instant).orElse(null),
+        usuario.modificacion().map(DatosCRUD::instant).orElse(null));
+  }
+
+  /**
+   * @param versiones de los {@link Usuario}s de una colección, en su orden.
+   * @return el {@code ETag} de la colección, que cambia si cambia alguno de sus {@code Usuario}s,
+   *         su número o su orden.
+   */
+  public static String etag(@Nonnull final Collection<VersionUsuario> versiones) {
+    final Hasher hasher = Hashing.murmur3_128().newHasher().putInt(versiones.size());
+    for (final VersionUsuario version : versiones) {
+      hasher.putInt(version._usuarioId.id()).putLong(version._sello);
+    }
+    return '"' + hasher.hash().toString() + '"';
+  }
+
+  /**
+   * @param versiones de {@link Usuario}s.
+   * @return el último instante en que ha cambiado alguno de los {@code Usuario}s, si hay alguno.
+   */
+  public static Optional<Instant> ultimoCambio(
+      @Nonnull final Collection<VersionUsuario> versiones) {
+    return versiones.stream().map(VersionUsuario::ultimoCambio).max(Instant::compareTo);
+  }
+
+  /**
+   * @param usuarioId del {@link Usuario}.
+   * @param ultimaVisita del {@code Usuario}, si tiene.
+   * @param alta instante del alta del {@code Usuario}.
+   * @param baja instante de la baja del {@code Usuario}, si tiene.
+   * @param modificacion instante de la última modificación del {@code Usuario}, si tiene.
+   */
+  VersionUsuario(@Nonnull final UsuarioId usuarioId, @Nullable final Instant ultimaVisita,
+      @Nonnull final Instant alta, @Nullable final Instant baja,
+      @Nullable final Instant modificacion) {
+    _usuarioId = checkNotNull(usuarioId);
+    Instant ultimoCambio = checkNotNull(alta);
+    final Hasher hasher = Hashing.murmur3_128().newHasher();
+    for (final Instant instante : new Instant[] {alta, modificacion, baja, ultimaVisita}) {
+      if (instante == null) {
+        hasher.putBoolean(false);
+      } else {
+        hasher.putBoolean(true).putLong(instante.getEpochSecond()).putInt(instante.getNano());
+        ultimoCambio = (instante.compareTo(ultimoCambio) > 0) ? instante : ultimoCambio;
+      }
+    }
+    _sello = hasher.hash().asLong();
+    _ultimoCambio = ultimoCambio;
+  }
+
+  /**
+   * @return el {@link UsuarioId} del {@link Usuario}.
+   */
+  public UsuarioId usuarioId() {
+    return _usuarioId;
+  }
+
+  /**
+   * @return el último instante en que ha cambiado el {@link Usuario}, para la cabecera
+   *         {@code Last-Modified}.
+   */
+  public Instant ultimoCambio() {
+    return _ultimoCambio;
+  }
+
+  /**
+   * @return el {@code ETag} fuerte del {@link Usuario}: su identificador y un resumen de 64 bits
+   *         de sus instantes.
+   */
+  public String etag() {
+    return "\"" + _usuarioId.id() + '-' + Long.toHexString(_sello) + '"'; //$NON-NLS-1$
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(_usuarioId, Long.valueOf(_sello));
+  }
+
+  @Override
+  public boolean equals(@Nullable final Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (Objects.isNull(obj) || (getClass() != obj.getClass())) {
+      return false;
+    }
+    final VersionUsuario other = (VersionUsuario) obj;
+    return (_sello == other._sello) && _usuarioId.equals(other._usuarioId);
+  }
+
+  @SuppressWarnings("nls")
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this).add("usuarioId", _usuarioId)
+        .add("ultimoCambio", _ultimoCambio).add("etag", etag()).toString();
+  }
+
+  private final UsuarioId _usuarioId;
+  private final Instant _ultimoCambio;
+  /** Resumen de los instantes del {@code Usuario} */
+  private final long _sello;
+}
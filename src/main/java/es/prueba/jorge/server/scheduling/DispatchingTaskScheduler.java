@@ -0,0 +1,96 @@
+package es.prueba.jorge.server.scheduling;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.Date;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+
+import javax.annotation.Nonnull;
+
+import org.springframework.scheduling.Trigger;
+import org.springframework.scheduling.concurrent.ConcurrentTaskScheduler;
+
+/**
+ * {@link ConcurrentTaskScheduler} que planifica las tareas en un {@link ScheduledExecutorService}
+ * pero ejecuta su cuerpo en otro {@link ExecutorService}, por ejemplo uno de hilos virtuales.
+ * <p>
+ * El hilo del planificador espera a que termine cada ejecución, de modo que se mantienen los
+ * retrasos fijos, no se solapan ejecuciones de la misma tarea, las medidas de
+ * {@link InstrumentedScheduledExecutor} incluyen la ejecución y los errores llegan al
+ * {@code ErrorHandler} en el hilo del planificador. Si se interrumpe la espera, se interrumpe
+ * también la ejecución.
+ *
+ * @author Jorge García Villanueva &lt;Jorgegv95@gmail.com&gt;
+ */
+public class DispatchingTaskScheduler extends ConcurrentTaskScheduler {
+  /**
+   * @param scheduler en el que se planifican las tareas.
+   * @param executor en el que se ejecuta el cuerpo de cada tarea.
+   */
+  public DispatchingTaskScheduler(@Nonnull final ScheduledExecutorService scheduler,
+      @Nonnull final ExecutorService executor) {
+    super(scheduler);
+    _executor = checkNotNull(executor);
+  }
+
+  @Override
+  public ScheduledFuture<?> schedule(final Runnable task, final Trigger trigger) {
+    return super.schedule(dispatch(task), trigger);
+  }
+
+  @Override
+  public ScheduledFuture<?> schedule(final Runnable task, final Date startTime) {
+    return super.schedule(dispatch(task), startTime);
+  }
+
+  @Override
+  public ScheduledFuture<?> scheduleAtFixedRate(final Runnable task, final Date startTime,
+      final long period) {
+    return super.scheduleAtFixedRate(dispatch(task), startTime, period);
+  }
+
+  @Override
+  public ScheduledFuture<?> scheduleAtFixedRate(final Runnable task, final long period) {
+    return super.scheduleAtFixedRate(dispatch(task), period);
+  }
+
+  @Override
+  public ScheduledFuture<?> scheduleWithFixedDelay(final Runnable task, final Date startTime,
+      final long delay) {
+    return super.scheduleWithFixedDelay(dispatch(task), startTime, delay);
+  }
+
+  @Override
+  public ScheduledFuture<?> scheduleWithFixedDelay(final Runnable task, final long delay) {
+    return super.scheduleWithFixedDelay(dispatch(task), delay);
+  }
+
+  /** Envuelve {@code task} para ejecutarla en {@link #_executor} y esperar a que termine */
+  private Runnable dispatch(final Runnable task) {
+    checkNotNull(task);
+    return () -> {
+      final Future<?> execution = _executor.submit(task);
+      try {
+        execution.get();
+      } catch (final InterruptedException e) {
+        execution.cancel(true);
+        Thread.currentThread().interrupt();
+      } catch (final ExecutionException e) {
+        final Throwable cause = e.getCause();
+        if (cause instanceof RuntimeException) {
+          throw (RuntimeException) cause;
+        }
+        if (cause instanceof Error) {
+          throw (Error) cause;
+        }
+        throw new IllegalStateException(cause);
+      }
+    };
+  }
+
+  private final ExecutorService _executor;
+}
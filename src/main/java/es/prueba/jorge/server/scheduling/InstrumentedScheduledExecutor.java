@@ -0,0 +1,301 @@
+package es.prueba.jorge.server.scheduling;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSortedMap;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RunnableScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import javax.annotation.Nonnull;
+
+import org.springframework.scheduling.support.DelegatingErrorHandlingRunnable;
+
+/**
+ * {@link ScheduledThreadPoolExecutor} con hilos con nombre y métricas de sus tareas.
+ * <p>
+ * Por cada ejecución registra el tiempo de ejecución, el retraso en cola (desde que la tarea debía
+ * ejecutarse hasta que un hilo la toma) y si ha fallado, tanto en total como por tarea. El tamaño
+ * del <i>pool</i> puede modificarse en caliente con {@link #setPoolSize(int)}.
+ *
+ * @author Jorge García Villanueva &lt;Jorgegv95@gmail.com&gt;
+ */
+public class InstrumentedScheduledExecutor extends ScheduledThreadPoolExecutor {
+  /**
+   * Registra un fallo en la tarea que se está ejecutando en el hilo actual. Pensado para los
+   * {@code ErrorHandler} que capturan la excepción antes de que llegue al planificador.
+   */
+  public static void recordCurrentTaskFail() {
+    final InstrumentedTask<?> task = CURRENT.get();
+    if (task != null) {
+      task.recordFail();
+    }
+  }
+
+  /**
+   * Planificador de tamaño fijo con hilos de plataforma.
+   *
+   * @param name del planificador, utilizado también como prefijo del nombre de sus hilos.
+   * @param poolSize número de hilos, que no puede aumentarse.
+   * @throws IllegalArgumentException si {@code poolSize} no es positivo.
+   */
+  public InstrumentedScheduledExecutor(@Nonnull final String name, final int poolSize) {
+    this(name, name, poolSize, poolSize);
+  }
+
+  /**
+   * Planificador con hilos de plataforma.
+   *
+   * @param name del planificador.
+   * @param threadNamePrefix prefijo del nombre de sus hilos.
+   * @param poolSize número de hilos inicial.
+   * @param maxPoolSize número máximo de hilos que admite {@link #setPoolSize(int)}.
+   * @throws IllegalArgumentException si {@code poolSize} no es positivo o supera
+   *         {@code maxPoolSize}.
+   */
+  public InstrumentedScheduledExecutor(@Nonnull final String name,
+      @Nonnull final String threadNamePrefix, final int poolSize, final int maxPoolSize) {
+    this(name, poolSize, maxPoolSize, new ThreadFactoryBuilder()
+        .setNameFormat(checkNotNull(threadNamePrefix) + "-%d").setDaemon(false).build()); //$NON-NLS-1$
+  }
+
+  /**
+   * @param name del planificador.
+   * @param poolSize número de hilos inicial.
+   * @param maxPoolSize número máximo de hilos que admite {@link #setPoolSize(int)}.
+   * @param threadFactory con la que crear los hilos, por ejemplo de
+   *        {@link VirtualThreads#threadFactory(String) hilos virtuales}.
+   * @throws IllegalArgumentException si {@code poolSize} no es positivo o supera
+   *         {@code maxPoolSize}.
+   */
+  public InstrumentedScheduledExecutor(@Nonnull final String name, final int poolSize,
+      final int maxPoolSize, @Nonnull final ThreadFactory threadFactory) {
+    super(checkPoolSize(poolSize, maxPoolSize), checkNotNull(threadFactory));
+    _name = checkNotNull(name);
+    _maxPoolSize = maxPoolSize;
+    setRemoveOnCancelPolicy(true);
+  }
+
+  /**
+   * @return el nombre del planificador.
+   */
+  public String name() {
+    return _name;
+  }
+
+  /**
+   * Modifica el número de hilos del planificador en caliente.
+   *
+   * @param poolSize nuevo número de hilos.
+   * @throws IllegalArgumentException si {@code poolSize} no es positivo o supera
+   *         {@link #maxPoolSize()}.
+   */
+  public void setPoolSize(final int poolSize) {
+    setCorePoolSize(checkPoolSize(poolSize, _maxPoolSize));
+  }
+
+  /**
+   * @return el número máximo de hilos que admite {@link #setPoolSize(int)}.
+   */
+  public int maxPoolSize() {
+    return _maxPoolSize;
+  }
+
+  /**
+   * @return número de tareas en cola, incluidas las programadas para más adelante.
+   */
+  public int queueDepth() {
+    return getQueue().size();
+  }
+
+  /**
+   * @return las métricas de todas las tareas del planificador.
+   */
+  public TaskMetrics metrics() {
+    return _metrics;
+  }
+
+  /**
+   * @return las métricas de cada tarea, por nombre.
+   */
+  public Map<String, TaskMetrics> taskMetrics() {
+    return ImmutableMap.copyOf(_taskMetrics);
+  }
+
+  /**
+   * @return una vista del estado y métricas del planificador apta para serializar, con las tareas
+   *         ordenadas por nombre.
+   */
+  @SuppressWarnings("nls")
+  public Map<String, Object> toMap() {
+    final ImmutableSortedMap.Builder<String, Object> tasks = ImmutableSortedMap.naturalOrder();
+    _taskMetrics.forEach((task, metrics) -> tasks.put(task, metrics.toMap()));
+    return ImmutableMap.<String, Object>builder().put("name", _name)
+        .put("poolSize", getCorePoolSize()).put("maxPoolSize", _maxPoolSize)
+        .put("activeThreads", getActiveCount()).put("queueDepth", queueDepth())
+        .put("completedTasks", getCompletedTaskCount()).put("metrics", _metrics.toMap())
+        .put("tasks", tasks.build()).build();
+  }
+
+  @SuppressWarnings("nls")
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this).add("name", _name).add("poolSize", getCorePoolSize())
+        .add("activeThreads", getActiveCount()).add("queueDepth", queueDepth()).toString();
+  }
+
+  @Override
+  protected <V> RunnableScheduledFuture<V> decorateTask(final Runnable runnable,
+      final RunnableScheduledFuture<V> task) {
+    return new InstrumentedTask<>(task, taskMetrics(taskName(runnable)));
+  }
+
+  @Override
+  protected <V> RunnableScheduledFuture<V> decorateTask(final Callable<V> callable,
+      final RunnableScheduledFuture<V> task) {
+    return new InstrumentedTask<>(task, taskMetrics(taskName(callable)));
+  }
+
+  private TaskMetrics taskMetrics(final String taskName) {
+    return _taskMetrics.computeIfAbsent(taskName, name -> new TaskMetrics());
+  }
+
+  /**
+   * Nombre con el que agrupar las métricas de una tarea: el método programado en las tareas de
+   * Spring y la clase (sin el sufijo variable de las lambdas) en el resto.
+   */
+  @SuppressWarnings("nls")
+  private static String taskName(final Object task) {
+    if (task instanceof DelegatingErrorHandlingRunnable) {
+      return task.toString().replace("DelegatingErrorHandlingRunnable for ", "");
+    }
+    final String name = task.getClass().getName();
+    final int lambda = name.indexOf("$$Lambda");
+    return (lambda < 0) ? name : name.substring(0, lambda + "$$Lambda".length());
+  }
+
+  @SuppressWarnings("nls")
+  private static int checkPoolSize(final int poolSize, final int maxPoolSize) {
+    checkArgument(poolSize > 0, "poolSize ha de ser positivo: %s", poolSize);
+    checkArgument(poolSize <= maxPoolSize, "poolSize no puede superar %s: %s", maxPoolSize,
+        poolSize);
+    return poolSize;
+  }
+
+  /** Tarea en ejecución en cada hilo, para {@link #recordCurrentTaskFail()}. */
+  private static final ThreadLocal<InstrumentedTask<?>> CURRENT = new ThreadLocal<>();
+
+  private final String _name;
+  private final int _maxPoolSize;
+  private final TaskMetrics _metrics = new TaskMetrics();
+  private final Map<String, TaskMetrics> _taskMetrics = new ConcurrentHashMap<>();
+
+  /**
+   * Envoltorio de las tareas del planificador que mide cada ejecución.
+   */
+  private final class InstrumentedTask<V> implements RunnableScheduledFuture<V> {
+    InstrumentedTask(final RunnableScheduledFuture<V> delegate, final TaskMetrics metrics) {
+      _delegate = delegate;
+      _task = metrics;
+    }
+
+    @Override
+    public void run() {
+      // Si la tarea debía haber empezado ya, el retraso es cuánto hace que debía hacerlo
+      final long queueDelay = Math.max(0L, -_delegate.getDelay(TimeUnit.NANOSECONDS));
+      final long start = System.nanoTime();
+      CURRENT.set(this);
+      try {
+        _delegate.run();
+      } finally {
+        CURRENT.remove();
+        final long execution = System.nanoTime() - start;
+        final boolean failed = failed();
+        _metrics.record(queueDelay, execution, failed);
+        _task.record(queueDelay, execution, failed);
+      }
+    }
+
+    void recordFail() {
+      _metrics.recordFail();
+      _task.recordFail();
+    }
+
+    /**
+     * Las tareas periódicas que fallan dejan de repetirse y quedan terminadas; las de una única
+     * ejecución guardan la excepción en su resultado.
+     */
+    private boolean failed() {
+      if (!_delegate.isDone() || _delegate.isCancelled()) {
+        return false;
+      }
+      try {
+        _delegate.get(0, TimeUnit.NANOSECONDS);
+        return false;
+      } catch (final ExecutionException e) {
+        return true;
+      } catch (final InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return false;
+      } catch (final TimeoutException e) {
+        return false;
+      }
+    }
+
+    @Override
+    public boolean isPeriodic() {
+      return _delegate.isPeriodic();
+    }
+
+    @Override
+    public long getDelay(final TimeUnit unit) {
+      return _delegate.getDelay(unit);
+    }
+
+    @Override
+    public int compareTo(final Delayed other) {
+      return _delegate.compareTo(other);
+    }
+
+    @Override
+    public boolean cancel(final boolean mayInterruptIfRunning) {
+      return _delegate.cancel(mayInterruptIfRunning);
+    }
+
+    @Override
+    public boolean isCancelled() {
+      return _delegate.isCancelled();
+    }
+
+    @Override
+    public boolean isDone() {
+      return _delegate.isDone();
+    }
+
+    @Override
+    public V get() throws InterruptedException, ExecutionException {
+      return _delegate.get();
+    }
+
+    @Override
+    public V get(final long timeout, final TimeUnit unit)
+        throws InterruptedException, ExecutionException, TimeoutException {
+      return _delegate.get(timeout, unit);
+    }
+
+    private final RunnableScheduledFuture<V> _delegate;
+    private final TaskMetrics _task;
+  }
+}
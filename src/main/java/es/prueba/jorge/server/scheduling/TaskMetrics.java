@@ -0,0 +1,104 @@
+package es.prueba.jorge.server.scheduling;
+
+import com.google.common.collect.ImmutableMap;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Métricas acumuladas de las ejecuciones de una tarea (o de todas las de un planificador).
+ * <p>
+ * Se actualizan desde los hilos del planificador sin bloqueos, por lo que las lecturas son
+ * aproximadas mientras haya tareas en ejecución.
+ *
+ * @author Jorge García Villanueva &lt;Jorgegv95@gmail.com&gt;
+ */
+public final class TaskMetrics {
+  /**
+   * @return número de ejecuciones terminadas.
+   */
+  public long runs() {
+    return _runs.sum();
+  }
+
+  /**
+   * @return número de ejecuciones terminadas con error.
+   */
+  public long fails() {
+    return _fails.sum();
+  }
+
+  /**
+   * @return tiempo medio de ejecución en milisegundos.
+   */
+  public double meanExecutionMillis() {
+    return mean(_executionNanos.sum());
+  }
+
+  /**
+   * @return tiempo máximo de ejecución en milisegundos.
+   */
+  public double maxExecutionMillis() {
+    return toMillis(_maxExecutionNanos.get());
+  }
+
+  /**
+   * @return tiempo medio en milisegundos que las tareas esperan en cola desde que les corresponde
+   *         ejecutarse hasta que un hilo las toma.
+   */
+  public double meanQueueDelayMillis() {
+    return mean(_queueDelayNanos.sum());
+  }
+
+  /**
+   * @return tiempo máximo de espera en cola en milisegundos.
+   */
+  public double maxQueueDelayMillis() {
+    return toMillis(_maxQueueDelayNanos.get());
+  }
+
+  /**
+   * @return una vista de las métricas apta para serializar.
+   */
+  @SuppressWarnings("nls")
+  public Map<String, Object> toMap() {
+    return ImmutableMap.<String, Object>builder().put("runs", runs()).put("fails", fails())
+        .put("meanExecutionMillis", meanExecutionMillis())
+        .put("maxExecutionMillis", maxExecutionMillis())
+        .put("meanQueueDelayMillis", meanQueueDelayMillis())
+        .put("maxQueueDelayMillis", maxQueueDelayMillis()).build();
+  }
+
+  void record(final long queueDelayNanos, final long executionNanos, final boolean failed) {
+    _runs.increment();
+    _queueDelayNanos.add(queueDelayNanos);
+    _maxQueueDelayNanos.accumulate(queueDelayNanos);
+    _executionNanos.add(executionNanos);
+    _maxExecutionNanos.accumulate(executionNanos);
+    if (failed) {
+      _fails.increment();
+    }
+  }
+
+  void recordFail() {
+    _fails.increment();
+  }
+
+  private double mean(final long totalNanos) {
+    final long runs = runs();
+    return (runs == 0) ? 0 : (toMillis(totalNanos) / runs);
+  }
+
+  private static double toMillis(final long nanos) {
+    return (double) nanos / TimeUnit.MILLISECONDS.toNanos(1);
+  }
+
+  private final LongAdder _runs = new LongAdder();
+  private final LongAdder _fails = new LongAdder();
+  private final LongAdder _executionNanos = new LongAdder();
+  private final LongAccumulator _maxExecutionNanos = new LongAccumulator(Math::max, 0);
+  private final LongAdder _queueDelayNanos = new LongAdder();
+  private final LongAccumulator _maxQueueDelayNanos = new LongAccumulator(Math::max, 0);
+}
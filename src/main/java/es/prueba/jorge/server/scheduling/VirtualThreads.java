@@ -0,0 +1,73 @@
+package es.prueba.jorge.server.scheduling;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Acceso a los hilos virtuales de Java 21+ sin depender de ellos en compilación.
+ * <p>
+ * La aplicación se compila para Java 8, por lo que el API de hilos virtuales se invoca por
+ * reflexión. En JVM anteriores (o en las que los tienen en <i>preview</i> sin habilitar) los
+ * métodos retornan {@link Optional#empty()} y el llamante ha de recurrir a hilos de plataforma.
+ *
+ * @author Jorge García Villanueva &lt;Jorgegv95@gmail.com&gt;
+ */
+public final class VirtualThreads {
+  /**
+   * @return {@code true} si la JVM actual permite crear hilos virtuales.
+   */
+  public static boolean isSupported() {
+    return threadFactory("probe").isPresent(); //$NON-NLS-1$
+  }
+
+  /**
+   * @param prefix del nombre de los hilos, a los que se añade un contador.
+   * @return una factoría de hilos virtuales, o vacío si la JVM no los soporta.
+   */
+  @SuppressWarnings("nls")
+  public static Optional<ThreadFactory> threadFactory(@Nonnull final String prefix) {
+    checkNotNull(prefix);
+    try {
+      final Class<?> ofVirtual = Class.forName("java.lang.Thread$Builder$OfVirtual");
+      Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+      builder = ofVirtual.getMethod("name", String.class, long.class).invoke(builder,
+          prefix + "-", 0L);
+      return Optional.of((ThreadFactory) ofVirtual.getMethod("factory").invoke(builder));
+    } catch (final ClassNotFoundException | NoSuchMethodException | IllegalAccessException
+        | InvocationTargetException | UnsupportedOperationException e) {
+      // JVM sin hilos virtuales, o con ellos en preview sin habilitar
+      return Optional.empty();
+    }
+  }
+
+  /**
+   * @param prefix del nombre de los hilos.
+   * @return un {@link ExecutorService} que ejecuta cada tarea en un hilo virtual nuevo, o vacío si
+   *         la JVM no los soporta.
+   */
+  @SuppressWarnings("nls")
+  public static Optional<ExecutorService> newThreadPerTaskExecutor(@Nonnull final String prefix) {
+    return threadFactory(prefix).flatMap(factory -> {
+      try {
+        final Method method =
+            Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+        return Optional.of((ExecutorService) method.invoke(null, factory));
+      } catch (final NoSuchMethodException | IllegalAccessException
+          | InvocationTargetException e) {
+        return Optional.empty();
+      }
+    });
+  }
+
+  private VirtualThreads() {
+    // Clase de utilidades
+  }
+}
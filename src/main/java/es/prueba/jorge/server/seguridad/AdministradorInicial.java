@@ -0,0 +1,117 @@
+package es.prueba.jorge.server.seguridad;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+import com.google.common.base.MoreObjects;
+
+import java.time.Instant;
+import java.util.Optional;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+
+import es.prueba.jorge.model.DatosCRUD;
+import es.prueba.jorge.model.Email;
+import es.prueba.jorge.model.Perfil;
+import es.prueba.jorge.model.Persona;
+import es.prueba.jorge.model.Telefono;
+import es.prueba.jorge.model.Usuario;
+import es.prueba.jorge.model.UsuarioId;
+import es.prueba.jorge.server.persistence.CredencialRepository;
+import es.prueba.jorge.server.persistence.UsuarioRepository;
+
+/**
+ * {@link Usuario} {@link Perfil#ADMINISTRADOR} configurado al desplegar, con el que iniciar
+ * sesión sobre una base de datos sin claves y dárselas al resto de {@code Usuario}s.
+ * <p>
+ * Al arrancar, antes de aceptar peticiones, da de alta al administrador si no existe y guarda su
+ * clave, que ha de venir ya codificada con el prefijo de su algoritmo (por ejemplo
+ * {@code {bcrypt}$2a$10$...}) para no tener la clave en claro en la configuración. La clave
+ * configurada sustituye a la guardada en cada arranque.
+ *
+ * @author Jorge García Villanueva &lt;Jorgegv95@gmail.com&gt;
+ */
+public class AdministradorInicial {
+  /**
+   * @param usuarios repositorio de {@code Usuario}s.
+   * @param credenciales repositorio de las claves.
+   * @param id del administrador.
+   * @param clave del administrador, codificada y con el prefijo de su algoritmo.
+   * @param email con el que dar de alta al administrador si no existe.
+   * @param telefono con el que dar de alta al administrador si no existe.
+   * @throws IllegalArgumentException si la clave no lleva el prefijo de su algoritmo.
+   */
+  public AdministradorInicial(@Nonnull final UsuarioRepository usuarios,
+      @Nonnull final CredencialRepository credenciales, @Nonnull final UsuarioId id,
+      @Nonnull final String clave, @Nullable final String email,
+      @Nullable final String telefono) {
+    checkArgument(checkNotNull(clave).matches("\\{[^}]+\\}.+"), //$NON-NLS-1$
+        "La clave del administrador ha de estar codificada, con el prefijo de su algoritmo"); //$NON-NLS-1$
+    _usuarios = checkNotNull(usuarios);
+    _credenciales = checkNotNull(credenciales);
+    _id = checkNotNull(id);
+    _clave = clave;
+    _email = email;
+    _telefono = telefono;
+  }
+
+  /**
+   * Da de alta al administrador si no existe y guarda su clave.
+   *
+   * @throws IllegalStateException si el {@code Usuario} existe con otro {@code Perfil} o está dado
+   *         de baja, o si no existe y falta su email o su teléfono.
+   */
+  @SuppressWarnings("nls")
+  public void crear() {
+    final Optional<Usuario> existente = _usuarios.findById(_id);
+    if (existente.isPresent()) {
+      final Usuario usuario = existente.get();
+      checkState(usuario.perfil().equals(Perfil.ADMINISTRADOR) && !usuario.baja().isPresent(),
+          "El Usuario %s no es un administrador activo: %s", _id, usuario);
+    } else {
+      checkState((_email != null) && (_telefono != null),
+          "Sin auth-admin.email y auth-admin.telephone para dar de alta al administrador %s", _id);
+      _usuarios.save(Usuario.builder(_id)
+          .withPersona(Persona.builder().withNombre("Administrador").withApellido1("Inicial")
+              .build())
+          .withPerfil(Perfil.ADMINISTRADOR).withEmail(Email.of(_email))
+          .withTelefono(Telefono.of(_telefono)).withDatosAlta(new DatosCRUD(_id, Instant.now()))
+          .build());
+      LOG.info("Dado de alta el administrador {}", _id);
+    }
+    _credenciales.save(_id, _clave);
+  }
+
+  /**
+   * Crea el administrador al terminar de arrancar el contexto, antes de que el servidor web
+   * acepte peticiones y con los {@code Usuario}s ya escuchando sus eventos.
+   *
+   * @param evento de arranque del contexto.
+   */
+  @EventListener
+  public void onContextRefreshed(@Nonnull final ContextRefreshedEvent evento) {
+    crear();
+  }
+
+  @SuppressWarnings("nls")
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this).add("id", _id).toString();
+  }
+
+  private static final Logger LOG = LoggerFactory.getLogger(AdministradorInicial.class);
+
+  private final UsuarioRepository _usuarios;
+  private final CredencialRepository _credenciales;
+  private final UsuarioId _id;
+  private final String _clave;
+  private final String _email;
+  private final String _telefono;
+}
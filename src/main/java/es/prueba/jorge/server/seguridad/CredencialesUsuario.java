@@ -0,0 +1,57 @@
+package es.prueba.jorge.server.seguridad;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.primitives.Ints;
+
+import javax.annotation.Nonnull;
+
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+
+import es.prueba.jorge.model.Usuario;
+import es.prueba.jorge.model.UsuarioId;
+import es.prueba.jorge.server.persistence.CredencialRepository;
+import es.prueba.jorge.server.persistence.UsuarioCache;
+
+/**
+ * Datos de inicio de sesión de los {@link Usuario}s, para autenticarlos con su clave al emitir un
+ * <i>token</i> de acceso.
+ * <p>
+ * El nombre de usuario es el número de su {@link UsuarioId}, sus autoridades las de su
+ * {@code Perfil} y los {@code Usuario}s dados de baja están desactivados.
+ *
+ * @author Jorge García Villanueva &lt;Jorgegv95@gmail.com&gt;
+ */
+public class CredencialesUsuario implements UserDetailsService {
+  /**
+   * @param usuarios caché de {@link Usuario}s.
+   * @param credenciales repositorio de las claves.
+   */
+  public CredencialesUsuario(@Nonnull final UsuarioCache usuarios,
+      @Nonnull final CredencialRepository credenciales) {
+    _usuarios = checkNotNull(usuarios);
+    _credenciales = checkNotNull(credenciales);
+  }
+
+  @Override
+  public UserDetails loadUserByUsername(final String username) {
+    final Integer id = (username == null) ? null : Ints.tryParse(username);
+    if (id == null) {
+      throw new UsernameNotFoundException(username);
+    }
+    final UsuarioId usuarioId = new UsuarioId(id.intValue());
+    final Usuario usuario =
+        _usuarios.get(usuarioId).orElseThrow(() -> new UsernameNotFoundException(username));
+    final String clave =
+        _credenciales.clave(usuarioId).orElseThrow(() -> new UsernameNotFoundException(username));
+    return User.withUsername(username).password(clave)
+        .authorities(TokenAcceso.autoridades(usuario.perfil()))
+        .disabled(usuario.baja().isPresent()).build();
+  }
+
+  private final UsuarioCache _usuarios;
+  private final CredencialRepository _credenciales;
+}
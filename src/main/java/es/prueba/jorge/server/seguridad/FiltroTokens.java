@@ -0,0 +1,131 @@
+package es.prueba.jorge.server.seguridad;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Optional;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import es.prueba.jorge.commons.RequestTimings;
+import es.prueba.jorge.server.web.FiltroLatencias;
+
+/**
+ * Autentica cada petición con el <i>token</i> de la cabecera {@code Authorization: Bearer}.
+ * <p>
+ * La verificación es sólo en memoria: la firma con {@link TokensAcceso} y la baja con
+ * {@link RevocacionTokens}. Las peticiones sin <i>token</i> siguen sin autenticar, y las que
+ * tienen un <i>token</i> no válido, caducado o revocado se rechazan con un {@code 401}. El tiempo
+ * de la verificación se suma a la fase {@link RequestTimings.Phase#SECURITY} de la petición.
+ * <p>
+ * Los recolectores de métricas no pueden renovar un <i>token</i> que caduca, por lo que
+ * {@code GET} {@value #METRICAS} admite además un <i>token</i> fijo de configuración, que sólo da
+ * el rol {@value #ROL_METRICAS} y no sirve para ninguna otra petición.
+ *
+ * @author Jorge García Villanueva &lt;Jorgegv95@gmail.com&gt;
+ */
+public class FiltroTokens extends OncePerRequestFilter {
+  /** Prefijo de la cabecera {@code Authorization} con un <i>token</i> */
+  public static final String BEARER = "Bearer "; //$NON-NLS-1$
+  /** Cabecera {@code WWW-Authenticate} de las peticiones rechazadas */
+  public static final String INVALID_TOKEN = "Bearer error=\"invalid_token\""; //$NON-NLS-1$
+
+  /** Ruta de las métricas, que admite el <i>token</i> fijo de los recolectores */
+  public static final String METRICAS = "/metrics"; //$NON-NLS-1$
+  /** Rol de las peticiones de métricas con el <i>token</i> fijo */
+  public static final String ROL_METRICAS = "METRICAS"; //$NON-NLS-1$
+  /** Longitud mínima del <i>token</i> fijo de los recolectores de métricas */
+  public static final int MIN_TOKEN_METRICAS = 32;
+
+  /**
+   * @param tokens con los que verificar la firma.
+   * @param revocacion de los <i>tokens</i> de los {@code Usuario}s dados de baja.
+   */
+  public FiltroTokens(@Nonnull final TokensAcceso tokens,
+      @Nonnull final RevocacionTokens revocacion) {
+    this(tokens, revocacion, null);
+  }
+
+  /**
+   * @param tokens con los que verificar la firma.
+   * @param revocacion de los <i>tokens</i> de los {@code Usuario}s dados de baja.
+   * @param tokenMetricas <i>token</i> fijo de los recolectores de métricas, o {@code null} si
+   *        sólo se admiten los de {@code tokens}.
+   * @throws IllegalArgumentException si {@code tokenMetricas} tiene menos de
+   *         {@value #MIN_TOKEN_METRICAS} caracteres.
+   */
+  public FiltroTokens(@Nonnull final TokensAcceso tokens,
+      @Nonnull final RevocacionTokens revocacion, @Nullable final String tokenMetricas) {
+    checkArgument((tokenMetricas == null) || (tokenMetricas.length() >= MIN_TOKEN_METRICAS),
+        "El token de métricas ha de tener al menos %s caracteres", //$NON-NLS-1$
+        MIN_TOKEN_METRICAS);
+    _tokens = checkNotNull(tokens);
+    _revocacion = checkNotNull(revocacion);
+    _tokenMetricas =
+        (tokenMetricas == null) ? null : (BEARER + tokenMetricas).getBytes(StandardCharsets.UTF_8);
+  }
+
+  @Override
+  protected void doFilterInternal(final HttpServletRequest request,
+      final HttpServletResponse response, final FilterChain chain)
+      throws ServletException, IOException {
+    final String autorizacion = request.getHeader(HttpHeaders.AUTHORIZATION);
+    if ((autorizacion == null)
+        || !autorizacion.regionMatches(true, 0, BEARER, 0, BEARER.length())) {
+      chain.doFilter(request, response);
+      return;
+    }
+    if (metricas(request, autorizacion)) {
+      SecurityContextHolder.getContext().setAuthentication(RECOLECTOR);
+      chain.doFilter(request, response);
+      return;
+    }
+    final long inicio = System.nanoTime();
+    final Optional<TokenAcceso> token = _tokens.verificar(autorizacion, BEARER.length());
+    final boolean valido = token.isPresent() && !_revocacion.revocado(token.get());
+    FiltroLatencias.sumar(request, RequestTimings.Phase.SECURITY, System.nanoTime() - inicio);
+    if (!valido) {
+      SecurityContextHolder.clearContext();
+      response.setHeader(HttpHeaders.WWW_AUTHENTICATE, INVALID_TOKEN);
+      response.sendError(HttpServletResponse.SC_UNAUTHORIZED);
+      return;
+    }
+    SecurityContextHolder.getContext().setAuthentication(token.get());
+    chain.doFilter(request, response);
+  }
+
+  /**
+   * @return {@code true} si es una petición de métricas con el <i>token</i> fijo.
+   */
+  private boolean metricas(final HttpServletRequest request, final String autorizacion) {
+    // Comparación en tiempo constante, para no revelar el token por el tiempo de respuesta
+    return (_tokenMetricas != null) && HttpMethod.GET.matches(request.getMethod())
+        && METRICAS.equals(request.getServletPath())
+        && MessageDigest.isEqual(_tokenMetricas, autorizacion.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /** Autenticación de los recolectores de métricas */
+  private static final Authentication RECOLECTOR = new UsernamePasswordAuthenticationToken(
+      ROL_METRICAS, null, AuthorityUtils.createAuthorityList("ROLE_" + ROL_METRICAS)); //$NON-NLS-1$
+
+  private final TokensAcceso _tokens;
+  private final RevocacionTokens _revocacion;
+  /** Cabecera {@code Authorization} con el token fijo de las métricas, si lo hay */
+  private final byte[] _tokenMetricas;
+}
@@ -0,0 +1,151 @@
+package es.prueba.jorge.server.seguridad;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.base.MoreObjects;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.annotation.Nonnull;
+
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import es.prueba.jorge.model.DatosCRUD;
+import es.prueba.jorge.model.TipoCRUD;
+import es.prueba.jorge.model.Usuario;
+import es.prueba.jorge.model.UsuarioId;
+import es.prueba.jorge.server.auditoria.DiarioCRUD;
+import es.prueba.jorge.server.persistence.UsuarioModificado;
+
+/**
+ * Lista de revocación de los <i>tokens</i> de {@link TokensAcceso} de los {@link Usuario}s dados
+ * de baja.
+ * <p>
+ * Guarda los {@link DatosCRUD} de la baja de cada {@code Usuario}, y un <i>token</i> emitido hasta
+ * el segundo de la baja está revocado. Una baja sólo se conserva mientras pueda quedar algún
+ * <i>token</i> anterior sin caducar, de modo que la lista no pasa de las bajas de la última
+ * validez y se consulta en memoria en cada petición.
+ * <p>
+ * Se actualiza con cada {@link UsuarioModificado} de una baja cuando se confirma su transacción,
+ * y al arrancar se carga con las bajas recientes del {@link DiarioCRUD}, por lo que los
+ * <i>tokens</i> que sobreviven a un reinicio siguen revocados.
+ *
+ * @author Jorge García Villanueva &lt;Jorgegv95@gmail.com&gt;
+ */
+public class RevocacionTokens {
+  /**
+   * @param validez de los <i>tokens</i>: una baja se conserva hasta que caducan los emitidos antes
+   *        de ella.
+   * @param reloj con el que descartar las bajas antiguas.
+   * @throws IllegalArgumentException si {@code validez} no es positiva.
+   */
+  public RevocacionTokens(@Nonnull final Duration validez, @Nonnull final Clock reloj) {
+    checkArgument(!validez.isNegative() && !validez.isZero(),
+        "La validez ha de ser positiva: %s", validez); //$NON-NLS-1$
+    _validez = validez;
+    _reloj = checkNotNull(reloj);
+  }
+
+  /**
+   * @param token verificado.
+   * @return {@code true} si el {@link Usuario} del {@code token} se ha dado de baja después de
+   *         emitirlo, o en el mismo segundo.
+   */
+  public boolean revocado(@Nonnull final TokenAcceso token) {
+    final DatosCRUD baja = _bajas.get(token.usuarioId());
+    return (baja != null) && (token.emitidoSegundos() <= baja.instant().getEpochSecond());
+  }
+
+  /**
+   * Revoca los <i>tokens</i> de un {@link Usuario} emitidos hasta su baja, y descarta las bajas
+   * cuyos <i>tokens</i> ya han caducado.
+   *
+   * @param usuarioId del {@code Usuario} dado de baja.
+   * @param baja del {@code Usuario}.
+   */
+  public void revocar(@Nonnull final UsuarioId usuarioId, @Nonnull final DatosCRUD baja) {
+    final Instant limite = _reloj.instant().minus(_validez);
+    _bajas.values().removeIf(anterior -> anterior.instant().isBefore(limite));
+    if (!baja.instant().isBefore(limite)) {
+      _bajas.merge(checkNotNull(usuarioId), baja,
+          (anterior, nueva) -> (anterior.compareTo(nueva) >= 0) ? anterior : nueva);
+    }
+  }
+
+  /**
+   * Revoca los <i>tokens</i> del {@link Usuario} guardado si está dado de baja.
+   *
+   * @param evento del guardado.
+   */
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onUsuarioModificado(@Nonnull final UsuarioModificado evento) {
+    evento.usuario().baja().ifPresent(baja -> revocar(evento.usuarioId(), baja));
+  }
+
+  /**
+   * Carga las bajas del {@code diario} cuyos <i>tokens</i> pueden no haber caducado.
+   * <p>
+   * Los registros del diario están en el orden en que se confirmaron, así que sus instantes sólo
+   * se desordenan lo que tarde cada transacción: el comienzo se busca con una validez de margen y
+   * se recorre lo que queda del diario.
+   *
+   * @param diario de auditoría.
+   * @throws IOException si no se puede leer el diario.
+   */
+  public void cargar(@Nonnull final DiarioCRUD diario) throws IOException {
+    final Instant ahora = _reloj.instant();
+    final long desde = primero(diario, ahora.minus(_validez.multipliedBy(2)));
+    diario.leer(desde, (secuencia, usuario, tipo, autor, epochNanos) -> {
+      if (tipo == TipoCRUD.BAJA) {
+        revocar(new UsuarioId(usuario),
+            new DatosCRUD(new UsuarioId(autor), DiarioCRUD.instant(epochNanos)));
+      }
+    });
+  }
+
+  /**
+   * @return número de bajas en la lista.
+   */
+  public int size() {
+    return _bajas.size();
+  }
+
+  @SuppressWarnings("nls")
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this).add("validez", _validez).add("bajas", size())
+        .toString();
+  }
+
+  /**
+   * @return la secuencia del primer registro de {@code diario} a partir de {@code instante},
+   *         buscada por bisección.
+   */
+  private static long primero(final DiarioCRUD diario, final Instant instante) throws IOException {
+    final long[] epochNanos = new long[1];
+    long desde = 0;
+    long hasta = diario.siguiente();
+    while (desde < hasta) {
+      final long medio = (desde + hasta) >>> 1;
+      diario.leer(medio, medio + 1, (secuencia, usuario, tipo, autor, nanos) -> {
+        epochNanos[0] = nanos;
+      });
+      if (DiarioCRUD.instant(epochNanos[0]).isBefore(instante)) {
+        desde = medio + 1;
+      } else {
+        hasta = medio;
+      }
+    }
+    return desde;
+  }
+
+  private final Duration _validez;
+  private final Clock _reloj;
+  private final Map<UsuarioId, DatosCRUD> _bajas = new ConcurrentHashMap<>();
+}
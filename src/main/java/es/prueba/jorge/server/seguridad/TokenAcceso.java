@@ -0,0 +1,134 @@
+package es.prueba.jorge.server.seguridad;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+import java.time.Instant;
+import java.util.List;
+
+import javax.annotation.Nonnull;
+
+import org.springframework.security.authentication.AbstractAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import es.prueba.jorge.model.Perfil;
+import es.prueba.jorge.model.Usuario;
+import es.prueba.jorge.model.UsuarioId;
+
+/**
+ * Autenticación de una petición con un <i>token</i> de acceso de {@link TokensAcceso} ya
+ * verificado.
+ * <p>
+ * El {@link Usuario} autenticado es el {@link UsuarioId} del <i>token</i> y sus autoridades las
+ * de su {@link Perfil} en el momento de emitirlo ({@code ROLE_<perfil>}), sin consultar el
+ * almacén de {@code Usuario}s.
+ *
+ * @author Jorge García Villanueva &lt;Jorgegv95@gmail.com&gt;
+ */
+public final class TokenAcceso extends AbstractAuthenticationToken {
+  /**
+   * @param perfil de un {@link Usuario}.
+   * @return las autoridades de {@code perfil}: {@code ROLE_<perfil>}.
+   */
+  public static List<GrantedAuthority> autoridades(@Nonnull final Perfil perfil) {
+    return AUTORIDADES.get(checkNotNull(perfil));
+  }
+
+  /**
+   * @param usuarioId del {@link Usuario} autenticado.
+   * @param perfil del {@code Usuario} al emitir el <i>token</i>.
+   * @param emitido segundos desde la época en que se emitió el <i>token</i>.
+   * @param caduca segundos desde la época a partir de los que el <i>token</i> no es válido.
+   */
+  TokenAcceso(@Nonnull final UsuarioId usuarioId, @Nonnull final Perfil perfil,
+      final long emitido, final long caduca) {
+    super(autoridades(perfil));
+    _usuarioId = usuarioId;
+    _perfil = perfil;
+    _emitido = emitido;
+    _caduca = caduca;
+    setAuthenticated(true);
+  }
+
+  /**
+   * @return el {@link UsuarioId} del {@link Usuario} autenticado.
+   */
+  public UsuarioId usuarioId() {
+    return _usuarioId;
+  }
+
+  /**
+   * @return el {@link Perfil} del {@link Usuario} al emitir el <i>token</i>.
+   */
+  public Perfil perfil() {
+    return _perfil;
+  }
+
+  /**
+   * @return el instante en que se emitió el <i>token</i>, truncado a segundos.
+   */
+  public Instant emitido() {
+    return Instant.ofEpochSecond(_emitido);
+  }
+
+  /**
+   * @return el instante a partir del que el <i>token</i> no es válido.
+   */
+  public Instant caduca() {
+    return Instant.ofEpochSecond(_caduca);
+  }
+
+  /**
+   * @return segundos desde la época en que se emitió el <i>token</i>.
+   */
+  long emitidoSegundos() {
+    return _emitido;
+  }
+
+  @Override
+  public UsuarioId getPrincipal() {
+    return _usuarioId;
+  }
+
+  /** El <i>token</i> no se conserva una vez verificado */
+  @Override
+  public Object getCredentials() {
+    return ""; //$NON-NLS-1$
+  }
+
+  /** @return el número del {@link UsuarioId}, como el nombre de usuario del inicio de sesión. */
+  @Override
+  public String getName() {
+    return Integer.toString(_usuarioId.id());
+  }
+
+  @SuppressWarnings("nls")
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this).add("usuarioId", _usuarioId).add("perfil", _perfil)
+        .add("emitido", emitido()).add("caduca", caduca()).toString();
+  }
+
+  /** Autoridades de cada {@link Perfil}, para no crearlas en cada petición */
+  private static final ImmutableMap<Perfil, List<GrantedAuthority>> AUTORIDADES;
+  static {
+    final ImmutableMap.Builder<Perfil, List<GrantedAuthority>> autoridades =
+        ImmutableMap.builder();
+    for (final String perfil : Perfil.getPerfiles()) {
+      autoridades.put(Perfil.valueOf(perfil),
+          ImmutableList.of(new SimpleGrantedAuthority("ROLE_" + perfil))); //$NON-NLS-1$
+    }
+    AUTORIDADES = autoridades.build();
+  }
+
+  private static final long serialVersionUID = 2810575290358162417L;
+
+  private final UsuarioId _usuarioId;
+  private final Perfil _perfil;
+  private final long _emitido;
+  private final long _caduca;
+}
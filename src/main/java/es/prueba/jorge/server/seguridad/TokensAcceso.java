@@ -0,0 +1,236 @@
+package es.prueba.jorge.server.seguridad;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.base.MoreObjects;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import javax.annotation.Nonnull;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import es.prueba.jorge.model.Perfil;
+import es.prueba.jorge.model.Usuario;
+import es.prueba.jorge.model.UsuarioId;
+import es.prueba.jorge.server.codec.CodecsModelo;
+
+/**
+ * Emite y verifica <i>tokens</i> de acceso sin estado firmados con HMAC-SHA256.
+ * <p>
+ * Cada <i>token</i> lleva el {@link UsuarioId} y el {@link Perfil} del {@link Usuario}, y los
+ * instantes de emisión y caducidad, de modo que verificarlo no necesita consultar el almacén de
+ * {@code Usuario}s ni calcular el <i>hash</i> de una contraseña: basta con recalcular la firma en
+ * memoria. Su formato es {@code <datos>.<firma>} en Base64 URL sin relleno, siempre de
+ * {@value #LONGITUD} caracteres:
+ *
+ * <pre>
+ * byte   versión ({@value #VERSION})
+ * int    UsuarioId
+ * byte   Perfil, código de {@link CodecsModelo#PERFILES}
+ * long   emisión, segundos desde la época
+ * long   caducidad, segundos desde la época
+ * </pre>
+ *
+ * La firma es el HMAC-SHA256 de los caracteres de los datos. Se compara sin cortocircuito, para
+ * no revelar con el tiempo de respuesta cuántos caracteres de una firma falsa coinciden.
+ * <p>
+ * Los <i>tokens</i> no pueden retirarse antes de caducar: las bajas se tratan aparte con
+ * {@link RevocacionTokens}, y un cambio de {@code Perfil} no se refleja hasta emitir otro, por lo
+ * que conviene una validez corta.
+ *
+ * @author Jorge García Villanueva &lt;Jorgegv95@gmail.com&gt;
+ */
+public final class TokensAcceso {
+  /** Versión del formato de los <i>tokens</i> */
+  public static final byte VERSION = 1;
+  /** Número mínimo de bytes de la clave, los de la salida de SHA-256 */
+  public static final int LONGITUD_CLAVE_MINIMA = 32;
+  /** Número de caracteres de un <i>token</i> */
+  public static final int LONGITUD = 74;
+
+  /**
+   * @param clave secreta con la que firmar, de al menos {@value #LONGITUD_CLAVE_MINIMA} bytes.
+   * @param validez de cada <i>token</i> desde que se emite, en segundos enteros.
+   * @param reloj con el que fechar y caducar los <i>tokens</i>.
+   * @throws IllegalArgumentException si la clave es demasiado corta o la validez no es de al menos
+   *         un segundo.
+   */
+  public TokensAcceso(@Nonnull final byte[] clave, @Nonnull final Duration validez,
+      @Nonnull final Clock reloj) {
+    checkArgument(clave.length >= LONGITUD_CLAVE_MINIMA,
+        "La clave ha de tener al menos %s bytes", LONGITUD_CLAVE_MINIMA); //$NON-NLS-1$
+    checkArgument(validez.getSeconds() > 0,
+        "La validez ha de ser de al menos un segundo: %s", validez); //$NON-NLS-1$
+    _clave = new SecretKeySpec(clave, ALGORITMO);
+    _validez = validez.getSeconds();
+    _reloj = checkNotNull(reloj);
+    // Comprueba la clave al crear el emisor y no con la primera petición
+    _firmas.add(new Firma());
+  }
+
+  /**
+   * @param usuario al que emitir el <i>token</i>.
+   * @return un <i>token</i> para {@code usuario} que caduca tras la {@link #validez()}.
+   */
+  public String emitir(@Nonnull final Usuario usuario) {
+    final int perfil = CodecsModelo.PERFILES.indexOf(usuario.perfil().perfil());
+    final long emitido = Math.floorDiv(_reloj.millis(), 1000L);
+    final Firma firma = firma();
+    try {
+      final byte[] datos = firma._datos;
+      datos[0] = VERSION;
+      escribir(datos, 1, usuario.identity().id(), Integer.BYTES);
+      datos[5] = (byte) perfil;
+      escribir(datos, 6, emitido, Long.BYTES);
+      escribir(datos, 14, emitido + _validez, Long.BYTES);
+      ENCODER.encode(datos, firma._datosTexto);
+      firma.firmar();
+      return new StringBuilder(LONGITUD)
+          .append(new String(firma._datosTexto, StandardCharsets.US_ASCII)).append(SEPARADOR)
+          .append(new String(firma._firmaTexto, StandardCharsets.US_ASCII)).toString();
+    } finally {
+      _firmas.offer(firma);
+    }
+  }
+
+  /**
+   * Verifica el <i>token</i> que empieza en la posición {@code inicio} de {@code texto}, que
+   * puede ser la cabecera {@code Authorization} completa.
+   *
+   * @param texto que contiene el <i>token</i> hasta su final.
+   * @param inicio del <i>token</i> en {@code texto}.
+   * @return la autenticación del <i>token</i>, o vacío si no está bien formado, su firma no es
+   *         válida o ha caducado.
+   */
+  public Optional<TokenAcceso> verificar(@Nonnull final CharSequence texto, final int inicio) {
+    if (((texto.length() - inicio) != LONGITUD)
+        || (texto.charAt(inicio + LONGITUD_DATOS) != SEPARADOR)) {
+      return Optional.empty();
+    }
+    final Firma firma = firma();
+    try {
+      final byte[] datosTexto = firma._datosTexto;
+      for (int i = 0; i < LONGITUD_DATOS; i++) {
+        final char c = texto.charAt(inicio + i);
+        if (c > 0x7f) {
+          return Optional.empty();
+        }
+        datosTexto[i] = (byte) c;
+      }
+      firma.firmar();
+      int diferencias = 0;
+      final int inicioFirma = inicio + LONGITUD_DATOS + 1;
+      for (int i = 0; i < firma._firmaTexto.length; i++) {
+        diferencias |= firma._firmaTexto[i] ^ texto.charAt(inicioFirma + i);
+      }
+      if (diferencias != 0) {
+        return Optional.empty();
+      }
+
+      // Firmados por este emisor, los datos son Base64 válido
+      final byte[] datos = firma._datos;
+      DECODER.decode(datosTexto, datos);
+      final long caduca = leer(datos, 14, Long.BYTES);
+      if ((datos[0] != VERSION) || (caduca <= Math.floorDiv(_reloj.millis(), 1000L))) {
+        return Optional.empty();
+      }
+      return Optional.of(new TokenAcceso(new UsuarioId((int) leer(datos, 1, Integer.BYTES)),
+          PERFILES[datos[5]], leer(datos, 6, Long.BYTES), caduca));
+    } finally {
+      _firmas.offer(firma);
+    }
+  }
+
+  /**
+   * @return la validez de cada <i>token</i> desde que se emite.
+   */
+  public Duration validez() {
+    return Duration.ofSeconds(_validez);
+  }
+
+  @SuppressWarnings("nls")
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this).add("validez", validez())
+        .add("firmas", _firmas.size()).toString();
+  }
+
+  /**
+   * Un {@link Mac} con los <i>buffers</i> de un <i>token</i>. Los {@code Mac} no son seguros entre
+   * hilos y crear uno cuesta más que firmar, así que se reutilizan desde {@link #_firmas}: un
+   * {@code ThreadLocal} no serviría con hilos virtuales, que son uno por petición.
+   */
+  private final class Firma {
+    Firma() {
+      try {
+        _mac = Mac.getInstance(ALGORITMO);
+        _mac.init(_clave);
+      } catch (final GeneralSecurityException e) {
+        throw new IllegalStateException(e);
+      }
+    }
+
+    /** Firma {@link #_datosTexto} en {@link #_firmaTexto} */
+    void firmar() {
+      _mac.update(_datosTexto);
+      try {
+        _mac.doFinal(_resumen, 0);
+      } catch (final GeneralSecurityException e) {
+        throw new IllegalStateException(e);
+      }
+      ENCODER.encode(_resumen, _firmaTexto);
+    }
+
+    private final Mac _mac;
+    final byte[] _datos = new byte[LONGITUD_BINARIA];
+    final byte[] _datosTexto = new byte[LONGITUD_DATOS];
+    private final byte[] _resumen = new byte[32];
+    final byte[] _firmaTexto = new byte[LONGITUD - LONGITUD_DATOS - 1];
+  }
+
+  private Firma firma() {
+    final Firma firma = _firmas.poll();
+    return (firma != null) ? firma : new Firma();
+  }
+
+  private static void escribir(final byte[] destino, final int inicio, final long valor,
+      final int bytes) {
+    for (int i = 0; i < bytes; i++) {
+      destino[inicio + i] = (byte) (valor >>> (8 * (bytes - 1 - i)));
+    }
+  }
+
+  private static long leer(final byte[] origen, final int inicio, final int bytes) {
+    long valor = 0;
+    for (int i = 0; i < bytes; i++) {
+      valor = (valor << 8) | (origen[inicio + i] & 0xff);
+    }
+    return valor;
+  }
+
+  private static final String ALGORITMO = "HmacSHA256"; //$NON-NLS-1$
+  private static final char SEPARADOR = '.';
+  /** Bytes de los datos: versión, UsuarioId, Perfil, emisión y caducidad */
+  private static final int LONGITUD_BINARIA = 1 + Integer.BYTES + 1 + Long.BYTES + Long.BYTES;
+  /** Caracteres de los datos en Base64 sin relleno */
+  private static final int LONGITUD_DATOS = ((LONGITUD_BINARIA * 4) + 2) / 3;
+  private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+  private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+  /** {@link Perfil}es por su código, en el orden de {@link CodecsModelo#PERFILES} */
+  private static final Perfil[] PERFILES =
+      CodecsModelo.PERFILES.stream().map(Perfil::valueOf).toArray(Perfil[]::new);
+
+  private final SecretKeySpec _clave;
+  private final long _validez;
+  private final Clock _reloj;
+  private final Queue<Firma> _firmas = new ConcurrentLinkedQueue<>();
+}
@@ -0,0 +1,184 @@
+package es.prueba.jorge.server.web;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.base.Utf8;
+import com.google.common.collect.ImmutableMap;
+
+import java.time.Instant;
+import java.util.Map;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.inject.Inject;
+import javax.servlet.http.HttpServletRequest;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RestController;
+
+import es.prueba.jorge.model.Perfil;
+import es.prueba.jorge.model.Usuario;
+import es.prueba.jorge.model.UsuarioId;
+import es.prueba.jorge.server.persistence.CredencialRepository;
+import es.prueba.jorge.server.persistence.UltimasVisitas;
+import es.prueba.jorge.server.persistence.UsuarioCache;
+import es.prueba.jorge.server.seguridad.TokenAcceso;
+import es.prueba.jorge.server.seguridad.TokensAcceso;
+
+/**
+ * Inicio de sesión: comprueba la clave de un {@link Usuario} y le emite un <i>token</i> de acceso
+ * con el que autenticar el resto de peticiones ({@code Authorization: Bearer <token>}). Cada inicio
+ * de sesión es una visita del {@code Usuario}, que se escribe de forma diferida con
+ * {@link UltimasVisitas}. Las claves sólo se aceptan en el cuerpo JSON de la petición.
+ * <p>
+ * Cada {@code Usuario} puede cambiar su propia clave, y un {@link Perfil#ADMINISTRADOR} la de
+ * cualquiera.
+ *
+ * @author Jorge García Villanueva &lt;Jorgegv95@gmail.com&gt;
+ */
+@RestController
+@RequestMapping("/auth")
+public class AuthController {
+  /** Bytes mínimos de una clave en UTF-8 */
+  public static final int MIN_CLAVE = 8;
+  /** Bytes máximos de una clave en UTF-8: BCrypt ignora lo que pase de 72 */
+  public static final int MAX_CLAVE = 72;
+  /** Campo del cuerpo con el número del {@link UsuarioId} */
+  public static final String USUARIO = "usuario"; //$NON-NLS-1$
+  /** Campo del cuerpo con la clave */
+  public static final String CLAVE = "clave"; //$NON-NLS-1$
+
+  /**
+   * @param authenticationManager con el que comprobar la clave.
+   * @param usuarios caché de {@code Usuario}s.
+   * @param tokens emisor de <i>tokens</i> de acceso.
+   * @param visitas donde anotar la última visita de cada {@code Usuario}.
+   * @param credenciales repositorio de las claves.
+   * @param passwordEncoder con el que codificar las claves nuevas.
+   */
+  @Inject
+  public AuthController(@Nonnull final AuthenticationManager authenticationManager,
+      @Nonnull final UsuarioCache usuarios, @Nonnull final TokensAcceso tokens,
+      @Nonnull final UltimasVisitas visitas, @Nonnull final CredencialRepository credenciales,
+      @Nonnull final PasswordEncoder passwordEncoder) {
+    _authenticationManager = checkNotNull(authenticationManager);
+    _usuarios = checkNotNull(usuarios);
+    _tokens = checkNotNull(tokens);
+    _visitas = checkNotNull(visitas);
+    _credenciales = checkNotNull(credenciales);
+    _passwordEncoder = checkNotNull(passwordEncoder);
+  }
+
+  /**
+   * @param credenciales objeto JSON con el número del {@link UsuarioId} ({@value #USUARIO}) y su
+   *        clave ({@value #CLAVE}).
+   * @param peticion HTTP, que no puede llevar la clave en la URL.
+   * @return el <i>token</i> ({@code access_token}), su tipo ({@code token_type}) y los segundos
+   *         que es válido ({@code expires_in}).
+   */
+  @PostMapping("/token")
+  @SuppressWarnings("nls")
+  public Map<String, Object> token(@RequestBody final Map<String, String> credenciales,
+      final HttpServletRequest peticion) {
+    sinClaveEnUrl(peticion);
+    final String nombre = _authenticationManager.authenticate(
+        new UsernamePasswordAuthenticationToken(campo(credenciales, USUARIO),
+            campo(credenciales, CLAVE))).getName();
+    final Usuario autenticado = _usuarios.get(new UsuarioId(Integer.parseInt(nombre)))
+        .orElseThrow(() -> new BadCredentialsException(nombre));
+    _visitas.registrar(autenticado.identity(), Instant.now());
+    return ImmutableMap.of("access_token", _tokens.emitir(autenticado), "token_type", "Bearer",
+        "expires_in", _tokens.validez().getSeconds());
+  }
+
+  /**
+   * Fija la clave de un {@link Usuario}: la propia del autenticado o, si es
+   * {@link Perfil#ADMINISTRADOR}, la de cualquiera.
+   *
+   * @param datos objeto JSON con el número del {@link UsuarioId} ({@value #USUARIO}) y la clave
+   *        nueva ({@value #CLAVE}), de {@value #MIN_CLAVE} a {@value #MAX_CLAVE} bytes en UTF-8.
+   * @param peticion HTTP, que no puede llevar la clave en la URL.
+   * @param autenticado <i>token</i> de quien hace la petición.
+   * @return un {@code 204}, un {@code 403} si no puede cambiar la clave del {@code Usuario} o un
+   *         {@code 404} si no existe.
+   */
+  @PutMapping("/clave")
+  public ResponseEntity<Void> clave(@RequestBody final Map<String, String> datos,
+      final HttpServletRequest peticion, @Nonnull final TokenAcceso autenticado) {
+    sinClaveEnUrl(peticion);
+    final int usuario = Integer.parseInt(campo(datos, USUARIO));
+    final String clave = campo(datos, CLAVE);
+    final int bytes = Utf8.encodedLength(clave);
+    checkArgument((bytes >= MIN_CLAVE) && (bytes <= MAX_CLAVE),
+        "La clave ha de tener de %s a %s bytes: %s", MIN_CLAVE, MAX_CLAVE, bytes); //$NON-NLS-1$
+    final UsuarioId usuarioId = new UsuarioId(usuario);
+    if (!autenticado.usuarioId().equals(usuarioId)
+        && !autenticado.perfil().equals(Perfil.ADMINISTRADOR)) {
+      return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+    }
+    if (!_usuarios.get(usuarioId).isPresent()) {
+      return ResponseEntity.notFound().build();
+    }
+    _credenciales.save(usuarioId, _passwordEncoder.encode(clave));
+    return ResponseEntity.noContent().build();
+  }
+
+  /**
+   * @param e error de validación de los parámetros.
+   * @return un {@code 400} con el mensaje del error.
+   */
+  @ExceptionHandler(IllegalArgumentException.class)
+  @SuppressWarnings("static-method")
+  public ResponseEntity<String> badRequest(final IllegalArgumentException e) {
+    return ResponseEntity.badRequest().body(e.getMessage());
+  }
+
+  /**
+   * @param e error de autenticación.
+   * @return un {@code 401} con el mensaje del error.
+   */
+  @ExceptionHandler(AuthenticationException.class)
+  @SuppressWarnings("static-method")
+  public ResponseEntity<String> unauthorized(final AuthenticationException e) {
+    return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(e.getMessage());
+  }
+
+  /**
+   * Rechaza las peticiones con la clave en la URL, que acabaría en los logs de acceso, los
+   * <i>proxies</i> y el historial del navegador.
+   */
+  private static void sinClaveEnUrl(final HttpServletRequest peticion) {
+    // Con un cuerpo JSON los parámetros son sólo los de la URL
+    checkArgument(peticion.getParameter(CLAVE) == null,
+        "La clave ha de ir en el cuerpo de la petición, no en la URL"); //$NON-NLS-1$
+  }
+
+  /**
+   * @return el valor del campo {@code nombre} de {@code cuerpo}.
+   * @throws IllegalArgumentException si no lo tiene.
+   */
+  private static String campo(@Nullable final Map<String, String> cuerpo, final String nombre) {
+    final String valor = (cuerpo == null) ? null : cuerpo.get(nombre);
+    checkArgument(valor != null, "Falta el campo %s", nombre); //$NON-NLS-1$
+    return valor;
+  }
+
+  private final AuthenticationManager _authenticationManager;
+  private final UsuarioCache _usuarios;
+  private final TokensAcceso _tokens;
+  private final UltimasVisitas _visitas;
+  private final CredencialRepository _credenciales;
+  private final PasswordEncoder _passwordEncoder;
+}
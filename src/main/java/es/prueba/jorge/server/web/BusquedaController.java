@@ -0,0 +1,72 @@
+package es.prueba.jorge.server.web;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.collect.ImmutableMap;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import javax.annotation.Nonnull;
+import javax.inject.Inject;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import es.prueba.jorge.model.Usuario;
+import es.prueba.jorge.server.busqueda.IndiceNombres;
+import es.prueba.jorge.server.busqueda.ResultadosBusqueda;
+import es.prueba.jorge.server.persistence.UsuarioCache;
+
+/**
+ * Búsqueda de {@code Usuario}s por nombre y apellidos.
+ *
+ * @author Jorge García Villanueva &lt;Jorgegv95@gmail.com&gt;
+ */
+@RestController
+public class BusquedaController {
+  /** Cabecera con {@link ResultadosBusqueda#truncada()} */
+  public static final String TRUNCADA = "X-Busqueda-Truncada"; //$NON-NLS-1$
+
+  /**
+   * @param indice en el que buscar.
+   * @param usuarios caché de la que leer los {@code Usuario}s encontrados.
+   */
+  @Inject
+  public BusquedaController(@Nonnull final IndiceNombres indice,
+      @Nonnull final UsuarioCache usuarios) {
+    _indice = checkNotNull(indice);
+    _usuarios = checkNotNull(usuarios);
+  }
+
+  /**
+   * Busca los {@code Usuario}s cuyo nombre o apellidos contienen todas las palabras de {@code q},
+   * como prefijo o fragmento, sin distinguir mayúsculas ni tildes.
+   *
+   * @param q palabras a buscar.
+   * @param limite número máximo de resultados, entre 1 y {@value IndiceNombres#MAX_LIMITE}.
+   * @return la puntuación y el {@link Usuario} de cada resultado, de mejor a peor, con la
+   *         cabecera {@value #TRUNCADA} a {@code true} si la búsqueda se ha truncado.
+   */
+  @SuppressWarnings("nls")
+  @GetMapping("/usuarios/buscar")
+  public ResponseEntity<List<Map<String, Object>>> buscar(@RequestParam("q") final String q,
+      @RequestParam(name = "limite", defaultValue = "10") final int limite) {
+    final ResultadosBusqueda resultados = _indice.buscar(q, limite);
+    final List<Map<String, Object>> encontrados = resultados.resultados().stream()
+        .map(resultado -> {
+          final Optional<Usuario> usuario = _usuarios.get(resultado.usuarioId());
+          return usuario.<Map<String, Object>>map(encontrado -> ImmutableMap.of("puntuacion",
+              resultado.puntuacion(), "usuario", encontrado)).orElse(null);
+        }).filter(resultado -> resultado != null).collect(Collectors.toList());
+    return ResponseEntity.ok().header(TRUNCADA, Boolean.toString(resultados.truncada()))
+        .body(encontrados);
+  }
+
+  private final IndiceNombres _indice;
+  private final UsuarioCache _usuarios;
+}
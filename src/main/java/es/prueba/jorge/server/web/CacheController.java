@@ -0,0 +1,43 @@
+package es.prueba.jorge.server.web;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.collect.ImmutableMap;
+
+import java.util.Map;
+
+import javax.annotation.Nonnull;
+import javax.inject.Inject;
+
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import es.prueba.jorge.server.persistence.UsuarioCache;
+
+/**
+ * Expone las métricas de las cachés de la aplicación.
+ *
+ * @author Jorge García Villanueva &lt;Jorgegv95@gmail.com&gt;
+ */
+@RestController
+@RequestMapping("/cache")
+public class CacheController {
+  /**
+   * @param usuarios caché de {@code Usuario}s.
+   */
+  @Inject
+  public CacheController(@Nonnull final UsuarioCache usuarios) {
+    _usuarios = checkNotNull(usuarios);
+  }
+
+  /**
+   * @return tamaño, aciertos, fallos, desalojos y tiempos de carga de cada caché, por nombre.
+   */
+  @GetMapping("/metrics")
+  public Map<String, Object> metrics() {
+    return ImmutableMap.of("usuarios", _usuarios.toMap()); //$NON-NLS-1$
+  }
+
+  private final UsuarioCache _usuarios;
+}
@@ -0,0 +1,227 @@
+package es.prueba.jorge.server.web;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.collect.ImmutableMap;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nonnull;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import es.prueba.jorge.commons.MetricRegistry;
+import es.prueba.jorge.commons.RequestTimings;
+import es.prueba.jorge.commons.RequestTimings.Phase;
+
+/**
+ * Mide la latencia de cada petición, por <i>endpoint</i>, y registra las lentas.
+ * <p>
+ * El <i>endpoint</i> es el método HTTP y el patrón del {@code @RequestMapping} que ha atendido la
+ * petición ({@code GET /usuarios/{id}}), de modo que hay uno por operación y no por URL; las
+ * peticiones que no llegan a ningún controlador (rechazadas por seguridad, rutas inexistentes...)
+ * se agrupan en {@value #SIN_MAPEO}. Las latencias se registran en un {@link Recorder} de
+ * HdrHistogram por <i>endpoint</i>, con {@value #DIGITOS} dígitos significativos, y en la serie de
+ * {@value #METRICA} de {@link MetricRegistry#global()}: una vez creado el <i>endpoint</i> registrar
+ * no crea objetos ni bloquea a los demás hilos de Tomcat.
+ * <p>
+ * Las peticiones que tardan al menos el umbral indicado se registran en el <i>log</i> con formato
+ * {@code clave=valor}, junto con el tiempo de cada {@link Phase fase} acumulado en
+ * {@link RequestTimings}, que viaja en un atributo de la petición y al que cada fase suma con
+ * {@link #sumar(Phase, long)}.
+ *
+ * @author Jorge García Villanueva &lt;Jorgegv95@gmail.com&gt;
+ */
+public class FiltroLatencias extends OncePerRequestFilter {
+  /** <i>Endpoint</i> de las peticiones que no ha atendido ningún controlador */
+  public static final String SIN_MAPEO = "(sin mapeo)"; //$NON-NLS-1$
+  /** Métrica con la latencia de las peticiones */
+  public static final String METRICA = "http_peticiones_seconds"; //$NON-NLS-1$
+  /** Dígitos significativos de los histogramas */
+  public static final int DIGITOS = 2;
+
+  /**
+   * @param umbralLenta latencia a partir de la cual una petición se registra como lenta.
+   * @throws IllegalArgumentException si {@code umbralLenta} es negativo.
+   */
+  public FiltroLatencias(@Nonnull final Duration umbralLenta) {
+    checkArgument(!checkNotNull(umbralLenta).isNegative());
+    _umbralLentaNanos = umbralLenta.toNanos();
+  }
+
+  /**
+   * @return los percentiles de latencia de cada <i>endpoint</i> desde el arranque, por nombre.
+   */
+  public Map<String, Map<String, Object>> latencias() {
+    final Map<String, Map<String, Object>> latencias = new TreeMap<>();
+    for (final Latencias[] porMetodo : _endpoints.values()) {
+      for (final Latencias endpoint : porMetodo) {
+        if (endpoint != null) {
+          latencias.put(endpoint.nombre(), endpoint.toMap());
+        }
+      }
+    }
+    return latencias;
+  }
+
+  @Override
+  protected void doFilterInternal(final HttpServletRequest request,
+      final HttpServletResponse response, final FilterChain chain)
+      throws ServletException, IOException {
+    final RequestTimings tiempos = RequestTimings.start();
+    request.setAttribute(RequestTimings.ATTRIBUTE, tiempos);
+    final long inicio = System.nanoTime();
+    try {
+      chain.doFilter(request, response);
+    } finally {
+      final long nanos = System.nanoTime() - inicio;
+      request.removeAttribute(RequestTimings.ATTRIBUTE);
+      final Latencias endpoint = endpoint(request);
+      endpoint.registrar(nanos);
+      if (nanos >= _umbralLentaNanos) {
+        lenta(endpoint, request, response, nanos, tiempos);
+      }
+      tiempos.release();
+    }
+  }
+
+  /**
+   * Suma {@code nanos} a la fase {@code fase} de la petición que atiende el hilo actual, si la hay,
+   * según el {@link RequestContextHolder} de Spring.
+   *
+   * @param fase en la que se ha empleado el tiempo.
+   * @param nanos tiempo empleado, en nanosegundos.
+   */
+  public static void sumar(@Nonnull final Phase fase, final long nanos) {
+    final RequestAttributes atributos = RequestContextHolder.getRequestAttributes();
+    if (atributos != null) {
+      sumar(atributos.getAttribute(RequestTimings.ATTRIBUTE, RequestAttributes.SCOPE_REQUEST),
+          fase, nanos);
+    }
+  }
+
+  /**
+   * Suma {@code nanos} a la fase {@code fase} de {@code request}, si se está midiendo.
+   *
+   * @param request petición en curso.
+   * @param fase en la que se ha empleado el tiempo.
+   * @param nanos tiempo empleado, en nanosegundos.
+   */
+  public static void sumar(@Nonnull final HttpServletRequest request, @Nonnull final Phase fase,
+      final long nanos) {
+    sumar(request.getAttribute(RequestTimings.ATTRIBUTE), fase, nanos);
+  }
+
+  /** Latencias de un <i>endpoint</i> */
+  private static final class Latencias {
+    Latencias(final String nombre) {
+      _nombre = nombre;
+      _metrica = MetricRegistry.global().histogram(METRICA,
+          "Latencia de las peticiones HTTP", "endpoint", nombre); //$NON-NLS-1$ //$NON-NLS-2$
+    }
+
+    String nombre() {
+      return _nombre;
+    }
+
+    void registrar(final long nanos) {
+      _recorder.recordValue(Math.min(Math.max(nanos, MIN_NANOS), MAX_NANOS));
+      _metrica.record(nanos);
+    }
+
+    @SuppressWarnings("nls")
+    synchronized Map<String, Object> toMap() {
+      _recorder.getIntervalHistogramInto(_intervalo);
+      _acumulado.add(_intervalo);
+      return ImmutableMap.<String, Object>builder().put("peticiones", _acumulado.getTotalCount())
+          .put("p50Ms", millis(_acumulado.getValueAtPercentile(50)))
+          .put("p90Ms", millis(_acumulado.getValueAtPercentile(90)))
+          .put("p99Ms", millis(_acumulado.getValueAtPercentile(99)))
+          .put("p999Ms", millis(_acumulado.getValueAtPercentile(99.9)))
+          .put("maxMs", millis(_acumulado.getMaxValue())).build();
+    }
+
+    private final String _nombre;
+    private final es.prueba.jorge.commons.Histogram _metrica;
+    private final Recorder _recorder = new Recorder(MIN_NANOS, MAX_NANOS, DIGITOS);
+    /** Acumula los intervalos de {@link #_recorder} leídos */
+    private final Histogram _acumulado = new Histogram(MIN_NANOS, MAX_NANOS, DIGITOS);
+    private final Histogram _intervalo = new Histogram(MIN_NANOS, MAX_NANOS, DIGITOS);
+  }
+
+  /** Obtiene el {@code Latencias} de la petición sin crear objetos salvo la primera vez */
+  private Latencias endpoint(final HttpServletRequest request) {
+    final Object patron = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+    final String ruta = (patron instanceof String) ? (String) patron : SIN_MAPEO;
+    final HttpMethod metodo = HttpMethod.resolve(request.getMethod());
+    final int indice = (metodo == null) ? METODOS.length : metodo.ordinal();
+    Latencias[] porMetodo = _endpoints.get(ruta);
+    if (porMetodo == null) {
+      porMetodo = _endpoints.computeIfAbsent(ruta, key -> new Latencias[METODOS.length + 1]);
+    }
+    Latencias latencias = porMetodo[indice];
+    if (latencias == null) {
+      synchronized (porMetodo) {
+        latencias = porMetodo[indice];
+        if (latencias == null) {
+          latencias = new Latencias(((metodo == null) ? OTRO : metodo.name()) + ' ' + ruta);
+          porMetodo[indice] = latencias;
+        }
+      }
+    }
+    return latencias;
+  }
+
+  @SuppressWarnings("nls")
+  private static void lenta(final Latencias endpoint, final HttpServletRequest request,
+      final HttpServletResponse response, final long nanos, final RequestTimings tiempos) {
+    LOG.warn("Petición lenta: endpoint=\"{}\" uri=\"{}\" estado={} totalMs={} bdMs={} "
+        + "serializacionMs={} seguridadMs={}", endpoint.nombre(), request.getRequestURI(),
+        Integer.valueOf(response.getStatus()), Double.valueOf(millis(nanos)),
+        Double.valueOf(tiempos.millis(Phase.DATABASE)),
+        Double.valueOf(tiempos.millis(Phase.SERIALIZATION)),
+        Double.valueOf(tiempos.millis(Phase.SECURITY)));
+  }
+
+  private static void sumar(final Object tiempos, final Phase fase, final long nanos) {
+    if (tiempos instanceof RequestTimings) {
+      ((RequestTimings) tiempos).add(fase, nanos);
+    }
+  }
+
+  private static double millis(final long nanos) {
+    return (double) nanos / TimeUnit.MILLISECONDS.toNanos(1);
+  }
+
+  private static final Logger LOG = LoggerFactory.getLogger(FiltroLatencias.class);
+  private static final HttpMethod[] METODOS = HttpMethod.values();
+  /** Nombre de los métodos HTTP que no están en {@link HttpMethod} */
+  private static final String OTRO = "OTRO"; //$NON-NLS-1$
+  /** Resolución mínima de los histogramas, 1 µs */
+  private static final long MIN_NANOS = TimeUnit.MICROSECONDS.toNanos(1);
+  /** Latencia máxima registrable, mayores se registran como ésta */
+  private static final long MAX_NANOS = TimeUnit.MINUTES.toNanos(10);
+
+  private final long _umbralLentaNanos;
+  /** {@code Latencias} por patrón y por método, el último para los desconocidos */
+  private final ConcurrentMap<String, Latencias[]> _endpoints = new ConcurrentHashMap<>();
+}
@@ -0,0 +1,38 @@
+package es.prueba.jorge.server.web;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.Map;
+
+import javax.annotation.Nonnull;
+import javax.inject.Inject;
+
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Expone los percentiles de latencia de las peticiones que mide {@link FiltroLatencias}.
+ *
+ * @author Jorge García Villanueva &lt;Jorgegv95@gmail.com&gt;
+ */
+@RestController
+public class LatenciasController {
+  /**
+   * @param filtro que mide las latencias.
+   */
+  @Inject
+  public LatenciasController(@Nonnull final FiltroLatencias filtro) {
+    _filtro = checkNotNull(filtro);
+  }
+
+  /**
+   * @return por cada <i>endpoint</i>, su número de peticiones y sus latencias p50, p90, p99, p99.9
+   *         y máxima en milisegundos, desde el arranque.
+   */
+  @GetMapping("/latencias")
+  public Map<String, Map<String, Object>> latencias() {
+    return _filtro.latencias();
+  }
+
+  private final FiltroLatencias _filtro;
+}
@@ -0,0 +1,55 @@
+package es.prueba.jorge.server.web;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.IOException;
+import java.util.List;
+
+import javax.annotation.Nonnull;
+import javax.inject.Inject;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import es.prueba.jorge.commons.MetricRegistry;
+import es.prueba.jorge.server.scheduling.InstrumentedScheduledExecutor;
+
+/**
+ * Expone las métricas de {@link MetricRegistry#global()} en el formato de texto de Prometheus.
+ *
+ * @author Jorge García Villanueva &lt;Jorgegv95@gmail.com&gt;
+ */
+@RestController
+public class MetricsController {
+  /** Métrica con las tareas en cola de cada planificador */
+  public static final String METRICA_COLA = "scheduler_cola_tareas"; //$NON-NLS-1$
+
+  /**
+   * Registra la profundidad de la cola de cada planificador como un medidor.
+   *
+   * @param executors planificadores de la aplicación.
+   */
+  @Inject
+  @SuppressWarnings("nls")
+  public MetricsController(@Nonnull final List<InstrumentedScheduledExecutor> executors) {
+    for (final InstrumentedScheduledExecutor executor : checkNotNull(executors)) {
+      MetricRegistry.global().gauge(METRICA_COLA, "Tareas en cola del planificador",
+          executor::queueDepth, "planificador", executor.name());
+    }
+  }
+
+  /**
+   * @return todas las métricas, ordenadas por nombre.
+   * @throws IOException nunca, se escriben en memoria.
+   */
+  @GetMapping("/metrics")
+  @SuppressWarnings("static-method")
+  public ResponseEntity<String> metrics() throws IOException {
+    final StringBuilder text = new StringBuilder();
+    MetricRegistry.global().write(text);
+    return ResponseEntity.ok().header(HttpHeaders.CONTENT_TYPE, MetricRegistry.CONTENT_TYPE)
+        .body(text.toString());
+  }
+}
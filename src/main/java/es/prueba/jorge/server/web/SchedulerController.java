@@ -0,0 +1,93 @@
+package es.prueba.jorge.server.web;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.Nonnull;
+import javax.inject.Inject;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import es.prueba.jorge.server.scheduling.InstrumentedScheduledExecutor;
+
+/**
+ * Expone las métricas de los planificadores de tareas y permite ajustar su tamaño en caliente.
+ *
+ * @author Jorge García Villanueva &lt;Jorgegv95@gmail.com&gt;
+ */
+@RestController
+@RequestMapping("/scheduler")
+public class SchedulerController {
+  /**
+   * @param executors planificadores de la aplicación.
+   * @throws IllegalArgumentException si dos planificadores tienen el mismo nombre
+   *         ({@code scheduler.*.name}).
+   */
+  @Inject
+  public SchedulerController(@Nonnull final List<InstrumentedScheduledExecutor> executors) {
+    final Map<String, InstrumentedScheduledExecutor> porNombre = new LinkedHashMap<>();
+    for (final InstrumentedScheduledExecutor executor : checkNotNull(executors)) {
+      final InstrumentedScheduledExecutor anterior =
+          porNombre.putIfAbsent(executor.name(), executor);
+      checkArgument(anterior == null,
+          "Los planificadores %s y %s tienen el mismo nombre", anterior, executor); //$NON-NLS-1$
+    }
+    _executors = ImmutableMap.copyOf(porNombre);
+  }
+
+  /**
+   * @return estado y métricas de cada planificador, por nombre.
+   */
+  @GetMapping("/metrics")
+  public Map<String, Object> metrics() {
+    return ImmutableMap.<String, Object>copyOf(
+        Maps.transformValues(_executors, InstrumentedScheduledExecutor::toMap));
+  }
+
+  /**
+   * Modifica el número de hilos de un planificador.
+   *
+   * @param name del planificador ({@code scheduler.*.name}).
+   * @param size nuevo número de hilos, entre 1 y el máximo del planificador
+   *        ({@code scheduler.*.max-pool-size}).
+   * @return el estado del planificador tras el cambio, {@code 404} si no existe o {@code 400} si
+   *         {@code size} está fuera de rango.
+   */
+  @PutMapping("/{name}/pool-size")
+  public ResponseEntity<Map<String, Object>> poolSize(@PathVariable("name") final String name,
+      @RequestParam("size") final int size) {
+    final InstrumentedScheduledExecutor executor = _executors.get(name);
+    if (executor == null) {
+      return ResponseEntity.notFound().build();
+    }
+    executor.setPoolSize(size);
+    return ResponseEntity.ok(executor.toMap());
+  }
+
+  /**
+   * @param e error de validación de los parámetros.
+   * @return un {@code 400} con el mensaje del error.
+   */
+  @ExceptionHandler(IllegalArgumentException.class)
+  @SuppressWarnings("static-method")
+  public ResponseEntity<String> badRequest(final IllegalArgumentException e) {
+    return ResponseEntity.badRequest().body(e.getMessage());
+  }
+
+  /** Planificadores por nombre */
+  private final Map<String, InstrumentedScheduledExecutor> _executors;
+}
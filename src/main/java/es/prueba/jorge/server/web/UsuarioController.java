@@ -0,0 +1,149 @@
+package es.prueba.jorge.server.web;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import javax.annotation.Nonnull;
+import javax.inject.Inject;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import es.prueba.jorge.model.Usuario;
+import es.prueba.jorge.model.UsuarioId;
+import es.prueba.jorge.server.persistence.UsuarioCache;
+import es.prueba.jorge.server.persistence.UsuarioRepository;
+import es.prueba.jorge.server.persistence.VersionUsuario;
+
+/**
+ * Lectura de {@link Usuario}s con peticiones condicionales.
+ * <p>
+ * Cada respuesta lleva el {@code ETag} y el {@code Last-Modified} de la {@link VersionUsuario
+ * versión} de sus {@code Usuario}s, y las peticiones con {@code If-None-Match} o
+ * {@code If-Modified-Since} que siguen siendo válidas se responden con un {@code 304} antes de
+ * cargar ni serializar los {@code Usuario}s: la versión se obtiene de la {@link UsuarioCache} si
+ * el {@code Usuario} ya está en ella o, si no, leyendo sólo sus instantes.
+ *
+ * @author Jorge García Villanueva &lt;Jorgegv95@gmail.com&gt;
+ */
+@RestController
+@RequestMapping("/usuarios")
+public class UsuarioController {
+  /** Número máximo de {@code Usuario}s de una página */
+  public static final int MAX_LIMITE = 1000;
+
+  /**
+   * @param usuarios caché de {@code Usuario}s.
+   * @param repository de {@code Usuario}s, para las versiones y las páginas.
+   */
+  @Inject
+  public UsuarioController(@Nonnull final UsuarioCache usuarios,
+      @Nonnull final UsuarioRepository repository) {
+    _usuarios = checkNotNull(usuarios);
+    _repository = checkNotNull(repository);
+  }
+
+  /**
+   * @param id del {@link Usuario}.
+   * @param request de la petición, con sus cabeceras condicionales.
+   * @return el {@code Usuario}, un {@code 304} si no ha cambiado o un {@code 404} si no existe.
+   */
+  @GetMapping("/{id}")
+  public ResponseEntity<Usuario> usuario(@PathVariable("id") final int id,
+      final ServletWebRequest request) {
+    final UsuarioId usuarioId = new UsuarioId(id);
+    final Optional<Usuario> enCache = _usuarios.getIfPresent(usuarioId);
+    final Optional<VersionUsuario> version = enCache.isPresent()
+        ? enCache.map(VersionUsuario::of) : _repository.findVersion(usuarioId);
+    if (!version.isPresent()) {
+      return ResponseEntity.notFound().build();
+    }
+    if (noModificado(request, version.get().etag(), version.get().ultimoCambio())) {
+      return null;
+    }
+    final Optional<Usuario> usuario = enCache.isPresent() ? enCache : _usuarios.get(usuarioId);
+    if (!usuario.isPresent()) {
+      return ResponseEntity.notFound().build();
+    }
+    // Puede haber cambiado desde que se leyó la versión
+    final VersionUsuario actual = VersionUsuario.of(usuario.get());
+    cabeceras(request, actual.etag(), actual.ultimoCambio());
+    return ResponseEntity.ok(usuario.get());
+  }
+
+  /**
+   * Obtiene una página de {@link Usuario}s ordenados por {@link UsuarioId}, como
+   * {@link UsuarioRepository#findPage(UsuarioId, int)}.
+   *
+   * @param despuesDe último identificador de la página anterior, o ninguno para la primera.
+   * @param limite número máximo de {@code Usuario}s, entre 1 y {@value #MAX_LIMITE}.
+   * @param request de la petición, con sus cabeceras condicionales.
+   * @return la página, o un {@code 304} si no ha cambiado ninguno de sus {@code Usuario}s.
+   */
+  @GetMapping
+  public ResponseEntity<List<Usuario>> usuarios(
+      @RequestParam(name = "despuesDe", required = false) final Integer despuesDe,
+      @RequestParam(name = "limite", defaultValue = "100") final int limite,
+      final ServletWebRequest request) {
+    checkArgument((limite > 0) && (limite <= MAX_LIMITE),
+        "limite ha de estar entre 1 y %s: %s", MAX_LIMITE, limite); //$NON-NLS-1$
+    final UsuarioId desde = (despuesDe == null) ? null : new UsuarioId(despuesDe.intValue());
+    final List<VersionUsuario> versiones = _repository.findVersionPage(desde, limite);
+    if (noModificado(request, VersionUsuario.etag(versiones),
+        VersionUsuario.ultimoCambio(versiones).orElse(null))) {
+      return null;
+    }
+    final List<Usuario> pagina = _repository.findPage(desde, limite);
+    final List<VersionUsuario> actuales =
+        pagina.stream().map(VersionUsuario::of).collect(Collectors.toList());
+    cabeceras(request, VersionUsuario.etag(actuales),
+        VersionUsuario.ultimoCambio(actuales).orElse(null));
+    return ResponseEntity.ok(pagina);
+  }
+
+  /**
+   * @param e error de validación de los parámetros.
+   * @return un {@code 400} con el mensaje del error.
+   */
+  @ExceptionHandler(IllegalArgumentException.class)
+  @SuppressWarnings("static-method")
+  public ResponseEntity<String> badRequest(final IllegalArgumentException e) {
+    return ResponseEntity.badRequest().body(e.getMessage());
+  }
+
+  /**
+   * @return {@code true} si la petición es condicional y sigue siendo válida, en cuyo caso la
+   *         respuesta ya es un {@code 304}.
+   */
+  private static boolean noModificado(final ServletWebRequest request, final String etag,
+      final Instant ultimoCambio) {
+    return request.checkNotModified(etag,
+        (ultimoCambio == null) ? -1 : ultimoCambio.toEpochMilli());
+  }
+
+  /** Fija el {@code ETag} y el {@code Last-Modified} de la representación que se envía */
+  private static void cabeceras(final ServletWebRequest request, final String etag,
+      final Instant ultimoCambio) {
+    final HttpServletResponse response = request.getResponse();
+    response.setHeader(HttpHeaders.ETAG, etag);
+    if (ultimoCambio != null) {
+      response.setDateHeader(HttpHeaders.LAST_MODIFIED, ultimoCambio.toEpochMilli());
+    }
+  }
+
+  private final UsuarioCache _usuarios;
+  private final UsuarioRepository _repository;
+}
@@ -0,0 +1,56 @@
+package es.prueba.jorge.server.web;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.IOException;
+
+import javax.annotation.Nonnull;
+import javax.inject.Inject;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import es.prueba.jorge.model.UsuarioId;
+import es.prueba.jorge.server.exportacion.ExportacionUsuarios;
+
+/**
+ * Exportación de los {@code Usuario}s en NDJSON.
+ *
+ * @author Jorge García Villanueva &lt;Jorgegv95@gmail.com&gt;
+ */
+@RestController
+public class UsuarioExportController {
+  /** Tipo de contenido de la exportación */
+  public static final String NDJSON = "application/x-ndjson"; //$NON-NLS-1$
+
+  /**
+   * @param exportacion con la que exportar los {@code Usuario}s.
+   */
+  @Inject
+  public UsuarioExportController(@Nonnull final ExportacionUsuarios exportacion) {
+    _exportacion = checkNotNull(exportacion);
+  }
+
+  /**
+   * Escribe los {@code Usuario}s en la respuesta a medida que se leen, ordenados por
+   * {@link UsuarioId}. Una exportación interrumpida puede retomarse con el último identificador
+   * recibido.
+   *
+   * @param despuesDe último identificador ya exportado, si se retoma una exportación.
+   * @param response en la que escribir.
+   * @throws IOException si falla la escritura de la respuesta.
+   */
+  @GetMapping(path = "/usuarios/export", produces = NDJSON)
+  public void export(
+      @RequestParam(name = "despuesDe", required = false) final Integer despuesDe,
+      final HttpServletResponse response) throws IOException {
+    response.setContentType(NDJSON);
+    response.setCharacterEncoding("UTF-8"); //$NON-NLS-1$
+    _exportacion.exportar(response.getOutputStream(),
+        (despuesDe == null) ? null : new UsuarioId(despuesDe.intValue()));
+  }
+
+  private final ExportacionUsuarios _exportacion;
+}
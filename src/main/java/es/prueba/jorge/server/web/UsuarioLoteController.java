@@ -0,0 +1,69 @@
+package es.prueba.jorge.server.web;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.security.Principal;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import javax.annotation.Nonnull;
+import javax.inject.Inject;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RestController;
+
+import es.prueba.jorge.model.DatosCRUD;
+import es.prueba.jorge.model.UsuarioId;
+import es.prueba.jorge.server.importacion.LoteUsuarios;
+import es.prueba.jorge.server.importacion.ResultadoLote;
+
+/**
+ * Altas y modificaciones de {@code Usuario}s en lotes.
+ *
+ * @author Jorge García Villanueva &lt;Jorgegv95@gmail.com&gt;
+ */
+@RestController
+public class UsuarioLoteController {
+  /**
+   * @param lotes con los que escribir los {@code Usuario}s.
+   */
+  @Inject
+  public UsuarioLoteController(@Nonnull final LoteUsuarios lotes) {
+    _lotes = checkNotNull(lotes);
+  }
+
+  /**
+   * Da de alta los elementos sin {@value LoteUsuarios#ID} y modifica los que lo tienen, con los
+   * {@link DatosCRUD} del {@code Usuario} autenticado y el instante de la petición.
+   *
+   * @param usuarios elementos del lote, con los campos de la importación por nombre.
+   * @param principal {@code Usuario} autenticado, por su {@link UsuarioId}.
+   * @return el resultado de cada elemento, en el orden del lote: su {@code indice}, su {@code id},
+   *         y su {@code tipo} de operación o el {@code error} por el que se ha rechazado.
+   */
+  @PostMapping("/usuarios/lote")
+  public List<Map<String, Object>> lote(@RequestBody final List<Map<String, String>> usuarios,
+      final Principal principal) {
+    final DatosCRUD datos =
+        new DatosCRUD(new UsuarioId(Integer.parseInt(principal.getName())), Instant.now());
+    return _lotes.escribir(usuarios, datos).stream().map(ResultadoLote::toMap)
+        .collect(Collectors.toList());
+  }
+
+  /**
+   * @param e error de validación del lote.
+   * @return un {@code 400} con el mensaje del error.
+   */
+  @ExceptionHandler(IllegalArgumentException.class)
+  @SuppressWarnings("static-method")
+  public ResponseEntity<String> badRequest(final IllegalArgumentException e) {
+    return ResponseEntity.badRequest().body(e.getMessage());
+  }
+
+  private final LoteUsuarios _lotes;
+}
@@ -0,0 +1,39 @@
+-- Esquema de persistencia de los Usuarios, válido para Oracle y para H2 en modo Oracle.
+-- El INCREMENT BY de USUARIO_SEQ ha de coincidir con UsuarioRepository.INCREMENTO_SECUENCIA.
+-- Los identificadores son INTEGER y no NUMBER(10): en H2 NUMBER es DECIMAL y las claves primarias
+-- se comparan como BigDecimal.
+CREATE SEQUENCE USUARIO_SEQ START WITH 1 INCREMENT BY 100;
+
+CREATE TABLE USUARIO (
+  ID INTEGER NOT NULL,
+  NOMBRE VARCHAR2(100) NOT NULL,
+  APELLIDO1 VARCHAR2(100) NOT NULL,
+  APELLIDO2 VARCHAR2(100),
+  PERFIL VARCHAR2(20) NOT NULL,
+  TELEFONO VARCHAR2(9) NOT NULL,
+  EMAIL VARCHAR2(100) NOT NULL,
+  ULTIMA_VISITA TIMESTAMP(9),
+  ALTA_USUARIO INTEGER NOT NULL,
+  ALTA_INSTANTE TIMESTAMP(9) NOT NULL,
+  BAJA_USUARIO INTEGER,
+  BAJA_INSTANTE TIMESTAMP(9),
+  MOD_USUARIO INTEGER,
+  MOD_INSTANTE TIMESTAMP(9),
+  CONSTRAINT USUARIO_PK PRIMARY KEY (ID)
+);
+
+-- Clave de inicio de sesión de cada Usuario, codificada con el prefijo de su algoritmo
+-- (ver CredencialRepository).
+CREATE TABLE CREDENCIAL (
+  USUARIO_ID INTEGER NOT NULL,
+  CLAVE VARCHAR2(100) NOT NULL,
+  CONSTRAINT CREDENCIAL_PK PRIMARY KEY (USUARIO_ID),
+  CONSTRAINT CREDENCIAL_USUARIO_FK FOREIGN KEY (USUARIO_ID) REFERENCES USUARIO (ID)
+);
+
+-- Última línea importada de cada fichero (ver CheckpointRepository).
+CREATE TABLE IMPORTACION_CHECKPOINT (
+  FICHERO VARCHAR2(512) NOT NULL,
+  LINEA NUMBER(19) NOT NULL,
+  CONSTRAINT IMPORTACION_CHECKPOINT_PK PRIMARY KEY (FICHERO)
+);
@@ -0,0 +1,90 @@
+package es.prueba.jorge.model;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import org.junit.Test;
+
+/**
+ * Equivalencia de {@link EmailValidator} con la expresión regular que utilizaba {@link Email}.
+ *
+ * @author Jorge García Villanueva &lt;Jorgegv95@gmail.com&gt;
+ */
+@SuppressWarnings({"javadoc", "nls"})
+public class EmailValidatorTest {
+  /** Expresión regular histórica de {@code Email} */
+  static final Pattern PATTERN_EMAIL = Pattern.compile("^[_A-Za-z0-9-\\+]+(\\.[_A-Za-z0-9-]+)*@"
+      + "[A-Za-z0-9-]+(\\.[A-Za-z0-9]+)*(\\.[A-Za-z]{2,})$");
+  /** Caracteres de las entradas aleatorias, con los significativos para el autómata repetidos */
+  private static final String ALFABETO = "aZ09_-+.@..@-b1ñ é";
+
+  @Test
+  public void casosConocidos() {
+    for (final String email : Arrays.asList("buzon@empresa.es", "nombre.apellido@sub.empresa.com",
+        "a+b@c-d.es", "_x-y@a1.b2.cc", "a@b.c1.de")) {
+      assertThat(EmailValidator.INSTANCE.matches(email)).as(email).isTrue();
+      assertThat(PATTERN_EMAIL.matcher(email).matches()).as(email).isTrue();
+    }
+    for (final String email : Arrays.asList("", "@", "a@b", "a@b.c", "a@b.c1", "a.@b.es", ".a@b.es",
+        "a..b@c.es", "a@b..es", "a@.b.es", "a@b-c.d-e.es", "a.b+c@d.es", "a@b.es.", "a @b.es",
+        "ñ@b.es", "a@b@c.es")) {
+      assertThat(EmailValidator.INSTANCE.matches(email)).as(email).isFalse();
+      assertThat(PATTERN_EMAIL.matcher(email).matches()).as(email).isFalse();
+    }
+  }
+
+  @Test
+  public void equivalenteALaExpresionRegular() {
+    final Random random = new Random(20180501);
+    final StringBuilder email = new StringBuilder();
+    int validos = 0;
+    for (int i = 0; i < 1_000_000; i++) {
+      generar(random, email);
+      final boolean esperado = PATTERN_EMAIL.matcher(email).matches();
+      assertThat(EmailValidator.INSTANCE.matches(email)).as("%s", email).isEqualTo(esperado);
+      validos += esperado ? 1 : 0;
+    }
+    // Las entradas han de cubrir ambos resultados
+    assertThat(validos).isGreaterThan(1_000);
+  }
+
+  @Test
+  public void rango() {
+    final String texto = "  buzon@empresa.es  ";
+    assertThat(EmailValidator.INSTANCE.matches(texto, 2, texto.length() - 2)).isTrue();
+    // "buzon@empresa.e": la última etiqueta ha de tener al menos dos letras
+    assertThat(EmailValidator.INSTANCE.matches(texto, 2, texto.length() - 3)).isFalse();
+    assertThat(EmailValidator.INSTANCE.matches(texto, 3, texto.length() - 2)).isTrue();
+    assertThat(EmailValidator.INSTANCE.matches(texto)).isFalse();
+  }
+
+  @Test
+  public void validateAll() {
+    final List<String> emails = Arrays.asList("a@b.es", null, "a@b", "x.y@z.com");
+    final BitSet esperado = new BitSet();
+    esperado.set(0);
+    esperado.set(3);
+    assertThat(EmailValidator.INSTANCE.validateAll(emails)).isEqualTo(esperado);
+  }
+
+  /** Genera una entrada aleatoria corta, a menudo con la forma de un email */
+  private static void generar(final Random random, final StringBuilder email) {
+    email.setLength(0);
+    final int longitud = random.nextInt(12);
+    for (int j = 0; j < longitud; j++) {
+      email.append(ALFABETO.charAt(random.nextInt(ALFABETO.length())));
+    }
+    if (random.nextBoolean()) {
+      // Sufijo de dominio con una etiqueta final de letras de longitud variable
+      email.append(random.nextBoolean() ? "@" : "").append("a.b").append(".");
+      for (int j = random.nextInt(4); j > 0; j--) {
+        email.append(random.nextInt(5) == 0 ? '1' : 'x');
+      }
+    }
+  }
+}
@@ -0,0 +1,53 @@
+package es.prueba.jorge.model;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.google.common.testing.SerializableTester;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.util.Base64;
+
+import org.junit.Test;
+
+/**
+ * Compatibilidad de la serialización de {@link UsuarioId} y {@link SolicitudId} con la de las
+ * versiones en las que el {@code id} era un {@code Integer}.
+ *
+ * @author Jorge García Villanueva &lt;Jorgegv95@gmail.com&gt;
+ */
+@SuppressWarnings({"javadoc", "nls"})
+public class IdentidadesSerializacionTest {
+  /** {@code new UsuarioId(42)} serializado por la versión con {@code Integer id} */
+  private static final String USUARIO_ID_42 = "rO0ABXNyAB9lcy5wcnVlYmEuam9yZ2UubW9kZWwuVXN1YXJp"
+      + "b0lkyn4ajwDYjOwCAAFMAAJpZHQAE0xqYXZhL2xhbmcvSW50ZWdlcjt4cHNyABFqYXZhLmxhbmcuSW50ZWdlchLi"
+      + "oKT3gYc4AgABSQAFdmFsdWV4cgAQamF2YS5sYW5nLk51bWJlcoaslR0LlOCLAgAAeHAAAAAq";
+  /** {@code new SolicitudId(7)} serializado por la versión con {@code Integer id} */
+  private static final String SOLICITUD_ID_7 = "rO0ABXNyACFlcy5wcnVlYmEuam9yZ2UubW9kZWwuU29saWNp"
+      + "dHVkSWTKfhqPANiM7AIAAUwAAmlkdAATTGphdmEvbGFuZy9JbnRlZ2VyO3hwc3IAEWphdmEubGFuZy5JbnRlZ2Vy"
+      + "EuKgpPeBhzgCAAFJAAV2YWx1ZXhyABBqYXZhLmxhbmcuTnVtYmVyhqyVHQuU4IsCAAB4cAAAAAc=";
+
+  @Test
+  public void leeLaFormaAnterior() throws Exception {
+    assertThat(leer(USUARIO_ID_42)).isEqualTo(new UsuarioId(42));
+    assertThat(leer(SOLICITUD_ID_7)).isEqualTo(new SolicitudId(7));
+  }
+
+  @Test
+  public void serializa() {
+    SerializableTester.reserializeAndAssert(new UsuarioId(Integer.MAX_VALUE));
+    SerializableTester.reserializeAndAssert(new SolicitudId(0));
+  }
+
+  private static Object leer(final String base64) throws IOException, ClassNotFoundException {
+    try (ObjectInputStream in =
+        new ObjectInputStream(new ByteArrayInputStream(decodificar(base64)))) {
+      return in.readObject();
+    }
+  }
+
+  private static byte[] decodificar(final String base64) {
+    return Base64.getDecoder().decode(base64);
+  }
+}
@@ -0,0 +1,54 @@
+package es.prueba.jorge.model;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import org.junit.Test;
+
+/**
+ * Equivalencia de {@link TelefonoValidator} con la expresión regular que utilizaba
+ * {@link Telefono}.
+ *
+ * @author Jorge García Villanueva &lt;Jorgegv95@gmail.com&gt;
+ */
+@SuppressWarnings({"javadoc", "nls"})
+public class TelefonoValidatorTest {
+  /** Expresión regular histórica de {@code Telefono} */
+  static final Pattern PATTERN_TELEFONO =
+      Pattern.compile("[1-9][0-9]{" + (Telefono.TELEFONO_LENGTH - 1) + "}");
+  private static final String ALFABETO = "0123456789 a+";
+
+  @Test
+  public void equivalenteALaExpresionRegular() {
+    final Random random = new Random(20180501);
+    final StringBuilder telefono = new StringBuilder();
+    int validos = 0;
+    for (int i = 0; i < 1_000_000; i++) {
+      telefono.setLength(0);
+      final int longitud = Telefono.TELEFONO_LENGTH - 2 + random.nextInt(4);
+      // Mayoritariamente dígitos, para que una parte apreciable sea válida
+      for (int j = 0; j < longitud; j++) {
+        telefono.append(random.nextInt(20) == 0 ? ALFABETO.charAt(random.nextInt(ALFABETO.length()))
+            : (char) ('0' + random.nextInt(10)));
+      }
+      final boolean esperado = PATTERN_TELEFONO.matcher(telefono).matches();
+      assertThat(TelefonoValidator.INSTANCE.matches(telefono)).as("%s", telefono)
+          .isEqualTo(esperado);
+      validos += esperado ? 1 : 0;
+    }
+    assertThat(validos).isGreaterThan(10_000);
+  }
+
+  @Test
+  public void casosConocidos() {
+    assertThat(TelefonoValidator.INSTANCE.matches("600000000")).isTrue();
+    assertThat(TelefonoValidator.INSTANCE.matches("060000000")).isFalse();
+    assertThat(TelefonoValidator.INSTANCE.matches("60000000")).isFalse();
+    assertThat(TelefonoValidator.INSTANCE.matches("6000000000")).isFalse();
+    assertThat(TelefonoValidator.INSTANCE.matches("60000000a")).isFalse();
+    assertThat(TelefonoValidator.INSTANCE.matches(" 600000000", 1, 10)).isTrue();
+    assertThat(TelefonoValidator.INSTANCE.matches(null)).isFalse();
+  }
+}
@@ -0,0 +1,78 @@
+package es.prueba.jorge.model;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assume.assumeTrue;
+
+import com.google.common.collect.ObjectArrays;
+
+import java.time.Instant;
+
+import org.junit.Test;
+import org.openjdk.jol.info.GraphLayout;
+import org.openjdk.jol.vm.VM;
+import org.openjdk.jol.vm.VirtualMachine;
+
+/**
+ * Control de regresión de la memoria retenida por cada {@link Usuario}.
+ * <p>
+ * Mide los bytes que pertenecen en exclusiva a un {@code Usuario} (la propia instancia, su
+ * identidad, sus {@link DatosCRUD}...), descontando los <i>ValueObjects</i> que se comparten entre
+ * usuarios. El límite depende de la disposición de los objetos en la JVM: del tamaño de las
+ * referencias ({@code -XX:+UseCompressedOops}) y de la cabecera
+ * ({@code -XX:+UseCompressedClassPointers}). Con una disposición sin límite medido la prueba se
+ * ignora. Si la estructura crece a propósito hay que actualizar los límites.
+ *
+ * @author Jorge García Villanueva &lt;Jorgegv95@gmail.com&gt;
+ */
+@SuppressWarnings({"javadoc", "nls"})
+public class UsuarioFootprintTest {
+  /** Con referencias comprimidas de 4 bytes y cabecera de 12, la opción por defecto */
+  static final long MAX_BYTES_OOPS_COMPRIMIDOS = 176;
+  /** Con referencias de 8 bytes y cabecera de 12 (JDK 15+ con {@code -XX:-UseCompressedOops}) */
+  static final long MAX_BYTES_OOPS = 232;
+  /** Con referencias de 8 bytes y cabecera de 16 (JDK 8 con {@code -XX:-UseCompressedOops}) */
+  static final long MAX_BYTES_OOPS_CABECERA = 272;
+
+  @Test
+  public void bytesPorUsuario() {
+    final Persona persona =
+        Persona.builder().withNombre("Nombre").withApellido1("Apellido").build();
+    final Email email = Email.of("buzon@empresa.es");
+    final Telefono telefono = Telefono.of("912345678");
+    final Instant now = Instant.now();
+
+    final UsuarioId id = new UsuarioId(1);
+    final Usuario usuario = Usuario.builder(id).withPersona(persona).withPerfil(Perfil.CLIENTE)
+        .withEmail(email).withTelefono(telefono).withUltimaVisita(now)
+        .withDatosAlta(new DatosCRUD(id, now)).withDatosBaja(new DatosCRUD(id, now))
+        .withDatosUltimaModificacion(new DatosCRUD(id, now)).build();
+
+    // Se restan los tamaños y no los grafos, que se comparan por direcciones y fallan si el GC
+    // mueve los objetos entre un recorrido y otro
+    final Object[] compartidos = {persona, email, telefono, Perfil.CLIENTE, TipoCRUD.ALTA,
+        TipoCRUD.BAJA, TipoCRUD.MOD, now};
+    final long bytes =
+        GraphLayout.parseInstance(ObjectArrays.concat(usuario, compartidos)).totalSize()
+            - GraphLayout.parseInstance(compartidos).totalSize();
+
+    assertThat(bytes).as(GraphLayout.parseInstance(usuario).toFootprint())
+        .isLessThanOrEqualTo(maxBytesPorUsuario(VM.current()));
+  }
+
+  /** Límite para la disposición de los objetos en la JVM actual */
+  private static long maxBytesPorUsuario(final VirtualMachine vm) {
+    final int referencia = vm.arrayIndexScale("java.lang.Object");
+    final int cabecera = vm.objectHeaderSize();
+    assumeTrue("Alineamiento sin límite medido: " + vm.objectAlignment(),
+        vm.objectAlignment() == 8);
+    if ((referencia == 4) && (cabecera == 12)) {
+      return MAX_BYTES_OOPS_COMPRIMIDOS;
+    }
+    if ((referencia == 8) && (cabecera == 12)) {
+      return MAX_BYTES_OOPS;
+    }
+    assumeTrue("Disposición sin límite medido: referencias de " + referencia
+        + " bytes y cabecera de " + cabecera, (referencia == 8) && (cabecera == 16));
+    return MAX_BYTES_OOPS_CABECERA;
+  }
+}
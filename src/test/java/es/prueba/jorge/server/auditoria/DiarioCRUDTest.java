@@ -0,0 +1,105 @@
+package es.prueba.jorge.server.auditoria;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.inject.Inject;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import es.prueba.jorge.model.DatosCRUD;
+import es.prueba.jorge.model.Email;
+import es.prueba.jorge.model.Perfil;
+import es.prueba.jorge.model.Persona;
+import es.prueba.jorge.model.Telefono;
+import es.prueba.jorge.model.TipoCRUD;
+import es.prueba.jorge.model.Usuario;
+import es.prueba.jorge.model.UsuarioId;
+import es.prueba.jorge.server.persistence.H2Oracle;
+import es.prueba.jorge.server.persistence.UsuarioRepository;
+
+/**
+ * Registro de las operaciones de {@link UsuarioRepository} en el {@link DiarioCRUD} al confirmar
+ * sus transacciones contra {@link H2Oracle}.
+ *
+ * @author Jorge García Villanueva &lt;Jorgegv95@gmail.com&gt;
+ */
+@SuppressWarnings({"javadoc", "nls"})
+@RunWith(SpringRunner.class)
+@ContextConfiguration(classes = {H2Oracle.class, DiarioCRUDTest.Diario.class})
+public class DiarioCRUDTest {
+  @Configuration
+  static class Diario {
+    @Bean(destroyMethod = "close")
+    public DiarioCRUD diarioCRUD() throws IOException {
+      return new DiarioCRUD(Files.createTempDirectory("diario"), 4096);
+    }
+  }
+
+  @Inject
+  private UsuarioRepository repository;
+  @Inject
+  private DiarioCRUD diario;
+  @Inject
+  private PlatformTransactionManager transactionManager;
+
+  @Test
+  public void registraLasOperacionesConfirmadas() throws IOException {
+    final long antes = diario.siguiente();
+    final List<Usuario> usuarios = usuarios(3);
+    new TransactionTemplate(transactionManager).execute(estado -> {
+      repository.insertAll(usuarios);
+      return null;
+    });
+
+    final List<Integer> registrados = new ArrayList<>();
+    diario.leer(antes, (secuencia, usuario, tipo, autor, epochNanos) -> {
+      assertThat(tipo).isSameAs(TipoCRUD.ALTA);
+      registrados.add(Integer.valueOf(usuario));
+    });
+    assertThat(registrados).containsExactly(usuarios.get(0).identity().id(),
+        usuarios.get(1).identity().id(), usuarios.get(2).identity().id());
+  }
+
+  @Test
+  @DirtiesContext
+  public void deshaceLaTransaccionSiNoSePuedeRegistrar() {
+    final Usuario usuario = usuarios(1).get(0);
+    diario.close();
+
+    assertThatThrownBy(() -> new TransactionTemplate(transactionManager).execute(estado -> {
+      repository.save(usuario);
+      return null;
+    })).isInstanceOf(IllegalStateException.class).hasMessageContaining("Diario cerrado");
+    assertThat(repository.findById(usuario.identity())).isEmpty();
+  }
+
+  private List<Usuario> usuarios(final int n) {
+    final Persona persona =
+        Persona.builder().withNombre("Nombre").withApellido1("Apellido").build();
+    final Instant now = Instant.now();
+    final List<Usuario> usuarios = new ArrayList<>(n);
+    for (int i = 0; i < n; i++) {
+      final UsuarioId id = repository.nextId();
+      usuarios.add(Usuario.builder(id).withPersona(persona).withPerfil(Perfil.CLIENTE)
+          .withEmail(Email.of("diario" + id.id() + "@empresa.es"))
+          .withTelefono(Telefono.of(Integer.toString(600_000_000 + id.id())))
+          .withDatosAlta(new DatosCRUD(id, now)).build());
+    }
+    return usuarios;
+  }
+}
@@ -0,0 +1,91 @@
+package es.prueba.jorge.server.auditoria;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.util.FileSystemUtils;
+
+import es.prueba.jorge.model.DatosCRUD;
+import es.prueba.jorge.model.TipoCRUD;
+import es.prueba.jorge.model.UsuarioId;
+
+/**
+ * Reproducción del {@link DiarioCRUD} en una {@link ProyeccionCRUD} con varias particiones, y
+ * lectura de sus instantáneas.
+ *
+ * @author Jorge García Villanueva &lt;Jorgegv95@gmail.com&gt;
+ */
+@SuppressWarnings({"javadoc", "nls"})
+public class ProyeccionCRUDTest {
+  /** Varios lotes de lectura, el último incompleto */
+  static final int EVENTOS = 200_000;
+  static final int USUARIOS = 5_000;
+
+  private Path directorio;
+  private DiarioCRUD diario;
+  private ExecutorService executor;
+
+  @Before
+  public void setUp() throws IOException {
+    directorio = Files.createTempDirectory("proyeccion");
+    diario = new DiarioCRUD(directorio, 1 << 20);
+    executor = Executors.newFixedThreadPool(3);
+    final SplittableRandom random = new SplittableRandom(42);
+    final long base = Instant.parse("2020-01-01T00:00:00Z").toEpochMilli();
+    for (int i = 0; i < EVENTOS; i++) {
+      final int suerte = random.nextInt(10);
+      final TipoCRUD tipo = ((i < USUARIOS) || (suerte == 0)) ? TipoCRUD.ALTA
+          : (suerte == 1) ? TipoCRUD.BAJA : TipoCRUD.MOD;
+      diario.append(new UsuarioId((i < USUARIOS) ? i : random.nextInt(USUARIOS)), tipo,
+          new DatosCRUD(new UsuarioId(random.nextInt(USUARIOS)), Instant.ofEpochMilli(base + i)));
+    }
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    executor.shutdown();
+    diario.close();
+    FileSystemUtils.deleteRecursively(directorio);
+  }
+
+  @Test
+  public void lasParticionesCoincidenConUnaSola() throws IOException {
+    final ProyeccionCRUD una = new ProyeccionCRUD(1);
+    una.reproducir(diario, Long.MAX_VALUE, executor);
+    final ProyeccionCRUD varias = new ProyeccionCRUD(7);
+    // En dos tramos, el primero a mitad de un lote
+    varias.reproducir(diario, 100_003, executor);
+    varias.reproducir(diario, Long.MAX_VALUE, executor);
+
+    assertThat(varias.secuencia()).isEqualTo(EVENTOS);
+    assertThat(varias.size()).isEqualTo(una.size()).isEqualTo(USUARIOS);
+    una.forEach(estado -> assertThat(varias.estado(estado.usuarioId())).contains(estado));
+  }
+
+  @Test
+  public void rechazaFlagsCorruptos() throws IOException {
+    final ProyeccionCRUD proyeccion = new ProyeccionCRUD(3);
+    proyeccion.reproducir(diario, Long.MAX_VALUE, executor);
+    final Path fichero = directorio.resolve("proyeccion.instantanea");
+    proyeccion.escribir(fichero);
+    assertThat(ProyeccionCRUD.leer(fichero, 5).size()).isEqualTo(USUARIOS);
+
+    // Flags del primer registro, tras la cabecera de 20 bytes y el usuario
+    final byte[] contenido = Files.readAllBytes(fichero);
+    contenido[20 + 4] = (byte) 0xFF;
+    Files.write(fichero, contenido);
+    assertThatThrownBy(() -> ProyeccionCRUD.leer(fichero, 5))
+        .isInstanceOf(IllegalStateException.class).hasMessageContaining("Flags");
+  }
+}
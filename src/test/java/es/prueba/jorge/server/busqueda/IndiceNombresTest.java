@@ -0,0 +1,235 @@
+package es.prueba.jorge.server.busqueda;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+import es.prueba.jorge.model.DatosCRUD;
+import es.prueba.jorge.model.Email;
+import es.prueba.jorge.model.Perfil;
+import es.prueba.jorge.model.Persona;
+import es.prueba.jorge.model.Telefono;
+import es.prueba.jorge.model.Usuario;
+import es.prueba.jorge.model.UsuarioId;
+
+/**
+ * Pruebas de {@link IndiceNombres}: contra una búsqueda por fuerza bruta con altas, cambios y
+ * bajas al azar, y con búsquedas concurrentes con las modificaciones.
+ *
+ * @author Jorge García Villanueva &lt;Jorgegv95@gmail.com&gt;
+ */
+@SuppressWarnings({"javadoc", "nls"})
+public class IndiceNombresTest {
+  static final String[] PALABRAS = {"María", "Mario", "Marín", "Martínez", "José", "Josefa",
+      "Ana", "Anabel", "Juana", "Nuñez", "Núñez", "Ángel", "Ángeles", "Gil", "Gilberto", "Del",
+      "Río", "Ríos", "Olga", "Golán", "Lana", "Alana", "Pérez", "Perea", "Rosa", "Rosario"};
+  static final int USUARIOS = 2_000;
+
+  @Test
+  public void coincideConLaFuerzaBruta() {
+    final SplittableRandom random = new SplittableRandom(42);
+    final IndiceNombres indice = new IndiceNombres();
+    final Map<Integer, List<String>> vigentes = new HashMap<>();
+    final Instant base = Instant.parse("2020-01-01T00:00:00Z");
+    for (int i = 0; i < (3 * USUARIOS); i++) {
+      final int id = 1 + random.nextInt(USUARIOS);
+      final Instant instante = base.plusSeconds(i);
+      if (vigentes.containsKey(id) && (random.nextInt(10) == 0)) {
+        indice.indexar(usuario(id, persona(random), instante, true));
+        vigentes.remove(id);
+      } else {
+        final Persona persona = persona(random);
+        indice.indexar(usuario(id, persona, instante, false));
+        vigentes.put(id, palabras(persona));
+      }
+    }
+
+    int encontradas = 0;
+    for (int i = 0; i < 2_000; i++) {
+      final String consulta = consulta(random);
+      final int limite = 1 + random.nextInt(20);
+      final ResultadosBusqueda resultados = indice.buscar(consulta, limite);
+      assertThat(resultados.truncada()).as(consulta).isFalse();
+      assertThat(texto(resultados.resultados())).as("%s (%s)", consulta, limite)
+          .isEqualTo(texto(fuerzaBruta(vigentes, consulta, limite)));
+      encontradas += resultados.resultados().isEmpty() ? 0 : 1;
+    }
+    // La mayoría de consultas tienen resultados que comparar
+    assertThat(encontradas).isGreaterThan(1_000);
+  }
+
+  @Test
+  public void marcaLasBusquedasTruncadas() {
+    final IndiceNombres indice = new IndiceNombres();
+    final Instant alta = Instant.now();
+    for (int id = 1; id <= (IndiceNombres.MAX_CANDIDATOS + 100); id++) {
+      indice.indexar(usuario(id, Persona.builder().withNombre("Ana")
+          .withApellido1((id == 1) ? "Zamora" : ("Apellido" + id)).build(), alta, false));
+    }
+    // Todos empiezan por «a» con la misma puntuación
+    assertThat(indice.buscar("a", 10).truncada()).isTrue();
+    // La palabra idéntica de la guía no puede mejorarse: se para sin recorrer el resto
+    final ResultadosBusqueda exacta = indice.buscar("ana zamora", 10);
+    assertThat(exacta.truncada()).isFalse();
+    assertThat(exacta.resultados()).extracting(resultado -> resultado.usuarioId().id())
+        .containsExactly(1);
+  }
+
+  @Test
+  public void buscaMientrasSeModifica() throws Exception {
+    final IndiceNombres indice = new IndiceNombres();
+    final Instant base = Instant.parse("2020-01-01T00:00:00Z");
+    final int estables = 50;
+    for (int id = 1; id <= estables; id++) {
+      indice.indexar(usuario(id, Persona.builder().withNombre("Gamma").withApellido1("Estable")
+          .build(), base, false));
+    }
+    final AtomicBoolean parar = new AtomicBoolean();
+    final CountDownLatch empezar = new CountDownLatch(1);
+    final ExecutorService executor = Executors.newFixedThreadPool(3);
+    try {
+      // Las listas de «gamma» y «cambia» crecen y se compactan mientras se busca en ellas
+      final Future<?> escritor = executor.submit(() -> {
+        empezar.countDown();
+        for (int i = 1; i <= 200_000; i++) {
+          final int id = estables + 1 + (i % 500);
+          indice.indexar(usuario(id, Persona.builder()
+              .withNombre(((i & 1) == 0) ? "Gamma" : "Delta").withApellido1("Cambia").build(),
+              base.plusMillis(i), (i % 7) == 0));
+        }
+        parar.set(true);
+      });
+      final List<Future<Integer>> lectores = new ArrayList<>();
+      for (int l = 0; l < 2; l++) {
+        lectores.add(executor.submit(() -> {
+          empezar.await();
+          int busquedas = 0;
+          while (!parar.get()) {
+            final List<ResultadoBusqueda> resultados =
+                indice.buscar("gamma estable", IndiceNombres.MAX_LIMITE).resultados();
+            assertThat(resultados).hasSize(estables).allSatisfy(resultado -> assertThat(
+                resultado.usuarioId().id()).isBetween(1, estables));
+            for (final ResultadoBusqueda resultado : indice.buscar("delta gamma", 10)
+                .resultados()) {
+              // Nunca coincide: cada versión de un Usuario tiene una de las dos palabras
+              throw new AssertionError("Resultado imposible: " + resultado);
+            }
+            busquedas++;
+          }
+          return busquedas;
+        }));
+      }
+      escritor.get(1, TimeUnit.MINUTES);
+      for (final Future<Integer> lector : lectores) {
+        assertThat(lector.get(1, TimeUnit.MINUTES)).isPositive();
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /** Los mejores {@code limite} Usuarios según las reglas de puntuación, comprobando todos */
+  private static List<ResultadoBusqueda> fuerzaBruta(final Map<Integer, List<String>> vigentes,
+      final String consulta, final int limite) {
+    final List<String> buscadas = Plegado.palabras(consulta);
+    final List<ResultadoBusqueda> resultados = new ArrayList<>();
+    final Map<Integer, Long> longitudes = new HashMap<>();
+    vigentes.forEach((id, propias) -> {
+      int total = 0;
+      for (final String buscada : buscadas) {
+        int mejor = 0;
+        for (final String propia : propias) {
+          if (propia.equals(buscada)) {
+            mejor = Math.max(mejor, IndiceNombres.EXACTA);
+          } else if (propia.startsWith(buscada)) {
+            mejor = Math.max(mejor, IndiceNombres.PREFIJO);
+          } else if ((buscada.length() >= IndiceNombres.NGRAMA) && propia.contains(buscada)) {
+            mejor = Math.max(mejor, IndiceNombres.FRAGMENTO);
+          }
+        }
+        if (mejor == 0) {
+          return;
+        }
+        total += mejor;
+      }
+      resultados.add(new ResultadoBusqueda(new UsuarioId(id), total));
+      longitudes.put(id, (long) propias.stream().mapToInt(String::length).sum());
+    });
+    return resultados.stream()
+        .sorted(Comparator.comparingInt(ResultadoBusqueda::puntuacion).reversed()
+            .thenComparing(resultado -> longitudes.get(resultado.usuarioId().id()))
+            .thenComparing(resultado -> resultado.usuarioId().id()))
+        .limit(limite).collect(Collectors.toList());
+  }
+
+  private static List<String> texto(final List<ResultadoBusqueda> resultados) {
+    return resultados.stream()
+        .map(resultado -> resultado.usuarioId().id() + ":" + resultado.puntuacion())
+        .collect(Collectors.toList());
+  }
+
+  private static List<String> palabras(final Persona persona) {
+    final List<String> palabras = new ArrayList<>(Plegado.palabras(persona.nombre()));
+    palabras.addAll(Plegado.palabras(persona.apellido1()));
+    persona.apellido2().ifPresent(apellido2 -> palabras.addAll(Plegado.palabras(apellido2)));
+    return palabras;
+  }
+
+  private static Persona persona(final SplittableRandom random) {
+    final Persona.Builder builder = Persona.builder().withNombre(palabra(random))
+        .withApellido1(palabra(random));
+    return random.nextBoolean() ? builder.withApellido2(palabra(random) + " " + palabra(random))
+        .build() : builder.build();
+  }
+
+  private static String palabra(final SplittableRandom random) {
+    return PALABRAS[random.nextInt(PALABRAS.length)];
+  }
+
+  /** Una o dos palabras completas, prefijos de 1 a 4 letras o fragmentos de 3 letras */
+  private static String consulta(final SplittableRandom random) {
+    final StringBuilder consulta = new StringBuilder();
+    for (int i = 1 + random.nextInt(2); i > 0; i--) {
+      final String palabra = Plegado.palabras(palabra(random)).get(0);
+      switch (random.nextInt(3)) {
+        case 0:
+          consulta.append(palabra.toUpperCase());
+          break;
+        case 1:
+          consulta.append(palabra, 0, Math.min(palabra.length(), 1 + random.nextInt(4)));
+          break;
+        default:
+          final int desde = random.nextInt(Math.max(1, palabra.length() - 2));
+          consulta.append(palabra, desde, Math.min(palabra.length(), desde + 3));
+      }
+      consulta.append(' ');
+    }
+    return consulta.toString();
+  }
+
+  private static Usuario usuario(final int id, final Persona persona, final Instant instante,
+      final boolean baja) {
+    final UsuarioId usuarioId = new UsuarioId(id);
+    final Usuario.Builder builder = Usuario.builder(usuarioId).withPersona(persona)
+        .withPerfil(Perfil.CLIENTE).withEmail(Email.of("buzon" + id + "@empresa.es"))
+        .withTelefono(Telefono.of("600000000"))
+        .withDatosAlta(new DatosCRUD(usuarioId, Instant.EPOCH))
+        .withDatosUltimaModificacion(new DatosCRUD(usuarioId, instante));
+    return (baja ? builder.withDatosBaja(new DatosCRUD(usuarioId, instante)) : builder).build();
+  }
+}
@@ -0,0 +1,329 @@
+package es.prueba.jorge.server.codec;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.io.BaseEncoding;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+
+import org.junit.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import es.prueba.jorge.model.DatosCRUD;
+import es.prueba.jorge.model.Direccion;
+import es.prueba.jorge.model.Email;
+import es.prueba.jorge.model.Perfil;
+import es.prueba.jorge.model.Persona;
+import es.prueba.jorge.model.Solicitud;
+import es.prueba.jorge.model.SolicitudId;
+import es.prueba.jorge.model.Telefono;
+import es.prueba.jorge.model.TipoCRUD;
+import es.prueba.jorge.model.Usuario;
+import es.prueba.jorge.model.UsuarioId;
+import es.prueba.jorge.server.json.ModuloModelo;
+
+/**
+ * Propiedades de {@link CodecsModelo} comprobadas con valores al azar, y comparación del tamaño
+ * codificado con la serialización de Java y JSON.
+ * <p>
+ * Para cada tipo del modelo comprueba que descodificar lo codificado (uno a uno y en lote)
+ * retorna el mismo valor, también con textos de cualquier plano Unicode e instantes de todo el
+ * rango de {@link Instant}; que cualquier prefijo de un valor codificado y cualquier byte
+ * alterado producen una {@link IllegalArgumentException} o un valor, nunca otra excepción; y que
+ * los bytes de referencia de cada versión anterior del formato se siguen leyendo.
+ *
+ * @author Jorge García Villanueva &lt;Jorgegv95@gmail.com&gt;
+ */
+@SuppressWarnings({"javadoc", "nls"})
+public class CodecModeloTest {
+  /**
+   * {@link #referencia()} codificado con cada versión del formato, por versión. Al cambiar el
+   * formato se añade el de la nueva versión, y los anteriores no se modifican nunca.
+   */
+  static final String[] REFERENCIA = {null,
+      // Versión 1
+      "01b9601b054a6f7267650747617263c3ad610a56696c6c616e7565766136614a4e0a72757a4066"
+          + "6f6f2e6573b96084c585ac0bed0380c60afe831e011ded03"};
+  /** Valores al azar de cada tipo */
+  static final int VALORES = 20_000;
+
+  private final SplittableRandom random = new SplittableRandom(42);
+  private final List<String> errores = new ArrayList<>();
+
+  @Test
+  public void identidadesYEnumerados() {
+    comprobar("UsuarioId", CodecsModelo.USUARIO_ID, () -> new UsuarioId(random.nextInt()),
+        UsuarioId::equals);
+    comprobar("SolicitudId", CodecsModelo.SOLICITUD_ID, () -> new SolicitudId(random.nextInt()),
+        SolicitudId::equals);
+    comprobar("Perfil", CodecsModelo.PERFIL, () -> perfil(random), Perfil::equals);
+    comprobar("TipoCRUD", CodecsModelo.TIPO_CRUD, () -> tipoCRUD(random), TipoCRUD::equals);
+    assertThat(errores).isEmpty();
+  }
+
+  @Test
+  public void valores() {
+    comprobar("Email", CodecsModelo.EMAIL, () -> email(random), Email::equals);
+    comprobar("Telefono", CodecsModelo.TELEFONO, () -> telefono(random), Telefono::equals);
+    comprobar("DatosCRUD", CodecsModelo.DATOS_CRUD, () -> datosCRUD(random), DatosCRUD::equals);
+    comprobar("Persona", CodecsModelo.PERSONA, () -> persona(random, true), Persona::equals);
+    comprobar("Direccion", CodecsModelo.DIRECCION, () -> direccion(random), Direccion::equals);
+    assertThat(errores).isEmpty();
+  }
+
+  @Test
+  public void entidades() {
+    comprobar("Solicitud", CodecsModelo.SOLICITUD, () -> solicitud(random),
+        Solicitud::sameValueAs);
+    comprobar("Usuario", CodecsModelo.USUARIO, () -> usuario(random, true),
+        CodecModeloTest::iguales);
+    assertThat(errores).isEmpty();
+  }
+
+  @Test
+  public void leeLasVersionesAnteriores() {
+    for (int version = 1; version < REFERENCIA.length; version++) {
+      final Usuario leido = CodecsModelo.USUARIO
+          .decodificar(BaseEncoding.base16().lowerCase().decode(REFERENCIA[version]));
+      assertThat(iguales(leido, referencia())).as("versión %s leída como %s", version, leido)
+          .isTrue();
+    }
+    final String actual =
+        BaseEncoding.base16().lowerCase().encode(CodecsModelo.USUARIO.codificar(referencia()));
+    assertThat(actual).as("La versión %s ha cambiado sin incrementarla", CodecBinario.VERSION)
+        .isEqualTo(REFERENCIA[CodecBinario.VERSION]);
+  }
+
+  /** Tamaño medio de Usuarios realistas con cada formato */
+  @Test
+  public void ocupaMenosQueJavaYJson() throws IOException {
+    final ObjectMapper json =
+        new Jackson2ObjectMapperBuilder().modulesToInstall(new ModuloModelo()).build();
+    final List<Usuario> usuarios = new ArrayList<>(VALORES);
+    long binario = 0;
+    long java = 0;
+    long jsonBytes = 0;
+    for (int i = 0; i < VALORES; i++) {
+      final Usuario usuario = usuario(random, false);
+      usuarios.add(usuario);
+      binario += CodecsModelo.USUARIO.codificar(usuario).length;
+      java += serializar(usuario).length;
+      jsonBytes += json.writeValueAsBytes(usuario).length;
+    }
+    assertThat(binario).as("uno a uno").isLessThan(java).isLessThan(jsonBytes);
+    assertThat(CodecsModelo.USUARIO.codificarTodos(usuarios).length).as("en lote")
+        .isLessThan(serializar(new ArrayList<>(usuarios)).length)
+        .isLessThan(json.writeValueAsBytes(usuarios).length);
+  }
+
+  private <T> void comprobar(final String tipo, final CodecBinario<T> codec,
+      final Generador<T> generador, final BiPredicate<T, T> iguales) {
+    final List<T> todos = new ArrayList<>(VALORES);
+    for (int i = 0; i < VALORES; i++) {
+      final T valor = generador.generar();
+      todos.add(valor);
+      final byte[] codificado = codec.codificar(valor);
+      final T leido = codec.decodificar(codificado);
+      if (!iguales.test(valor, leido)) {
+        errores.add(tipo + ": " + valor + " se lee como " + leido);
+      }
+      if ((i % 10) == 0) {
+        corromper(tipo, codec, codificado);
+      }
+    }
+    final List<T> leidos = codec.decodificarTodos(codec.codificarTodos(todos));
+    for (int i = 0; i < VALORES; i++) {
+      if (!iguales.test(todos.get(i), leidos.get(i))) {
+        errores.add(tipo + " en lote: " + todos.get(i) + " se lee como " + leidos.get(i));
+      }
+    }
+  }
+
+  /** Todos los prefijos han de fallar; un byte alterado puede fallar o leerse como otro valor */
+  private <T> void corromper(final String tipo, final CodecBinario<T> codec,
+      final byte[] codificado) {
+    for (int longitud = 0; longitud < codificado.length; longitud++) {
+      try {
+        final T leido = codec.decodificar(Arrays.copyOf(codificado, longitud));
+        errores.add(tipo + ": el prefijo de " + longitud + " bytes se lee como " + leido);
+      } catch (final IllegalArgumentException e) {
+        // Lo esperado
+      } catch (final RuntimeException e) {
+        errores.add(tipo + ": el prefijo de " + longitud + " bytes falla con " + e);
+      }
+    }
+    final byte[] alterado = codificado.clone();
+    alterado[random.nextInt(alterado.length)] ^= (byte) (1 + random.nextInt(255));
+    try {
+      codec.decodificar(alterado);
+    } catch (final IllegalArgumentException e) {
+      // Lo esperado, salvo que el byte alterado siga siendo válido
+    } catch (final RuntimeException e) {
+      errores.add(tipo + ": " + BaseEncoding.base16().encode(alterado) + " falla con " + e);
+    }
+  }
+
+  static byte[] serializar(final Serializable valor) throws IOException {
+    final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+      out.writeObject(valor);
+    }
+    return bytes.toByteArray();
+  }
+
+  /** {@link Usuario#sameValueAs(Usuario)} no compara el teléfono ni el email */
+  private static boolean iguales(final Usuario uno, final Usuario otro) {
+    return uno.sameValueAs(otro) && uno.telefono().equals(otro.telefono())
+        && uno.email().equals(otro.email());
+  }
+
+  static Usuario referencia() {
+    final UsuarioId id = new UsuarioId(12_345);
+    final Instant alta = Instant.parse("2018-04-01T10:15:30.123Z");
+    return Usuario.builder(id)
+        .withPersona(Persona.builder().withNombre("Jorge").withApellido1("García")
+            .withApellido2("Villanueva").build())
+        .withPerfil(Perfil.EXTERNO).withTelefono(Telefono.of("912345678"))
+        .withEmail(Email.of("ruz@foo.es")).withDatosAlta(new DatosCRUD(id, alta))
+        .withUltimaVisita(alta.plusSeconds(86_400).plusNanos(7000))
+        .withDatosUltimaModificacion(new DatosCRUD(new UsuarioId(1), alta.minusSeconds(15)))
+        .build();
+  }
+
+  /**
+   * @param extremos si los textos e instantes pueden ser de cualquier valor, o realistas.
+   */
+  static Usuario usuario(final SplittableRandom random, final boolean extremos) {
+    final UsuarioId id = new UsuarioId(extremos ? random.nextInt() : random.nextInt(5_000_000));
+    final Instant alta = extremos ? instante(random) : Instant.ofEpochMilli(
+        random.nextLong(1_300_000_000_000L, 1_600_000_000_000L));
+    final Usuario.Builder usuario = Usuario.builder(id).withPersona(persona(random, extremos))
+        .withPerfil(perfil(random)).withTelefono(telefono(random)).withEmail(email(random))
+        .withDatosAlta(new DatosCRUD(id, alta));
+    if (random.nextInt(10) < 9) {
+      usuario.withUltimaVisita(extremos ? instante(random)
+          : alta.plusMillis(random.nextLong(1, 200_000_000_000L)));
+    }
+    if (random.nextInt(10) == 0) {
+      usuario.withDatosBaja(new DatosCRUD(new UsuarioId(random.nextInt(1000)),
+          extremos ? instante(random) : alta.plusSeconds(random.nextLong(1, 200_000_000L))));
+    }
+    if (random.nextInt(3) == 0) {
+      usuario.withDatosUltimaModificacion(new DatosCRUD(new UsuarioId(random.nextInt(1000)),
+          extremos ? instante(random) : alta.plusSeconds(random.nextLong(1, 200_000_000L))));
+    }
+    return usuario.build();
+  }
+
+  private static Persona persona(final SplittableRandom random, final boolean extremos) {
+    final Function<SplittableRandom, String> texto =
+        extremos ? CodecModeloTest::texto : CodecModeloTest::nombre;
+    final Persona.Builder persona =
+        Persona.builder().withNombre(texto.apply(random)).withApellido1(texto.apply(random));
+    if (random.nextInt(4) != 0) {
+      persona.withApellido2(texto.apply(random));
+    }
+    return persona.build();
+  }
+
+  private static Direccion direccion(final SplittableRandom random) {
+    return Direccion.builder().withDireccion(texto(random))
+        .withCodigoPostal(random.nextInt(1, 100_000)).withPoblacion(texto(random))
+        .withProvincia(texto(random)).build();
+  }
+
+  private static Solicitud solicitud(final SplittableRandom random) {
+    return Solicitud.builder(new SolicitudId(random.nextInt())).withSolicitante(texto(random))
+        .withRepartir(random.nextBoolean()).build();
+  }
+
+  private static DatosCRUD datosCRUD(final SplittableRandom random) {
+    return new DatosCRUD(new UsuarioId(random.nextInt()), instante(random));
+  }
+
+  private static Perfil perfil(final SplittableRandom random) {
+    return Perfil.valueOf(CodecsModelo.PERFILES.get(random.nextInt(CodecsModelo.PERFILES.size())));
+  }
+
+  private static TipoCRUD tipoCRUD(final SplittableRandom random) {
+    return TipoCRUD
+        .valueOf(CodecsModelo.TIPOS_CRUD.get(random.nextInt(CodecsModelo.TIPOS_CRUD.size())));
+  }
+
+  private static Email email(final SplittableRandom random) {
+    return Email.of("usuario" + random.nextInt(1_000_000) + "@"
+        + DOMINIOS[random.nextInt(DOMINIOS.length)]);
+  }
+
+  private static Telefono telefono(final SplittableRandom random) {
+    return Telefono.of(Integer.toString(random.nextInt(100_000_000, 1_000_000_000)));
+  }
+
+  /** Instantes de todo el rango, con nanosegundos de cualquier precisión */
+  private static Instant instante(final SplittableRandom random) {
+    final long segundos = random.nextLong(Instant.MIN.getEpochSecond(),
+        Instant.MAX.getEpochSecond() + 1);
+    switch (random.nextInt(4)) {
+      case 0:
+        return Instant.ofEpochSecond(segundos);
+      case 1:
+        return Instant.ofEpochSecond(segundos, random.nextInt(1000) * 1_000_000L);
+      case 2:
+        return Instant.ofEpochSecond(segundos, random.nextInt(1_000_000) * 1000L);
+      default:
+        return Instant.ofEpochSecond(segundos, random.nextInt(1_000_000_000));
+    }
+  }
+
+  /** Texto de cualquier plano Unicode, sin sustitutos sueltos, de hasta 40 caracteres */
+  private static String texto(final SplittableRandom random) {
+    final StringBuilder texto = new StringBuilder();
+    final int longitud = random.nextInt(41);
+    while (texto.length() < longitud) {
+      final int codePoint;
+      switch (random.nextInt(4)) {
+        case 0:
+          codePoint = random.nextInt(0x80);
+          break;
+        case 1:
+          codePoint = random.nextInt(0x80, 0x800);
+          break;
+        case 2:
+          codePoint = random.nextInt(0x800, 0x10000);
+          break;
+        default:
+          codePoint = random.nextInt(0x10000, Character.MAX_CODE_POINT + 1);
+      }
+      if (!Character.isSurrogate((char) codePoint) || (codePoint >= 0x10000)) {
+        texto.appendCodePoint(codePoint);
+      }
+    }
+    return texto.toString();
+  }
+
+  private static String nombre(final SplittableRandom random) {
+    return NOMBRES[random.nextInt(NOMBRES.length)];
+  }
+
+  private static final String[] NOMBRES = {"Jorge", "María", "José", "Lucía", "Antonio",
+      "Carmen", "Íñigo", "Begoña", "García", "Fernández", "González", "Rodríguez", "López",
+      "Martínez", "Sánchez", "Pérez", "Gómez", "Martín", "Jiménez", "Ruiz", "Hernández", "Díaz",
+      "Moreno", "Muñoz", "Álvarez", "Romero", "Alonso", "Gutiérrez", "Navarro", "Torres"};
+  private static final String[] DOMINIOS = {"gmail.com", "hotmail.com", "empresa.es", "yahoo.es"};
+
+  @FunctionalInterface
+  private interface Generador<T> {
+    T generar();
+  }
+}
@@ -0,0 +1,60 @@
+package es.prueba.jorge.server.importacion;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.google.common.base.Strings;
+
+import java.time.Instant;
+
+import org.junit.Test;
+
+import es.prueba.jorge.model.DatosCRUD;
+import es.prueba.jorge.model.Persona;
+import es.prueba.jorge.model.UsuarioId;
+
+/**
+ * Pruebas de las longitudes de {@link DatosUsuario}, que se miden en bytes UTF-8 como las columnas
+ * {@code VARCHAR2} de Oracle.
+ *
+ * @author Jorge García Villanueva &lt;Jorgegv95@gmail.com&gt;
+ */
+@SuppressWarnings({"javadoc", "nls"})
+public class DatosUsuarioTest {
+  @Test
+  public void admiteHastaElMaximoDeBytes() {
+    assertThat(persona(Strings.repeat("a", 100), "García", null).nombre()).hasSize(100);
+    // 2 bytes por carácter
+    assertThat(persona("Jorge", Strings.repeat("ñ", 50), null).apellido1()).hasSize(50);
+    // 4 bytes por par sustituto
+    assertThat(persona("Jorge", "García", Strings.repeat("😀", 25)).apellido2().get())
+        .hasSize(50);
+  }
+
+  @Test
+  public void rechazaMasBytesQueLaColumna() {
+    assertThatThrownBy(() -> persona(Strings.repeat("a", 101), "García", null))
+        .isInstanceOf(IllegalArgumentException.class).hasMessageContaining("nombre")
+        .hasMessageContaining("100 bytes");
+    assertThatThrownBy(() -> persona("Jorge", Strings.repeat("ñ", 51), null))
+        .isInstanceOf(IllegalArgumentException.class).hasMessageContaining("apellido1");
+    // 34 caracteres, 102 bytes
+    assertThatThrownBy(() -> persona("Jorge", "García", Strings.repeat("€", 34)))
+        .isInstanceOf(IllegalArgumentException.class).hasMessageContaining("apellido2");
+  }
+
+  @Test
+  public void rechazaSustitutosSueltos() {
+    assertThatThrownBy(() -> persona(Strings.repeat("á", 40) + '\uD83D', "García", null))
+        .isInstanceOf(IllegalArgumentException.class).hasMessageContaining("nombre");
+  }
+
+  private static Persona persona(final String nombre, final String apellido1,
+      final String apellido2) {
+    final String[] campos = {nombre, apellido1, apellido2, "CLIENTE", "912345678",
+        "buzon@empresa.es"};
+    final UsuarioId id = new UsuarioId(1);
+    return DatosUsuario.of(campos).builder(id).withDatosAlta(new DatosCRUD(id, Instant.now()))
+        .build().persona();
+  }
+}
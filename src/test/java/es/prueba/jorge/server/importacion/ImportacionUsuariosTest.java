@@ -0,0 +1,193 @@
+package es.prueba.jorge.server.importacion;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.Nonnull;
+import javax.inject.Inject;
+import javax.sql.DataSource;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import es.prueba.jorge.model.DatosCRUD;
+import es.prueba.jorge.model.Usuario;
+import es.prueba.jorge.model.UsuarioId;
+import es.prueba.jorge.server.persistence.CheckpointRepository;
+import es.prueba.jorge.server.persistence.H2Oracle;
+import es.prueba.jorge.server.persistence.UsuarioRepository;
+
+/**
+ * Reanudación de {@link ImportacionUsuarios} contra {@link H2Oracle}, con los lotes validados en
+ * paralelo: una importación que se interrumpe a mitad de fichero se retoma desde su punto de
+ * control sin duplicar ni saltarse filas, y el fichero de errores lista las filas rechazadas.
+ *
+ * @author Jorge García Villanueva &lt;Jorgegv95@gmail.com&gt;
+ */
+@SuppressWarnings({"javadoc", "nls"})
+@RunWith(SpringRunner.class)
+@ContextConfiguration(classes = ImportacionUsuariosTest.H2OracleInterrumpible.class)
+public class ImportacionUsuariosTest {
+  /** Filas de datos del fichero, tras la cabecera */
+  static final int FILAS = (3 * ImportacionUsuarios.TAMANO_LOTE) + 500;
+  /** Filas sin nombre, en los lotes confirmados, el interrumpido y el último */
+  static final int[] RECHAZADAS = {10, 1500, 2500, 2501, 3300};
+  /** {@code insertAll} que falla, el del tercer lote */
+  static final int INTERRUPCION = 3;
+  static final int TELEFONO = 600_000_000;
+
+  @Configuration
+  static class H2OracleInterrumpible extends H2Oracle {
+    @Override
+    public UsuarioRepository usuarioRepository() {
+      return new Interrumpible(dataSource());
+    }
+  }
+
+  /** Repositorio cuyo {@code insertAll} número {@link #fallo()} falla, si es positivo */
+  static class Interrumpible extends UsuarioRepository {
+    Interrumpible(final DataSource dataSource) {
+      super(dataSource, 100);
+    }
+
+    /** {@code insertAll} que ha de fallar; un método porque el bean es un proxy */
+    public AtomicInteger fallo() {
+      return _fallo;
+    }
+
+    @Override
+    public void insertAll(@Nonnull final Collection<Usuario> usuarios) {
+      if (_fallo.decrementAndGet() == 0) {
+        throw new DataAccessResourceFailureException("Conexión perdida");
+      }
+      super.insertAll(usuarios);
+    }
+
+    private final AtomicInteger _fallo = new AtomicInteger();
+  }
+
+  @Rule
+  public final TemporaryFolder carpeta = new TemporaryFolder();
+
+  @Inject
+  private UsuarioRepository repository;
+  @Inject
+  private CheckpointRepository checkpoints;
+  @Inject
+  private PlatformTransactionManager transactionManager;
+
+  private final ExecutorService lectura = Executors.newSingleThreadExecutor();
+  private final ExecutorService validacion = Executors.newFixedThreadPool(4);
+
+  @After
+  public void tearDown() {
+    lectura.shutdownNow();
+    validacion.shutdownNow();
+  }
+
+  @Test
+  public void retomaDesdeElPuntoDeControl() throws IOException {
+    final Path fichero = fichero();
+    final Path errores = carpeta.getRoot().toPath().resolve("errores.tsv");
+    final ImportacionUsuarios importacion = new ImportacionUsuarios(repository, checkpoints,
+        transactionManager, lectura, validacion, 4);
+    final DatosCRUD alta = new DatosCRUD(new UsuarioId(1), Instant.now());
+
+    ((Interrumpible) repository).fallo().set(INTERRUPCION);
+    assertThatThrownBy(() -> importacion.importar(fichero, FormatoImportacion.CSV, errores, alta))
+        .isInstanceOf(DataAccessResourceFailureException.class);
+    // Los dos primeros lotes, el primero con la cabecera: filas 1 a 1999 salvo dos rechazadas
+    final long puntoDeControl = 2 * ImportacionUsuarios.TAMANO_LOTE;
+    assertThat(checkpoints.linea(clave(fichero))).isEqualTo(puntoDeControl);
+    assertThat(importadas()).hasSize((2 * ImportacionUsuarios.TAMANO_LOTE) - 1 - 2);
+
+    final ProgresoImportacion progreso =
+        importacion.importar(fichero, FormatoImportacion.CSV, errores, alta);
+
+    assertThat(progreso.desde()).isEqualTo(puntoDeControl);
+    assertThat(progreso.ultimaLinea()).isEqualTo(FILAS + 1);
+    final List<Integer> importadas = importadas();
+    final Set<Integer> esperadas = new TreeSet<>();
+    for (int fila = 1; fila <= FILAS; fila++) {
+      esperadas.add(Integer.valueOf(fila));
+    }
+    for (final int fila : RECHAZADAS) {
+      esperadas.remove(Integer.valueOf(fila));
+    }
+    // Sin duplicados ni huecos
+    assertThat(importadas).hasSameSizeAs(esperadas)
+        .containsExactlyInAnyOrderElementsOf(esperadas);
+
+    // Los rechazos del lote interrumpido se vuelcan antes de confirmar, y se repiten al retomarlo
+    final Set<Long> lineasRechazadas = new TreeSet<>();
+    for (final String rechazo : Files.readAllLines(errores, StandardCharsets.UTF_8)) {
+      final String[] partes = rechazo.split("\t", 3);
+      assertThat(partes).hasSize(3);
+      assertThat(partes[1]).contains("nombre");
+      lineasRechazadas.add(Long.valueOf(partes[0]));
+      assertThat(partes[2]).isEqualTo(linea(Integer.parseInt(partes[0]) - 1));
+    }
+    final Set<Long> esperadasRechazadas = new TreeSet<>();
+    for (final int fila : RECHAZADAS) {
+      esperadasRechazadas.add(Long.valueOf(fila + 1));
+    }
+    assertThat(lineasRechazadas).isEqualTo(esperadasRechazadas);
+  }
+
+  /** Fichero CSV con cabecera y {@value #FILAS} filas, la {@code n} en la línea {@code n+1} */
+  private Path fichero() throws IOException {
+    final List<String> lineas = new ArrayList<>(FILAS + 1);
+    lineas.add(String.join(",", FormatoImportacion.CAMPOS));
+    for (int fila = 1; fila <= FILAS; fila++) {
+      lineas.add(linea(fila));
+    }
+    return Files.write(carpeta.newFile("usuarios.csv").toPath(), lineas,
+        StandardCharsets.UTF_8);
+  }
+
+  private static String linea(final int fila) {
+    final String nombre = (Arrays.binarySearch(RECHAZADAS, fila) >= 0) ? "" : ("Nombre" + fila);
+    return nombre + ",Apellido,,CLIENTE," + (TELEFONO + fila) + ",buzon" + fila + "@empresa.es";
+  }
+
+  private static String clave(final Path fichero) {
+    return fichero.toAbsolutePath().normalize().toString();
+  }
+
+  /** Filas importadas, según el teléfono de cada {@code Usuario} */
+  private List<Integer> importadas() {
+    final List<Integer> filas = new ArrayList<>();
+    UsuarioId ultimo = null;
+    List<Usuario> pagina;
+    while (!(pagina = repository.findPage(ultimo, 1000)).isEmpty()) {
+      for (final Usuario usuario : pagina) {
+        filas.add(Integer.valueOf(Integer.parseInt(usuario.telefono().telefono()) - TELEFONO));
+      }
+      ultimo = pagina.get(pagina.size() - 1).identity();
+    }
+    return filas;
+  }
+}
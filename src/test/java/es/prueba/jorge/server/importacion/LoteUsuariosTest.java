@@ -0,0 +1,175 @@
+package es.prueba.jorge.server.importacion;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.google.common.util.concurrent.MoreExecutors;
+
+import java.io.IOException;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.Nonnull;
+import javax.inject.Inject;
+import javax.sql.DataSource;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import es.prueba.jorge.model.DatosCRUD;
+import es.prueba.jorge.model.TipoCRUD;
+import es.prueba.jorge.model.Usuario;
+import es.prueba.jorge.model.UsuarioId;
+import es.prueba.jorge.server.persistence.H2Oracle;
+import es.prueba.jorge.server.persistence.UsuarioRepository;
+
+/**
+ * Resultados por elemento de {@link LoteUsuarios} contra {@link H2Oracle} cuando la base de datos
+ * rechaza un elemento que ha pasado la validación.
+ *
+ * @author Jorge García Villanueva &lt;Jorgegv95@gmail.com&gt;
+ */
+@SuppressWarnings({"javadoc", "nls"})
+@RunWith(SpringRunner.class)
+@ContextConfiguration(classes = LoteUsuariosTest.Contexto.class)
+public class LoteUsuariosTest {
+  /** Nombre de los {@code Usuario}s que la base de datos rechaza */
+  static final String RECHAZADO = "Rechazado";
+  /** Nombre de los {@code Usuario}s cuya transacción falla fuera de la base de datos */
+  static final String SIN_DIARIO = "SinDiario";
+
+  @Configuration
+  static class Contexto extends H2Oracle {
+    @Override
+    public UsuarioRepository usuarioRepository() {
+      return new ConRechazos(dataSource());
+    }
+  }
+
+  /**
+   * Repositorio que rechaza las altas de {@value #RECHAZADO}, falla como el diario de auditoría sin
+   * espacio en las de {@value #SIN_DIARIO} y cuenta las demás.
+   */
+  static class ConRechazos extends UsuarioRepository {
+    ConRechazos(final DataSource dataSource) {
+      super(dataSource, 100);
+    }
+
+    /** Llamadas a {@link #insertAll(Collection)}; un método porque el bean es un proxy */
+    public AtomicInteger inserciones() {
+      return _inserciones;
+    }
+
+    @Override
+    public void insertAll(@Nonnull final Collection<Usuario> usuarios) {
+      _inserciones.incrementAndGet();
+      if (usuarios.stream().anyMatch(u -> RECHAZADO.equals(u.persona().nombre()))) {
+        throw new DataIntegrityViolationException("Valor demasiado largo");
+      }
+      if (usuarios.stream().anyMatch(u -> SIN_DIARIO.equals(u.persona().nombre()))) {
+        throw new UndeclaredThrowableException(new IOException("No queda espacio"));
+      }
+      super.insertAll(usuarios);
+    }
+
+    private final AtomicInteger _inserciones = new AtomicInteger();
+  }
+
+  @Inject
+  private UsuarioRepository repository;
+  @Inject
+  private PlatformTransactionManager transactionManager;
+
+  @Before
+  public void setUp() {
+    ((ConRechazos) repository).inserciones().set(0);
+  }
+
+  @Test
+  public void reintentaUnoAUnoLaTransaccionNoConfirmada() {
+    final List<Map<String, String>> lote = new ArrayList<>();
+    for (int i = 0; i < 5; i++) {
+      lote.add(usuario((i == 2) ? RECHAZADO : ("Nombre" + i), i));
+    }
+    // Rechazado en la validación, sin llegar a la base de datos
+    lote.add(usuario("", 5));
+
+    final List<ResultadoLote> resultados = lotes(0).escribir(lote, datos());
+
+    assertThat(resultados).hasSize(6);
+    for (final int i : new int[] {0, 1, 3, 4}) {
+      assertThat(resultados.get(i).tipo()).as("elemento %s", i).contains(TipoCRUD.ALTA);
+      assertThat(repository.findById(resultados.get(i).usuarioId().get())).isPresent();
+    }
+    assertThat(resultados.get(2).error().get()).startsWith("Transacción no confirmada")
+        .contains("Valor demasiado largo");
+    assertThat(repository.findById(resultados.get(2).usuarioId().get())).isEmpty();
+    assertThat(resultados.get(5).error().get()).doesNotContain("Transacción");
+    // El lote completo y luego cada uno de sus 5 elementos válidos
+    assertThat(((ConRechazos) repository).inserciones()).hasValue(6);
+  }
+
+  @Test
+  public void soloReintentaLasTransaccionesNoConfirmadas() {
+    final List<Map<String, String>> lote = new ArrayList<>();
+    for (int i = 0; i < 6; i++) {
+      lote.add(usuario((i == 4) ? RECHAZADO : ("Nombre" + i), i));
+    }
+
+    final List<ResultadoLote> resultados = lotes(3).escribir(lote, datos());
+
+    assertThat(resultados).filteredOn(ResultadoLote::correcto).hasSize(5);
+    assertThat(resultados.get(4).correcto()).isFalse();
+    // Una transacción de 3 confirmada, otra no confirmada y sus 3 elementos por separado
+    assertThat(((ConRechazos) repository).inserciones()).hasValue(5);
+  }
+
+  @Test
+  public void conservaLosResultadosSiFallaFueraDeLaBaseDeDatos() {
+    final List<Map<String, String>> lote = new ArrayList<>();
+    for (int i = 0; i < 6; i++) {
+      lote.add(usuario((i == 4) ? SIN_DIARIO : ("Nombre" + i), 10 + i));
+    }
+
+    final List<ResultadoLote> resultados = lotes(3).escribir(lote, datos());
+
+    assertThat(resultados).hasSize(6);
+    for (final int i : new int[] {0, 1, 2, 3, 5}) {
+      assertThat(resultados.get(i).tipo()).as("elemento %s", i).contains(TipoCRUD.ALTA);
+      assertThat(repository.findById(resultados.get(i).usuarioId().get())).isPresent();
+    }
+    assertThat(resultados.get(4).error().get()).startsWith("Transacción no confirmada")
+        .contains("No queda espacio");
+    assertThat(repository.findById(resultados.get(4).usuarioId().get())).isEmpty();
+  }
+
+  private LoteUsuarios lotes(final int tamanoTransaccion) {
+    return new LoteUsuarios(repository, transactionManager, MoreExecutors.directExecutor(), 1,
+        tamanoTransaccion, 1000);
+  }
+
+  private static DatosCRUD datos() {
+    return new DatosCRUD(new UsuarioId(1), Instant.now());
+  }
+
+  private static Map<String, String> usuario(final String nombre, final int i) {
+    final Map<String, String> usuario = new LinkedHashMap<>();
+    usuario.put("nombre", nombre);
+    usuario.put("apellido1", "Apellido");
+    usuario.put("perfil", "CLIENTE");
+    usuario.put("telefono", Integer.toString(600_000_000 + i));
+    usuario.put("email", "buzon" + i + "@empresa.es");
+    return usuario;
+  }
+}
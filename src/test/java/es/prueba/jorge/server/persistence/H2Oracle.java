@@ -0,0 +1,100 @@
+package es.prueba.jorge.server.persistence;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Properties;
+
+import javax.sql.DataSource;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+
+/**
+ * Contexto mínimo de persistencia para pruebas y mediciones: H2 en memoria en modo Oracle, con
+ * el esquema de {@code schema.sql} y las propiedades JPA de {@code application.properties}, sin
+ * arrancar la aplicación.
+ *
+ * @author Jorge García Villanueva &lt;Jorgegv95@gmail.com&gt;
+ */
+@SuppressWarnings({"javadoc", "nls"})
+@Configuration
+@EnableTransactionManagement
+public class H2Oracle {
+  @Bean
+  public DataSource dataSource() {
+    final JdbcDataSource h2 = new JdbcDataSource();
+    h2.setURL(url());
+    h2.setUser("sa");
+    new ResourceDatabasePopulator(new ClassPathResource("schema.sql")).execute(h2);
+    return envolver(h2);
+  }
+
+  @Bean
+  public LocalContainerEntityManagerFactoryBean entityManagerFactory() throws IOException {
+    final Properties jpa = new Properties();
+    final Properties application = application();
+    application.stringPropertyNames().stream()
+        .filter(name -> name.startsWith(JPA_PROPERTIES))
+        .forEach(name -> jpa.setProperty(name.substring(JPA_PROPERTIES.length()),
+            application.getProperty(name)));
+    jpa.setProperty("hibernate.hbm2ddl.auto", "validate");
+
+    final LocalContainerEntityManagerFactoryBean factory =
+        new LocalContainerEntityManagerFactoryBean();
+    factory.setDataSource(dataSource());
+    factory.setPackagesToScan(UsuarioJpa.class.getPackage().getName());
+    factory.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+    factory.setJpaProperties(jpa);
+    return factory;
+  }
+
+  @Bean
+  public PlatformTransactionManager transactionManager() throws IOException {
+    return new JpaTransactionManager(entityManagerFactory().getObject());
+  }
+
+  @Bean
+  public UsuarioRepository usuarioRepository() throws IOException {
+    return new UsuarioRepository(dataSource(),
+        Integer.parseInt(application().getProperty(JPA_PROPERTIES + "hibernate.jdbc.batch_size")));
+  }
+
+  @Bean
+  public CheckpointRepository checkpointRepository() {
+    return new CheckpointRepository(dataSource());
+  }
+
+  /**
+   * @return la URL de la base de datos, en memoria y con el nombre de la clase por defecto.
+   */
+  protected String url() {
+    return "jdbc:h2:mem:" + getClass().getSimpleName() + ";MODE=Oracle;DB_CLOSE_DELAY=-1";
+  }
+
+  /**
+   * @param dataSource de H2.
+   * @return el {@code DataSource} a utilizar, por ejemplo para instrumentarlo.
+   */
+  @SuppressWarnings("static-method")
+  protected DataSource envolver(final DataSource dataSource) {
+    return dataSource;
+  }
+
+  private static Properties application() throws IOException {
+    final Properties application = new Properties();
+    try (InputStream in = new ClassPathResource("application.properties").getInputStream()) {
+      application.load(in);
+    }
+    return application;
+  }
+
+  private static final String JPA_PROPERTIES = "spring.jpa.properties.";
+}
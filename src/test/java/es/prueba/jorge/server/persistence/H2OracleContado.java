@@ -0,0 +1,61 @@
+package es.prueba.jorge.server.persistence;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.sql.DataSource;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * {@link H2Oracle} con las sentencias JDBC contadas en el {@code Bean} {@link AtomicLong}. Cada
+ * {@code executeBatch} cuenta como una única ida y vuelta.
+ *
+ * @author Jorge García Villanueva &lt;Jorgegv95@gmail.com&gt;
+ */
+@SuppressWarnings("javadoc")
+@Configuration
+public class H2OracleContado extends H2Oracle {
+  @Bean
+  public AtomicLong ejecuciones() {
+    return new AtomicLong();
+  }
+
+  @Override
+  protected DataSource envolver(final DataSource dataSource) {
+    return contar(dataSource, DataSource.class, ejecuciones());
+  }
+
+  /**
+   * Envuelve los objetos JDBC para contar las sentencias ejecutadas.
+   */
+  static <T> T contar(final T target, final Class<T> type, final AtomicLong ejecuciones) {
+    final InvocationHandler handler = (proxy, method, args) -> {
+      if (method.getName().startsWith("execute")) { //$NON-NLS-1$
+        ejecuciones.incrementAndGet();
+      }
+      final Object result;
+      try {
+        result = method.invoke(target, args);
+      } catch (final InvocationTargetException e) {
+        throw e.getCause();
+      }
+      final Class<?> returned = method.getReturnType();
+      if ((returned == Connection.class) || Statement.class.isAssignableFrom(returned)) {
+        return contar(returned.cast(result), returnedType(returned), ejecuciones);
+      }
+      return result;
+    };
+    return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type}, handler));
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <T> Class<T> returnedType(final Class<?> type) {
+    return (Class<T>) type;
+  }
+}
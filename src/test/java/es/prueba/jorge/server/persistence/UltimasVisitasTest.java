@@ -0,0 +1,156 @@
+package es.prueba.jorge.server.persistence;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.inject.Inject;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import es.prueba.jorge.model.DatosCRUD;
+import es.prueba.jorge.model.Email;
+import es.prueba.jorge.model.Perfil;
+import es.prueba.jorge.model.Persona;
+import es.prueba.jorge.model.Telefono;
+import es.prueba.jorge.model.Usuario;
+import es.prueba.jorge.model.UsuarioId;
+import es.prueba.jorge.server.scheduling.InstrumentedScheduledExecutor;
+
+/**
+ * Control de regresión de la escritura diferida de la última visita con {@link UltimasVisitas}
+ * contra {@link H2OracleContado}.
+ * <p>
+ * Simula {@value #SEGUNDOS} segundos de un pico de {@value #VISITAS_POR_SEGUNDO} inicios de
+ * sesión por segundo de {@value #USUARIOS} {@code Usuario}s, con los intervalos de escritura por
+ * defecto, y comprueba que no hay más de una ejecución de sentencias JDBC por segundo y la del
+ * cierre (cada {@code executeBatch} es una única ida y vuelta), y que la última visita guardada de
+ * cada {@code Usuario} es la más reciente, también tras guardarlo con una anterior o cuando el
+ * planificador rechaza las escrituras anticipadas.
+ *
+ * @author Jorge García Villanueva &lt;Jorgegv95@gmail.com&gt;
+ */
+@SuppressWarnings({"javadoc", "nls"})
+@RunWith(SpringRunner.class)
+@ContextConfiguration(classes = H2OracleContado.class)
+public class UltimasVisitasTest {
+  static final int USUARIOS = 5_000;
+  static final int SEGUNDOS = 3;
+  static final int VISITAS_POR_SEGUNDO = 5_000;
+  static final Duration INTERVALO = Duration.ofSeconds(1);
+  static final int MAX_PENDIENTES = 10_000;
+
+  @Inject
+  private UsuarioRepository repository;
+  @Inject
+  private AtomicLong ejecuciones;
+
+  @Test
+  public void visitasAgrupadas() {
+    final List<UsuarioId> ids = alta(USUARIOS);
+    final UsuarioCache cache = new UsuarioCache(repository, USUARIOS, Duration.ofHours(1));
+    final ScheduledExecutorService scheduler = new InstrumentedScheduledExecutor("io", 2);
+
+    final Instant[] ultimas = new Instant[USUARIOS];
+    final Instant base = Instant.now();
+    final long visitas = (long) SEGUNDOS * VISITAS_POR_SEGUNDO;
+    final long nanosPorVisita = TimeUnit.SECONDS.toNanos(1) / VISITAS_POR_SEGUNDO;
+    ejecuciones.set(0);
+    final long inicio = System.nanoTime();
+    final UltimasVisitas ultimasVisitas =
+        new UltimasVisitas(repository, cache, scheduler, INTERVALO, MAX_PENDIENTES);
+    try {
+      for (long v = 0; v < visitas; v++) {
+        while ((System.nanoTime() - inicio) < (v * nanosPorVisita)) {
+          Thread.yield();
+        }
+        // Instantes crecientes, distintos aunque el reloj no avance y a veces desordenados
+        final Instant instante = base.plusNanos(v * 1_000).minusMillis(
+            ThreadLocalRandom.current().nextInt(4) == 0 ? 1 : 0);
+        final int i = ThreadLocalRandom.current().nextInt(USUARIOS);
+        ultimasVisitas.registrar(ids.get(i), instante);
+        if ((ultimas[i] == null) || ultimas[i].isBefore(instante)) {
+          ultimas[i] = instante;
+        }
+      }
+    } finally {
+      ultimasVisitas.close();
+      scheduler.shutdown();
+    }
+    final long segundos = TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - inicio);
+
+    assertThat(ejecuciones.get()).isLessThanOrEqualTo(segundos + 1);
+    for (int i = 0; i < USUARIOS; i++) {
+      assertThat(repository.findById(ids.get(i)).get().ultimaVisita())
+          .as("Última visita de %s", ids.get(i)).isEqualTo(Optional.ofNullable(ultimas[i]));
+    }
+  }
+
+  @Test
+  public void saveNoRetrocedeLaUltimaVisita() {
+    final UsuarioId id = alta(1).get(0);
+    final Usuario anterior = repository.findById(id).get();
+    final Instant visita = Instant.now();
+    repository.updateUltimaVisita(Collections.singletonMap(id, visita));
+
+    repository.save(anterior);
+    assertThat(repository.findById(id).get().ultimaVisita()).contains(visita);
+
+    repository.save(Usuario.builder(id).withPersona(anterior.persona())
+        .withPerfil(anterior.perfil()).withTelefono(anterior.telefono())
+        .withEmail(anterior.email()).withDatosAlta(anterior.alta())
+        .withUltimaVisita(visita.minusSeconds(60)).build());
+    assertThat(repository.findById(id).get().ultimaVisita()).contains(visita);
+  }
+
+  @Test
+  public void escrituraAnticipadaRechazada() {
+    final List<UsuarioId> ids = alta(2);
+    final UsuarioCache cache = new UsuarioCache(repository, USUARIOS, Duration.ofHours(1));
+    final ScheduledExecutorService scheduler = new InstrumentedScheduledExecutor("io", 1);
+    final UltimasVisitas ultimasVisitas =
+        new UltimasVisitas(repository, cache, scheduler, Duration.ofHours(1), 1);
+    scheduler.shutdown();
+    try {
+      for (final UsuarioId id : ids) {
+        final Instant visita = Instant.now();
+        ultimasVisitas.registrar(id, visita);
+        assertThat(ultimasVisitas.pendientes()).isZero();
+        assertThat(repository.findById(id).get().ultimaVisita()).contains(visita);
+      }
+    } finally {
+      ultimasVisitas.close();
+    }
+  }
+
+  /** Da de alta {@code numero} {@code Usuario}s sin última visita */
+  private List<UsuarioId> alta(final int numero) {
+    final Persona persona =
+        Persona.builder().withNombre("Nombre").withApellido1("Apellido").build();
+    final Instant now = Instant.now();
+    final List<Usuario> usuarios = new ArrayList<>(numero);
+    final List<UsuarioId> ids = new ArrayList<>(numero);
+    for (int i = 0; i < numero; i++) {
+      final UsuarioId id = repository.nextId();
+      usuarios.add(Usuario.builder(id).withPersona(persona).withPerfil(Perfil.CLIENTE)
+          .withEmail(Email.of("visita" + id.id() + "@empresa.es"))
+          .withTelefono(Telefono.of(Integer.toString(700_000_000 + id.id())))
+          .withDatosAlta(new DatosCRUD(id, now)).build());
+      ids.add(id);
+    }
+    repository.insertAll(usuarios);
+    return ids;
+  }
+}
@@ -0,0 +1,79 @@
+package es.prueba.jorge.server.persistence;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.inject.Inject;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import es.prueba.jorge.model.DatosCRUD;
+import es.prueba.jorge.model.Email;
+import es.prueba.jorge.model.Perfil;
+import es.prueba.jorge.model.Persona;
+import es.prueba.jorge.model.Telefono;
+import es.prueba.jorge.model.Usuario;
+import es.prueba.jorge.model.UsuarioId;
+
+/**
+ * Control de regresión de las idas y vueltas a base de datos al dar de alta {@link Usuario}s.
+ * <p>
+ * Da de alta {@value #USUARIOS} {@code Usuario}s con {@link UsuarioRepository} contra
+ * {@link H2OracleContado} y comprueba que las ejecuciones de sentencias JDBC no superan
+ * {@link #MAX_IDAS_Y_VUELTAS}, y que los {@code Usuario}s se leen tal como se guardaron.
+ *
+ * @author Jorge García Villanueva &lt;Jorgegv95@gmail.com&gt;
+ */
+@SuppressWarnings({"javadoc", "nls"})
+@RunWith(SpringRunner.class)
+@ContextConfiguration(classes = H2OracleContado.class)
+public class UsuarioBatchInsertTest {
+  static final int USUARIOS = 10_000;
+  /** Un {@code NEXTVAL} y un <i>batch</i> de inserciones por cada 100 {@code Usuario}s. */
+  static final long MAX_IDAS_Y_VUELTAS = 2 * ((USUARIOS / 100) + 1);
+
+  @Inject
+  private UsuarioRepository repository;
+  @Inject
+  private AtomicLong ejecuciones;
+
+  @Test
+  public void altasAgrupadas() {
+    final Persona persona =
+        Persona.builder().withNombre("Nombre").withApellido1("Apellido").build();
+    final Instant now = Instant.now();
+    ejecuciones.set(0);
+    final List<Usuario> usuarios = new ArrayList<>(USUARIOS);
+    for (int i = 0; i < USUARIOS; i++) {
+      final UsuarioId id = repository.nextId();
+      usuarios.add(Usuario.builder(id).withPersona(persona).withPerfil(Perfil.CLIENTE)
+          .withEmail(Email.of("buzon" + i + "@empresa.es"))
+          .withTelefono(Telefono.of(Integer.toString(600_000_000 + i))).withUltimaVisita(now)
+          .withDatosAlta(new DatosCRUD(id, now)).build());
+    }
+    repository.insertAll(usuarios);
+    assertThat(ejecuciones.get()).as("idas y vueltas").isLessThanOrEqualTo(MAX_IDAS_Y_VUELTAS);
+
+    final Usuario primero = usuarios.get(0);
+    final Usuario baja = Usuario.builder(primero.identity()).withPersona(primero.persona())
+        .withPerfil(Perfil.EXTERNO).withEmail(primero.email()).withTelefono(primero.telefono())
+        .withUltimaVisita(now).withDatosAlta(primero.alta())
+        .withDatosBaja(new DatosCRUD(primero.identity(), now))
+        .withDatosUltimaModificacion(new DatosCRUD(primero.identity(), now)).build();
+    repository.save(baja);
+
+    for (final Usuario usuario : new Usuario[] {baja, usuarios.get(USUARIOS - 1)}) {
+      final Usuario leido = repository.findById(usuario.identity()).get();
+      assertThat(leido.sameValueAs(usuario)).as("%s leído como %s", usuario, leido).isTrue();
+      assertThat(leido.email()).isEqualTo(usuario.email());
+      assertThat(leido.telefono()).isEqualTo(usuario.telefono());
+    }
+  }
+}
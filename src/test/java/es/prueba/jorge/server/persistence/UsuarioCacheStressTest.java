@@ -0,0 +1,170 @@
+package es.prueba.jorge.server.persistence;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.inject.Inject;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import es.prueba.jorge.model.DatosCRUD;
+import es.prueba.jorge.model.Email;
+import es.prueba.jorge.model.Perfil;
+import es.prueba.jorge.model.Persona;
+import es.prueba.jorge.model.Telefono;
+import es.prueba.jorge.model.Usuario;
+import es.prueba.jorge.model.UsuarioId;
+
+/**
+ * Prueba de estrés de la invalidación de {@link UsuarioCache} contra {@link H2Oracle}.
+ * <p>
+ * Varios escritores modifican {@value #USUARIOS} {@code Usuario}s, guardando en el teléfono un
+ * número de versión creciente, mientras varios lectores los piden a la caché sin parar. El
+ * cargador de la caché espera un tiempo aleatorio después de leer de la base de datos, de modo
+ * que muchas modificaciones se confirman mientras hay una carga en vuelo con el estado anterior.
+ * La caducidad es de una hora, así que sólo la invalidación puede refrescar las entradas.
+ * <p>
+ * Cada {@code Usuario} lo modifica un único escritor, que hace {@value #ESCRITURAS} {@code save}s
+ * y tras cada uno lee el {@code Usuario} de la caché y exige la versión que acaba de guardar: una
+ * versión anterior sería una entrada obsoleta resucitada por un cargador lento. Al terminar se
+ * compara además cada entrada de la caché con la base de datos.
+ *
+ * @author Jorge García Villanueva &lt;Jorgegv95@gmail.com&gt;
+ */
+@SuppressWarnings({"javadoc", "nls"})
+@RunWith(SpringRunner.class)
+@ContextConfiguration(classes = UsuarioCacheStressTest.H2OracleConCache.class)
+public class UsuarioCacheStressTest {
+  static final int USUARIOS = 64;
+  static final int ESCRITORES = 4;
+  static final int LECTORES = 8;
+  /** Escrituras de cada escritor */
+  static final int ESCRITURAS = 500;
+  /** Espera máxima del cargador tras leer de la base de datos */
+  static final long MAX_ESPERA_CARGA_MICROS = 2_000;
+
+  @Inject
+  private UsuarioRepository repository;
+  @Inject
+  private UsuarioCache cache;
+
+  @Test
+  public void sinEntradasObsoletas() throws Exception {
+    final List<Usuario> usuarios = new ArrayList<>(USUARIOS);
+    for (int i = 0; i < USUARIOS; i++) {
+      usuarios.add(version(repository.nextId(), 0));
+    }
+    repository.insertAll(usuarios);
+
+    final AtomicBoolean parar = new AtomicBoolean();
+    final LongAdder lecturas = new LongAdder();
+    final ExecutorService executor = Executors.newFixedThreadPool(ESCRITORES + LECTORES);
+    final List<Future<List<String>>> escritores = new ArrayList<>();
+    final List<Future<?>> lectores = new ArrayList<>();
+    try {
+      for (int e = 0; e < ESCRITORES; e++) {
+        final int escritor = e;
+        escritores.add(executor.submit(() -> {
+          final List<String> obsoletas = new ArrayList<>();
+          final int[] versiones = new int[USUARIOS];
+          for (int n = 0; n < ESCRITURAS; n++) {
+            final int i = escritor
+                + (ESCRITORES * ThreadLocalRandom.current().nextInt(USUARIOS / ESCRITORES));
+            final UsuarioId id = usuarios.get(i).identity();
+            final int version = ++versiones[i];
+            repository.save(version(id, version));
+            final int leida = version(cache.get(id).get());
+            if (leida != version) {
+              obsoletas.add(String.format("%s: guardada la versión %d y leída de la caché la %d",
+                  id, version, leida));
+            }
+          }
+          return obsoletas;
+        }));
+      }
+      for (int l = 0; l < LECTORES; l++) {
+        lectores.add(executor.submit(() -> {
+          while (!parar.get()) {
+            cache.get(usuarios.get(ThreadLocalRandom.current().nextInt(USUARIOS)).identity());
+            lecturas.increment();
+          }
+          return null;
+        }));
+      }
+      final List<String> obsoletas = new ArrayList<>();
+      for (final Future<List<String>> escritor : escritores) {
+        obsoletas.addAll(escritor.get());
+      }
+      parar.set(true);
+      for (final Future<?> lector : lectores) {
+        lector.get();
+      }
+      assertThat(obsoletas).isEmpty();
+      assertThat(lecturas.sum()).isPositive();
+    } finally {
+      parar.set(true);
+      executor.shutdownNow();
+    }
+
+    for (final Usuario usuario : usuarios) {
+      assertThat(version(cache.get(usuario.identity()).get()))
+          .as("Versión de %s en caché", usuario.identity())
+          .isEqualTo(version(repository.findById(usuario.identity()).get()));
+    }
+  }
+
+  private static Usuario version(final UsuarioId id, final int version) {
+    final Usuario.Builder builder = Usuario.builder(id)
+        .withPersona(Persona.builder().withNombre("Nombre").withApellido1("Apellido").build())
+        .withPerfil(Perfil.CLIENTE).withEmail(Email.of("buzon" + id.id() + "@empresa.es"))
+        .withTelefono(Telefono.of(Integer.toString(600_000_000 + version)))
+        .withDatosAlta(new DatosCRUD(id, ALTA));
+    return ((version == 0) ? builder
+        : builder.withDatosUltimaModificacion(new DatosCRUD(id, Instant.now()))).build();
+  }
+
+  private static final Instant ALTA = Instant.now();
+
+  private static int version(final Usuario usuario) {
+    return Integer.parseInt(usuario.telefono().telefono()) - 600_000_000;
+  }
+
+  /**
+   * {@link H2Oracle} con una {@link UsuarioCache} cuyo cargador espera tras leer.
+   */
+  @Configuration
+  public static class H2OracleConCache extends H2Oracle {
+    @Bean
+    public UsuarioCache usuarioCache() throws IOException {
+      final UsuarioRepository usuarios = usuarioRepository();
+      return new UsuarioCache(id -> {
+        final Optional<Usuario> usuario = usuarios.findById(id);
+        try {
+          TimeUnit.MICROSECONDS
+              .sleep(ThreadLocalRandom.current().nextLong(MAX_ESPERA_CARGA_MICROS));
+        } catch (final InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        return usuario;
+      }, 1_000, Duration.ofHours(1));
+    }
+  }
+}